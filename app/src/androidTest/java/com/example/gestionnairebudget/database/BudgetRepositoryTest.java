@@ -0,0 +1,120 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Executeurs partages des activites : le nombre de fils ne depend pas
+ * du nombre d'actions, et les ecritures passent une a une, dans l'ordre.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BudgetRepositoryTest {
+
+    private static final int ACTIONS = 500;
+
+    private final ConfigurationBase config = ConfigurationBase.parDefaut();
+    private AppDatabase database;
+    private BudgetRepository repository;
+    private int userId;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryExecutor(config.creerExecuteurRequetes())
+                .setTransactionExecutor(config.creerExecuteurTransactions())
+                .build();
+        repository = new BudgetRepository(database,
+                database.getQueryExecutor(), database.getTransactionExecutor());
+
+        userId = (int) database.userDao().inserer(
+                new UserEntity("Test", "repository@test.cm", "secret", "", "Douala"));
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void nombreDeFilsBorne() throws InterruptedException {
+        Set<String> lecteurs = Collections.synchronizedSet(new HashSet<>());
+        Set<String> ecrivains = Collections.synchronizedSet(new HashSet<>());
+        CountDownLatch fin = new CountDownLatch(2 * ACTIONS);
+
+        for (int i = 0; i < ACTIONS; i++) {
+            repository.ajouterDepense(depense(i));
+            repository.ecrire(() -> {
+                ecrivains.add(Thread.currentThread().getName());
+                fin.countDown();
+            });
+            repository.lire(() -> {
+                database.depenseDao().getNombreTotalDepenses(userId);
+                lecteurs.add(Thread.currentThread().getName());
+                fin.countDown();
+            });
+        }
+
+        assertTrue(fin.await(60, TimeUnit.SECONDS));
+        assertEquals(1, ecrivains.size());
+        assertTrue(lecteurs.size() <= config.getNombreLecteurs());
+        assertEquals(ACTIONS, database.depenseDao().getNombreTotalDepenses(userId));
+    }
+
+    @Test
+    public void ecrituresDansLOrdre() throws InterruptedException {
+        List<Integer> ordre = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch fin = new CountDownLatch(1);
+
+        for (int i = 0; i < ACTIONS; i++) {
+            int rang = i;
+            repository.ecrire(() -> ordre.add(rang));
+        }
+        repository.ecrire(fin::countDown);
+
+        assertTrue(fin.await(30, TimeUnit.SECONDS));
+        assertEquals(ACTIONS, ordre.size());
+        for (int i = 0; i < ACTIONS; i++) {
+            assertEquals(i, (int) ordre.get(i));
+        }
+    }
+
+    @Test
+    public void suiteDeLAjout_voitLaDepense() throws InterruptedException {
+        int[] nombre = { -1 };
+        CountDownLatch fin = new CountDownLatch(1);
+
+        // Comme MainActivity : la suite relance une lecture sur le pool
+        repository.ajouterDepense(depense(0), () -> repository.lire(() -> {
+            nombre[0] = database.depenseDao().getNombreTotalDepenses(userId);
+            fin.countDown();
+        }));
+
+        assertTrue(fin.await(30, TimeUnit.SECONDS));
+        assertEquals(1, nombre[0]);
+    }
+
+    private DepenseEntity depense(int i) {
+        return new DepenseEntity(userId, "Nutrition", "Depense " + i, 1000 + i,
+                System.currentTimeMillis(), "", 1, 1, 1, 2026);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.utils.CompactionRapports;
+import com.example.gestionnairebudget.utils.DonneesRapport;
+import com.example.gestionnairebudget.utils.RenduRapport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compaction des rapports : retention par type, archivage des anciens
+ * rapports (toujours lisibles) et recuperation de l'espace
+ */
+@RunWith(AndroidJUnit4.class)
+public class CompactionRapportsTest {
+
+    private static final int USER_ID = 1;
+    private static final long MAINTENANT = 1_790_000_000_000L;
+
+    private AppDatabase database;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void retention_parType() {
+        for (int jours = 0; jours < 1000; jours += 10) {
+            inserer("JOURNALIER", jours, jours);
+            inserer("HEBDOMADAIRE", jours, jours);
+            inserer("MENSUEL", jours, jours);
+        }
+
+        CompactionRapports compaction = new CompactionRapports(database, 50);
+        int supprimes = compaction.appliquerRetention(MAINTENANT);
+
+        // Journaliers : 0..80 gardes (9) ; hebdomadaires : 0..720 gardes (73)
+        assertEquals((100 - 9) + (100 - 73), supprimes);
+        assertEquals(9 + 73 + 100, database.rapportDao().getTousLesRapports(USER_ID).size());
+        assertEquals(0, compaction.appliquerRetention(MAINTENANT));
+    }
+
+    @Test
+    public void archivage_parLots_rapportsToujoursLisibles() {
+        for (int jours = 0; jours < 500; jours++) {
+            inserer("MENSUEL", jours, jours);
+        }
+        String texteAvant = RenduRapport.rendre(database.rapportDao().getRapport(USER_ID, 400));
+
+        CompactionRapports compaction = new CompactionRapports(database, 50);
+        int lots = 0;
+        while (compaction.archiverLotSuivant(MAINTENANT)) {
+            lots++;
+        }
+        assertTrue("L'archivage doit se faire en plusieurs lots", lots > 1);
+        assertFalse(compaction.archiverLotSuivant(MAINTENANT));
+
+        List<RapportEntity> rapports = database.rapportDao().getTousLesRapports(USER_ID);
+        int archives = 0;
+        for (RapportEntity r : rapports) {
+            long age = MAINTENANT - r.getDateCreation();
+            boolean archive = DonneesRapport.estArchive(r.getDonnees());
+            assertEquals(age > TimeUnit.DAYS.toMillis(CompactionRapports.JOURS_AVANT_ARCHIVAGE), archive);
+            if (archive) {
+                archives++;
+            }
+        }
+        assertEquals(500 - 90, archives);
+        assertEquals(texteAvant, RenduRapport.rendre(database.rapportDao().getRapport(USER_ID, 400)));
+    }
+
+    @Test
+    public void archivage_textesDAvantV9_compressesEtToujoursLisibles() {
+        for (int jours = 0; jours < 300; jours++) {
+            insererAncien(jours, jours);
+        }
+        long limite = MAINTENANT - TimeUnit.DAYS.toMillis(CompactionRapports.JOURS_AVANT_ARCHIVAGE);
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        long octetsAvant = octetsCorps(db, limite);
+        String texteAvant = RenduRapport.rendre(database.rapportDao().getRapport(USER_ID, 200));
+
+        CompactionRapports compaction = new CompactionRapports(database, 50);
+        while (compaction.archiverLotSuivant(MAINTENANT)) {
+            // Lots suivants
+        }
+
+        int archives = 0;
+        for (RapportEntity r : database.rapportDao().getTousLesRapports(USER_ID)) {
+            boolean ancien = r.getDateCreation() < limite;
+            assertEquals(ancien, r.getContenuRapport() == null);
+            assertEquals(ancien, r.getDonnees() != null
+                    && DonneesRapport.estTexteArchive(r.getDonnees()));
+            if (ancien) {
+                archives++;
+            }
+        }
+        assertEquals(300 - 90, archives);
+
+        long octetsApres = octetsCorps(db, limite);
+        assertTrue(octetsApres + " octets contre " + octetsAvant, octetsApres * 10 < octetsAvant * 8);
+        assertEquals(texteAvant, RenduRapport.rendre(database.rapportDao().getRapport(USER_ID, 200)));
+
+        // Texte archive : jamais pris pour des donnees de synthese
+        assertTrue(database.rapportDao().getSyntheses(USER_ID, 0, 300).isEmpty());
+    }
+
+    @Test
+    public void recupererEspace_passeEnVacuumIncremental() {
+        CompactionRapports compaction = new CompactionRapports(database, 50);
+        compaction.recupererEspace();
+        compaction.recupererEspace();
+
+        try (Cursor c = database.getOpenHelper().getWritableDatabase().query("PRAGMA auto_vacuum")) {
+            assertTrue(c.moveToFirst());
+            assertEquals(2, c.getInt(0));
+        }
+    }
+
+    /**
+     * Rapport mensuel d'avant la v9 : texte complet, sans donnees
+     */
+    private void insererAncien(int jours, int cle) {
+        RapportEntity structure = new RapportEntity(USER_ID, "MENSUEL",
+                MAINTENANT - TimeUnit.DAYS.toMillis(jours) - 1, "01/01/2026 23:59",
+                1, 1, 1, 2026, 25000000L, 20000000L + cle, 5000000L - cle, 12,
+                new DonneesRapport(18000000L, Arrays.asList(
+                        new TotalCategorie("Loyer", 15000000L, 1),
+                        new TotalCategorie("Nutrition", 4000000L + cle, 9),
+                        new TotalCategorie("Transport", 1000000L, 2))).encoder(),
+                11.1);
+        String texte = RenduRapport.rendre(structure);
+
+        RapportEntity r = new RapportEntity(USER_ID, "MENSUEL", structure.getDateCreation(),
+                "01/01/2026 23:59", 1, 1, 1, 2026, 25000000L, 20000000L + cle,
+                5000000L - cle, 12, null, 11.1);
+        r.setContenuRapport(texte);
+        r.setDebutPeriode(cle);
+        r.setFinPeriode(cle + 1);
+        database.rapportDao().inserer(r);
+    }
+
+    /**
+     * Octets des corps (texte en clair + donnees) des rapports crees
+     * avant "limite"
+     */
+    private static long octetsCorps(SupportSQLiteDatabase db, long limite) {
+        try (Cursor c = db.query("SELECT SUM(IFNULL(length(CAST(contenuRapport AS BLOB)), 0) "
+                + "+ IFNULL(length(donnees), 0)) FROM rapports WHERE dateCreation < ?",
+                new Object[]{limite})) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+
+    /**
+     * Rapport cree il y a "jours" jours, cle de periode unique "cle"
+     */
+    private void inserer(String type, int jours, int cle) {
+        RapportEntity r = new RapportEntity(USER_ID, type,
+                MAINTENANT - TimeUnit.DAYS.toMillis(jours) - 1, "01/01/2026 23:59",
+                1, 1, 1, 2026, 25000000L, 20000000L, 5000000L, 12,
+                new DonneesRapport(18000000L, Arrays.asList(
+                        new TotalCategorie("Loyer", 15000000L, 1),
+                        new TotalCategorie("Nutrition", 4000000L, 9),
+                        new TotalCategorie("Transport", 1000000L, 2))).encoder(),
+                11.1);
+        r.setDebutPeriode(cle);
+        r.setFinPeriode(cle + 1);
+        database.rapportDao().inserer(r);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.utils.RapportGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mesure la latence d'insertion d'une depense pendant qu'un
+ * rapport mensuel tourne en boucle sur un gros volume.
+ *
+ * En WAL, le lecteur ne bloque pas l'ecrivain : le 95e centile
+ * sous charge doit rester proche de celui mesure a vide.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrenceEcritureBenchmarkTest {
+
+    private static final String NOM_BASE = "benchmark_concurrence_db";
+    private static final int USER_ID = 1;
+    private static final int NOMBRE_DEPENSES = 200_000;
+    private static final int NOMBRE_MESURES = 300;
+
+    private static final String[] CATEGORIES = {
+            "Nourriture", "Transport", "Loisirs", "Sante", "Factures", "Autres"
+    };
+
+    private Context context;
+    private AppDatabase database;
+
+    @Before
+    public void ouvrirBase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(NOM_BASE);
+        database = AppDatabase.creer(context, NOM_BASE, ConfigurationBase.parDefaut());
+        remplir();
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+        context.deleteDatabase(NOM_BASE);
+    }
+
+    @Test
+    public void insertionsRestentRapidesPendantUnRapportMensuel() throws Exception {
+        long[] aVide = mesurerInsertions();
+
+        AtomicBoolean arret = new AtomicBoolean(false);
+        AtomicInteger rapports = new AtomicInteger();
+        Thread lecteur = new Thread(() -> {
+            RapportGenerator generator = new RapportGenerator(database, USER_ID, 50_000_000L);
+            Calendar cal = Calendar.getInstance();
+            int mois = cal.get(Calendar.MONTH) + 1;
+            int annee = cal.get(Calendar.YEAR);
+            while (!arret.get()) {
+                generator.genererRapportMensuel();
+                // Lecture lourde sur la table brute, pour charger SQLite
+                database.depenseDao().getTotauxCategoriesMois(USER_ID, mois, annee);
+                rapports.incrementAndGet();
+            }
+        });
+        lecteur.start();
+
+        long[] sousCharge;
+        try {
+            sousCharge = mesurerInsertions();
+        } finally {
+            arret.set(true);
+            lecteur.join();
+        }
+
+        long p95AVide = centile(aVide, 95);
+        long p95SousCharge = centile(sousCharge, 95);
+        String resume = "p95 a vide = " + p95AVide / 1000 + " us, sous charge = "
+                + p95SousCharge / 1000 + " us, rapports = " + rapports.get();
+        Log.i("BenchmarkConcurrence", resume);
+
+        assertTrue("Aucun rapport genere pendant la mesure", rapports.get() > 0);
+        // Marge large : on detecte un blocage, pas le bruit de mesure
+        assertTrue("Insertions bloquees par la lecture : " + resume,
+                p95SousCharge <= Math.max(p95AVide * 3, p95AVide + 5_000_000L));
+    }
+
+    /**
+     * Gros volume de depenses sur les 12 derniers mois
+     */
+    private void remplir() {
+        Calendar cal = Calendar.getInstance();
+        List<DepenseEntity> lot = new ArrayList<>();
+        for (int i = 0; i < NOMBRE_DEPENSES; i++) {
+            cal.setTimeInMillis(System.currentTimeMillis() - (i % 365) * 86_400_000L);
+            lot.add(nouvelleDepense(cal, i));
+            if (lot.size() == 5000) {
+                database.depenseDao().insererTout(lot);
+                lot.clear();
+            }
+        }
+        database.depenseDao().insererTout(lot);
+    }
+
+    private long[] mesurerInsertions() {
+        Calendar cal = Calendar.getInstance();
+        long[] durees = new long[NOMBRE_MESURES];
+        for (int i = 0; i < NOMBRE_MESURES; i++) {
+            DepenseEntity depense = nouvelleDepense(cal, i);
+            long debut = System.nanoTime();
+            database.depenseDao().inserer(depense);
+            durees[i] = System.nanoTime() - debut;
+        }
+        return durees;
+    }
+
+    private static DepenseEntity nouvelleDepense(Calendar cal, int i) {
+        return new DepenseEntity(USER_ID, CATEGORIES[i % CATEGORIES.length],
+                "Depense " + i, 100 + (i % 900), cal.getTimeInMillis(), "",
+                cal.get(Calendar.DAY_OF_MONTH), cal.get(Calendar.WEEK_OF_YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.YEAR));
+    }
+
+    private static long centile(long[] valeurs, int centile) {
+        long[] tri = valeurs.clone();
+        Arrays.sort(tri);
+        int index = Math.min(tri.length - 1, tri.length * centile / 100);
+        return tri[index];
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifie que chaque requete de DepenseDao cherche dans un index.
+ *
+ * Le SQL n'est pas recopie ici : chaque methode @Query de DepenseDao
+ * est appelee (sur une base vide) et sa requete est recuperee par le
+ * QueryCallback de Room. Une requete modifiee dans le DAO est donc
+ * verifiee telle quelle.
+ *
+ * "EXPLAIN QUERY PLAN" doit donner "SEARCH depenses USING ... INDEX"
+ * pour chaque acces a la table. Un "SCAN depenses" echoue, meme avec
+ * "USING INDEX" : c'est un parcours complet de l'index.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DepenseDaoPlanRequeteTest {
+
+    private AppDatabase database;
+    private final List<String> requetes = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean capture;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryCallback((sql, arguments) -> {
+                    if (capture) {
+                        requetes.add(sql);
+                    }
+                }, Runnable::run)
+                .build();
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void chaqueRequeteChercheDansUnIndex() throws Exception {
+        List<String> methodes = new ArrayList<>();
+        for (Method m : methodesRequetes()) {
+            int avant = requetes.size();
+            capture = true;
+            m.invoke(database.depenseDao(), arguments(m));
+            capture = false;
+
+            boolean trouvee = false;
+            for (String sql : requetes.subList(avant, requetes.size())) {
+                trouvee |= estRequeteDepenses(sql);
+            }
+            assertTrue("Aucune requete sur depenses pour " + m.getName(), trouvee);
+            methodes.add(m.getName());
+        }
+        // Garde-fou : la reflexion a bien trouve les requetes du DAO
+        assertTrue(methodes.toString(), methodes.size() >= 20);
+
+        for (String sql : requetes) {
+            if (!estRequeteDepenses(sql)) {
+                continue;
+            }
+            String plan = expliquer(sql);
+            assertEquals("Pas de recherche par index pour : " + sql + "\n" + plan,
+                    "", lignesSansRecherche(plan));
+        }
+    }
+
+    /**
+     * Methodes @Query : les @Insert / @Delete prennent une entite
+     * ou une liste et n'ont pas de SQL a verifier
+     */
+    private static List<Method> methodesRequetes() {
+        List<Method> methodes = new ArrayList<>();
+        for (Method m : DepenseDao.class.getMethods()) {
+            boolean entite = false;
+            for (Class<?> type : m.getParameterTypes()) {
+                entite |= type == DepenseEntity.class || List.class.isAssignableFrom(type);
+            }
+            if (!entite) {
+                methodes.add(m);
+            }
+        }
+        Collections.sort(methodes, (a, b) -> a.getName().compareTo(b.getName()));
+        return methodes;
+    }
+
+    private static Object[] arguments(Method m) {
+        Class<?>[] types = m.getParameterTypes();
+        Object[] valeurs = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == int.class) {
+                valeurs[i] = 1;
+            } else if (types[i] == long.class) {
+                valeurs[i] = 1L;
+            } else if (types[i] == String.class) {
+                valeurs[i] = "Nutrition";
+            } else {
+                throw new IllegalArgumentException(m.getName() + " : " + Arrays.toString(types));
+            }
+        }
+        return valeurs;
+    }
+
+    /**
+     * SELECT / DELETE / UPDATE du DAO (pas les BEGIN, END TRANSACTION...)
+     */
+    private static boolean estRequeteDepenses(String sql) {
+        String s = sql.trim().toUpperCase();
+        return (s.startsWith("SELECT") || s.startsWith("DELETE") || s.startsWith("UPDATE"))
+                && s.contains("DEPENSES");
+    }
+
+    private String expliquer(String requete) {
+        int nbParametres = 0;
+        for (int i = 0; i < requete.length(); i++) {
+            if (requete.charAt(i) == '?') nbParametres++;
+        }
+
+        Object[] parametres = new Object[nbParametres];
+        for (int i = 0; i < nbParametres; i++) {
+            parametres[i] = 1;
+        }
+
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = database.query("EXPLAIN QUERY PLAN " + requete, parametres)) {
+            int colonneDetail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) {
+                plan.append(c.getString(colonneDetail)).append("\n");
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Lignes du plan qui lisent depenses autrement que par une
+     * recherche dans un index ("" si aucune). "TABLE" apparait
+     * dans le plan des anciennes versions de SQLite.
+     */
+    private static String lignesSansRecherche(String plan) {
+        StringBuilder fautives = new StringBuilder();
+        for (String ligne : plan.split("\n")) {
+            String l = ligne.replace("TABLE ", "").trim();
+            boolean lecture = l.startsWith("SCAN depenses") || l.startsWith("SEARCH depenses");
+            boolean recherche = l.startsWith("SEARCH depenses USING")
+                    && (l.contains("INDEX") || l.contains("PRIMARY KEY"));
+            if (lecture && !recherche) {
+                fautives.append(ligne).append("\n");
+            }
+        }
+        return fautives.toString();
+    }
+}
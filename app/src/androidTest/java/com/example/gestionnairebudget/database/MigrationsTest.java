@@ -0,0 +1,147 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Chaine complete des migrations : une base version 2 (schema exporte
+ * dans app/schemas) avec des donnees, migree jusqu'a la version
+ * actuelle puis validee par Room contre le schema des entites.
+ * Les rattrapages par lots sont ensuite executes sur la base migree.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationsTest {
+
+    private static final String TEST_DB = "migrations-test";
+    private static final String TEST_DB_SANS_COMPTE = "migrations-test-sans-compte";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void migrationDe2A14AvecDonnees() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 2)) {
+            db.execSQL("INSERT INTO users (nom, email, motDePasse, profession, ville, "
+                    + "budgetMensuel, dateModificationBudget, dateCreation, estActif) "
+                    + "VALUES ('Test', 'migration@test.cm', 'secret', '', 'Douala', "
+                    + "150000.5, 0, 0, 1)");
+            db.execSQL("INSERT INTO categories_personnalisees (userId, nomCategorie, "
+                    + "pourcentageAlloue, montantAlloue, montantUtilise, dateCreation, estActive) "
+                    + "VALUES (1, 'Nutrition', 30, 45000.15, 2500.75, 0, 1)");
+            db.execSQL("INSERT INTO depenses (categorie, designation, montant, timestamp, "
+                    + "dateFormatee, jour, semaine, mois, annee) "
+                    + "VALUES ('Nutrition', 'Marche', 2500.75, 0, '', 12, 3, 1, 2026)");
+            db.execSQL("INSERT INTO rapports (typeRapport, dateCreation, dateFormatee, jour, "
+                    + "semaine, mois, annee, budgetTotal, depensesTotales, surplus, "
+                    + "nombreDepenses, contenuRapport, evolutionParRapportPeriodePrecedente) "
+                    + "VALUES ('MENSUEL', 0, '', 1, 1, 1, 2026, 150000.5, 2500.75, 147499.75, "
+                    + "1, 'Rapport', 0)");
+        }
+
+        helper.runMigrationsAndValidate(TEST_DB, 14, true, Migrations.TOUTES).close();
+
+        // Base migree ouverte par Room, puis rattrapages par lots
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppDatabase database = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(Migrations.TOUTES)
+                .build();
+        try {
+            RattrapageMigrations rattrapage = new RattrapageMigrations(database, 1);
+            while (rattrapage.traiterLotSuivant()) {
+                // Lots suivants
+            }
+            SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+            assertEquals("15000050", lire(db, "SELECT budgetMensuelCentimes FROM users"));
+            assertEquals("4500015|250075", lire(db, "SELECT montantAlloueCentimes "
+                    + "|| '|' || montantUtiliseCentimes FROM categories_personnalisees"));
+            assertEquals("1|250075|20465", lire(db, "SELECT userId || '|' || montantCentimes "
+                    + "|| '|' || epochDay FROM depenses"));
+            assertEquals("1|15000050|250075|14749975", lire(db, "SELECT userId || '|' "
+                    + "|| budgetTotalCentimes || '|' || depensesTotalesCentimes "
+                    + "|| '|' || surplusCentimes FROM rapports"));
+            assertEquals("1|20465|Nutrition|250075|1", lire(db, "SELECT userId || '|' "
+                    + "|| epochDay || '|' || categorie || '|' || total || '|' || nombre "
+                    + "FROM resume_depenses_jour"));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void migrationSansCompte_proprietaireAttendLePremierCompte() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB_SANS_COMPTE, 2)) {
+            db.execSQL("INSERT INTO depenses (categorie, designation, montant, timestamp, "
+                    + "dateFormatee, jour, semaine, mois, annee) "
+                    + "VALUES ('Nutrition', 'Marche', 2500.75, 0, '', 12, 3, 1, 2026)");
+            db.execSQL("INSERT INTO rapports (typeRapport, dateCreation, dateFormatee, jour, "
+                    + "semaine, mois, annee, budgetTotal, depensesTotales, surplus, "
+                    + "nombreDepenses, contenuRapport, evolutionParRapportPeriodePrecedente) "
+                    + "VALUES ('MENSUEL', 0, '', 1, 1, 1, 2026, 150000.5, 2500.75, 147499.75, "
+                    + "1, 'Rapport', 0)");
+        }
+
+        helper.runMigrationsAndValidate(TEST_DB_SANS_COMPTE, 14, true, Migrations.TOUTES).close();
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AppDatabase database = Room.databaseBuilder(
+                        context, AppDatabase.class, TEST_DB_SANS_COMPTE)
+                .addMigrations(Migrations.TOUTES)
+                .build();
+        try {
+            RattrapageMigrations rattrapage = new RattrapageMigrations(database, 1);
+            while (rattrapage.traiterLotSuivant()) {
+                // Lots suivants, jusqu'a la tache en attente
+            }
+            SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+            // Aucun compte : rien n'est rattache ni marque termine
+            assertTrue(rattrapage.estEnCours());
+            assertEquals("PROPRIETAIRE_DEPENSES", lire(db,
+                    "SELECT nom FROM taches_migration ORDER BY ordre LIMIT 1"));
+            assertEquals("0", lire(db, "SELECT userId FROM depenses"));
+            assertEquals("0", lire(db, "SELECT userId FROM rapports"));
+
+            // Premier compte : les rattrapages reprennent et se terminent
+            int userId = (int) database.userDao().inserer(
+                    new UserEntity("Test", "premier@test.cm", "secret", "", "Douala"));
+            while (rattrapage.traiterLotSuivant()) {
+                // Lots suivants
+            }
+
+            assertFalse(rattrapage.estEnCours());
+            String proprietaire = String.valueOf(userId);
+            assertEquals(proprietaire, lire(db, "SELECT userId FROM depenses"));
+            assertEquals(proprietaire, lire(db, "SELECT userId FROM rapports"));
+            assertEquals(proprietaire + "|250075", lire(db, "SELECT userId || '|' || total "
+                    + "FROM resume_depenses_jour"));
+        } finally {
+            database.close();
+        }
+    }
+
+    private static String lire(SupportSQLiteDatabase db, String requete) {
+        try (Cursor c = db.query(requete)) {
+            assertEquals(requete, 1, c.getCount());
+            c.moveToFirst();
+            return c.getString(0);
+        }
+    }
+}
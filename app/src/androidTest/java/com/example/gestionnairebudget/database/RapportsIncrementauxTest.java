@@ -0,0 +1,237 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.utils.DonneesRapport;
+import com.example.gestionnairebudget.utils.Periodes;
+import com.example.gestionnairebudget.utils.RapportGenerator;
+import com.example.gestionnairebudget.utils.RattrapageRapports;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rapports incrementaux : un rapport stocke sert de synthese tant
+ * qu'aucune depense de sa periode ne change, et la fusion donne les
+ * memes totaux que la lecture complete du resume. Regenerer un rapport
+ * ne cree jamais de doublon, et ne recalcule rien s'il est a jour.
+ * Le rapport mensuel porte la prevision tenue par les triggers.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RapportsIncrementauxTest {
+
+    private static final int USER_ID = 1;
+    private static final String[] CATEGORIES = {"Nutrition", "Transport", "Loisirs", "Sante"};
+
+    private AppDatabase database;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        DeclencheursResume.creer(db);
+                        DeclencheursRapports.creer(db);
+                        DeclencheursPrevisions.creer(db);
+                    }
+                })
+                .build();
+
+        // 40 jours d'historique jusqu'a aujourd'hui
+        List<DepenseEntity> lot = new ArrayList<>();
+        for (int i = 0; i < 40 * 12; i++) {
+            lot.add(depense(i / 12, CATEGORIES[i % CATEGORIES.length], 500 + i));
+        }
+        database.depenseDao().insererTout(lot);
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void depenseDansLaPeriode_rapportPerime() {
+        int aujourdhui = Periodes.epochDay(Calendar.getInstance());
+        new RapportGenerator(database, USER_ID, 50_000_000L).genererEtEnregistrer("JOURNALIER");
+        assertEquals(1, database.rapportDao()
+                .getSyntheses(USER_ID, aujourdhui, aujourdhui + 1).size());
+
+        // Depense d'hier : le rapport du jour reste valable
+        database.depenseDao().inserer(depense(1, "Sante", 700));
+        assertEquals(1, database.rapportDao()
+                .getSyntheses(USER_ID, aujourdhui, aujourdhui + 1).size());
+
+        // Depense du jour : le rapport est perime
+        database.depenseDao().inserer(depense(0, "Sante", 700));
+        assertEquals(0, database.rapportDao()
+                .getSyntheses(USER_ID, aujourdhui, aujourdhui + 1).size());
+    }
+
+    @Test
+    public void fusionIncrementale_egaleLectureComplete() {
+        RapportGenerator incremental = new RapportGenerator(database, USER_ID, 50_000_000L);
+        incremental.genererEtEnregistrer("JOURNALIER");
+        incremental.genererEtEnregistrer("HEBDOMADAIRE");
+        comparerMensuel();
+
+        // Rapport hebdomadaire perime : ses jours sont relus
+        database.depenseDao().inserer(depense(0, "Nutrition", 12_345));
+        comparerMensuel();
+    }
+
+    @Test
+    public void regenerationSansChangement_rapportStockeRendu() {
+        RapportGenerator generateur = new RapportGenerator(database, USER_ID, 50_000_000L);
+        RapportEntity premier = generateur.genererEtEnregistrer("MENSUEL");
+        RapportEntity second = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererEtEnregistrer("MENSUEL");
+
+        assertEquals(premier.getId(), second.getId());
+        assertEquals(premier.getDateCreation(), second.getDateCreation());
+        assertEquals(1, database.rapportDao().getTousLesRapports(USER_ID).size());
+    }
+
+    @Test
+    public void depensePeriodePrecedente_rapportRemplace() {
+        RapportEntity avant = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererEtEnregistrer("JOURNALIER");
+
+        // Depense d'hier : totaux du jour inchanges, evolution fausse
+        database.depenseDao().inserer(depense(1, "Sante", 90_000));
+        RapportEntity apres = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererEtEnregistrer("JOURNALIER");
+
+        assertEquals(avant.getId(), apres.getId());
+        assertEquals(avant.getDepensesTotales(), apres.getDepensesTotales());
+        assertNotEquals(avant.getEvolutionParRapportPeriodePrecedente(),
+                apres.getEvolutionParRapportPeriodePrecedente(), 1e-9);
+        assertEquals(1, database.rapportDao().getTousLesRapports(USER_ID).size());
+
+        // Budget modifie : recalcule aussi
+        RapportEntity budget = new RapportGenerator(database, USER_ID, 60_000_000L)
+                .genererEtEnregistrer("JOURNALIER");
+        assertEquals(2_000_000L, budget.getBudgetTotal());
+        assertEquals(1, database.rapportDao().getTousLesRapports(USER_ID).size());
+    }
+
+    @Test
+    public void rattrapage_joursManquesEgauxGenerationNormale() {
+        int aujourdhui = Periodes.epochDay(Calendar.getInstance());
+        RapportEntity ancien = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererRapportJournalier();
+        ancien.setDebutPeriode(aujourdhui - 6);
+        ancien.setFinPeriode(aujourdhui - 5);
+        database.rapportDao().inserer(ancien);
+
+        int generes = new RattrapageRapports(database, USER_ID, 50_000_000L)
+                .rattraper(Calendar.getInstance());
+        assertEquals(5, generes);
+        // Deja a jour : rien de plus
+        assertEquals(0, new RattrapageRapports(database, USER_ID, 50_000_000L)
+                .rattraper(Calendar.getInstance()));
+
+        // Hier : memes totaux que la lecture du resume
+        RapportEntity hier = database.rapportDao()
+                .getRapportPeriode(USER_ID, "JOURNALIER", aujourdhui - 1, aujourdhui);
+        assertEquals(database.depenseDao().getTotalPlage(USER_ID, aujourdhui - 1, aujourdhui),
+                hier.getDepensesTotales());
+        assertEquals(database.depenseDao().getNombrePlage(USER_ID, aujourdhui - 1, aujourdhui),
+                hier.getNombreDepenses());
+        assertEquals(aujourdhui - 2, hier.getDebutComparaison());
+    }
+
+    @Test
+    public void rattrapageParLots_memesRapportsQuEnUneFois() {
+        int aujourdhui = Periodes.epochDay(Calendar.getInstance());
+        RapportEntity ancien = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererRapportJournalier();
+        ancien.setDebutPeriode(aujourdhui - 21);
+        ancien.setFinPeriode(aujourdhui - 20);
+        database.rapportDao().inserer(ancien);
+
+        // Lots de 3 : chaque lot repart du dernier rapport stocke
+        RattrapageRapports rattrapage = new RattrapageRapports(database, USER_ID, 50_000_000L);
+        int lots = 0;
+        int generes = 0;
+        int lot;
+        while ((lot = rattrapage.rattraperLot(Calendar.getInstance(), 3)) > 0) {
+            assertTrue(lot <= 3);
+            generes += lot;
+            lots++;
+        }
+        assertEquals(20, generes);
+        assertEquals(7, lots);
+
+        for (int jour = aujourdhui - 20; jour < aujourdhui; jour++) {
+            RapportEntity rapport = database.rapportDao()
+                    .getRapportPeriode(USER_ID, "JOURNALIER", jour, jour + 1);
+            assertEquals(database.depenseDao().getTotalPlage(USER_ID, jour, jour + 1),
+                    rapport.getDepensesTotales());
+        }
+    }
+
+    @Test
+    public void rapportMensuel_previsionDesTriggers() {
+        RapportEntity mois = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererEtEnregistrer("MENSUEL");
+        DonneesRapport donnees = DonneesRapport.decoder(mois.getDonnees());
+
+        assertTrue(donnees.aPrevision());
+        assertEquals(CATEGORIES.length, donnees.getPrevisions().size());
+        assertTrue(donnees.getTotalPrevu() >= mois.getDepensesTotales());
+    }
+
+    private void comparerMensuel() {
+        RapportEntity fusion = new RapportGenerator(database, USER_ID, 50_000_000L)
+                .genererRapportMensuel();
+
+        // Reference sans rapport stocke : tout est relu dans le resume
+        RapportEntity lecture;
+        database.beginTransaction();
+        try {
+            database.rapportDao().supprimerTout(USER_ID);
+            lecture = new RapportGenerator(database, USER_ID, 50_000_000L).genererRapportMensuel();
+        } finally {
+            database.endTransaction();  // Annulee : les rapports stockes restent
+        }
+
+        assertEquals(lecture.getDepensesTotales(), fusion.getDepensesTotales());
+        assertEquals(lecture.getNombreDepenses(), fusion.getNombreDepenses());
+        assertEquals(lecture.getEvolutionParRapportPeriodePrecedente(),
+                fusion.getEvolutionParRapportPeriodePrecedente(), 1e-9);
+        assertArrayEquals(Arrays.toString(lecture.getDonnees()),
+                lecture.getDonnees(), fusion.getDonnees());
+    }
+
+    /**
+     * Depense d'il y a "joursAvant" jours
+     */
+    private static DepenseEntity depense(int joursAvant, String categorie, long montant) {
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DAY_OF_YEAR, -joursAvant);
+        return new DepenseEntity(USER_ID, categorie, "Depense", montant, cal.getTimeInMillis(), "",
+                cal.get(Calendar.DAY_OF_MONTH), cal.get(Calendar.WEEK_OF_YEAR),
+                cal.get(Calendar.MONTH) + 1, cal.get(Calendar.YEAR));
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifie que le rattrapage par lots du resume journalier donne le
+ * meme resultat qu'un calcul complet, meme si des depenses pas encore
+ * traitees sont supprimees ou modifiees pendant le rattrapage.
+ * Idem pour le rythme des previsions : lots = triggers, et pour la
+ * conversion des montants en centimes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RattrapageMigrationsTest {
+
+    private static final String[] CATEGORIES = {"Nourriture", "Transport", "Loisirs"};
+
+    private AppDatabase database;
+    private SupportSQLiteDatabase db;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        DeclencheursResume.creer(db);
+                    }
+                })
+                .build();
+        db = database.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void resumeRattrapeParLotsEgalCalculComplet() {
+        List<DepenseEntity> depenses = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            depenses.add(new DepenseEntity(1 + i % 2, CATEGORIES[i % CATEGORIES.length],
+                    "Depense " + i, 100 + i, 0L, "", 1 + i % 28, 1, 1 + i % 12, 2024));
+        }
+        database.depenseDao().insererTout(depenses);
+
+        // Comme apres une migration : resume vide, rattrapage planifie
+        database.resumeDao().vider();
+        TacheDifferee.RESUME_DEPENSES.planifier(db);
+
+        RattrapageMigrations rattrapage = new RattrapageMigrations(database, 700);
+        assertTrue(rattrapage.estEnCours());
+        rattrapage.traiterLotSuivant();
+
+        // Lignes pas encore traitees : les triggers doivent les ignorer
+        db.execSQL("DELETE FROM depenses WHERE id BETWEEN 4000 AND 4100");
+        db.execSQL("UPDATE depenses SET montantCentimes = montantCentimes * 2 WHERE id BETWEEN 3000 AND 3050");
+        // Nouvelle depense : prise en compte par le trigger d'insertion
+        database.depenseDao().inserer(new DepenseEntity(1, "Sante", "Nouvelle",
+                999, 0L, "", 15, 1, 6, 2024));
+
+        int lots = 0;
+        while (rattrapage.traiterLotSuivant()) {
+            lots++;
+        }
+
+        assertFalse(rattrapage.estEnCours());
+        assertTrue("Le rattrapage doit se faire en plusieurs lots", lots > 1);
+        assertEquals(resume("SELECT userId, epochDay, IFNULL(categorie, ''), SUM(montantCentimes), COUNT(*) "
+                        + "FROM depenses GROUP BY 1, 2, 3 ORDER BY 1, 2, 3"),
+                resume("SELECT userId, epochDay, categorie, total, nombre "
+                        + "FROM resume_depenses_jour ORDER BY 1, 2, 3"));
+    }
+
+    @Test
+    public void centimesRattrapesParLotsAvantResume() {
+        List<DepenseEntity> depenses = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            depenses.add(new DepenseEntity(1 + i % 2, CATEGORIES[i % CATEGORIES.length],
+                    "Depense " + i, 100 * i + 5, 0L, "", 1 + i % 28, 1, 1 + i % 12, 2024));
+        }
+        database.depenseDao().insererTout(depenses);
+        String attendu = resume("SELECT userId, epochDay, IFNULL(categorie, ''), "
+                + "SUM(montantCentimes), COUNT(*) FROM depenses GROUP BY 1, 2, 3 ORDER BY 1, 2, 3");
+
+        // Comme apres la migration 7 -> 8 : francs en REAL, centimes a 0
+        db.execSQL("UPDATE depenses SET montant = montantCentimes / 100.0, montantCentimes = 0");
+        database.resumeDao().vider();
+        TacheDifferee.CENTIMES_DEPENSES.planifier(db);
+        TacheDifferee.RESUME_DEPENSES.planifier(db);
+
+        RattrapageMigrations rattrapage = new RattrapageMigrations(database, 700);
+        while (rattrapage.traiterLotSuivant()) {
+            // Lots suivants
+        }
+
+        assertEquals(attendu, resume("SELECT userId, epochDay, IFNULL(categorie, ''), "
+                + "SUM(montantCentimes), COUNT(*) FROM depenses GROUP BY 1, 2, 3 ORDER BY 1, 2, 3"));
+        assertEquals(attendu, resume("SELECT userId, epochDay, categorie, total, nombre "
+                + "FROM resume_depenses_jour ORDER BY 1, 2, 3"));
+    }
+
+    @Test
+    public void previsionsRattrapeesParLotsEgalesTriggers() {
+        DeclencheursPrevisions.creer(db);
+        List<DepenseEntity> depenses = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            depenses.add(new DepenseEntity(1 + i % 2, CATEGORIES[i % CATEGORIES.length],
+                    "Depense " + i, 100 + i, 0L, "", 1 + i % 28, 1, 1 + i % 12, 2024));
+        }
+        database.depenseDao().insererTout(depenses);
+        List<PrevisionCategorieEntity> parTriggers = database.previsionDao().getPrevisions(1);
+        String saisonParTriggers = saisonnalite();
+
+        // Comme apres la migration 12 -> 13 : tables vides, rattrapage planifie
+        db.execSQL("DELETE FROM previsions_categorie");
+        db.execSQL("DELETE FROM saisonnalite_categorie");
+        TacheDifferee.PREVISIONS_DEPENSES.planifier(db);
+        RattrapageMigrations rattrapage = new RattrapageMigrations(database, 700);
+        while (rattrapage.traiterLotSuivant()) {
+            // Lots suivants
+        }
+
+        List<PrevisionCategorieEntity> parLots = database.previsionDao().getPrevisions(1);
+        assertEquals(parTriggers.size(), parLots.size());
+        for (int i = 0; i < parTriggers.size(); i++) {
+            PrevisionCategorieEntity attendu = parTriggers.get(i);
+            PrevisionCategorieEntity lu = parLots.get(i);
+            assertEquals(attendu.getCategorie(), lu.getCategorie());
+            assertEquals(attendu.getPremierJour(), lu.getPremierJour());
+            assertEquals(attendu.getJourCourant(), lu.getJourCourant());
+            assertEquals(attendu.getTotalJour(), lu.getTotalJour());
+            // Ordre des additions different : egalite aux arrondis pres
+            assertEquals(attendu.getVitesse(), lu.getVitesse(), attendu.getVitesse() * 1e-9);
+        }
+        assertEquals(saisonParTriggers, saisonnalite());
+    }
+
+    @Test
+    public void rattrapageSansTacheNeFaitRien() {
+        RattrapageMigrations rattrapage = new RattrapageMigrations(database, 700);
+        assertFalse(rattrapage.estEnCours());
+        assertFalse(rattrapage.traiterLotSuivant());
+    }
+
+    private String saisonnalite() {
+        return resume("SELECT userId, jourMois, categorie, total, 0 "
+                + "FROM saisonnalite_categorie ORDER BY 1, 2, 3");
+    }
+
+    private String resume(String requete) {
+        StringBuilder sb = new StringBuilder();
+        try (Cursor c = db.query(requete)) {
+            while (c.moveToNext()) {
+                sb.append(c.getInt(0)).append('|')
+                        .append(c.getLong(1)).append('|')
+                        .append(c.getString(2)).append('|')
+                        .append(c.getLong(3)).append('|')
+                        .append(c.getInt(4)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
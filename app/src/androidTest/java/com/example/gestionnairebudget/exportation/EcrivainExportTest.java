@@ -0,0 +1,99 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.database.MatrixCursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Echappement des textes exportes : separateur, guillemets, virgules,
+ * retours a la ligne, caracteres de controle et unicode.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EcrivainExportTest {
+
+    private static final String[] COLONNES = { "id", "designation" };
+
+    private static final String[] TEXTES = {
+            "simple",
+            "a;b",
+            "dit \"oui\"",
+            "ligne 1\nligne 2",
+            "retour\rchariot",
+            "1,5 kg, sac",
+            "barre \\ oblique\ttab",
+            "controle \u0001",
+            "Caf\u00E9 \u2615 \uD83D\uDCB0"
+    };
+
+    @Test
+    public void csv_textesProteges() throws IOException {
+        StringWriter sortie = new StringWriter();
+        EcrivainCsv ecrivain = new EcrivainCsv(sortie);
+        ecrivain.ecrireEntete(COLONNES);
+        ecrire(ecrivain);
+
+        assertEquals("id;designation\n"
+                        + "1;simple\n"
+                        + "2;\"a;b\"\n"
+                        + "3;\"dit \"\"oui\"\"\"\n"
+                        + "4;\"ligne 1\nligne 2\"\n"
+                        + "5;\"retour\rchariot\"\n"
+                        + "6;1,5 kg, sac\n"
+                        + "7;barre \\ oblique\ttab\n"
+                        + "8;controle \u0001\n"
+                        + "9;Caf\u00E9 \u2615 \uD83D\uDCB0\n"
+                        + "10;\n",
+                sortie.toString());
+    }
+
+    @Test
+    public void jsonLines_textesEchappes() throws IOException, JSONException {
+        StringWriter sortie = new StringWriter();
+        EcrivainJsonLines ecrivain = new EcrivainJsonLines(sortie);
+        ecrivain.ecrireEntete(COLONNES);
+        ecrire(ecrivain);
+
+        String[] lignes = sortie.toString().split("\n", -1);
+        assertEquals(TEXTES.length + 2, lignes.length);
+        assertEquals("", lignes[TEXTES.length + 1]);
+
+        assertEquals("{\"id\":3,\"designation\":\"dit \\\"oui\\\"\"}", lignes[2]);
+        assertEquals("{\"id\":4,\"designation\":\"ligne 1\\nligne 2\"}", lignes[3]);
+        assertEquals("{\"id\":8,\"designation\":\"controle \\u0001\"}", lignes[7]);
+        assertEquals("{\"id\":10,\"designation\":null}", lignes[TEXTES.length]);
+
+        // Chaque ligne se relit seule, textes intacts
+        for (int i = 0; i < TEXTES.length; i++) {
+            assertTrue(lignes[i], lignes[i].indexOf('\r') < 0 && lignes[i].indexOf('\t') < 0);
+            JSONObject objet = new JSONObject(lignes[i]);
+            assertEquals(i + 1, objet.getLong("id"));
+            assertEquals(TEXTES[i], objet.getString("designation"));
+        }
+        assertTrue(new JSONObject(lignes[TEXTES.length]).isNull("designation"));
+    }
+
+    private static void ecrire(EcrivainExport ecrivain) throws IOException {
+        MatrixCursor cursor = new MatrixCursor(COLONNES);
+        for (int i = 0; i < TEXTES.length; i++) {
+            cursor.addRow(new Object[]{ (long) i + 1, TEXTES[i] });
+        }
+        cursor.addRow(new Object[]{ (long) TEXTES.length + 1, null });
+
+        while (cursor.moveToNext()) {
+            ecrivain.ecrireLigne(cursor);
+        }
+        ecrivain.terminer();
+        cursor.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.UserEntity;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Export complet depuis la base : le fichier gzip se decompresse en
+ * exactement l'export non compresse, et le flux de sortie est ferme.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExportateurDonneesTest {
+
+    private static final int LIGNES = 2000;
+
+    private AppDatabase database;
+    private ExportateurDonnees exportateur;
+    private int userId;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        exportateur = new ExportateurDonnees(database);
+        userId = (int) database.userDao().inserer(
+                new UserEntity("Test", "export@test.cm", "secret", "", "Douala"));
+
+        List<DepenseEntity> depenses = new ArrayList<>();
+        for (int i = 0; i < LIGNES; i++) {
+            depenses.add(new DepenseEntity(userId, "Nutrition", designation(i), 100 + i,
+                    1_700_000_000_000L + i * 60_000L, "", 1 + i % 28, 1, 1, 2026));
+        }
+        database.depenseDao().insererTout(depenses);
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void csvGzip_allerRetour() throws IOException {
+        byte[] brut = exporter(ExportateurDonnees.Format.CSV, false);
+        byte[] gzip = exporter(ExportateurDonnees.Format.CSV, true);
+
+        assertTrue(gzip.length < brut.length);
+        assertArrayEquals(brut, decompresser(gzip));
+    }
+
+    @Test
+    public void jsonLinesGzip_allerRetour() throws IOException, JSONException {
+        byte[] brut = exporter(ExportateurDonnees.Format.JSON_LINES, false);
+        byte[] gzip = exporter(ExportateurDonnees.Format.JSON_LINES, true);
+        assertArrayEquals(brut, decompresser(gzip));
+
+        String[] lignes = new String(brut, StandardCharsets.UTF_8).split("\n");
+        assertEquals(LIGNES, lignes.length);
+        for (int i = 0; i < LIGNES; i++) {
+            JSONObject objet = new JSONObject(lignes[i]);
+            assertEquals(designation(i), objet.getString("designation"));
+            assertEquals(100 + i, objet.getLong("montantCentimes"));
+        }
+    }
+
+    private byte[] exporter(ExportateurDonnees.Format format, boolean gzip) throws IOException {
+        boolean[] ferme = { false };
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                ferme[0] = true;
+                super.close();
+            }
+        };
+
+        long nombre = exportateur.exporter(ExportateurDonnees.Table.DEPENSES, userId,
+                format, sortie, gzip);
+
+        assertEquals(LIGNES, nombre);
+        assertTrue("sortie non fermee", ferme[0]);
+        return sortie.toByteArray();
+    }
+
+    private static byte[] decompresser(byte[] gzip) throws IOException {
+        ByteArrayOutputStream resultat = new ByteArrayOutputStream();
+        try (InputStream entree = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] tampon = new byte[8192];
+            int lus;
+            while ((lus = entree.read(tampon)) > 0) {
+                resultat.write(tampon, 0, lus);
+            }
+        }
+        return resultat.toByteArray();
+    }
+
+    private static String designation(int i) {
+        switch (i % 4) {
+            case 0:
+                return "Marche; \"Mokolo\" " + i;
+            case 1:
+                return "Taxi, aller\nretour " + i;
+            case 2:
+                return "Caf\u00E9 \u2615 " + i;
+            default:
+                return "Pain " + i;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.gestionnairebudget.importation;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.DeclencheursResume;
+import com.example.gestionnairebudget.database.ImportEntity;
+import com.example.gestionnairebudget.database.UserEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Import d'un releve d'un million d'operations, par lots de
+ * TAILLE_LOT_DEFAUT : debit, nombre de transactions, ecart maximal
+ * entre lignes lues et lignes validees (la memoire occupee) et tas
+ * utilise avant / apres.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportateurDepensesBenchmarkTest {
+
+    private static final int LIGNES = 1_000_000;
+
+    private AppDatabase database;
+    private int userId;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        DeclencheursResume.creer(db);
+                    }
+                })
+                .build();
+        userId = (int) database.userDao().inserer(
+                new UserEntity("Test", "import@test.cm", "secret", "", "Douala"));
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void unMillionDeLignes() throws IOException {
+        int tailleLot = ImportateurDepenses.TAILLE_LOT_DEFAUT;
+        ImportateurDepensesTest.LecteurSynthetique lecteur =
+                new ImportateurDepensesTest.LecteurSynthetique(LIGNES);
+        long[] valide = { 0 };
+        long[] ecartMax = { 0 };
+        int[] lots = { 0 };
+        lecteur.avantLecture = () -> ecartMax[0] = Math.max(ecartMax[0], lecteur.lues - valide[0]);
+
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long tasAvant = runtime.totalMemory() - runtime.freeMemory();
+
+        long debut = System.nanoTime();
+        ImportEntity etat = new ImportateurDepenses(database, userId, tailleLot).importer(
+                "content://releves/million.csv", -1, -1, lecteur,
+                (lignes, depenses) -> {
+                    valide[0] = lignes;
+                    lots[0]++;
+                }, null);
+        long duree = System.nanoTime() - debut;
+
+        runtime.gc();
+        long tasApres = runtime.totalMemory() - runtime.freeMemory();
+
+        Log.i("BenchmarkImport", LIGNES + " lignes en " + duree / 1_000_000 + " ms ("
+                + LIGNES * 1_000_000_000L / Math.max(1, duree) + " lignes/s), "
+                + lots[0] + " lots, ecart max lues/validees " + ecartMax[0] + ", tas "
+                + tasAvant / 1024 + " -> " + tasApres / 1024 + " Ko");
+
+        assertTrue(etat.isTermine());
+        assertEquals(LIGNES, database.depenseDao().getNombreTotalDepenses(userId));
+        assertEquals(LIGNES / tailleLot + 1, lots[0]);
+        assertTrue("ecart " + ecartMax[0], ecartMax[0] <= tailleLot);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.gestionnairebudget.importation;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.ImportEntity;
+import com.example.gestionnairebudget.database.UserEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Import par lots : un lot par transaction, reprise apres un arret sans
+ * doublon, jamais plus d'un lot en memoire, et un point de reprise
+ * propre a chaque utilisateur et a chaque version du fichier.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportateurDepensesTest {
+
+    private static final String URI = "content://releves/releve.csv";
+    private static final int TAILLE_LOT = 100;
+    private static final int LIGNES = 250;
+
+    private AppDatabase database;
+    private int userA;
+    private int userB;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        userA = (int) database.userDao().inserer(
+                new UserEntity("A", "a@test.cm", "secret", "", "Douala"));
+        userB = (int) database.userDao().inserer(
+                new UserEntity("B", "b@test.cm", "secret", "", "Yaounde"));
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void importParLots() throws IOException {
+        List<Long> avancement = new ArrayList<>();
+
+        ImportEntity etat = importateur(userA).importer(URI, 1000, 1,
+                new LecteurSynthetique(LIGNES), (lignes, depenses) -> avancement.add(lignes), null);
+
+        assertTrue(etat.isTermine());
+        assertEquals(LIGNES, etat.getDepensesImportees());
+        assertEquals(3, avancement.size());
+        assertEquals(100L, (long) avancement.get(0));
+        assertEquals(200L, (long) avancement.get(1));
+        assertEquals(250L, (long) avancement.get(2));
+        assertEquals(LIGNES, database.depenseDao().getNombreTotalDepenses(userA));
+    }
+
+    @Test
+    public void repriseApresArret_sansDoublon() throws IOException {
+        ImportEntity etat = importateur(userA).importer(URI, 1000, 1,
+                new LecteurSynthetique(LIGNES), null, () -> true);
+
+        assertFalse(etat.isTermine());
+        assertEquals(TAILLE_LOT, etat.getLignesTraitees());
+        assertEquals(TAILLE_LOT, database.depenseDao().getNombreTotalDepenses(userA));
+
+        // Nouvelle tentative : le fichier est relu depuis le debut
+        etat = importateur(userA).importer(URI, 1000, 1,
+                new LecteurSynthetique(LIGNES), null, null);
+
+        assertTrue(etat.isTermine());
+        assertEquals(LIGNES, etat.getDepensesImportees());
+        assertEquals(LIGNES, database.depenseDao().getNombreTotalDepenses(userA));
+    }
+
+    @Test
+    public void auPlusUnLotEnMemoire() throws IOException {
+        LecteurSynthetique lecteur = new LecteurSynthetique(LIGNES);
+        long[] valide = { 0 };
+        lecteur.avantLecture = () -> assertTrue(lecteur.lues + " lues, " + valide[0] + " validees",
+                lecteur.lues - valide[0] <= TAILLE_LOT);
+
+        importateur(userA).importer(URI, 1000, 1, lecteur,
+                (lignes, depenses) -> valide[0] = lignes, null);
+
+        assertEquals(LIGNES, valide[0]);
+    }
+
+    @Test
+    public void autreUtilisateur_neReprendPasLImport() throws IOException {
+        importateur(userA).importer(URI, 1000, 1, new LecteurSynthetique(LIGNES), null, () -> true);
+
+        ImportEntity etat = importateur(userB).importer(URI, 1000, 1,
+                new LecteurSynthetique(LIGNES), null, null);
+
+        assertTrue(etat.isTermine());
+        assertEquals(userB, etat.getUserId());
+        assertEquals(LIGNES, database.depenseDao().getNombreTotalDepenses(userB));
+        assertEquals(TAILLE_LOT, database.depenseDao().getNombreTotalDepenses(userA));
+    }
+
+    @Test
+    public void fichierModifie_importRepartDeZero() throws IOException {
+        importateur(userA).importer(URI, 1000, 1, new LecteurSynthetique(LIGNES), null, null);
+
+        // Meme version : deja termine, rien n'est reinsere
+        ImportEntity etat = importateur(userA).importer(URI, 1000, 1,
+                new LecteurSynthetique(LIGNES), null, null);
+        assertTrue(etat.isTermine());
+        assertEquals(LIGNES, database.depenseDao().getNombreTotalDepenses(userA));
+
+        // Le fichier a change : nouvel import
+        etat = importateur(userA).importer(URI, 1200, 2,
+                new LecteurSynthetique(LIGNES), null, null);
+        assertTrue(etat.isTermine());
+        assertEquals(LIGNES, etat.getDepensesImportees());
+        assertEquals(2 * LIGNES, database.depenseDao().getNombreTotalDepenses(userA));
+    }
+
+    private ImportateurDepenses importateur(int userId) {
+        return new ImportateurDepenses(database, userId, TAILLE_LOT);
+    }
+
+    /**
+     * Releve genere a la volee : aucune ligne n'est gardee en memoire
+     */
+    static final class LecteurSynthetique implements LecteurReleve {
+
+        private final long total;
+        long lues;
+        Runnable avantLecture;
+
+        LecteurSynthetique(long total) {
+            this.total = total;
+        }
+
+        @Override
+        public LigneReleve lireSuivante() {
+            if (avantLecture != null) {
+                avantLecture.run();
+            }
+            if (lues >= total) {
+                return null;
+            }
+            lues++;
+            return new LigneReleve(2026, 1 + (int) (lues % 12), 1 + (int) (lues % 28),
+                    (int) (lues % 24), (int) (lues % 60), "Operation " + lues,
+                    100 + lues % 50_000, (lues % 3 == 0) ? null : "Nutrition");
+        }
+
+        @Override
+        public int getLignesIgnorees() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
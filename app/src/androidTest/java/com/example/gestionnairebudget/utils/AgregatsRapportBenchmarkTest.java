@@ -0,0 +1,186 @@
+package com.example.gestionnairebudget.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.DeclencheursResume;
+import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.RapportDao;
+import com.example.gestionnairebudget.database.ResumeDao;
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.SyntheseRapport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare les trois rapports d'un meme soir :
+ * - avant : 6 fusions (une par periode et par periode precedente),
+ *   chacune avec sa lecture des syntheses et du resume
+ * - apres : 1 fusion (FusionRapports.fusionnerAutour)
+ */
+@RunWith(AndroidJUnit4.class)
+public class AgregatsRapportBenchmarkTest {
+
+    private static final int USER_ID = 1;
+    private static final int ITERATIONS = 30;
+    private static final String[] CATEGORIES = {
+            "Projets", "Sante", "Nutrition", "Loyer", "Internet",
+            "Loisirs", "Sport", "Famille", "Autres", "Transport"
+    };
+
+    private AppDatabase database;
+    private int requetes;
+    private int lignesLues;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        DeclencheursResume.creer(db);
+                    }
+                })
+                .build();
+
+        // 70 jours d'historique, ~40 depenses par jour
+        Calendar cal = Calendar.getInstance();
+        List<DepenseEntity> lot = new ArrayList<>();
+        for (int i = 0; i < 70 * 40; i++) {
+            cal.setTimeInMillis(System.currentTimeMillis() - (i / 40) * 86_400_000L);
+            lot.add(new DepenseEntity(USER_ID, CATEGORIES[i % CATEGORIES.length], "Depense " + i,
+                    100 + i % 5000, cal.getTimeInMillis(), "",
+                    cal.get(Calendar.DAY_OF_MONTH), cal.get(Calendar.WEEK_OF_YEAR),
+                    cal.get(Calendar.MONTH) + 1, cal.get(Calendar.YEAR)));
+        }
+        database.depenseDao().insererTout(lot);
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+    }
+
+    @Test
+    public void uneFusionLitMoinsQueSixFusions() {
+        Calendar cal = Calendar.getInstance();
+
+        // Memes totaux des deux cotes
+        AgregatsRapport agregats = uneFusion(cal);
+        int debutMois = Periodes.debutMois(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1);
+        int finMois = Periodes.finMois(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1);
+        assertEquals(database.resumeDao().getTotalPeriode(USER_ID, debutMois, finMois),
+                agregats.getMois().getTotal());
+
+        // Lectures d'un passage de chaque cote
+        requetes = 0;
+        lignesLues = 0;
+        sixFusions(cal);
+        int requetesAvant = requetes;
+        int lignesAvant = lignesLues;
+        requetes = 0;
+        lignesLues = 0;
+        uneFusion(cal);
+        int requetesApres = requetes;
+        int lignesApres = lignesLues;
+
+        long[] avant = new long[ITERATIONS];
+        long[] apres = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long debut = System.nanoTime();
+            sixFusions(cal);
+            avant[i] = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            uneFusion(cal);
+            apres[i] = System.nanoTime() - debut;
+        }
+
+        long medianeAvant = mediane(avant);
+        long medianeApres = mediane(apres);
+        Log.i("BenchmarkAgregats", "6 fusions : " + requetesAvant + " requetes, "
+                + lignesAvant + " lignes, " + medianeAvant / 1000 + " us ; "
+                + "1 fusion : " + requetesApres + " requetes, "
+                + lignesApres + " lignes, " + medianeApres / 1000 + " us");
+
+        assertTrue(requetesApres + " requetes contre " + requetesAvant,
+                requetesApres < requetesAvant);
+        assertTrue(lignesApres + " lignes contre " + lignesAvant, lignesApres < lignesAvant);
+    }
+
+    /**
+     * Nouvelle facon : une lecture des syntheses de toute la plage, une
+     * lecture du resume par plage de jours non couverts
+     */
+    private AgregatsRapport uneFusion(Calendar cal) {
+        AgregatsRapport vide = AgregatsRapport.autour(cal);
+        return AgregatsRapport.depuisSyntheses(
+                lireSyntheses(vide.debutLecture(), vide.finLecture()), this::lireResume,
+                Periodes.epochDay(cal), Periodes.debutSemaine(cal),
+                cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1);
+    }
+
+    /**
+     * Ancienne facon : une fusion par periode
+     */
+    private void sixFusions(Calendar cal) {
+        int aujourdhui = Periodes.epochDay(cal);
+        int debutSemaine = Periodes.debutSemaine(cal);
+        int annee = cal.get(Calendar.YEAR);
+        int mois = cal.get(Calendar.MONTH) + 1;
+        int moisAvant = (mois == 1) ? 12 : mois - 1;
+        int anneeAvant = (mois == 1) ? annee - 1 : annee;
+
+        fusion(aujourdhui, aujourdhui + 1, true);
+        fusion(aujourdhui - 1, aujourdhui, false);
+        fusion(debutSemaine, debutSemaine + 7, true);
+        fusion(debutSemaine - 7, debutSemaine, false);
+        fusion(Periodes.debutMois(annee, mois), Periodes.finMois(annee, mois), true);
+        fusion(Periodes.debutMois(anneeAvant, moisAvant),
+                Periodes.finMois(anneeAvant, moisAvant), false);
+    }
+
+    private void fusion(int debut, int fin, boolean parCategorie) {
+        FusionRapports.fusionner(lireSyntheses(debut, fin), debut, fin, parCategorie,
+                this::lireResume).getCategories();
+    }
+
+    private List<SyntheseRapport> lireSyntheses(int debut, int fin) {
+        RapportDao dao = database.rapportDao();
+        requetes++;
+        return dao.getSyntheses(USER_ID, debut, fin);
+    }
+
+    private List<ResumeJourEntity> lireResume(int debut, int fin) {
+        ResumeDao dao = database.resumeDao();
+        List<ResumeJourEntity> lignes = dao.getLignesPeriode(USER_ID, debut, fin);
+        requetes++;
+        lignesLues += lignes.size();
+        return lignes;
+    }
+
+    private static long mediane(long[] valeurs) {
+        long[] tri = valeurs.clone();
+        Arrays.sort(tri);
+        return tri[tri.length / 2];
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.gestionnairebudget.utils;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compteurs propres a chaque execution : ce que compte un autre fil
+ * (interface, autre Worker) n'est pas attribue a la mesure, ce qui
+ * tourne pour elle sur un pool (propager) l'est.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MesureExecutionTest {
+
+    @Test
+    public void autreFil_nonCompte_tachePropagee_comptee() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            MesureExecution mesure = MesureExecution.demarrer("Test", 0);
+            MesureExecution.compterLignes(3);
+            MesureExecution.compterRequete("SELECT 1", null);
+
+            // Fil sans mesure : ni lignes ni requetes attribuees
+            pool.submit(() -> {
+                MesureExecution.compterLignes(100);
+                MesureExecution.compterRequete("SELECT 2", null);
+            }).get();
+
+            // Travail de l'execution, confie au pool
+            pool.submit(MesureExecution.propager(() -> {
+                MesureExecution.compterLignes(4);
+                MesureExecution.compterRequete("SELECT 3", null);
+                return null;
+            })).get();
+
+            ExecutionWorkerEntity execution = mesure.terminer(null,
+                    ExecutionWorkerEntity.SUCCES, null);
+            assertEquals(7, execution.getLignesLues());
+            assertEquals(2, execution.getRequetes());
+
+            // Apres terminer, plus rien n'est compte sur ce fil
+            MesureExecution.compterLignes(50);
+            assertEquals(7, execution.getLignesLues());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void deuxExecutionsSimultanees_separees() throws Exception {
+        ExecutorService autre = Executors.newSingleThreadExecutor();
+        try {
+            MesureExecution mesure = MesureExecution.demarrer("A", 0);
+            ExecutionWorkerEntity executionB = autre.submit(() -> {
+                MesureExecution mesureB = MesureExecution.demarrer("B", 0);
+                MesureExecution.compterLignes(10);
+                return mesureB.terminer(null, ExecutionWorkerEntity.SUCCES, null);
+            }).get();
+            MesureExecution.compterLignes(1);
+
+            assertEquals(1, mesure.terminer(null, ExecutionWorkerEntity.SUCCES, null)
+                    .getLignesLues());
+            assertEquals(10, executionB.getLignesLues());
+        } finally {
+            autre.shutdown();
+        }
+    }
+}
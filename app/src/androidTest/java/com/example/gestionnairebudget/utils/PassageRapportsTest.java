@@ -0,0 +1,249 @@
+package com.example.gestionnairebudget.utils;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.DeclencheursPrevisions;
+import com.example.gestionnairebudget.database.DeclencheursRapports;
+import com.example.gestionnairebudget.database.DeclencheursResume;
+import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+import com.example.gestionnairebudget.database.UserEntity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Passage des rapports pour plusieurs comptes : chaque
+ * compte actif ayant un budget est rattrape avec son propre budget,
+ * les autres sont ignores, et un arret laisse la base coherente.
+ * Un lot de rattrapage prepare hors transaction n'est ecrit qu'une
+ * fois, et refait si une depense a change depuis sa lecture.
+ *
+ * Comme dans l'application (ConfigurationBase), la base a 4 lecteurs
+ * et un ecrivain distinct : les comptes sont calcules en parallele.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PassageRapportsTest {
+
+    private static final long[] BUDGETS = {30_000_000L, 60_000_000L, 90_000_000L, 0L};
+
+    private AppDatabase database;
+    private ExecutorService lecteurs;
+    private ExecutorService ecrivain;
+    private final List<Integer> comptes = new ArrayList<>();
+    private int compteInactif;
+
+    @Before
+    public void ouvrirBase() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        lecteurs = Executors.newFixedThreadPool(4);
+        ecrivain = Executors.newSingleThreadExecutor();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .setQueryExecutor(lecteurs)
+                .setTransactionExecutor(ecrivain)
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onOpen(SupportSQLiteDatabase db) {
+                        DeclencheursResume.creer(db);
+                        DeclencheursRapports.creer(db);
+                        DeclencheursPrevisions.creer(db);
+                    }
+                })
+                .build();
+
+        for (int i = 0; i <= BUDGETS.length; i++) {
+            UserEntity user = new UserEntity("Compte " + i, "compte" + i + "@test.cm",
+                    "secret", "", "Yaounde");
+            user.setBudgetMensuel(i < BUDGETS.length ? BUDGETS[i] : 45_000_000L);
+            user.setEstActif(i < BUDGETS.length);
+            int userId = (int) database.userDao().inserer(user);
+            if (i < BUDGETS.length) {
+                comptes.add(userId);
+            } else {
+                compteInactif = userId;
+            }
+            preparerCompte(userId, "Nutrition");
+        }
+    }
+
+    @After
+    public void fermerBase() {
+        database.close();
+        lecteurs.shutdown();
+        ecrivain.shutdown();
+    }
+
+    @Test
+    public void plusieursComptes_chacunSonBudget() {
+        Calendar maintenant = Calendar.getInstance();
+        maintenant.set(Calendar.HOUR_OF_DAY, 12);
+
+        assertTrue(new PassageRapports(database, () -> false).executer(maintenant));
+
+        int aujourdhui = Periodes.epochDay(maintenant);
+        for (int i = 0; i < BUDGETS.length; i++) {
+            int userId = comptes.get(i);
+            RapportEntity hier = database.rapportDao()
+                    .getRapportPeriode(userId, "JOURNALIER", aujourdhui - 1, aujourdhui);
+            if (BUDGETS[i] == 0) {
+                assertNull(hier);
+                continue;
+            }
+            assertEquals(Montant.diviser(BUDGETS[i], 30), hier.getBudgetTotal());
+            assertEquals(database.depenseDao().getTotalPlage(userId, aujourdhui - 1, aujourdhui),
+                    hier.getDepensesTotales());
+        }
+        assertNull(database.rapportDao()
+                .getRapportPeriode(compteInactif, "JOURNALIER", aujourdhui - 1, aujourdhui));
+    }
+
+    @Test
+    public void arretDemande_rienDePlusEtRepriseComplete() {
+        Calendar maintenant = Calendar.getInstance();
+        maintenant.set(Calendar.HOUR_OF_DAY, 12);
+        int aujourdhui = Periodes.epochDay(maintenant);
+
+        assertFalse(new PassageRapports(database, () -> true).executer(maintenant));
+        assertNull(database.rapportDao()
+                .getRapportPeriode(comptes.get(0), "JOURNALIER", aujourdhui - 1, aujourdhui));
+
+        assertTrue(new PassageRapports(database, () -> false).executer(maintenant));
+        // Rapport d'origine + 5 jours rattrapes
+        assertEquals(6, database.rapportDao().getTousLesRapports(comptes.get(0)).size());
+    }
+
+    @Test
+    public void lotDejaEcritParUnAutrePassage_rienDeReecrit() {
+        Calendar maintenant = Calendar.getInstance();
+        int userId = comptes.get(0);
+        RattrapageRapports rattrapage = new RattrapageRapports(database, userId, BUDGETS[0]);
+
+        RattrapageRapports.Lot lot = rattrapage.preparer(maintenant, RattrapageRapports.TAILLE_LOT);
+        // Un autre passage ecrit le meme lot entre-temps
+        assertEquals(lot.periodes.size(),
+                new RattrapageRapports(database, userId, BUDGETS[0])
+                        .rattraperLot(maintenant, RattrapageRapports.TAILLE_LOT));
+        // Temoin : une reecriture remettrait le budget du rapport
+        int aujourdhui = Periodes.epochDay(maintenant);
+        RapportEntity hier = database.rapportDao()
+                .getRapportPeriode(userId, "JOURNALIER", aujourdhui - 1, aujourdhui);
+        hier.setBudgetTotal(1);
+        database.rapportDao().mettreAJour(hier);
+        int nombre = database.rapportDao().getTousLesRapports(userId).size();
+
+        assertTrue(rattrapage.enregistrer(lot));
+        assertEquals(nombre, database.rapportDao().getTousLesRapports(userId).size());
+        assertEquals(1, database.rapportDao()
+                .getRapportPeriode(userId, "JOURNALIER", aujourdhui - 1, aujourdhui)
+                .getBudgetTotal());
+    }
+
+    @Test
+    public void depenseChangeeApresLaLecture_lotRefait() {
+        Calendar maintenant = Calendar.getInstance();
+        int aujourdhui = Periodes.epochDay(maintenant);
+        int userId = comptes.get(0);
+        RattrapageRapports rattrapage = new RattrapageRapports(database, userId, BUDGETS[0]);
+
+        RattrapageRapports.Lot lot = rattrapage.preparer(maintenant, RattrapageRapports.TAILLE_LOT);
+        Calendar hier = Calendar.getInstance();
+        hier.add(Calendar.DAY_OF_YEAR, -1);
+        database.depenseDao().inserer(new DepenseEntity(userId, "Loyer", "Ajoutee", 777_00L,
+                hier.getTimeInMillis(), "", hier.get(Calendar.DAY_OF_MONTH),
+                hier.get(Calendar.WEEK_OF_YEAR), hier.get(Calendar.MONTH) + 1,
+                hier.get(Calendar.YEAR)));
+
+        assertFalse(rattrapage.enregistrer(lot));
+        assertNull(database.rapportDao()
+                .getRapportPeriode(userId, "JOURNALIER", aujourdhui - 1, aujourdhui));
+
+        assertTrue(rattrapage.rattraperLot(maintenant, RattrapageRapports.TAILLE_LOT) > 0);
+        assertEquals(database.depenseDao().getTotalPlage(userId, aujourdhui - 1, aujourdhui),
+                database.rapportDao().getRapportPeriode(userId, "JOURNALIER", aujourdhui - 1,
+                        aujourdhui).getDepensesTotales());
+    }
+
+    @Test
+    public void nComptesEnParallele_rapportsIsolesEtExacts() {
+        // Chaque compte a sa propre categorie et ses propres montants
+        List<Integer> nouveaux = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            UserEntity user = new UserEntity("Parallele " + i, "parallele" + i + "@test.cm",
+                    "secret", "", "Douala");
+            user.setBudgetMensuel(10_000_000L * (i + 1));
+            int userId = (int) database.userDao().inserer(user);
+            preparerCompte(userId, "Compte " + userId);
+            nouveaux.add(userId);
+        }
+
+        Calendar maintenant = Calendar.getInstance();
+        maintenant.set(Calendar.HOUR_OF_DAY, RapportScheduler.HEURE_PASSAGE);
+        assertTrue(new PassageRapports(database, () -> false).executer(maintenant));
+
+        int aujourdhui = Periodes.epochDay(maintenant);
+        for (int i = 0; i < nouveaux.size(); i++) {
+            int userId = nouveaux.get(i);
+            List<RapportEntity> rapports = database.rapportDao().getTousLesRapports(userId);
+            // Rapport d'origine + 5 jours rattrapes + aujourd'hui (23h)
+            assertTrue(rapports.size() >= 7);
+            for (RapportEntity rapport : rapports) {
+                assertEquals(userId, rapport.getUserId());
+                for (TotalCategorie t : DonneesRapport.decoder(rapport.getDonnees()).getCategories()) {
+                    assertEquals("Compte " + userId, t.getCategorie());
+                }
+            }
+            for (int jour = aujourdhui - 5; jour <= aujourdhui; jour++) {
+                RapportEntity rapport = database.rapportDao()
+                        .getRapportPeriode(userId, "JOURNALIER", jour, jour + 1);
+                assertEquals(Montant.diviser(10_000_000L * (i + 1), 30), rapport.getBudgetTotal());
+                assertEquals(database.depenseDao().getTotalPlage(userId, jour, jour + 1),
+                        rapport.getDepensesTotales());
+            }
+        }
+    }
+
+    /**
+     * 10 jours de depenses et un rapport journalier d'il y a 6 jours :
+     * 5 jours a rattraper
+     */
+    private void preparerCompte(int userId, String categorie) {
+        List<DepenseEntity> lot = new ArrayList<>();
+        for (int jour = 0; jour < 10; jour++) {
+            Calendar cal = Calendar.getInstance();
+            cal.add(Calendar.DAY_OF_YEAR, -jour);
+            lot.add(new DepenseEntity(userId, categorie, "Depense", 1000 + userId * 10L + jour,
+                    cal.getTimeInMillis(), "", cal.get(Calendar.DAY_OF_MONTH),
+                    cal.get(Calendar.WEEK_OF_YEAR), cal.get(Calendar.MONTH) + 1,
+                    cal.get(Calendar.YEAR)));
+        }
+        database.depenseDao().insererTout(lot);
+
+        int aujourdhui = Periodes.epochDay(Calendar.getInstance());
+        RapportEntity ancien = new RapportGenerator(database, userId, 50_000_000L)
+                .genererRapportJournalier();
+        ancien.setDebutPeriode(aujourdhui - 6);
+        ancien.setFinPeriode(aujourdhui - 5);
+        database.rapportDao().inserer(ancien);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.gestionnairebudget;
 
+import com.example.gestionnairebudget.utils.Montant;
+
 /**
  * CLASSE CategorieBudget
  *
@@ -9,40 +11,39 @@ package com.example.gestionnairebudget;
  * - Montant alloue
  * - Montant utilise
  * - Couleur selon l'utilisation
+ *
+ * Les montants sont en centimes (voir Montant)
  */
 public class CategorieBudget {
 
     // ========== ATTRIBUTS ==========
     private String nom;
     private double pourcentageAlloue;
-    private double montantAlloue;
-    private double montantUtilise;
+    private long montantAlloue;
+    private long montantUtilise;
 
     // ========== CONSTRUCTEUR ==========
     public CategorieBudget(String nom, double pourcentageAlloue) {
         this.nom = nom;
         this.pourcentageAlloue = pourcentageAlloue;
-        this.montantAlloue = 0.0;
-        this.montantUtilise = 0.0;
+        this.montantAlloue = 0;
+        this.montantUtilise = 0;
     }
 
     // ========== METHODES DE CALCUL ==========
-    public void calculerMontantAlloue(double budgetTotal) {
-        this.montantAlloue = budgetTotal * (pourcentageAlloue / 100.0);
+    public void calculerMontantAlloue(long budgetTotal) {
+        this.montantAlloue = Montant.part(budgetTotal, pourcentageAlloue);
     }
 
-    public void ajouterDepense(double montant) {
+    public void ajouterDepense(long montant) {
         this.montantUtilise += montant;
     }
 
     public double getPourcentageUtilise() {
-        if (montantAlloue == 0) {
-            return 0.0;
-        }
-        return (montantUtilise / montantAlloue) * 100.0;
+        return Montant.pourcentage(montantUtilise, montantAlloue);
     }
 
-    public double getMontantRestant() {
+    public long getMontantRestant() {
         return montantAlloue - montantUtilise;
     }
 
@@ -106,33 +107,33 @@ public class CategorieBudget {
         return pourcentageAlloue;
     }
 
-    public double getMontantAlloue() {
+    public long getMontantAlloue() {
         return montantAlloue;
     }
 
-    public double getMontantUtilise() {
+    public long getMontantUtilise() {
         return montantUtilise;
     }
 
     // ========== SETTERS ==========
-    public void setMontantUtilise(double montantUtilise) {
+    public void setMontantUtilise(long montantUtilise) {
         this.montantUtilise = montantUtilise;
     }
 
     public void reinitialiser() {
-        this.montantUtilise = 0.0;
+        this.montantUtilise = 0;
     }
 
     // ========== AFFICHAGE ==========
     public String afficherResume() {
         return String.format(
-                "%s %s (%.0f%%)\nAlloue: %.0f FCFA | Utilise: %.0f FCFA | Reste: %.0f FCFA\nUtilisation: %.1f%%",
+                "%s %s (%.0f%%)\nAlloue: %s FCFA | Utilise: %s FCFA | Reste: %s FCFA\nUtilisation: %.1f%%",
                 getEmoji(),
                 nom,
                 pourcentageAlloue,
-                montantAlloue,
-                montantUtilise,
-                getMontantRestant(),
+                Montant.formater(montantAlloue),
+                Montant.formater(montantUtilise),
+                Montant.formater(getMontantRestant()),
                 getPourcentageUtilise()
         );
     }
@@ -1,5 +1,7 @@
 package com.example.gestionnairebudget;
 
+import com.example.gestionnairebudget.utils.Montant;
+
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -10,7 +12,7 @@ import java.util.Locale;
  * Cette classe represente UNE depense avec :
  * - Categorie
  * - Designation
- * - Montant
+ * - Montant (en centimes)
  * - Date automatique
  */
 public class Depense {
@@ -18,11 +20,11 @@ public class Depense {
     // ========== ATTRIBUTS ==========
     private String categorie;
     private String designation;
-    private double montant;
+    private long montant;
     private String date;
 
     // ========== CONSTRUCTEUR ==========
-    public Depense(String categorie, String designation, double montant) {
+    public Depense(String categorie, String designation, long montant) {
         this.categorie = categorie;
         this.designation = designation;
         this.montant = montant;
@@ -41,7 +43,7 @@ public class Depense {
         return designation;
     }
 
-    public double getMontant() {
+    public long getMontant() {
         return montant;
     }
 
@@ -58,18 +60,18 @@ public class Depense {
         this.designation = designation;
     }
 
-    public void setMontant(double montant) {
+    public void setMontant(long montant) {
         this.montant = montant;
     }
 
     // ========== AFFICHAGE ==========
     public String afficherDepense() {
         return "\uD83D\uDCDD " + categorie + " - " + designation +
-                "\n\uD83D\uDCB5 " + montant + " FCFA" +
+                "\n\uD83D\uDCB5 " + Montant.formater(montant) + " FCFA" +
                 "\n\uD83D\uDCC5 " + date;
     }
 
     public String afficherCourt() {
-        return categorie + " : " + montant + " FCFA (" + date + ")";
+        return categorie + " : " + Montant.formater(montant) + " FCFA (" + date + ")";
     }
 }
@@ -0,0 +1,188 @@
+package com.example.gestionnairebudget;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ListView;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.BudgetRepository;
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+import com.example.gestionnairebudget.exportation.ExportateurDonnees;
+import com.example.gestionnairebudget.utils.StatistiquesExecutions;
+import com.example.gestionnairebudget.workers.RapportWorker;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * DIAGNOSTIC DES RAPPORTS AUTOMATIQUES (builds de debug)
+ *
+ * Lit la telemetrie du RapportWorker (table worker_runs) :
+ * - p50 / p95 / max de la duree, des lignes lues et des requetes des
+ *   derniers passages reussis, au total et par type de passage
+ * - les derniers echecs, avec la classe de l'exception
+ * - export CSV de toute la table (ExportateurDonnees)
+ * Une regression de latence a mesure que les donnees grossissent se
+ * voit au p95 d'un meme type de passage.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private static final int EXECUTIONS_ANALYSEES = 200;
+    private static final int ECHECS_AFFICHES = 30;
+
+    private TextView textStatistiques;
+    private ArrayAdapter<String> adapterEchecs;
+
+    private AppDatabase database;
+    private BudgetRepository repository;
+
+    private final SimpleDateFormat formatDate =
+            new SimpleDateFormat("dd/MM/yyyy HH:mm:ss", Locale.getDefault());
+
+    private final ActivityResultLauncher<String> choisirFichierExport =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"),
+                    this::exporter);
+
+    /**
+     * Ouvrir l'ecran, seulement dans un build de debug
+     *
+     * @return false si l'application n'est pas debuggable (rien n'est ouvert)
+     */
+    public static boolean ouvrirSiDebug(Context context) {
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) {
+            return false;
+        }
+        context.startActivity(new Intent(context, DiagnosticsActivity.class));
+        return true;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        repository = BudgetRepository.getInstance(this);
+        database = repository.getDatabase();
+
+        textStatistiques = findViewById(R.id.textStatistiques);
+        ListView listeEchecs = findViewById(R.id.listeEchecs);
+        adapterEchecs = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1,
+                new ArrayList<>());
+        listeEchecs.setAdapter(adapterEchecs);
+
+        Button btnExporter = findViewById(R.id.btnExporterExecutions);
+        btnExporter.setOnClickListener(v -> choisirFichierExport.launch(
+                ExportateurDonnees.nomFichier(ExportateurDonnees.Table.EXECUTIONS,
+                        ExportateurDonnees.Format.CSV, false)));
+
+        charger();
+    }
+
+    /**
+     * Lire la telemetrie en arriere-plan puis l'afficher
+     */
+    private void charger() {
+        repository.lire(() -> {
+            List<ExecutionWorkerEntity> dernieres = database.executionWorkerDao()
+                    .getDernieres(RapportWorker.NOM_TRAVAIL, EXECUTIONS_ANALYSEES);
+            List<ExecutionWorkerEntity> echecs = database.executionWorkerDao()
+                    .getEchecsRecents(ECHECS_AFFICHES);
+
+            String statistiques = statistiques(dernieres);
+            List<String> lignesEchecs = new ArrayList<>(echecs.size());
+            for (ExecutionWorkerEntity e : echecs) {
+                lignesEchecs.add(formatDate.format(new Date(e.getDebut())) + " - "
+                        + e.getResultat() + " (tentative " + (e.getTentative() + 1) + ")\n"
+                        + e.getException() + "\n"
+                        + e.getTypeRapport() + " - " + e.getDuree() + " ms, "
+                        + e.getLignesLues() + " lignes, " + e.getRequetes() + " requêtes");
+            }
+
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                textStatistiques.setText(statistiques);
+                adapterEchecs.clear();
+                adapterEchecs.addAll(lignesEchecs);
+            });
+        });
+    }
+
+    private String statistiques(List<ExecutionWorkerEntity> dernieres) {
+        if (dernieres.isEmpty()) {
+            return "\uD83D\uDCCB Aucun passage enregistré";
+        }
+
+        int echecs = 0;
+        for (ExecutionWorkerEntity e : dernieres) {
+            if (e.estEchec()) {
+                echecs++;
+            }
+        }
+
+        StringBuilder texte = new StringBuilder();
+        texte.append(dernieres.size()).append(" derniers passages, ")
+                .append(echecs).append(" en échec\n")
+                .append("Dernier : ").append(formatDate.format(new Date(dernieres.get(0).getDebut())))
+                .append(" (").append(dernieres.get(0).getResultat()).append(")\n");
+
+        texte.append(String.format(Locale.ROOT, "%n%-12s %8s %8s %8s%n", "", "p50", "p95", "max"));
+        for (StatistiquesExecutions.Resume r : StatistiquesExecutions.resumer(dernieres)) {
+            texte.append('\n').append(r.getTypeRapport())
+                    .append(" (").append(r.getNombre()).append(" réussis)\n");
+            ligne(texte, "durée ms", r.getDuree());
+            ligne(texte, "lignes", r.getLignes());
+            ligne(texte, "requêtes", r.getRequetes());
+        }
+        return texte.toString();
+    }
+
+    private static void ligne(StringBuilder texte, String libelle,
+                              StatistiquesExecutions.Distribution d) {
+        texte.append(String.format(Locale.ROOT, "%-12s %8d %8d %8d%n",
+                libelle, d.getP50(), d.getP95(), d.getMax()));
+    }
+
+    /**
+     * Exporter toute la table worker_runs dans le fichier choisi
+     */
+    private void exporter(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        repository.lire(() -> {
+            try {
+                OutputStream sortie = getContentResolver().openOutputStream(uri);
+                if (sortie == null) {
+                    throw new IOException("Fichier inaccessible");
+                }
+                long nombre = new ExportateurDonnees(database).exporter(
+                        ExportateurDonnees.Table.EXECUTIONS, 0,
+                        ExportateurDonnees.Format.CSV, sortie, false);
+
+                runOnUiThread(() -> Toast.makeText(this,
+                        "\u2705 " + nombre + " lignes exportées",
+                        Toast.LENGTH_LONG).show());
+
+            } catch (IOException e) {
+                runOnUiThread(() -> Toast.makeText(this,
+                        "\u274C Erreur d'export : " + e.getMessage(),
+                        Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.gestionnairebudget;
+
+import android.os.Bundle;
+import android.widget.AbsListView;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.BudgetRepository;
+import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.utils.Montant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HISTORIQUE DES DEPENSES
+ *
+ * Affiche toutes les depenses, des plus recentes aux plus anciennes,
+ * page par page : une nouvelle page n'est lue que lorsque l'utilisateur
+ * arrive en bas de la liste. Le curseur (timestamp, id) de la derniere
+ * ligne affichee sert de point de depart a la page suivante.
+ */
+public class HistoriquesActivity extends AppCompatActivity {
+
+    private static final int TAILLE_PAGE = 50;
+
+    private ListView listeHistorique;
+    private TextView textEtat;
+    private ArrayAdapter<String> adapter;
+
+    private AppDatabase database;
+    private BudgetRepository repository;
+    private int userId;
+
+    // Curseur : derniere depense affichee
+    private long curseurTimestamp;
+    private int curseurId;
+    private boolean premierePageChargee = false;
+    private boolean chargementEnCours = false;
+    private boolean finAtteinte = false;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_historique);
+
+        repository = BudgetRepository.getInstance(this);
+        database = repository.getDatabase();
+        userId = getSharedPreferences("UserPrefs", MODE_PRIVATE).getInt("userId", 0);
+
+        listeHistorique = findViewById(R.id.listeHistorique);
+        textEtat = findViewById(R.id.textEtatHistorique);
+
+        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1,
+                new ArrayList<>());
+        listeHistorique.setAdapter(adapter);
+
+        listeHistorique.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int premierVisible,
+                                 int nombreVisibles, int total) {
+                // Charger la page suivante un peu avant d'atteindre le bas
+                if (premierVisible + nombreVisibles >= total - 10) {
+                    chargerPageSuivante();
+                }
+            }
+        });
+
+        chargerPageSuivante();
+    }
+
+    /**
+     * Lire la page suivante en arriere-plan puis l'ajouter a la liste
+     */
+    private void chargerPageSuivante() {
+        if (chargementEnCours || finAtteinte) {
+            return;
+        }
+        chargementEnCours = true;
+        textEtat.setText("\u23F3 Chargement...");
+
+        final boolean premiere = !premierePageChargee;
+        final long avantTimestamp = curseurTimestamp;
+        final int avantId = curseurId;
+
+        repository.lire(() -> {
+            List<DepenseEntity> page = premiere
+                    ? database.depenseDao().getPremierePage(userId, TAILLE_PAGE)
+                    : database.depenseDao().getPageAvant(userId, avantTimestamp, avantId, TAILLE_PAGE);
+
+            List<String> lignes = new ArrayList<>(page.size());
+            for (DepenseEntity d : page) {
+                lignes.add(d.getDateFormatee() + "\n" + d.getCategorie() + " - "
+                        + d.getDesignation() + " : "
+                        + Montant.formater(d.getMontant()) + " FCFA");
+            }
+
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+
+                adapter.addAll(lignes);
+                premierePageChargee = true;
+
+                if (!page.isEmpty()) {
+                    DepenseEntity derniere = page.get(page.size() - 1);
+                    curseurTimestamp = derniere.getTimestamp();
+                    curseurId = derniere.getId();
+                }
+
+                if (page.size() < TAILLE_PAGE) {
+                    finAtteinte = true;
+                    textEtat.setText(adapter.getCount() == 0
+                            ? "\uD83D\uDCCB Aucune dépense enregistrée"
+                            : "Fin de l'historique");
+                } else {
+                    textEtat.setText("");
+                }
+                chargementEnCours = false;
+            });
+        });
+    }
+}
@@ -7,8 +7,9 @@ import android.widget.EditText;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.BudgetRepository;
 import com.example.gestionnairebudget.database.UserEntity;
-import java.util.concurrent.Executors;
+import com.example.gestionnairebudget.workers.MigrationWorker;
 
 /**
  * PAGE D'INSCRIPTION
@@ -20,6 +21,7 @@ public class InscriptionActivity extends AppCompatActivity {
     private EditText editProfession, editVille;
     private Button btnCreerCompte, btnRetourConnexion;
 
+    private BudgetRepository repository;
     private AppDatabase database;
 
     @Override
@@ -27,7 +29,8 @@ public class InscriptionActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_inscription);
 
-        database = AppDatabase.getInstance(this);
+        repository = BudgetRepository.getInstance(this);
+        database = repository.getDatabase();
 
         initialiserVues();
         configurerBoutons();
@@ -105,7 +108,9 @@ public class InscriptionActivity extends AppCompatActivity {
         btnCreerCompte.setEnabled(false);
         btnCreerCompte.setText("Création en cours...");
 
-        Executors.newSingleThreadExecutor().execute(() -> {
+        // Sur l'écrivain : la vérification et l'insertion ne peuvent pas
+        // être séparées par une autre inscription avec le même email
+        repository.ecrire(() -> {
 
             int emailExiste = database.userDao().emailExiste(email);
 
@@ -126,6 +131,10 @@ public class InscriptionActivity extends AppCompatActivity {
             try {
                 database.userDao().inserer(nouvelUtilisateur);
 
+                // Premier compte : les données sans propriétaire lui sont
+                // rattachées par les rattrapages restés en attente
+                MigrationWorker.planifier(getApplicationContext());
+
                 runOnUiThread(() -> {
                     Toast.makeText(this,
                             "\u2705 Compte créé avec succès !\nVeuillez vous connecter.",
@@ -9,17 +9,19 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.BudgetRepository;
 import com.example.gestionnairebudget.database.UserEntity;
-
-import java.util.concurrent.Executors;
+import com.example.gestionnairebudget.utils.PreferencesBudget;
+import com.example.gestionnairebudget.utils.RapportScheduler;
+import com.example.gestionnairebudget.workers.CompactionWorker;
+import com.example.gestionnairebudget.workers.MigrationWorker;
 
 public class LoginActivity extends AppCompatActivity {
 
     private EditText editEmail, editMotDePasse;
     private Button btnConnexion, btnInscription;
 
-    private AppDatabase database;
+    private BudgetRepository repository;
     private SharedPreferences prefs;
 
     @Override
@@ -27,9 +29,16 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
-        database = AppDatabase.getInstance(this);
+        repository = BudgetRepository.getInstance(this);
         prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
 
+        // Terminer en arriere-plan les migrations de la base
+        MigrationWorker.planifier(this);
+        // Retention et compaction des rapports, appareil inactif
+        CompactionWorker.planifier(this);
+        // Passage quotidien des rapports (remplace les anciens travaux par type)
+        new RapportScheduler(this).planifierTousLesRapports();
+
         initialiserVues();
         configurerBoutons();
     }
@@ -59,8 +68,14 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        Executors.newSingleThreadExecutor().execute(() -> {
-            UserEntity user = database.userDao().connexion(email, motDePasse);
+        repository.lire(() -> {
+            UserEntity user = repository.getDatabase().userDao().connexion(email, motDePasse);
+
+            // Autre compte que le précédent : son budget remplace celui
+            // gardé dans les SharedPreferences
+            if (user != null && user.getId() != prefs.getInt("userId", 0)) {
+                PreferencesBudget.enregistrerBudget(this, user.getBudgetMensuel());
+            }
 
             runOnUiThread(() -> {
                 if (user == null) {
@@ -1,7 +1,7 @@
 package com.example.gestionnairebudget;
 
-import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.net.Uri;
 import android.os.Bundle;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -10,19 +10,39 @@ import android.widget.LinearLayout;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.BudgetRepository;
 import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.EnTeteRapport;
 import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+import com.example.gestionnairebudget.exportation.ExportateurDonnees;
+import com.example.gestionnairebudget.utils.Montant;
+import com.example.gestionnairebudget.utils.Periodes;
+import com.example.gestionnairebudget.utils.PreferencesBudget;
+import com.example.gestionnairebudget.utils.PrevisionDepenses;
 import com.example.gestionnairebudget.utils.RapportGenerator;
 import com.example.gestionnairebudget.utils.RapportScheduler;
+import com.example.gestionnairebudget.utils.RenduRapport;
+import com.example.gestionnairebudget.workers.ImportWorker;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import android.content.Intent;
 
 
@@ -38,25 +58,42 @@ public class MainActivity extends AppCompatActivity {
     private EditText editMontant;
     private Button btnDefinirBudget, btnAjouterDepense,
             btnVoirHistorique, btnGenererRapport, btnVoirRapports;
-    private Button btnRetour, btnDeconnexion;
+    private Button btnRetour, btnDeconnexion, btnImporterReleve, btnExporter;
 
-    private TextView textSituation, textHistorique;
+    private TextView textSituation;
     private LinearLayout layoutCategories;
 
-    private double budgetMensuel = 0.0;
+    private long budgetMensuel = 0;  // En centimes
     private CategorieBudget[] categories;
     private AppDatabase database;
-    private SharedPreferences prefs;
+    private BudgetRepository repository;
+    private int userId;
     private RapportScheduler scheduler;
     private boolean budgetDefini = false;
 
+    // Choix du fichier de releve a importer
+    private final ActivityResultLauncher<String[]> choisirReleve =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(),
+                    this::importerReleve);
+
+    // Export choisi dans le menu, en attente du fichier de destination
+    private ExportateurDonnees.Table exportTable;
+    private ExportateurDonnees.Format exportFormat;
+    private boolean exportGzip;
+
+    private final ActivityResultLauncher<String> choisirFichierExport =
+            registerForActivityResult(
+                    new ActivityResultContracts.CreateDocument("application/octet-stream"),
+                    this::exporterDonnees);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        database = AppDatabase.getInstance(this);
-        prefs = getSharedPreferences("BudgetPrefs", MODE_PRIVATE);
+        repository = BudgetRepository.getInstance(this);
+        database = repository.getDatabase();
+        userId = getSharedPreferences("UserPrefs", MODE_PRIVATE).getInt("userId", 0);
 
         connecterVues();
         chargerBudgetSauvegarde();
@@ -71,10 +108,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void chargerBudgetSauvegarde() {
-        budgetMensuel = Double.longBitsToDouble(prefs.getLong("budgetMensuel", 0));
+        budgetMensuel = PreferencesBudget.lireBudget(this);
         if (budgetMensuel > 0) {
             budgetDefini = true;
-            editBudget.setText(String.valueOf(budgetMensuel));
+            editBudget.setText(Montant.formater(budgetMensuel));
+
+            // Budget défini avant les budgets par compte : repris sur le compte
+            repository.reprendreBudget(userId, budgetMensuel);
         }
     }
 
@@ -90,22 +130,22 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void chargerDepensesMoisEnCours() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        repository.lire(() -> {
             Calendar cal = Calendar.getInstance();
             int mois = cal.get(Calendar.MONTH) + 1;
             int annee = cal.get(Calendar.YEAR);
 
-            List<DepenseEntity> depenses =
-                    database.depenseDao().getDepensesParMois(mois, annee);
+            List<TotalCategorie> totaux = database.resumeDao().getTotauxCategoriesPeriode(userId,
+                    Periodes.debutMois(annee, mois), Periodes.finMois(annee, mois));
+
+            Map<String, TotalCategorie> totalParCategorie = new HashMap<>();
+            for (TotalCategorie t : totaux) {
+                totalParCategorie.put(t.getCategorie(), t);
+            }
 
             for (CategorieBudget cat : categories) {
-                double total = 0;
-                for (DepenseEntity d : depenses) {
-                    if (d.getCategorie().equals(cat.getNom())) {
-                        total += d.getMontant();
-                    }
-                }
-                cat.setMontantUtilise(total);
+                TotalCategorie total = totalParCategorie.get(cat.getNom());
+                cat.setMontantUtilise(total == null ? 0 : total.getTotal());
             }
 
             runOnUiThread(() -> {
@@ -127,9 +167,10 @@ public class MainActivity extends AppCompatActivity {
         btnVoirRapports = findViewById(R.id.btnVoirRapports);
         textSituation = findViewById(R.id.textSituation);
         layoutCategories = findViewById(R.id.layoutCategories);
-        textHistorique = findViewById(R.id.textHistorique);
         btnRetour = findViewById(R.id.btnRetour);
         btnDeconnexion = findViewById(R.id.btnDeconnexion);
+        btnImporterReleve = findViewById(R.id.btnImporterReleve);
+        btnExporter = findViewById(R.id.btnExporter);
 
     }
 
@@ -157,6 +198,11 @@ public class MainActivity extends AppCompatActivity {
         btnVoirHistorique.setOnClickListener(v -> afficherHistorique());
         btnGenererRapport.setOnClickListener(v -> afficherMenuRapports());
         btnVoirRapports.setOnClickListener(v -> afficherRapportsSauvegardes());
+        // Build de debug : appui long pour le diagnostic des rapports automatiques
+        btnVoirRapports.setOnLongClickListener(v -> DiagnosticsActivity.ouvrirSiDebug(this));
+        btnImporterReleve.setOnClickListener(v ->
+                choisirReleve.launch(new String[]{"text/*", "application/*"}));
+        btnExporter.setOnClickListener(v -> afficherMenuExport());
 
         // 🔙 Bouton RETOUR
         btnRetour.setOnClickListener(v -> {
@@ -196,7 +242,7 @@ public class MainActivity extends AppCompatActivity {
         }
 
         try {
-            budgetMensuel = Double.parseDouble(txt);
+            budgetMensuel = Montant.analyser(txt).getCentimes();
             if (budgetMensuel <= 0) {
                 Toast.makeText(this,
                         "\u274C Budget doit être > 0",
@@ -205,8 +251,10 @@ public class MainActivity extends AppCompatActivity {
             }
 
             budgetDefini = true;
-            prefs.edit().putLong("budgetMensuel",
-                    Double.doubleToRawLongBits(budgetMensuel)).apply();
+            PreferencesBudget.enregistrerBudget(this, budgetMensuel);
+
+            // Budget du compte : lu par le passage quotidien des rapports
+            repository.definirBudget(userId, budgetMensuel);
 
             for (CategorieBudget cat : categories) {
                 cat.calculerMontantAlloue(budgetMensuel);
@@ -218,7 +266,7 @@ public class MainActivity extends AppCompatActivity {
             scheduler.planifierTousLesRapports();
 
             Toast.makeText(this,
-                    "\u2705 Budget défini : " + budgetMensuel +
+                    "\u2705 Budget défini : " + Montant.formater(budgetMensuel) +
                             " FCFA\n\uD83D\uDCCA Rapports automatiques activés",
                     Toast.LENGTH_LONG).show();
 
@@ -249,7 +297,7 @@ public class MainActivity extends AppCompatActivity {
         }
 
         try {
-            double montant = Double.parseDouble(montantTxt);
+            long montant = Montant.analyser(montantTxt).getCentimes();
             if (montant <= 0) {
                 Toast.makeText(this,
                         "\u274C Montant doit être > 0",
@@ -265,19 +313,20 @@ public class MainActivity extends AppCompatActivity {
                     new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
 
             DepenseEntity dep = new DepenseEntity(
+                    userId,
                     cat.getNom(),
                     designation,
                     montant,
                     System.currentTimeMillis(),
                     sdf.format(new Date()),
                     cal.get(Calendar.DAY_OF_MONTH),
-                    cal.get(Calendar.WEEK_OF_YEAR),
+                    Periodes.numeroSemaine(cal),
                     cal.get(Calendar.MONTH) + 1,
                     cal.get(Calendar.YEAR)
             );
 
-            Executors.newSingleThreadExecutor().execute(() ->
-                    database.depenseDao().inserer(dep));
+            // Situation relue une fois la depense enregistree
+            repository.ajouterDepense(dep, this::mettreAJourSituation);
 
             double pct = cat.getPourcentageUtilise();
             if (pct >= 70 && pct < 100) {
@@ -299,7 +348,6 @@ public class MainActivity extends AppCompatActivity {
             editMontant.setText("");
 
             afficherCategories();
-            mettreAJourSituation();
 
         } catch (NumberFormatException e) {
             Toast.makeText(this,
@@ -320,38 +368,117 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Historique complet, charge page par page dans son propre ecran
+     */
     private void afficherHistorique() {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            Calendar cal = Calendar.getInstance();
-            int mois = cal.get(Calendar.MONTH) + 1;
-            int annee = cal.get(Calendar.YEAR);
+        startActivity(new Intent(this, HistoriquesActivity.class));
+    }
 
-            List<DepenseEntity> depenses =
-                    database.depenseDao().getDepensesParMois(mois, annee);
+    /**
+     * Importer un releve bancaire en arriere-plan (ImportWorker)
+     * Le fichier est lu en flux et insere par lots : on peut quitter
+     * l'application, l'import reprendra ou il s'est arrete.
+     */
+    private void importerReleve(Uri uri) {
+        if (uri == null) {
+            return;
+        }
 
-            runOnUiThread(() -> {
-                if (depenses.isEmpty()) {
-                    textHistorique.setText(
-                            "\uD83D\uDCCB HISTORIQUE\n\nAucune dépense ce mois-ci"
-                    );
-                    return;
+        // Garder l'acces au fichier si l'import doit reprendre plus tard
+        getContentResolver().takePersistableUriPermission(
+                uri, Intent.FLAG_GRANT_READ_URI_PERMISSION);
+
+        OneTimeWorkRequest requete = new OneTimeWorkRequest.Builder(ImportWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(ImportWorker.CLE_URI, uri.toString())
+                        .putInt(ImportWorker.CLE_USER_ID, userId)
+                        .build())
+                .build();
+
+        WorkManager workManager = WorkManager.getInstance(this);
+        workManager.enqueueUniqueWork(
+                "Import_" + userId + "_" + uri, ExistingWorkPolicy.KEEP, requete);
+
+        Toast.makeText(this,
+                "\u23F3 Import du relevé en cours...",
+                Toast.LENGTH_SHORT).show();
+
+        workManager.getWorkInfoByIdLiveData(requete.getId()).observe(this, info -> {
+            if (info == null || !info.getState().isFinished()) {
+                return;
+            }
+            if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                long importees = info.getOutputData().getLong(ImportWorker.CLE_DEPENSES, 0);
+                Toast.makeText(this,
+                        "\u2705 " + importees + " dépenses importées",
+                        Toast.LENGTH_LONG).show();
+                if (budgetDefini) {
+                    chargerDepensesMoisEnCours();
                 }
+            } else {
+                Toast.makeText(this,
+                        "\u274C Échec de l'import du relevé",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void afficherMenuExport() {
+        String[] options = {
+                "Dépenses (CSV)",
+                "Dépenses (JSON Lines, gzip)",
+                "Rapports (CSV)",
+                "Rapports (JSON Lines, gzip)"
+        };
+
+        new AlertDialog.Builder(this)
+                .setTitle("Exporter les données")
+                .setItems(options, (d, w) -> {
+                    exportTable = (w < 2)
+                            ? ExportateurDonnees.Table.DEPENSES
+                            : ExportateurDonnees.Table.RAPPORTS;
+                    exportFormat = (w % 2 == 0)
+                            ? ExportateurDonnees.Format.CSV
+                            : ExportateurDonnees.Format.JSON_LINES;
+                    exportGzip = (w % 2 == 1);
+
+                    choisirFichierExport.launch(ExportateurDonnees.nomFichier(
+                            exportTable, exportFormat, exportGzip));
+                })
+                .show();
+    }
+
+    /**
+     * Ecrire l'export dans le fichier choisi, en flux (arriere-plan)
+     */
+    private void exporterDonnees(Uri uri) {
+        if (uri == null || exportTable == null) {
+            return;
+        }
 
-                StringBuilder sb = new StringBuilder();
-                sb.append("\uD83D\uDCCB HISTORIQUE DU MOIS\n\n");
+        ExportateurDonnees.Table table = exportTable;
+        ExportateurDonnees.Format format = exportFormat;
+        boolean gzip = exportGzip;
 
-                double total = 0;
-                for (DepenseEntity d : depenses) {
-                    sb.append("- ").append(d.getCategorie())
-                            .append(" : ").append(d.getMontant()).append(" FCFA\n");
-                    total += d.getMontant();
+        repository.lire(() -> {
+            try {
+                OutputStream sortie = getContentResolver().openOutputStream(uri);
+                if (sortie == null) {
+                    throw new IOException("Fichier inaccessible");
                 }
+                long nombre = new ExportateurDonnees(database)
+                        .exporter(table, userId, format, sortie, gzip);
 
-                sb.append("\n\uD83D\uDCB0 TOTAL : ")
-                        .append(String.format("%.0f", total)).append(" FCFA");
+                runOnUiThread(() -> Toast.makeText(this,
+                        "\u2705 " + nombre + " lignes exportées",
+                        Toast.LENGTH_LONG).show());
 
-                textHistorique.setText(sb.toString());
-            });
+            } catch (IOException e) {
+                runOnUiThread(() -> Toast.makeText(this,
+                        "\u274C Erreur d'export : " + e.getMessage(),
+                        Toast.LENGTH_LONG).show());
+            }
         });
     }
 
@@ -359,8 +486,14 @@ public class MainActivity extends AppCompatActivity {
         String[] options = {
                 "\uD83D\uDCC5 Rapport Journalier",
                 "\uD83D\uDCCA Rapport Hebdomadaire",
-                "\uD83D\uDCC8 Rapport Mensuel"
+                "\uD83D\uDCC8 Rapport Mensuel",
+                "\uD83D\uDCC6 30 derniers jours",
+                "\uD83D\uDDD3 Trimestre en cours"
         };
+        Calendar cal = Calendar.getInstance();
+        int aujourdhui = Periodes.epochDay(cal);
+        int annee = cal.get(Calendar.YEAR);
+        int mois = cal.get(Calendar.MONTH) + 1;
 
         new AlertDialog.Builder(this)
                 .setTitle("Générer un rapport")
@@ -368,32 +501,39 @@ public class MainActivity extends AppCompatActivity {
                     if (w == 0) genererRapportManuel("JOURNALIER");
                     if (w == 1) genererRapportManuel("HEBDOMADAIRE");
                     if (w == 2) genererRapportManuel("MENSUEL");
+                    if (w == 3) genererRapportManuel("PLAGE", aujourdhui - 29, aujourdhui + 1);
+                    if (w == 4) genererRapportManuel("PLAGE",
+                            Periodes.debutTrimestre(annee, mois), Periodes.finTrimestre(annee, mois));
                 })
                 .show();
     }
 
     private void genererRapportManuel(String type) {
+        genererRapportManuel(type, 0, 0);
+    }
+
+    /**
+     * @param debut premier jour (epochDay) pour le type "PLAGE"
+     * @param fin   jour suivant le dernier jour (borne exclue)
+     */
+    private void genererRapportManuel(String type, int debut, int fin) {
         Toast.makeText(this,
                 "\u23F3 Génération du rapport...",
                 Toast.LENGTH_SHORT).show();
 
-        Executors.newSingleThreadExecutor().execute(() -> {
+        repository.ecrire(() -> {
             RapportGenerator gen =
-                    new RapportGenerator(database, budgetMensuel);
-            RapportEntity r = null;
-
-            if ("JOURNALIER".equals(type)) r = gen.genererRapportJournalier();
-            if ("HEBDOMADAIRE".equals(type)) r = gen.genererRapportHebdomadaire();
-            if ("MENSUEL".equals(type)) r = gen.genererRapportMensuel();
+                    new RapportGenerator(database, userId, budgetMensuel);
+            RapportEntity r = "PLAGE".equals(type)
+                    ? gen.genererEtEnregistrerPlage(debut, fin)
+                    : gen.genererEtEnregistrer(type);
 
             if (r != null) {
-                database.rapportDao().inserer(r);
-                RapportEntity finalR = r;
-
+                String texte = RenduRapport.rendre(r);
                 runOnUiThread(() ->
                         new AlertDialog.Builder(this)
-                                .setTitle("\uD83D\uDCCA " + finalR.getTypeRapport())
-                                .setMessage(finalR.getContenuRapport())
+                                .setTitle("\uD83D\uDCCA " + r.getTypeRapport())
+                                .setMessage(texte)
                                 .setPositiveButton("OK", null)
                                 .show());
             }
@@ -401,9 +541,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void afficherRapportsSauvegardes() {
-        Executors.newSingleThreadExecutor().execute(() -> {
-            List<RapportEntity> rapports =
-                    database.rapportDao().getTousLesRapports();
+        repository.lire(() -> {
+            // En-tetes seulement : le contenu est lu a l'ouverture
+            List<EnTeteRapport> rapports =
+                    database.rapportDao().getEnTetesRapports(userId);
 
             runOnUiThread(() -> {
                 if (rapports.isEmpty()) {
@@ -421,43 +562,92 @@ public class MainActivity extends AppCompatActivity {
 
                 new AlertDialog.Builder(this)
                         .setTitle("\uD83D\uDCD6 Rapports sauvegardés")
-                        .setItems(titres, (d, w) ->
-                                new AlertDialog.Builder(this)
-                                        .setTitle("\uD83D\uDCCA " +
-                                                rapports.get(w).getTypeRapport())
-                                        .setMessage(
-                                                rapports.get(w).getContenuRapport())
-                                        .setPositiveButton("OK", null)
-                                        .show())
+                        .setItems(titres, (d, w) -> ouvrirRapport(rapports.get(w).getId()))
                         .show();
             });
         });
     }
 
+    /**
+     * Lire un rapport sauvegardé et produire son texte (arrière-plan)
+     */
+    private void ouvrirRapport(int rapportId) {
+        repository.lire(() -> {
+            RapportEntity r = database.rapportDao().getRapport(userId, rapportId);
+            if (r == null) {
+                return;
+            }
+            String texte = RenduRapport.rendre(r);
+
+            runOnUiThread(() ->
+                    new AlertDialog.Builder(this)
+                            .setTitle("\uD83D\uDCCA " + r.getTypeRapport())
+                            .setMessage(texte)
+                            .setPositiveButton("OK", null)
+                            .show());
+        });
+    }
+
     private void mettreAJourSituation() {
-        Executors.newSingleThreadExecutor().execute(() -> {
+        repository.lire(() -> {
             Calendar cal = Calendar.getInstance();
             int mois = cal.get(Calendar.MONTH) + 1;
             int annee = cal.get(Calendar.YEAR);
 
-            Double totalFromDb = database.depenseDao().getTotalMois(mois, annee);
-            final double total = (totalFromDb == null) ? 0.0 : totalFromDb;
+            List<TotalCategorie> totaux = database.resumeDao().getTotauxCategoriesPeriode(userId,
+                    Periodes.debutMois(annee, mois), Periodes.finMois(annee, mois));
+            long somme = 0;
+            for (TotalCategorie t : totaux) {
+                somme += t.getTotal();
+            }
+            final long total = somme;
+            final long reste = budgetMensuel - total;
 
-            final double reste = budgetMensuel - total;
+            // Prévision de fin de mois : rythme tenu à jour par les triggers
+            List<PrevisionDepenses.Prevision> previsions =
+                    new PrevisionDepenses(database.previsionDao(), userId).prevoir(totaux, cal);
+            final long totalPrevu = PrevisionDepenses.totalPrevu(total, previsions);
+            final String alertes = alertesPrevision(previsions,
+                    cal.getActualMaximum(Calendar.DAY_OF_MONTH));
 
             runOnUiThread(() -> {
                 String txt =
                         "\uD83D\uDCB0 SITUATION GLOBALE\n\n" +
-                                "Budget : " + budgetMensuel + " FCFA\n" +
-                                "Dépenses : " + total + " FCFA\n" +
+                                "Budget : " + Montant.formater(budgetMensuel) + " FCFA\n" +
+                                "Dépenses : " + Montant.formater(total) + " FCFA\n" +
                                 (reste < 0
                                         ? "\uD83D\uDEA8 DÉFICIT : "
                                         : "\u2705 SURPLUS : ") +
-                                Math.abs(reste) + " FCFA";
+                                Montant.formater(Math.abs(reste)) + " FCFA\n\n" +
+                                "\uD83D\uDD2E Fin de mois prévue : " +
+                                Montant.formater(totalPrevu) + " FCFA" +
+                                alertes;
 
                 textSituation.setText(txt);
             });
         });
     }
 
+    /**
+     * Catégories qui dépasseront leur montant alloué au rythme actuel
+     */
+    private String alertesPrevision(List<PrevisionDepenses.Prevision> previsions, int dernierJour) {
+        Map<String, Long> alloues = new HashMap<>();
+        for (CategorieBudget cat : categories) {
+            alloues.put(cat.getNom(), cat.getMontantAlloue());
+        }
+
+        StringBuilder alertes = new StringBuilder();
+        for (PrevisionDepenses.Prevision p : previsions) {
+            Long alloue = alloues.get(p.getCategorie());
+            if (alloue == null || p.getDepassement(alloue) == 0) {
+                continue;
+            }
+            alertes.append("\n\u26A0\uFE0F Au rythme actuel, ").append(p.getCategorie())
+                    .append(" dépassera de ").append(Montant.formater(p.getDepassement(alloue)))
+                    .append(" FCFA d'ici le ").append(dernierJour);
+        }
+        return alertes.toString();
+    }
+
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 
+import com.example.gestionnairebudget.utils.Montant;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -30,7 +32,7 @@ public class ParametrageBudgetActivity extends AppCompatActivity {
                 .findViewById(android.R.id.content);
 
         initialiserCategories();
-        afficherCategories(100000); // Budget exemple
+        afficherCategories(Montant.unites(100000).getCentimes()); // Budget exemple
     }
 
     // =============================
@@ -52,7 +54,7 @@ public class ParametrageBudgetActivity extends AppCompatActivity {
     // =============================
     // AFFICHAGE
     // =============================
-    private void afficherCategories(double budget) {
+    private void afficherCategories(long budget) {
         containerCategories.removeAllViews();
 
         for (Map.Entry<String, Integer> entry : categories.entrySet()) {
@@ -69,9 +71,9 @@ public class ParametrageBudgetActivity extends AppCompatActivity {
     // =============================
     // CARTE CATÉGORIE
     // =============================
-    private CardView creerCarteCategorie(String nom, int pourcentage, double budget) {
+    private CardView creerCarteCategorie(String nom, int pourcentage, long budget) {
 
-        double alloue = budget * pourcentage / 100;
+        long alloue = Montant.part(budget, pourcentage);
 
         CardView card = new CardView(this);
         LinearLayout.LayoutParams cardParams =
@@ -104,9 +106,9 @@ public class ParametrageBudgetActivity extends AppCompatActivity {
 
         TextView details = new TextView(this);
         details.setText(
-                "Alloué : " + (int) alloue + " FCFA | " +
+                "Alloué : " + Montant.formater(alloue) + " FCFA | " +
                         "Utilisé : 0 FCFA | " +
-                        "Reste : " + (int) alloue + " FCFA"
+                        "Reste : " + Montant.formater(alloue) + " FCFA"
         );
 
         layout.addView(titre);
@@ -4,6 +4,8 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import com.example.gestionnairebudget.utils.MesureExecution;
 
 /**
  * ===========================================================
@@ -19,6 +21,16 @@ import androidx.room.RoomDatabase;
  * 2. categories_personnalisees -> Categories de budget personnalisees
  * 3. depenses                  -> Toutes les depenses enregistrees
  * 4. rapports                  -> Rapports generes automatiquement
+ * 5. resume_depenses_jour      -> Totaux par jour et categorie (triggers)
+ * 6. imports_releves           -> Points de reprise des imports de releves
+ * 7. taches_migration          -> Rattrapages de migration en attente
+ * 8. previsions_categorie      -> Rythme de depense par categorie (triggers)
+ * 9. saisonnalite_categorie    -> Depenses par jour du mois (triggers)
+ * 10. worker_runs              -> Telemetrie des Workers (diagnostic)
+ *
+ *  MIGRATIONS : voir la classe Migrations
+ * Le schema de chaque version est exporte dans app/schemas (a garder
+ * dans git) : MigrationsTest migre une base version 2 et la valide.
  *
  *  PATTERN SINGLETON :
  * Une SEULE instance de la base de donnees pour toute l'application.
@@ -26,7 +38,7 @@ import androidx.room.RoomDatabase;
  *
  *  ERREURS COURANTES :
  * - Oublier d'ajouter une entite dans @Database -> Crash au demarrage
- * - Ne pas incrementer "version" apres modification -> Donnees perdues
+ * - Ne pas incrementer "version" ou oublier la migration -> Crash a l'ouverture
  * - Creer plusieurs instances -> Conflits de donnees
  */
 
@@ -35,10 +47,16 @@ import androidx.room.RoomDatabase;
                 UserEntity.class,
                 CategoriePersonnaliseeEntity.class,
                 DepenseEntity.class,
-                RapportEntity.class
+                RapportEntity.class,
+                ResumeJourEntity.class,
+                ImportEntity.class,
+                TacheMigrationEntity.class,
+                PrevisionCategorieEntity.class,
+                SaisonCategorieEntity.class,
+                ExecutionWorkerEntity.class
         },
-        version = 2,
-        exportSchema = false
+        version = 14,
+        exportSchema = true
 )
 public abstract class AppDatabase extends RoomDatabase {
 
@@ -53,6 +71,9 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     private static volatile AppDatabase instance;
 
+    /** Nom du fichier de la base */
+    public static final String NOM_BASE = "gestionnaire_budget_v2_db";
+
     // ===========================================================
     // DAOs : Objets d'acces aux donnees
     // ===========================================================
@@ -65,6 +86,29 @@ public abstract class AppDatabase extends RoomDatabase {
 
     public abstract RapportDao rapportDao();
 
+    public abstract ResumeDao resumeDao();
+
+    public abstract ImportDao importDao();
+
+    public abstract TacheMigrationDao tacheMigrationDao();
+
+    public abstract PrevisionDao previsionDao();
+
+    public abstract ExecutionWorkerDao executionWorkerDao();
+
+    /**
+     * A chaque ouverture : Room cree les tables mais pas les triggers.
+     * "IF NOT EXISTS" rend l'appel sans effet s'ils existent deja.
+     */
+    private static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(SupportSQLiteDatabase db) {
+            DeclencheursResume.creer(db);
+            DeclencheursRapports.creer(db);
+            DeclencheursPrevisions.creer(db);
+        }
+    };
+
     // ===========================================================
     // METHODE SINGLETON : Recuperer l'instance
     // ===========================================================
@@ -81,17 +125,56 @@ public abstract class AppDatabase extends RoomDatabase {
      */
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
-            instance = Room.databaseBuilder(
-                            context.getApplicationContext(),
-                            AppDatabase.class,
-                            "gestionnaire_budget_v2_db"
-                    )
-                    .fallbackToDestructiveMigration()
-                    .build();
+            instance = creer(context, NOM_BASE, ConfigurationBase.parDefaut());
         }
         return instance;
     }
 
+    /**
+     * Construire une base avec des reglages SQLite explicites
+     * (utilise par getInstance et par les tests de performance)
+     *
+     * @param context Contexte Android
+     * @param nom Nom du fichier de la base
+     * @param config Journal, synchronous, cache et executeurs
+     * @return Nouvelle instance (a fermer par l'appelant si ce n'est pas le singleton)
+     */
+    public static AppDatabase creer(Context context, String nom, ConfigurationBase config) {
+        RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(
+                        context.getApplicationContext(),
+                        AppDatabase.class,
+                        nom
+                )
+                .addMigrations(Migrations.TOUTES)
+                .addCallback(CALLBACK)
+                .addCallback(reglages(config))
+                .setJournalMode(config.getModeJournal())
+                .setQueryExecutor(config.creerExecuteurRequetes())
+                .setTransactionExecutor(config.creerExecuteurTransactions())
+                // Seule la version 1 (jamais publiee avec des donnees) n'a pas de migration
+                .fallbackToDestructiveMigrationFrom(1);
+
+        if (config.isCompterRequetes()) {
+            // Compteur de requetes de la telemetrie (sur le thread de la requete)
+            builder.setQueryCallback(MesureExecution::compterRequete, Runnable::run);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appliquer les PRAGMA de la configuration a chaque ouverture
+     */
+    private static RoomDatabase.Callback reglages(ConfigurationBase config) {
+        return new RoomDatabase.Callback() {
+            @Override
+            public void onOpen(SupportSQLiteDatabase db) {
+                for (String pragma : config.getPragmas()) {
+                    db.execSQL(pragma);
+                }
+            }
+        };
+    }
+
     // ===========================================================
     // NOTES POUR DEBUTANTS
     // ===========================================================
@@ -111,6 +194,6 @@ public abstract class AppDatabase extends RoomDatabase {
      *
      *  REGLE IMPORTANTE :
      * JAMAIS de requetes BDD sur le thread UI !
-     * Toujours utiliser Executors.
+     * Toujours passer par BudgetRepository (lire / ecrire).
      */
 }
@@ -0,0 +1,116 @@
+package com.example.gestionnairebudget.database;
+
+import android.content.Context;
+
+import java.util.concurrent.Executor;
+
+/**
+ * ===========================================================
+ * CLASSE : BudgetRepository
+ * ===========================================================
+ *
+ *  ROLE :
+ * Point d'acces unique des activites a la base, hors du thread UI :
+ * - lire(...)  : pool de lecture (nombreLecteurs fils, 4 par defaut)
+ * - ecrire(...) : un seul fil ecrivain, les ecritures passent dans
+ *   l'ordre des clics
+ *
+ *  POURQUOI ?
+ * Avant, chaque clic creait son Executors.newSingleThreadExecutor()
+ * jamais arrete : un fil de plus par action. Ici les fils sont ceux
+ * que Room a deja (voir ConfigurationBase) : leur nombre ne bouge
+ * plus, quelle que soit la duree d'utilisation de l'application.
+ *
+ *  REGLES :
+ * - Les taches tournent en arriere-plan : revenir a l'interface avec
+ *   runOnUiThread, et verifier que l'activite existe encore
+ * - Une tache ne doit pas attendre une autre tache de l'ecrivain
+ *   (un seul fil : elle attendrait indefiniment)
+ */
+public class BudgetRepository {
+
+    private static volatile BudgetRepository instance;
+
+    private final AppDatabase database;
+    private final Executor lecture;
+    private final Executor ecriture;
+
+    BudgetRepository(AppDatabase database, Executor lecture, Executor ecriture) {
+        this.database = database;
+        this.lecture = lecture;
+        this.ecriture = ecriture;
+    }
+
+    /**
+     * Instance unique, sur la base de AppDatabase.getInstance
+     */
+    public static BudgetRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (BudgetRepository.class) {
+                if (instance == null) {
+                    AppDatabase database = AppDatabase.getInstance(context);
+                    instance = new BudgetRepository(database,
+                            database.getQueryExecutor(), database.getTransactionExecutor());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public AppDatabase getDatabase() {
+        return database;
+    }
+
+    // ========== EXECUTION ==========
+
+    /**
+     * Lectures (listes, totaux, rendu des rapports, exports)
+     */
+    public void lire(Runnable tache) {
+        lecture.execute(tache);
+    }
+
+    /**
+     * Ecritures, une a la fois et dans l'ordre de soumission
+     */
+    public void ecrire(Runnable tache) {
+        ecriture.execute(tache);
+    }
+
+    // ========== ECRITURES COURANTES ==========
+
+    public void ajouterDepense(DepenseEntity depense) {
+        ajouterDepense(depense, null);
+    }
+
+    /**
+     * Inserer une depense, puis executer "ensuite" sur l'ecrivain, une
+     * fois l'insertion validee : les lectures qu'il lance (situation,
+     * totaux) voient la depense. Il ne doit pas attendre l'ecrivain.
+     *
+     * @param ensuite suite de l'insertion (peut etre null)
+     */
+    public void ajouterDepense(DepenseEntity depense, Runnable ensuite) {
+        ecrire(() -> {
+            database.depenseDao().inserer(depense);
+            if (ensuite != null) {
+                ensuite.run();
+            }
+        });
+    }
+
+    /**
+     * Budget du compte, lu par le passage quotidien des rapports
+     */
+    public void definirBudget(int userId, long budget) {
+        long date = System.currentTimeMillis();
+        ecrire(() -> database.userDao().definirBudget(userId, budget, date));
+    }
+
+    /**
+     * Budget defini avant les budgets par compte : repris sur le compte
+     */
+    public void reprendreBudget(int userId, long budget) {
+        ecrire(() -> database.userDao().reprendreBudget(userId, budget));
+    }
+}
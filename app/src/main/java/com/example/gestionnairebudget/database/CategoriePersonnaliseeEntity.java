@@ -1,5 +1,6 @@
 package com.example.gestionnairebudget.database;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 
@@ -19,12 +20,21 @@ public class CategoriePersonnaliseeEntity {
 
     private String nomCategorie;
     private double pourcentageAlloue;
-    private double montantAlloue;     // Calculé depuis le budget
-    private double montantUtilise;
+    @ColumnInfo(name = "montantAlloueCentimes", defaultValue = "0")
+    private long montantAlloue;       // Calculé depuis le budget (centimes)
+    @ColumnInfo(name = "montantUtiliseCentimes", defaultValue = "0")
+    private long montantUtilise;      // En centimes
 
     private long dateCreation;
     private boolean estActive;
 
+    // Montants en francs d'avant la version 8 (colonnes REAL gardées,
+    // voir DepenseEntity) : jamais lus par l'application
+    @ColumnInfo(name = "montantAlloue")
+    double ancienMontantAlloue;
+    @ColumnInfo(name = "montantUtilise")
+    double ancienMontantUtilise;
+
 
     // ========== CONSTRUCTEUR ==========
     public CategoriePersonnaliseeEntity(int userId, String nomCategorie,
@@ -32,8 +42,8 @@ public class CategoriePersonnaliseeEntity {
         this.userId = userId;
         this.nomCategorie = nomCategorie;
         this.pourcentageAlloue = pourcentageAlloue;
-        this.montantAlloue = 0.0;
-        this.montantUtilise = 0.0;
+        this.montantAlloue = 0;
+        this.montantUtilise = 0;
         this.dateCreation = System.currentTimeMillis();
         this.estActive = true;
     }
@@ -73,19 +83,19 @@ public class CategoriePersonnaliseeEntity {
         this.pourcentageAlloue = pourcentageAlloue;
     }
 
-    public double getMontantAlloue() {
+    public long getMontantAlloue() {
         return montantAlloue;
     }
 
-    public void setMontantAlloue(double montantAlloue) {
+    public void setMontantAlloue(long montantAlloue) {
         this.montantAlloue = montantAlloue;
     }
 
-    public double getMontantUtilise() {
+    public long getMontantUtilise() {
         return montantUtilise;
     }
 
-    public void setMontantUtilise(double montantUtilise) {
+    public void setMontantUtilise(long montantUtilise) {
         this.montantUtilise = montantUtilise;
     }
 
@@ -0,0 +1,134 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.RoomDatabase;
+
+import com.example.gestionnairebudget.BuildConfig;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ===========================================================
+ * CLASSE : ConfigurationBase
+ * ===========================================================
+ *
+ *  ROLE :
+ * Regroupe les reglages SQLite appliques a l'ouverture de la base :
+ * - mode du journal (WAL : lectures en parallele d'une ecriture)
+ * - niveau "synchronous" (NORMAL suffit en WAL)
+ * - taille du cache de pages de la connexion principale, en Ko
+ * - executeurs de Room pour les requetes et les transactions
+ * - comptage des requetes pour la telemetrie (QueryCallback de Room) :
+ *   debug seulement, il coute un appel et une liste d'arguments par
+ *   requete
+ *
+ *  POURQUOI ?
+ * Le RapportWorker lit pendant que MainActivity insere :
+ * en WAL, les lecteurs ne bloquent plus l'ecrivain.
+ *
+ * Les PRAGMA sont executes dans onOpen, sur la connexion principale.
+ * C'est elle qui porte toutes les ecritures, donc "synchronous"
+ * s'applique bien a chaque transaction.
+ *
+ *  CACHE : CONNEXION PRINCIPALE SEULEMENT
+ * En WAL, Android ouvre aussi des connexions de lecture (jusqu'a 4
+ * selon l'appareil) que Room ne laisse pas configurer : elles gardent
+ * le cache par defaut de SQLite (2000 Ko). Le budget voulu est donc
+ * tailleCacheKo pour l'ecrivain (transactions, triggers du resume,
+ * rattrapages) + environ 2 Mo par lecteur, soit au plus ~16 Mo avec
+ * les reglages par defaut, et non 8 Mo x 5 connexions.
+ */
+public class ConfigurationBase {
+
+    /** Valeurs acceptees par "PRAGMA synchronous" */
+    public enum Synchronisation { OFF, NORMAL, FULL }
+
+    private RoomDatabase.JournalMode modeJournal = RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING;
+    private Synchronisation synchronisation = Synchronisation.NORMAL;
+    private int tailleCacheKo = 8 * 1024;   // Connexion principale (ecrivain)
+    private int nombreLecteurs = 4;
+    private boolean compterRequetes = BuildConfig.DEBUG;
+
+    /**
+     * Reglages par defaut de l'application
+     */
+    public static ConfigurationBase parDefaut() {
+        return new ConfigurationBase();
+    }
+
+    public ConfigurationBase modeJournal(RoomDatabase.JournalMode modeJournal) {
+        this.modeJournal = modeJournal;
+        return this;
+    }
+
+    public ConfigurationBase synchronisation(Synchronisation synchronisation) {
+        this.synchronisation = synchronisation;
+        return this;
+    }
+
+    public ConfigurationBase tailleCacheKo(int tailleCacheKo) {
+        if (tailleCacheKo <= 0) {
+            throw new IllegalArgumentException("tailleCacheKo doit etre positive");
+        }
+        this.tailleCacheKo = tailleCacheKo;
+        return this;
+    }
+
+    public ConfigurationBase nombreLecteurs(int nombreLecteurs) {
+        if (nombreLecteurs <= 0) {
+            throw new IllegalArgumentException("nombreLecteurs doit etre positif");
+        }
+        this.nombreLecteurs = nombreLecteurs;
+        return this;
+    }
+
+    public ConfigurationBase compterRequetes(boolean compterRequetes) {
+        this.compterRequetes = compterRequetes;
+        return this;
+    }
+
+    public RoomDatabase.JournalMode getModeJournal() { return modeJournal; }
+    public Synchronisation getSynchronisation() { return synchronisation; }
+    public int getTailleCacheKo() { return tailleCacheKo; }
+    public int getNombreLecteurs() { return nombreLecteurs; }
+    public boolean isCompterRequetes() { return compterRequetes; }
+
+    /**
+     * PRAGMA a executer a l'ouverture, sur la connexion principale.
+     * Un cache_size negatif s'exprime en Ko (et non en pages).
+     */
+    String[] getPragmas() {
+        return new String[]{
+                "PRAGMA synchronous = " + synchronisation.name(),
+                "PRAGMA cache_size = -" + tailleCacheKo
+        };
+    }
+
+    /**
+     * Pool des requetes (LiveData, appels asynchrones de Room,
+     * BudgetRepository.lire)
+     */
+    Executor creerExecuteurRequetes() {
+        return Executors.newFixedThreadPool(nombreLecteurs, fabrique("budget-db-lecture-"));
+    }
+
+    /**
+     * Un seul fil pour les transactions : SQLite n'a qu'un ecrivain
+     * (c'est aussi celui de BudgetRepository.ecrire)
+     */
+    ExecutorService creerExecuteurTransactions() {
+        return Executors.newSingleThreadExecutor(fabrique("budget-db-ecriture-"));
+    }
+
+    private static ThreadFactory fabrique(String prefixe) {
+        AtomicInteger compteur = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefixe + compteur.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
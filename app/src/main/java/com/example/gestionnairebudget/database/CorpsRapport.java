@@ -0,0 +1,38 @@
+package com.example.gestionnairebudget.database;
+
+/**
+ * CORPS D'UN RAPPORT (compaction des anciens rapports)
+ *
+ * Ce n'est PAS une table : Room remplit cet objet avec l'id, le
+ * blob "donnees" et le texte des rapports d'avant la v9 seulement,
+ * à archiver par CompactionRapports.
+ */
+public class CorpsRapport {
+
+    private int id;
+    private byte[] donnees;         // null pour un rapport d'avant la v9
+    private String contenuRapport;
+
+
+    // ========== CONSTRUCTEUR ==========
+    public CorpsRapport(int id, byte[] donnees, String contenuRapport) {
+        this.id = id;
+        this.donnees = donnees;
+        this.contenuRapport = contenuRapport;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public int getId() {
+        return id;
+    }
+
+    public byte[] getDonnees() {
+        return donnees;
+    }
+
+    public String getContenuRapport() {
+        return contenuRapport;
+    }
+}
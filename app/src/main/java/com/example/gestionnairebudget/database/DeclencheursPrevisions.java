@@ -0,0 +1,142 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * TRIGGERS DES TABLES "previsions_categorie" ET "saisonnalite_categorie"
+ *
+ * Rythme de dépense par (utilisateur, catégorie), tenu à jour à chaque
+ * INSERT / DELETE / UPDATE sur "depenses", dans la même transaction :
+ * une ligne lue et écrite par dépense, quel que soit l'historique.
+ *
+ * Moyenne mobile exponentielle (EWMA) des totaux journaliers, de
+ * demi-vie DEMI_VIE_JOURS. L'état d'une catégorie :
+ * - jourCourant : dernier jour ayant reçu une dépense
+ * - totalJour   : total de ce jour (pas encore intégré à la moyenne)
+ * - vitesse     : moyenne des jours antérieurs à jourCourant
+ *
+ * Dépense de m centimes le jour D :
+ * - D = jourCourant : totalJour += m
+ * - D > jourCourant : le jour courant est intégré, la moyenne décroît
+ *   pour les jours sans dépense, puis jourCourant = D, totalJour = m
+ * - D < jourCourant (saisie ou import en retard) : la moyenne reçoit
+ *   directement m avec le poids qu'il aurait eu, ALPHA * r^(écart)
+ * Le résultat ne dépend donc pas de l'ordre des insertions (le
+ * rattrapage TacheDifferee.PREVISIONS_DEPENSES en profite). Une
+ * suppression applique la même règle avec -m.
+ *
+ * Pas de pow() dans SQLite avant l'API 34 : r^k est un produit de
+ * constantes r^(2^b) choisies par les bits de k (voir puissance()).
+ *
+ * "saisonnalite_categorie" cumule les dépenses par jour du mois
+ * (loyer le 1er, courses le samedi...) : lue par PrevisionDepenses.
+ */
+public final class DeclencheursPrevisions {
+
+    private DeclencheursPrevisions() {
+    }
+
+    /** Demi-vie de la moyenne, en jours */
+    public static final int DEMI_VIE_JOURS = 14;
+
+    /** Part de la moyenne conservée d'un jour au suivant (r) */
+    public static final double RETENTION = Math.pow(0.5, 1.0 / DEMI_VIE_JOURS);
+
+    /** Poids d'un nouveau jour dans la moyenne */
+    public static final double ALPHA = 1 - RETENTION;
+
+    // Au-delà de 2^BITS jours, r^k vaut 0 (moins de 1e-11)
+    private static final int BITS = 9;
+
+    /**
+     * Instructions SQL appliquant une dépense (ou son retrait, montant
+     * négatif). Paramètres : expressions SQL de l'utilisateur, de la
+     * catégorie, du jour (epochDay), du jour du mois et du montant.
+     */
+    static String[] appliquer(String userId, String categorie, String jour,
+                              String jourMois, String montant) {
+        String cle = "WHERE userId = " + userId + " AND categorie = " + categorie;
+        return new String[]{
+                "INSERT OR IGNORE INTO previsions_categorie "
+                        + "(userId, categorie, premierJour, jourCourant, totalJour, vitesse) "
+                        + "VALUES (" + userId + ", " + categorie + ", " + jour + ", " + jour + ", 0, 0)",
+                // Le SET lit les anciennes valeurs de toutes les colonnes
+                "UPDATE previsions_categorie SET "
+                        + "vitesse = CASE "
+                        + "WHEN " + jour + " > jourCourant THEN (" + ALPHA + " * totalJour + "
+                        + RETENTION + " * vitesse) * " + puissance(jour + " - 1 - jourCourant") + " "
+                        + "WHEN " + jour + " < jourCourant THEN vitesse + " + ALPHA + " * (" + montant
+                        + ") * " + puissance("jourCourant - 1 - " + jour) + " "
+                        + "ELSE vitesse END, "
+                        + "totalJour = CASE "
+                        + "WHEN " + jour + " > jourCourant THEN " + montant + " "
+                        + "WHEN " + jour + " = jourCourant THEN totalJour + " + montant + " "
+                        + "ELSE totalJour END, "
+                        + "jourCourant = MAX(jourCourant, " + jour + "), "
+                        + "premierJour = MIN(premierJour, " + jour + ") " + cle,
+                "INSERT OR IGNORE INTO saisonnalite_categorie (userId, categorie, jourMois, total) "
+                        + "VALUES (" + userId + ", " + categorie + ", " + jourMois + ", 0)",
+                "UPDATE saisonnalite_categorie SET total = total + " + montant + " "
+                        + cle + " AND jourMois = " + jourMois
+        };
+    }
+
+    private static String corps(String[] instructions) {
+        StringBuilder sql = new StringBuilder();
+        for (String instruction : instructions) {
+            sql.append(instruction).append("; ");
+        }
+        return sql.toString();
+    }
+
+    private static final String AJOUTER_NEW = corps(appliquer("NEW.userId",
+            "IFNULL(NEW.categorie, '')", "NEW.epochDay", "NEW.jour", "NEW.montantCentimes"));
+
+    private static final String RETIRER_OLD = corps(appliquer("OLD.userId",
+            "IFNULL(OLD.categorie, '')", "OLD.epochDay", "OLD.jour", "-OLD.montantCentimes"));
+
+    private static final String HORS_RATTRAPAGE = TacheDifferee.horsRattrapage(
+            TacheDifferee.CENTIMES_DEPENSES, TacheDifferee.PREVISIONS_DEPENSES);
+
+    /**
+     * Expression SQL de r^k (k entier >= 0, expression SQL) :
+     * produit des r^(2^b) pour chaque bit b de k
+     */
+    static String puissance(String ecart) {
+        StringBuilder sql = new StringBuilder("(CASE WHEN (").append(ecart)
+                .append(") >= ").append(1 << BITS).append(" THEN 0.0 ELSE 1.0");
+        double facteur = RETENTION;
+        for (int b = 0; b < BITS; b++) {
+            sql.append(" * (CASE WHEN ((").append(ecart).append(") & ").append(1 << b)
+                    .append(") THEN ").append(facteur).append(" ELSE 1.0 END)");
+            facteur *= facteur;
+        }
+        return sql.append(" END)").toString();
+    }
+
+    /**
+     * Créer (ou recréer) les triggers de maintien des prévisions
+     */
+    public static void creer(SupportSQLiteDatabase db) {
+        TacheDifferee.creerTable(db);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS previsions_depenses_insertion "
+                + "AFTER INSERT ON depenses BEGIN " + AJOUTER_NEW + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS previsions_depenses_suppression "
+                + "AFTER DELETE ON depenses " + HORS_RATTRAPAGE + "BEGIN " + RETIRER_OLD + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS previsions_depenses_modification "
+                + "AFTER UPDATE OF userId, montantCentimes, categorie, epochDay, jour ON depenses "
+                + HORS_RATTRAPAGE + "BEGIN "
+                + RETIRER_OLD + AJOUTER_NEW + "END");
+    }
+
+    /**
+     * Supprimer les triggers (avant de reconstruire la table "depenses")
+     */
+    public static void supprimer(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS previsions_depenses_insertion");
+        db.execSQL("DROP TRIGGER IF EXISTS previsions_depenses_suppression");
+        db.execSQL("DROP TRIGGER IF EXISTS previsions_depenses_modification");
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * TRIGGERS "rapport périmé" (table "rapports")
+ *
+ * Un rapport stocké ne sert de synthèse (FusionRapports) que tant que
+ * les dépenses de sa période n'ont pas changé. Chaque INSERT / DELETE /
+ * UPDATE sur "depenses" marque donc perime = 1 sur les rapports dont la
+ * période contient le jour de la dépense, dans la MÊME transaction.
+ * De même, comparaisonPerimee = 1 quand le jour est dans la période
+ * précédente [debutComparaison, debutPeriode[ : l'évolution est fausse,
+ * le rapport doit être régénéré, mais ses totaux restent une synthèse.
+ *
+ * Seules les périodes d'au plus DUREE_MAX_SYNTHESE jours sont suivies :
+ * la recherche reste une petite plage de l'index (userId, debutPeriode).
+ * Les rapports plus longs ne sont jamais utilisés comme synthèses.
+ *
+ * Créés comme ceux du résumé : à chaque ouverture et dans les migrations.
+ */
+public final class DeclencheursRapports {
+
+    /** Durée maximale (en jours) d'un rapport utilisable comme synthèse */
+    public static final int DUREE_MAX_SYNTHESE = 31;
+
+    private DeclencheursRapports() {
+    }
+
+    private static String marquer(String ligne) {
+        return "UPDATE rapports SET perime = 1 "
+                + "WHERE userId = " + ligne + ".userId "
+                + "AND debutPeriode > " + ligne + ".epochDay - " + DUREE_MAX_SYNTHESE + " "
+                + "AND debutPeriode <= " + ligne + ".epochDay "
+                + "AND finPeriode > " + ligne + ".epochDay "
+                + "AND perime = 0; "
+                + "UPDATE rapports SET comparaisonPerimee = 1 "
+                + "WHERE userId = " + ligne + ".userId "
+                + "AND debutPeriode > " + ligne + ".epochDay "
+                + "AND debutPeriode <= " + ligne + ".epochDay + " + DUREE_MAX_SYNTHESE + " "
+                + "AND debutComparaison <= " + ligne + ".epochDay "
+                + "AND comparaisonPerimee = 0; ";
+    }
+
+    /**
+     * Créer (ou recréer) les triggers de péremption des rapports
+     */
+    public static void creer(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_insertion "
+                + "AFTER INSERT ON depenses BEGIN " + marquer("NEW") + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_suppression "
+                + "AFTER DELETE ON depenses BEGIN " + marquer("OLD") + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_modification "
+                + "AFTER UPDATE OF userId, montantCentimes, categorie, epochDay ON depenses BEGIN "
+                + marquer("OLD") + marquer("NEW") + "END");
+    }
+
+    /**
+     * Supprimer les triggers (avant de reconstruire "depenses" ou "rapports")
+     */
+    public static void supprimer(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS rapports_perime_insertion");
+        db.execSQL("DROP TRIGGER IF EXISTS rapports_perime_suppression");
+        db.execSQL("DROP TRIGGER IF EXISTS rapports_perime_modification");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * TRIGGERS DE LA TABLE "resume_depenses_jour"
+ *
+ * Room ne gère pas les triggers : on les crée nous-mêmes
+ * - à chaque ouverture de la base (AppDatabase, callback onOpen)
+ * - dans les migrations qui touchent "depenses"
+ *
+ * Chaque INSERT / DELETE / UPDATE sur "depenses" met à jour le résumé
+ * dans la MÊME transaction : inserer, insererTout, supprimer et
+ * supprimerDepensesMois restent cohérents sans code Java en plus.
+ *
+ * Pendant un rattrapage du résumé (TacheDifferee.RESUME_DEPENSES) ou
+ * de la conversion en centimes (CENTIMES_DEPENSES), les suppressions et
+ * modifications de lignes pas encore traitées sont ignorées : le lot
+ * les lira plus tard dans leur état final.
+ */
+public final class DeclencheursResume {
+
+    private DeclencheursResume() {
+    }
+
+    private static final String AJOUTER_NEW =
+            "INSERT OR IGNORE INTO resume_depenses_jour (userId, epochDay, categorie, total, nombre) "
+                    + "VALUES (NEW.userId, NEW.epochDay, IFNULL(NEW.categorie, ''), 0, 0); "
+                    + "UPDATE resume_depenses_jour "
+                    + "SET total = total + NEW.montantCentimes, nombre = nombre + 1 "
+                    + "WHERE userId = NEW.userId AND epochDay = NEW.epochDay AND categorie = IFNULL(NEW.categorie, ''); ";
+
+    private static final String RETIRER_OLD =
+            "UPDATE resume_depenses_jour "
+                    + "SET total = total - OLD.montantCentimes, nombre = nombre - 1 "
+                    + "WHERE userId = OLD.userId AND epochDay = OLD.epochDay AND categorie = IFNULL(OLD.categorie, ''); "
+                    + "DELETE FROM resume_depenses_jour "
+                    + "WHERE userId = OLD.userId AND epochDay = OLD.epochDay AND categorie = IFNULL(OLD.categorie, '') "
+                    + "AND nombre <= 0; ";
+
+    private static final String HORS_RATTRAPAGE = TacheDifferee.horsRattrapage(
+            TacheDifferee.CENTIMES_DEPENSES, TacheDifferee.RESUME_DEPENSES);
+
+    /**
+     * Créer (ou recréer) les triggers de maintien du résumé
+     */
+    public static void creer(SupportSQLiteDatabase db) {
+        TacheDifferee.creerTable(db);
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_insertion "
+                + "AFTER INSERT ON depenses BEGIN " + AJOUTER_NEW + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_suppression "
+                + "AFTER DELETE ON depenses " + HORS_RATTRAPAGE + "BEGIN " + RETIRER_OLD + "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_modification "
+                + "AFTER UPDATE OF userId, montantCentimes, categorie, epochDay ON depenses "
+                + HORS_RATTRAPAGE + "BEGIN "
+                + RETIRER_OLD + AJOUTER_NEW + "END");
+    }
+
+    /**
+     * Supprimer les triggers (avant de reconstruire la table "depenses")
+     */
+    public static void supprimer(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS resume_depenses_insertion");
+        db.execSQL("DROP TRIGGER IF EXISTS resume_depenses_suppression");
+        db.execSQL("DROP TRIGGER IF EXISTS resume_depenses_modification");
+    }
+}
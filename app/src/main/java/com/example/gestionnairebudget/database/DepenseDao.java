@@ -11,6 +11,10 @@ import java.util.List;
  *
  * Interface qui définit toutes les opérations possibles sur la BDD
  * Room génère automatiquement le code d'implémentation
+ *
+ * Toutes les requêtes sont limitées à un utilisateur (userId) :
+ * sur un appareil partagé, chacun ne lit que ses propres dépenses,
+ * via des index qui commencent tous par userId.
  */
 @Dao
 public interface DepenseDao {
@@ -35,83 +39,190 @@ public interface DepenseDao {
     /**
      * Récupérer TOUTES les dépenses
      */
-    @Query("SELECT * FROM depenses ORDER BY timestamp DESC")
-    List<DepenseEntity> getToutesLesDepenses();
+    @Query("SELECT * FROM depenses WHERE userId = :userId ORDER BY timestamp DESC")
+    List<DepenseEntity> getToutesLesDepenses(int userId);
 
     /**
      * Récupérer les dépenses d'un jour spécifique
      */
-    @Query("SELECT * FROM depenses WHERE jour = :jour AND mois = :mois AND annee = :annee ORDER BY timestamp DESC")
-    List<DepenseEntity> getDepensesParJour(int jour, int mois, int annee);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND jour = :jour AND mois = :mois AND annee = :annee ORDER BY timestamp DESC")
+    List<DepenseEntity> getDepensesParJour(int userId, int jour, int mois, int annee);
 
     /**
      * Récupérer les dépenses d'une semaine
      */
-    @Query("SELECT * FROM depenses WHERE semaine = :semaine AND annee = :annee ORDER BY timestamp DESC")
-    List<DepenseEntity> getDepensesParSemaine(int semaine, int annee);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND semaine = :semaine AND annee = :annee ORDER BY timestamp DESC")
+    List<DepenseEntity> getDepensesParSemaine(int userId, int semaine, int annee);
 
     /**
      * Récupérer les dépenses d'un mois
      */
-    @Query("SELECT * FROM depenses WHERE mois = :mois AND annee = :annee ORDER BY timestamp DESC")
-    List<DepenseEntity> getDepensesParMois(int mois, int annee);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND mois = :mois AND annee = :annee ORDER BY timestamp DESC")
+    List<DepenseEntity> getDepensesParMois(int userId, int mois, int annee);
 
     /**
      * Récupérer les dépenses d'une année
      */
-    @Query("SELECT * FROM depenses WHERE annee = :annee ORDER BY timestamp DESC")
-    List<DepenseEntity> getDepensesParAnnee(int annee);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND annee = :annee ORDER BY timestamp DESC")
+    List<DepenseEntity> getDepensesParAnnee(int userId, int annee);
 
     /**
      * Récupérer les dépenses d'une catégorie
      */
-    @Query("SELECT * FROM depenses WHERE categorie = :categorie ORDER BY timestamp DESC")
-    List<DepenseEntity> getDepensesParCategorie(String categorie);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND categorie = :categorie ORDER BY timestamp DESC")
+    List<DepenseEntity> getDepensesParCategorie(int userId, String categorie);
 
     /**
      * Récupérer les dépenses d'une catégorie pour un mois donné
      */
-    @Query("SELECT * FROM depenses WHERE categorie = :categorie AND mois = :mois AND annee = :annee")
-    List<DepenseEntity> getDepensesCategorieParMois(String categorie, int mois, int annee);
+    @Query("SELECT * FROM depenses WHERE userId = :userId AND categorie = :categorie AND mois = :mois AND annee = :annee")
+    List<DepenseEntity> getDepensesCategorieParMois(int userId, String categorie, int mois, int annee);
+
+
+    // ========== PAGINATION (HISTORIQUE) ==========
+    // Pagination "keyset" : on repart de la dernière ligne affichée
+    // (timestamp, id) au lieu d'un OFFSET. L'index sur timestamp
+    // (qui contient aussi l'id) donne directement l'ordre voulu :
+    // le coût d'une page ne dépend pas du nombre total de dépenses.
+
+    /**
+     * Première page de l'historique (les plus récentes)
+     */
+    @Query("SELECT * FROM depenses WHERE userId = :userId ORDER BY timestamp DESC, id DESC LIMIT :taille")
+    List<DepenseEntity> getPremierePage(int userId, int taille);
+
+    /**
+     * Page suivante : dépenses strictement plus anciennes que le curseur
+     *
+     * @param avantTimestamp timestamp de la dernière dépense affichée
+     * @param avantId        id de la dernière dépense affichée
+     * @param taille         nombre maximum de lignes
+     */
+    @Query("SELECT * FROM depenses "
+            + "WHERE userId = :userId AND timestamp <= :avantTimestamp "
+            + "AND (timestamp < :avantTimestamp OR id < :avantId) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :taille")
+    List<DepenseEntity> getPageAvant(int userId, long avantTimestamp, int avantId, int taille);
 
 
     // ========== CALCULS ==========
+    // Montants en centimes : SUM sur INTEGER est exact, 0 si aucune dépense
 
     /**
      * Calculer le total des dépenses d'un jour
      */
-    @Query("SELECT SUM(montant) FROM depenses WHERE jour = :jour AND mois = :mois AND annee = :annee")
-    Double getTotalJour(int jour, int mois, int annee);
+    @Query("SELECT IFNULL(SUM(montantCentimes), 0) FROM depenses WHERE userId = :userId AND jour = :jour AND mois = :mois AND annee = :annee")
+    long getTotalJour(int userId, int jour, int mois, int annee);
 
     /**
      * Calculer le total des dépenses d'une semaine
      */
-    @Query("SELECT SUM(montant) FROM depenses WHERE semaine = :semaine AND annee = :annee")
-    Double getTotalSemaine(int semaine, int annee);
+    @Query("SELECT IFNULL(SUM(montantCentimes), 0) FROM depenses WHERE userId = :userId AND semaine = :semaine AND annee = :annee")
+    long getTotalSemaine(int userId, int semaine, int annee);
 
     /**
      * Calculer le total des dépenses d'un mois
      */
-    @Query("SELECT SUM(montant) FROM depenses WHERE mois = :mois AND annee = :annee")
-    Double getTotalMois(int mois, int annee);
+    @Query("SELECT IFNULL(SUM(montantCentimes), 0) FROM depenses WHERE userId = :userId AND mois = :mois AND annee = :annee")
+    long getTotalMois(int userId, int mois, int annee);
 
     /**
      * Calculer le total d'une catégorie pour un mois
      */
-    @Query("SELECT SUM(montant) FROM depenses WHERE categorie = :categorie AND mois = :mois AND annee = :annee")
-    Double getTotalCategorieParMois(String categorie, int mois, int annee);
+    @Query("SELECT IFNULL(SUM(montantCentimes), 0) FROM depenses WHERE userId = :userId AND categorie = :categorie AND mois = :mois AND annee = :annee")
+    long getTotalCategorieParMois(int userId, String categorie, int mois, int annee);
 
     /**
      * Compter le nombre de dépenses d'un jour
      */
-    @Query("SELECT COUNT(*) FROM depenses WHERE jour = :jour AND mois = :mois AND annee = :annee")
-    int getNombreDepensesJour(int jour, int mois, int annee);
+    @Query("SELECT COUNT(*) FROM depenses WHERE userId = :userId AND jour = :jour AND mois = :mois AND annee = :annee")
+    int getNombreDepensesJour(int userId, int jour, int mois, int annee);
 
     /**
      * Compter le nombre total de dépenses
      */
-    @Query("SELECT COUNT(*) FROM depenses")
-    int getNombreTotalDepenses();
+    @Query("SELECT COUNT(*) FROM depenses WHERE userId = :userId")
+    int getNombreTotalDepenses(int userId);
+
+
+    // ========== AGRÉGATS PAR CATÉGORIE ==========
+    // Une ligne (categorie, total, nombre) par catégorie, triée par total
+
+    /**
+     * Totaux par catégorie pour un jour
+     */
+    @Query("SELECT categorie, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND jour = :jour AND mois = :mois AND annee = :annee "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesJour(int userId, int jour, int mois, int annee);
+
+    /**
+     * Totaux par catégorie pour une semaine
+     */
+    @Query("SELECT categorie, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND semaine = :semaine AND annee = :annee "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesSemaine(int userId, int semaine, int annee);
+
+    /**
+     * Totaux par catégorie pour un mois
+     */
+    @Query("SELECT categorie, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND mois = :mois AND annee = :annee "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesMois(int userId, int mois, int annee);
+
+    /**
+     * Totaux par catégorie pour une année
+     */
+    @Query("SELECT categorie, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND annee = :annee "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesAnnee(int userId, int annee);
+
+
+    // ========== PLAGES DE JOURS ==========
+    // Période quelconque [debut, fin[ en epochDay (30 derniers jours,
+    // d'une paie à l'autre, trimestre... voir utils.Periodes),
+    // via l'index (userId, epochDay)
+
+    /**
+     * Dépenses d'une plage de jours
+     */
+    @Query("SELECT * FROM depenses WHERE userId = :userId "
+            + "AND epochDay >= :debut AND epochDay < :fin ORDER BY epochDay, timestamp")
+    List<DepenseEntity> getDepensesPlage(int userId, int debut, int fin);
+
+    /**
+     * Total d'une plage de jours, en centimes (0 si aucune dépense)
+     */
+    @Query("SELECT IFNULL(SUM(montantCentimes), 0) FROM depenses WHERE userId = :userId "
+            + "AND epochDay >= :debut AND epochDay < :fin")
+    long getTotalPlage(int userId, int debut, int fin);
+
+    /**
+     * Nombre de dépenses d'une plage de jours
+     */
+    @Query("SELECT COUNT(*) FROM depenses WHERE userId = :userId "
+            + "AND epochDay >= :debut AND epochDay < :fin")
+    int getNombrePlage(int userId, int debut, int fin);
+
+    /**
+     * Totaux par catégorie d'une plage de jours, triés par total
+     */
+    @Query("SELECT categorie, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesPlage(int userId, int debut, int fin);
+
+    /**
+     * Série journalière d'une plage : une ligne par jour ayant des
+     * dépenses, dans l'ordre des jours (ordre de l'index, sans tri)
+     */
+    @Query("SELECT epochDay, SUM(montantCentimes) AS total, COUNT(*) AS nombre FROM depenses "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin "
+            + "GROUP BY epochDay ORDER BY epochDay")
+    List<TotalJour> getSerieJournaliere(int userId, int debut, int fin);
 
 
     // ========== SUPPRESSION ==========
@@ -125,12 +236,12 @@ public interface DepenseDao {
     /**
      * Supprimer toutes les dépenses
      */
-    @Query("DELETE FROM depenses")
-    void supprimerTout();
+    @Query("DELETE FROM depenses WHERE userId = :userId")
+    void supprimerTout(int userId);
 
     /**
      * Supprimer les dépenses d'un mois
      */
-    @Query("DELETE FROM depenses WHERE mois = :mois AND annee = :annee")
-    void supprimerDepensesMois(int mois, int annee);
+    @Query("DELETE FROM depenses WHERE userId = :userId AND mois = :mois AND annee = :annee")
+    void supprimerDepensesMois(int userId, int mois, int annee);
 }
\ No newline at end of file
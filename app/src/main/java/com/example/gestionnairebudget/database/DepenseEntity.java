@@ -1,15 +1,42 @@
 package com.example.gestionnairebudget.database;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
+import com.example.gestionnairebudget.utils.Periodes;
 
 /**
  * ENTITÉ ROOM : Depense
  *
  * Cette classe représente une TABLE dans la base de données
  * Chaque objet = une LIGNE dans la table
+ *
+ * INDEX :
+ * Chaque requête de période de DepenseDao dispose d'un index composite,
+ * pour éviter de parcourir toute la table quand l'historique grossit.
+ * Tous commencent par userId : un utilisateur ne lit que ses lignes.
+ * - (userId, annee, mois, jour) -> jour, mois, année
+ * - (userId, annee, semaine)    -> semaine
+ * - (userId, categorie, annee, mois) -> catégorie (+ mois)
+ * - (userId, timestamp)         -> tri chronologique de l'historique
+ * - (userId, epochDay)          -> plage de jours quelconque [debut, fin[
+ *
+ * MONTANT : colonne "montantCentimes" (INTEGER). L'ancienne colonne
+ * "montant" (francs, REAL, avant la version 8) reste dans la table :
+ * SQLite ne supprime pas de colonne avant l'API 34, et la migration 7 -> 8
+ * ne fait qu'ajouter la nouvelle (conversion par lots, TacheDifferee).
  */
-@Entity(tableName = "depenses")
+@Entity(
+        tableName = "depenses",
+        indices = {
+                @Index(value = {"userId", "annee", "mois", "jour"}),
+                @Index(value = {"userId", "annee", "semaine"}),
+                @Index(value = {"userId", "categorie", "annee", "mois"}),
+                @Index(value = {"userId", "timestamp"}),
+                @Index(value = {"userId", "epochDay"})
+        }
+)
 public class DepenseEntity {
 
     // ========== COLONNES DE LA TABLE ==========
@@ -17,9 +44,13 @@ public class DepenseEntity {
     @PrimaryKey(autoGenerate = true)
     private int id;  // ID auto-incrémenté
 
+    @ColumnInfo(defaultValue = "0")
+    private int userId;  // ID de l'utilisateur propriétaire
+
     private String categorie;
     private String designation;
-    private double montant;
+    @ColumnInfo(name = "montantCentimes", defaultValue = "0")
+    private long montant;         // En centimes (voir Montant)
     private long timestamp;  // Date en millisecondes
     private String dateFormatee;  // Date lisible (ex: "09/01/2026 14:30")
 
@@ -29,11 +60,20 @@ public class DepenseEntity {
     private int mois;    // Mois (1-12)
     private int annee;   // Année (ex: 2026)
 
+    // Jour absolu (jours depuis 01/01/1970), clé du résumé journalier
+    @ColumnInfo(defaultValue = "0")
+    private int epochDay;
+
+    // Montant en francs d'avant la version 8 : jamais lu par l'application
+    @ColumnInfo(name = "montant")
+    double ancienMontant;
+
 
     // ========== CONSTRUCTEUR ==========
-    public DepenseEntity(String categorie, String designation, double montant,
+    public DepenseEntity(int userId, String categorie, String designation, long montant,
                          long timestamp, String dateFormatee,
                          int jour, int semaine, int mois, int annee) {
+        this.userId = userId;
         this.categorie = categorie;
         this.designation = designation;
         this.montant = montant;
@@ -43,6 +83,7 @@ public class DepenseEntity {
         this.semaine = semaine;
         this.mois = mois;
         this.annee = annee;
+        this.epochDay = Periodes.epochDay(annee, mois, jour);
     }
 
 
@@ -57,6 +98,14 @@ public class DepenseEntity {
         this.id = id;
     }
 
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
     public String getCategorie() {
         return categorie;
     }
@@ -73,11 +122,11 @@ public class DepenseEntity {
         this.designation = designation;
     }
 
-    public double getMontant() {
+    public long getMontant() {
         return montant;
     }
 
-    public void setMontant(double montant) {
+    public void setMontant(long montant) {
         this.montant = montant;
     }
 
@@ -128,4 +177,12 @@ public class DepenseEntity {
     public void setAnnee(int annee) {
         this.annee = annee;
     }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
 }
\ No newline at end of file
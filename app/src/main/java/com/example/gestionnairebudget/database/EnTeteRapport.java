@@ -0,0 +1,38 @@
+package com.example.gestionnairebudget.database;
+
+/**
+ * EN-TÊTE D'UN RAPPORT (liste des rapports sauvegardés)
+ *
+ * Ce n'est PAS une table : Room remplit cet objet avec les seules
+ * colonnes affichées dans la liste. Le contenu n'est lu que quand
+ * le rapport est ouvert (RapportDao.getRapport).
+ */
+public class EnTeteRapport {
+
+    private int id;
+    private String typeRapport;
+    private String dateFormatee;
+
+
+    // ========== CONSTRUCTEUR ==========
+    public EnTeteRapport(int id, String typeRapport, String dateFormatee) {
+        this.id = id;
+        this.typeRapport = typeRapport;
+        this.dateFormatee = dateFormatee;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTypeRapport() {
+        return typeRapport;
+    }
+
+    public String getDateFormatee() {
+        return dateFormatee;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * DAO de la télémétrie des Workers (table worker_runs)
+ */
+@Dao
+public interface ExecutionWorkerDao {
+
+    @Insert
+    long inserer(ExecutionWorkerEntity execution);
+
+    /**
+     * Ne garder que les "garder" dernières exécutions
+     */
+    @Query("DELETE FROM worker_runs WHERE id <= (SELECT MAX(id) FROM worker_runs) - :garder")
+    void purger(int garder);
+
+    /**
+     * Enregistrer une exécution et supprimer les plus anciennes
+     */
+    @Transaction
+    default void enregistrer(ExecutionWorkerEntity execution) {
+        inserer(execution);
+        purger(ExecutionWorkerEntity.MAX_EXECUTIONS);
+    }
+
+    /**
+     * Dernières exécutions d'un Worker, les plus récentes d'abord
+     */
+    @Query("SELECT * FROM worker_runs WHERE travail = :travail ORDER BY id DESC LIMIT :limite")
+    List<ExecutionWorkerEntity> getDernieres(String travail, int limite);
+
+    /**
+     * Dernières exécutions terminées sur une exception
+     */
+    @Query("SELECT * FROM worker_runs WHERE resultat IN ('"
+            + ExecutionWorkerEntity.ERREUR + "', '" + ExecutionWorkerEntity.ECHEC + "') "
+            + "ORDER BY id DESC LIMIT :limite")
+    List<ExecutionWorkerEntity> getEchecsRecents(int limite);
+}
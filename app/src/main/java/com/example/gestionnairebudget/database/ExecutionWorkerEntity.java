@@ -0,0 +1,158 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * ENTITÉ ROOM : Exécution d'un Worker (télémétrie)
+ *
+ * Une ligne par passage du RapportWorker : durée, lignes lues,
+ * requêtes SQL, résultat et classe de l'exception éventuelle (voir
+ * MesureExecution). Seules les MAX_EXECUTIONS dernières lignes sont
+ * gardées. Lue par l'écran de diagnostic et exportable.
+ */
+@Entity(tableName = "worker_runs")
+public class ExecutionWorkerEntity {
+
+    /** Lignes gardées (les plus anciennes sont supprimées) */
+    public static final int MAX_EXECUTIONS = 500;
+
+    // Résultats d'une exécution
+    public static final String SUCCES = "SUCCES";
+    public static final String ATTENTE = "ATTENTE";   // Migration en cours, relancé
+    public static final String ARRETE = "ARRETE";     // Arrêté par WorkManager, relancé
+    public static final String ERREUR = "ERREUR";     // Exception, relancé
+    public static final String ECHEC = "ECHEC";       // Exception, abandonné
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @NonNull
+    private String travail;       // Nom du Worker
+    private String typeRapport;   // Rapports du passage ("JOURNALIER,MENSUEL"...)
+    private long debut;           // Timestamp
+    private long fin;             // Timestamp
+    private long duree;           // Millisecondes (horloge monotone)
+    private long lignesLues;
+    private long requetes;
+    private int tentative;        // 0 au premier essai
+    @NonNull
+    private String resultat;
+    private String exception;     // Classe de l'exception (null si aucune)
+
+
+    // ========== CONSTRUCTEUR ==========
+    public ExecutionWorkerEntity(@NonNull String travail, String typeRapport, long debut,
+                                 long fin, long duree, long lignesLues, long requetes,
+                                 int tentative, @NonNull String resultat, String exception) {
+        this.travail = travail;
+        this.typeRapport = typeRapport;
+        this.debut = debut;
+        this.fin = fin;
+        this.duree = duree;
+        this.lignesLues = lignesLues;
+        this.requetes = requetes;
+        this.tentative = tentative;
+        this.resultat = resultat;
+        this.exception = exception;
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @NonNull
+    public String getTravail() {
+        return travail;
+    }
+
+    public void setTravail(@NonNull String travail) {
+        this.travail = travail;
+    }
+
+    public String getTypeRapport() {
+        return typeRapport;
+    }
+
+    public void setTypeRapport(String typeRapport) {
+        this.typeRapport = typeRapport;
+    }
+
+    public long getDebut() {
+        return debut;
+    }
+
+    public void setDebut(long debut) {
+        this.debut = debut;
+    }
+
+    public long getFin() {
+        return fin;
+    }
+
+    public void setFin(long fin) {
+        this.fin = fin;
+    }
+
+    public long getDuree() {
+        return duree;
+    }
+
+    public void setDuree(long duree) {
+        this.duree = duree;
+    }
+
+    public long getLignesLues() {
+        return lignesLues;
+    }
+
+    public void setLignesLues(long lignesLues) {
+        this.lignesLues = lignesLues;
+    }
+
+    public long getRequetes() {
+        return requetes;
+    }
+
+    public void setRequetes(long requetes) {
+        this.requetes = requetes;
+    }
+
+    public int getTentative() {
+        return tentative;
+    }
+
+    public void setTentative(int tentative) {
+        this.tentative = tentative;
+    }
+
+    @NonNull
+    public String getResultat() {
+        return resultat;
+    }
+
+    public void setResultat(@NonNull String resultat) {
+        this.resultat = resultat;
+    }
+
+    public String getException() {
+        return exception;
+    }
+
+    public void setException(String exception) {
+        this.exception = exception;
+    }
+
+    /** Exécution terminée sur une exception */
+    public boolean estEchec() {
+        return ERREUR.equals(resultat) || ECHEC.equals(resultat);
+    }
+}
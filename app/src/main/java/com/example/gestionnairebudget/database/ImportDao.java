@@ -0,0 +1,31 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * DAO pour les points de reprise des imports
+ */
+@Dao
+public interface ImportDao {
+
+    /**
+     * Créer ou remplacer l'état d'un import
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void enregistrer(ImportEntity etat);
+
+    /**
+     * État d'un import (null si jamais commencé)
+     */
+    @Query("SELECT * FROM imports_releves WHERE cle = :cle")
+    ImportEntity getImport(String cle);
+
+    /**
+     * Oublier un import (pour le relancer depuis le début)
+     */
+    @Query("DELETE FROM imports_releves WHERE cle = :cle")
+    void supprimer(String cle);
+}
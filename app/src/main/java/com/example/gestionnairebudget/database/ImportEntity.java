@@ -0,0 +1,94 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * ENTITÉ ROOM : État d'un import de relevé
+ *
+ * Point de reprise d'un import : il est mis à jour dans la MÊME
+ * transaction que chaque lot de dépenses insérées. Si l'import est
+ * interrompu, il reprend juste après le dernier lot validé, sans
+ * doublon ni perte.
+ *
+ * La clé (voir ImportateurDepenses.cle) inclut l'utilisateur et la
+ * version du fichier : un autre compte ou un fichier modifié ne
+ * reprend jamais cet état.
+ */
+@Entity(tableName = "imports_releves")
+public class ImportEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String cle;              // Utilisateur + URI + taille + date de modification
+
+    private int userId;
+    private long lignesTraitees;     // Opérations lues et validées
+    private long depensesImportees;
+    private boolean termine;
+    private long dateMiseAJour;
+
+
+    // ========== CONSTRUCTEUR ==========
+    public ImportEntity(@NonNull String cle, int userId) {
+        this.cle = cle;
+        this.userId = userId;
+        this.lignesTraitees = 0;
+        this.depensesImportees = 0;
+        this.termine = false;
+        this.dateMiseAJour = System.currentTimeMillis();
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    @NonNull
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(@NonNull String cle) {
+        this.cle = cle;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getLignesTraitees() {
+        return lignesTraitees;
+    }
+
+    public void setLignesTraitees(long lignesTraitees) {
+        this.lignesTraitees = lignesTraitees;
+    }
+
+    public long getDepensesImportees() {
+        return depensesImportees;
+    }
+
+    public void setDepensesImportees(long depensesImportees) {
+        this.depensesImportees = depensesImportees;
+    }
+
+    public boolean isTermine() {
+        return termine;
+    }
+
+    public void setTermine(boolean termine) {
+        this.termine = termine;
+    }
+
+    public long getDateMiseAJour() {
+        return dateMiseAJour;
+    }
+
+    public void setDateMiseAJour(long dateMiseAJour) {
+        this.dateMiseAJour = dateMiseAJour;
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * ===========================================================
+ * CLASSE : Migrations
+ * ===========================================================
+ *
+ *  ROLE :
+ * Faire evoluer le schema SANS perdre les donnees.
+ *
+ *  REGLE :
+ * Une migration tourne a l'ouverture de la base, en une seule
+ * transaction : elle ne contient que du DDL rapide (CREATE, ALTER,
+ * index). Le remplissage des lignes existantes est planifie avec
+ * TacheDifferee.planifier() et traite par lots par le MigrationWorker.
+ *
+ * Les index declares dans les entites restent crees ici : Room
+ * verifie leur presence a l'ouverture. SQLite ne sait pas changer le
+ * type d'une colonne (ni en supprimer une avant l'API 34) : une
+ * nouvelle colonne est ajoutee et remplie par lots (MIGRATION_7_8).
+ * Aucune table n'est recopiee dans une migration.
+ *
+ * TRIGGERS : une migration cree les triggers de SA version, avec une
+ * copie figee de leur SQL (section TRIGGERS FIGES). Les classes
+ * Declencheurs* suivent le schema actuel et peuvent lire des colonnes
+ * ajoutees plus tard : seule la derniere migration qui touche un
+ * groupe de triggers appelle leur creer().
+ */
+final class Migrations {
+
+    private Migrations() {
+    }
+
+    /**
+     * Version 2 -> 3 : index composites sur la table "depenses"
+     *
+     * Les noms suivent la convention de Room (index_table_colonnes),
+     * sinon la verification du schema echoue a l'ouverture.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_annee_mois_jour` "
+                    + "ON `depenses` (`annee`, `mois`, `jour`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_annee_semaine` "
+                    + "ON `depenses` (`annee`, `semaine`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_categorie_annee_mois` "
+                    + "ON `depenses` (`categorie`, `annee`, `mois`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_timestamp` "
+                    + "ON `depenses` (`timestamp`)");
+        }
+    };
+
+    /**
+     * Version 3 -> 4 : colonne "epochDay" + resume journalier par categorie
+     *
+     * 1. Ajout de depenses.epochDay (remplie par lots ensuite)
+     * 2. Creation de la table resume_depenses_jour
+     * 3. Remplissage du resume planifie apres celui d'epochDay
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `depenses` ADD COLUMN `epochDay` INTEGER NOT NULL DEFAULT 0");
+
+            db.execSQL("CREATE TABLE IF NOT EXISTS `resume_depenses_jour` ("
+                    + "`epochDay` INTEGER NOT NULL, `categorie` TEXT NOT NULL, "
+                    + "`total` REAL NOT NULL, `nombre` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`epochDay`, `categorie`))");
+
+            TacheDifferee.EPOCH_DAY_DEPENSES.planifier(db);
+            TacheDifferee.RESUME_DEPENSES.planifier(db);
+        }
+    };
+
+    /**
+     * Version 4 -> 5 : une colonne userId dans "depenses" et "rapports"
+     *
+     * Les lignes existantes n'avaient pas de proprietaire : elles seront
+     * rattachees par lots au premier compte cree sur l'appareil.
+     * Les index sont recrees avec userId en tete, et le resume
+     * journalier est recree avec userId dans sa cle.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            DeclencheursResume.supprimer(db);
+
+            db.execSQL("ALTER TABLE `depenses` ADD COLUMN `userId` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `userId` INTEGER NOT NULL DEFAULT 0");
+            TacheDifferee.PROPRIETAIRE_DEPENSES.planifier(db);
+            TacheDifferee.PROPRIETAIRE_RAPPORTS.planifier(db);
+
+            // Index de "depenses" : userId en tete
+            db.execSQL("DROP INDEX IF EXISTS `index_depenses_annee_mois_jour`");
+            db.execSQL("DROP INDEX IF EXISTS `index_depenses_annee_semaine`");
+            db.execSQL("DROP INDEX IF EXISTS `index_depenses_categorie_annee_mois`");
+            db.execSQL("DROP INDEX IF EXISTS `index_depenses_timestamp`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_userId_annee_mois_jour` "
+                    + "ON `depenses` (`userId`, `annee`, `mois`, `jour`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_userId_annee_semaine` "
+                    + "ON `depenses` (`userId`, `annee`, `semaine`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_userId_categorie_annee_mois` "
+                    + "ON `depenses` (`userId`, `categorie`, `annee`, `mois`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_userId_timestamp` "
+                    + "ON `depenses` (`userId`, `timestamp`)");
+
+            // Index de "rapports"
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_rapports_userId_dateCreation` "
+                    + "ON `rapports` (`userId`, `dateCreation`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_rapports_userId_typeRapport_dateCreation` "
+                    + "ON `rapports` (`userId`, `typeRapport`, `dateCreation`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_rapports_userId_annee_mois` "
+                    + "ON `rapports` (`userId`, `annee`, `mois`)");
+
+            // Resume journalier : nouvelle cle (userId, epochDay, categorie)
+            db.execSQL("DROP TABLE IF EXISTS `resume_depenses_jour`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `resume_depenses_jour` ("
+                    + "`userId` INTEGER NOT NULL, `epochDay` INTEGER NOT NULL, "
+                    + "`categorie` TEXT NOT NULL, `total` REAL NOT NULL, "
+                    + "`nombre` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `epochDay`, `categorie`))");
+            TacheDifferee.RESUME_DEPENSES.planifier(db);
+            creerDeclencheursResumeV5(db, "");
+        }
+    };
+
+    /**
+     * Version 5 -> 6 : table des points de reprise des imports
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `imports_releves` ("
+                    + "`cle` TEXT NOT NULL, `userId` INTEGER NOT NULL, "
+                    + "`lignesTraitees` INTEGER NOT NULL, `depensesImportees` INTEGER NOT NULL, "
+                    + "`termine` INTEGER NOT NULL, `dateMiseAJour` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`cle`))");
+        }
+    };
+
+    /**
+     * Version 6 -> 7 : table des rattrapages de migration
+     *
+     * Les triggers du resume sont recrees pour ignorer les lignes
+     * d'un rattrapage en cours.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            TacheDifferee.creerTable(db);
+            DeclencheursResume.supprimer(db);
+            creerDeclencheursResumeV5(db, "WHEN NOT EXISTS (SELECT 1 FROM taches_migration "
+                    + "WHERE nom = 'RESUME_DEPENSES' AND OLD.id > curseur AND OLD.id <= idFin) ");
+        }
+    };
+
+    /**
+     * Version 7 -> 8 : montants en centimes (INTEGER) au lieu de REAL
+     *
+     * Chaque montant recoit une colonne "...Centimes" INTEGER, 0 par
+     * defaut, remplie par lots avec CAST(ROUND(x * 100) AS INTEGER)
+     * (TacheDifferee.CENTIMES_*). Les anciennes colonnes REAL restent,
+     * jamais lues. Les triggers du resume et des previsions ignorent les
+     * depenses pas encore converties.
+     *
+     * Le resume journalier (table derivee) est recree avec un total
+     * INTEGER, puis recalcule par lots apres la conversion des
+     * depenses : ses totaux sont exactement la somme des centimes.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            DeclencheursResume.supprimer(db);
+
+            db.execSQL("ALTER TABLE `depenses` ADD COLUMN "
+                    + "`montantCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN "
+                    + "`budgetTotalCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN "
+                    + "`depensesTotalesCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN "
+                    + "`surplusCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `categories_personnalisees` ADD COLUMN "
+                    + "`montantAlloueCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `categories_personnalisees` ADD COLUMN "
+                    + "`montantUtiliseCentimes` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `users` ADD COLUMN "
+                    + "`budgetMensuelCentimes` INTEGER NOT NULL DEFAULT 0");
+
+            TacheDifferee.CENTIMES_UTILISATEURS.planifier(db);
+            TacheDifferee.CENTIMES_CATEGORIES.planifier(db);
+            TacheDifferee.CENTIMES_RAPPORTS.planifier(db);
+            TacheDifferee.CENTIMES_DEPENSES.planifier(db);
+
+            // Resume : total en INTEGER, recalcule par lots apres la conversion
+            db.execSQL("DROP TABLE IF EXISTS `resume_depenses_jour`");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `resume_depenses_jour` ("
+                    + "`userId` INTEGER NOT NULL, `epochDay` INTEGER NOT NULL, "
+                    + "`categorie` TEXT NOT NULL, `total` INTEGER NOT NULL, "
+                    + "`nombre` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `epochDay`, `categorie`))");
+            TacheDifferee.RESUME_DEPENSES.planifier(db);
+
+            // Derniere migration qui touche ces triggers : SQL actuel
+            DeclencheursResume.creer(db);
+        }
+    };
+
+    /**
+     * Version 8 -> 9 : rapports stockes en donnees structurees
+     *
+     * Nouvelle colonne "donnees" (BLOB, voir DonneesRapport). Les
+     * anciens rapports gardent leur texte dans contenuRapport ; les
+     * nouveaux le laissent a NULL et sont rendus a l'ouverture.
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `donnees` BLOB");
+        }
+    };
+
+    /**
+     * Version 9 -> 10 : periode couverte et peremption des rapports
+     *
+     * Les rapports existants gardent une periode 0 : ils ne servent
+     * jamais de synthese (pas de rattrapage a planifier).
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `debutPeriode` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `finPeriode` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `perime` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_rapports_userId_debutPeriode` "
+                    + "ON `rapports` (`userId`, `debutPeriode`)");
+            creerDeclencheursRapportsV10(db);
+        }
+    };
+
+    /**
+     * Version 10 -> 11 : index (userId, epochDay) sur "depenses"
+     * pour les requetes de plage de DepenseDao
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_depenses_userId_epochDay` "
+                    + "ON `depenses` (`userId`, `epochDay`)");
+        }
+    };
+
+    /**
+     * Version 11 -> 12 : un seul rapport par (userId, typeRapport, periode)
+     * - colonnes debutComparaison et comparaisonPerimee
+     * - periode des anciens rapports (v9 et avant) deduite de
+     *   jour/mois/annee, pour qu'ils aient aussi une cle
+     * - doublons supprimes (le plus recent est garde), index unique
+     * - triggers recrees (marquage de la periode precedente)
+     * Les rapports existants sont marques a regenerer.
+     * Mises a jour faites ici malgre la REGLE : "rapports" ne compte
+     * que quelques lignes par jour, et l'index unique exige que les
+     * doublons aient disparu avant la fin de la migration.
+     */
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `debutComparaison` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `rapports` ADD COLUMN `comparaisonPerimee` INTEGER NOT NULL DEFAULT 0");
+
+            String legacy = " WHERE finPeriode = 0 AND annee > 0 AND mois BETWEEN 1 AND 12 "
+                    + "AND jour BETWEEN 1 AND 31 AND typeRapport = ";
+            String jour = epochDay("printf('%04d-%02d-%02d', annee, mois, jour)");
+            db.execSQL("UPDATE rapports SET debutPeriode = " + jour
+                    + ", finPeriode = " + jour + " + 1" + legacy + "'JOURNALIER'");
+
+            // Semaines du lundi, comme Periodes.debutSemaine() (%w : dimanche = 0)
+            String debutSemaine = jour + " - ((CAST(strftime('%w', printf('%04d-%02d-%02d', "
+                    + "annee, mois, jour)) AS INTEGER) + 6) % 7)";
+            db.execSQL("UPDATE rapports SET debutPeriode = " + debutSemaine
+                    + ", finPeriode = " + debutSemaine + " + 7" + legacy + "'HEBDOMADAIRE'");
+
+            String premierDuMois = "printf('%04d-%02d-01', annee, mois)";
+            db.execSQL("UPDATE rapports SET debutPeriode = " + epochDay(premierDuMois)
+                    + ", finPeriode = " + epochDay(premierDuMois + ", '+1 month'")
+                    + legacy + "'MENSUEL'");
+
+            db.execSQL("DELETE FROM rapports WHERE id NOT IN (SELECT MAX(id) FROM rapports "
+                    + "GROUP BY userId, typeRapport, debutPeriode, finPeriode)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS "
+                    + "`index_rapports_userId_typeRapport_debutPeriode_finPeriode` "
+                    + "ON `rapports` (`userId`, `typeRapport`, `debutPeriode`, `finPeriode`)");
+            db.execSQL("UPDATE rapports SET comparaisonPerimee = 1");
+
+            // Derniere migration qui touche ces triggers : SQL actuel
+            DeclencheursRapports.supprimer(db);
+            DeclencheursRapports.creer(db);
+        }
+    };
+
+    /**
+     * Version 12 -> 13 : rythme de depense par categorie (previsions)
+     * - tables previsions_categorie et saisonnalite_categorie
+     * - triggers de DeclencheursPrevisions
+     * Les depenses existantes sont appliquees par le MigrationWorker.
+     */
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `previsions_categorie` ("
+                    + "`userId` INTEGER NOT NULL, `categorie` TEXT NOT NULL, "
+                    + "`premierJour` INTEGER NOT NULL, `jourCourant` INTEGER NOT NULL, "
+                    + "`totalJour` INTEGER NOT NULL, `vitesse` REAL NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `categorie`))");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `saisonnalite_categorie` ("
+                    + "`userId` INTEGER NOT NULL, `categorie` TEXT NOT NULL, "
+                    + "`jourMois` INTEGER NOT NULL, `total` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `categorie`, `jourMois`))");
+            TacheDifferee.PREVISIONS_DEPENSES.planifier(db);
+            DeclencheursPrevisions.creer(db);
+        }
+    };
+
+    /**
+     * 13 -> 14 : telemetrie des Workers (table vide au depart)
+     */
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `worker_runs` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`travail` TEXT NOT NULL, `typeRapport` TEXT, "
+                    + "`debut` INTEGER NOT NULL, `fin` INTEGER NOT NULL, "
+                    + "`duree` INTEGER NOT NULL, `lignesLues` INTEGER NOT NULL, "
+                    + "`requetes` INTEGER NOT NULL, `tentative` INTEGER NOT NULL, "
+                    + "`resultat` TEXT NOT NULL, `exception` TEXT)");
+        }
+    };
+
+    /**
+     * Toutes les migrations, dans l'ordre
+     */
+    static final Migration[] TOUTES = {
+            MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+            MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10,
+            MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14
+    };
+
+    // ===========================================================
+    // OUTILS
+    // ===========================================================
+
+    /**
+     * Expression SQL : date SQLite ("yyyy-MM-dd" et modificateurs) -> epochDay
+     */
+    private static String epochDay(String date) {
+        return "CAST(julianday(" + date + ") - 2440587.5 AS INTEGER)";
+    }
+
+    // ===========================================================
+    // TRIGGERS FIGES
+    // ===========================================================
+
+    /**
+     * Triggers du resume des versions 5 a 7 (colonne "montant" en francs)
+     *
+     * @param quand Clause WHEN des suppressions et modifications ("" en v5)
+     */
+    private static void creerDeclencheursResumeV5(SupportSQLiteDatabase db, String quand) {
+        String ajouter = "INSERT OR IGNORE INTO resume_depenses_jour "
+                + "(userId, epochDay, categorie, total, nombre) "
+                + "VALUES (NEW.userId, NEW.epochDay, IFNULL(NEW.categorie, ''), 0, 0); "
+                + "UPDATE resume_depenses_jour "
+                + "SET total = total + NEW.montant, nombre = nombre + 1 "
+                + "WHERE userId = NEW.userId AND epochDay = NEW.epochDay "
+                + "AND categorie = IFNULL(NEW.categorie, ''); ";
+        String retirer = "UPDATE resume_depenses_jour "
+                + "SET total = total - OLD.montant, nombre = nombre - 1 "
+                + "WHERE userId = OLD.userId AND epochDay = OLD.epochDay "
+                + "AND categorie = IFNULL(OLD.categorie, ''); "
+                + "DELETE FROM resume_depenses_jour "
+                + "WHERE userId = OLD.userId AND epochDay = OLD.epochDay "
+                + "AND categorie = IFNULL(OLD.categorie, '') AND nombre <= 0; ";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_insertion "
+                + "AFTER INSERT ON depenses BEGIN " + ajouter + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_suppression "
+                + "AFTER DELETE ON depenses " + quand + "BEGIN " + retirer + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS resume_depenses_modification "
+                + "AFTER UPDATE OF userId, montant, categorie, epochDay ON depenses "
+                + quand + "BEGIN " + retirer + ajouter + "END");
+    }
+
+    /**
+     * Triggers "rapport perime" des versions 10 et 11 (pas encore de
+     * debutComparaison ni de comparaisonPerimee ; 31 = DUREE_MAX_SYNTHESE)
+     */
+    private static void creerDeclencheursRapportsV10(SupportSQLiteDatabase db) {
+        String[] marquer = new String[2];
+        String[] lignes = {"NEW", "OLD"};
+        for (int i = 0; i < lignes.length; i++) {
+            String ligne = lignes[i];
+            marquer[i] = "UPDATE rapports SET perime = 1 "
+                    + "WHERE userId = " + ligne + ".userId "
+                    + "AND debutPeriode > " + ligne + ".epochDay - 31 "
+                    + "AND debutPeriode <= " + ligne + ".epochDay "
+                    + "AND finPeriode > " + ligne + ".epochDay "
+                    + "AND perime = 0; ";
+        }
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_insertion "
+                + "AFTER INSERT ON depenses BEGIN " + marquer[0] + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_suppression "
+                + "AFTER DELETE ON depenses BEGIN " + marquer[1] + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS rapports_perime_modification "
+                + "AFTER UPDATE OF userId, montantCentimes, categorie, epochDay ON depenses BEGIN "
+                + marquer[1] + marquer[0] + "END");
+    }
+}
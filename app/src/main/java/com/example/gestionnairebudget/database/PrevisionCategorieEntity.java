@@ -0,0 +1,93 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * ENTITÉ ROOM : Rythme de dépense d'une catégorie
+ *
+ * Une ligne par (utilisateur, catégorie), tenue à jour par des
+ * triggers SQLite (voir DeclencheursPrevisions) : moyenne mobile
+ * exponentielle des totaux journaliers, pour la prévision de fin de
+ * mois (voir utils.PrevisionDepenses).
+ */
+@Entity(
+        tableName = "previsions_categorie",
+        primaryKeys = {"userId", "categorie"}
+)
+public class PrevisionCategorieEntity {
+
+    private int userId;          // ID de l'utilisateur propriétaire
+
+    @NonNull
+    private String categorie;
+
+    private int premierJour;     // Premier jour (epochDay) ayant une dépense
+    private int jourCourant;     // Dernier jour (epochDay) ayant une dépense
+    private long totalJour;      // Total de jourCourant, en centimes
+    private double vitesse;      // Moyenne (centimes / jour) des jours < jourCourant
+
+
+    // ========== CONSTRUCTEUR ==========
+    public PrevisionCategorieEntity(int userId, @NonNull String categorie, int premierJour,
+                                    int jourCourant, long totalJour, double vitesse) {
+        this.userId = userId;
+        this.categorie = categorie;
+        this.premierJour = premierJour;
+        this.jourCourant = jourCourant;
+        this.totalJour = totalJour;
+        this.vitesse = vitesse;
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public void setCategorie(@NonNull String categorie) {
+        this.categorie = categorie;
+    }
+
+    public int getPremierJour() {
+        return premierJour;
+    }
+
+    public void setPremierJour(int premierJour) {
+        this.premierJour = premierJour;
+    }
+
+    public int getJourCourant() {
+        return jourCourant;
+    }
+
+    public void setJourCourant(int jourCourant) {
+        this.jourCourant = jourCourant;
+    }
+
+    public long getTotalJour() {
+        return totalJour;
+    }
+
+    public void setTotalJour(long totalJour) {
+        this.totalJour = totalJour;
+    }
+
+    public double getVitesse() {
+        return vitesse;
+    }
+
+    public void setVitesse(double vitesse) {
+        this.vitesse = vitesse;
+    }
+}
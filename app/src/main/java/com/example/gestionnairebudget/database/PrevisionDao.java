@@ -0,0 +1,27 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import java.util.List;
+
+/**
+ * DAO des rythmes de dépense (prévision de fin de mois)
+ *
+ * Lecture seule : les deux tables sont écrites par les triggers
+ * de DeclencheursPrevisions.
+ */
+@Dao
+public interface PrevisionDao {
+
+    /**
+     * Rythme de chaque catégorie de l'utilisateur
+     */
+    @Query("SELECT * FROM previsions_categorie WHERE userId = :userId ORDER BY categorie")
+    List<PrevisionCategorieEntity> getPrevisions(int userId);
+
+    /**
+     * Totaux par catégorie et jour du mois (au plus 31 par catégorie)
+     */
+    @Query("SELECT * FROM saisonnalite_categorie WHERE userId = :userId")
+    List<SaisonCategorieEntity> getSaisonnalite(int userId);
+}
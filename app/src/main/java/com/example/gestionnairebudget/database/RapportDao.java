@@ -3,10 +3,13 @@ package com.example.gestionnairebudget.database;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Update;
 import java.util.List;
 
 /**
  * DAO pour les rapports
+ *
+ * Chaque requête est limitée à un utilisateur (userId)
  */
 @Dao
 public interface RapportDao {
@@ -14,62 +17,138 @@ public interface RapportDao {
     // ========== INSERTION ==========
 
     @Insert
-    void inserer(RapportEntity rapport);
+    long inserer(RapportEntity rapport);
+
+    @Update
+    void mettreAJour(RapportEntity rapport);
 
 
     // ========== LECTURE ==========
 
+    /**
+     * Liste des rapports : en-têtes seulement, sans le contenu
+     */
+    @Query("SELECT id, typeRapport, dateFormatee FROM rapports "
+            + "WHERE userId = :userId ORDER BY dateCreation DESC")
+    List<EnTeteRapport> getEnTetesRapports(int userId);
+
+    /**
+     * Récupérer un rapport complet (à son ouverture)
+     */
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND id = :id")
+    RapportEntity getRapport(int userId, int id);
+
+    /**
+     * Rapport d'un type pour une période exacte (clé unique)
+     */
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = :typeRapport "
+            + "AND debutPeriode = :debut AND finPeriode = :fin")
+    RapportEntity getRapportPeriode(int userId, String typeRapport, int debut, int fin);
+
+    /**
+     * Fin de la dernière période couverte par un rapport de ce type
+     * (null ou 0 : aucun rapport avec période)
+     */
+    @Query("SELECT MAX(finPeriode) FROM rapports "
+            + "WHERE userId = :userId AND typeRapport = :typeRapport")
+    Integer getDerniereFinPeriode(int userId, String typeRapport);
+
+    /**
+     * Synthèses utilisables pour la période [debut, fin[ :
+     * rapports non périmés, avec données (pas le texte archivé d'un
+     * rapport d'avant la v9), entièrement inclus dans la période. Les plus longs d'abord, puis les plus récents.
+     */
+    @Query("SELECT debutPeriode, finPeriode, depensesTotalesCentimes AS depensesTotales, nombreDepenses, donnees "
+            + "FROM rapports WHERE userId = :userId "
+            + "AND debutPeriode >= :debut AND debutPeriode < :fin AND finPeriode <= :fin "
+            + "AND finPeriode > debutPeriode "
+            + "AND finPeriode - debutPeriode <= " + DeclencheursRapports.DUREE_MAX_SYNTHESE + " "
+            + "AND perime = 0 AND donnees IS NOT NULL AND substr(donnees, 1, 1) != X'03' "
+            + "ORDER BY finPeriode - debutPeriode DESC, dateCreation DESC")
+    List<SyntheseRapport> getSyntheses(int userId, int debut, int fin);
+
     /**
      * Récupérer tous les rapports
      */
-    @Query("SELECT * FROM rapports ORDER BY dateCreation DESC")
-    List<RapportEntity> getTousLesRapports();
+    @Query("SELECT * FROM rapports WHERE userId = :userId ORDER BY dateCreation DESC")
+    List<RapportEntity> getTousLesRapports(int userId);
 
     /**
      * Récupérer les rapports journaliers
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'JOURNALIER' ORDER BY dateCreation DESC")
-    List<RapportEntity> getRapportsJournaliers();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'JOURNALIER' ORDER BY dateCreation DESC")
+    List<RapportEntity> getRapportsJournaliers(int userId);
 
     /**
      * Récupérer les rapports hebdomadaires
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'HEBDOMADAIRE' ORDER BY dateCreation DESC")
-    List<RapportEntity> getRapportsHebdomadaires();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'HEBDOMADAIRE' ORDER BY dateCreation DESC")
+    List<RapportEntity> getRapportsHebdomadaires(int userId);
 
     /**
      * Récupérer les rapports mensuels
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'MENSUEL' ORDER BY dateCreation DESC")
-    List<RapportEntity> getRapportsMensuels();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'MENSUEL' ORDER BY dateCreation DESC")
+    List<RapportEntity> getRapportsMensuels(int userId);
 
     /**
      * Récupérer le dernier rapport journalier
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'JOURNALIER' ORDER BY dateCreation DESC LIMIT 1")
-    RapportEntity getDernierRapportJournalier();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'JOURNALIER' ORDER BY dateCreation DESC LIMIT 1")
+    RapportEntity getDernierRapportJournalier(int userId);
 
     /**
      * Récupérer le dernier rapport hebdomadaire
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'HEBDOMADAIRE' ORDER BY dateCreation DESC LIMIT 1")
-    RapportEntity getDernierRapportHebdomadaire();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'HEBDOMADAIRE' ORDER BY dateCreation DESC LIMIT 1")
+    RapportEntity getDernierRapportHebdomadaire(int userId);
 
     /**
      * Récupérer le dernier rapport mensuel
      */
-    @Query("SELECT * FROM rapports WHERE typeRapport = 'MENSUEL' ORDER BY dateCreation DESC LIMIT 1")
-    RapportEntity getDernierRapportMensuel();
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND typeRapport = 'MENSUEL' ORDER BY dateCreation DESC LIMIT 1")
+    RapportEntity getDernierRapportMensuel(int userId);
 
     /**
      * Récupérer les rapports d'un mois spécifique
      */
-    @Query("SELECT * FROM rapports WHERE mois = :mois AND annee = :annee ORDER BY dateCreation DESC")
-    List<RapportEntity> getRapportsParMois(int mois, int annee);
+    @Query("SELECT * FROM rapports WHERE userId = :userId AND mois = :mois AND annee = :annee ORDER BY dateCreation DESC")
+    List<RapportEntity> getRapportsParMois(int userId, int mois, int annee);
 
 
     // ========== SUPPRESSION ==========
 
-    @Query("DELETE FROM rapports")
-    void supprimerTout();
+    @Query("DELETE FROM rapports WHERE userId = :userId")
+    void supprimerTout(int userId);
+
+
+    // ========== COMPACTION (tous les utilisateurs) ==========
+    // Entretien de la table par CompactionRapports : seules requêtes
+    // non limitées à un utilisateur, la table reste petite
+
+    /**
+     * Rétention : supprimer les rapports d'un type créés avant "limite"
+     */
+    @Query("DELETE FROM rapports WHERE typeRapport = :typeRapport AND dateCreation < :limite")
+    int supprimerAvant(String typeRapport, long limite);
+
+    /**
+     * Rapports créés avant "limite" pas encore archivés : données de
+     * version 1 (premier octet de DonneesRapport), ou texte d'un
+     * rapport d'avant la v9 encore en clair
+     */
+    @Query("SELECT id, donnees, contenuRapport FROM rapports WHERE dateCreation < :limite "
+            + "AND ((donnees IS NOT NULL AND substr(donnees, 1, 1) = X'01') "
+            + "OR (donnees IS NULL AND contenuRapport IS NOT NULL)) LIMIT :taille")
+    List<CorpsRapport> getCorpsAArchiver(long limite, int taille);
+
+    @Query("UPDATE rapports SET donnees = :donnees WHERE id = :id")
+    void remplacerDonnees(int id, byte[] donnees);
+
+    /**
+     * Texte d'un ancien rapport remplacé par son archive
+     * (DonneesRapport.archiverTexte)
+     */
+    @Query("UPDATE rapports SET donnees = :archive, contenuRapport = NULL WHERE id = :id")
+    void remplacerTexte(int id, byte[] archive);
 }
\ No newline at end of file
@@ -1,19 +1,56 @@
 package com.example.gestionnairebudget.database;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * ENTITÉ ROOM : Rapport
  *
  * Stocke les rapports journaliers, hebdomadaires et mensuels
+ *
+ * Le texte n'est plus stocké : les totaux sont dans les colonnes et
+ * le détail par catégorie dans "donnees" (voir DonneesRapport).
+ * RenduRapport produit le texte quand le rapport est ouvert.
+ * contenuRapport ne sert plus qu'aux rapports d'avant la version 9.
+ *
+ * SYNTHÈSES : [debutPeriode, finPeriode[ (epochDay) est la période
+ * couverte. Un rapport non périmé sert de synthèse aux rapports plus
+ * longs (voir FusionRapports) ; "perime" est mis à 1 par trigger dès
+ * qu'une dépense de la période change (voir DeclencheursRapports).
+ * Les rapports d'avant la version 10 ont une période 0 : jamais utilisés.
+ *
+ * UNICITÉ : un seul rapport par (userId, typeRapport, période). Le
+ * régénérer remplace la ligne ; s'il est encore à jour (ni "perime",
+ * ni "comparaisonPerimee", même budget), il est rendu tel quel sans
+ * relire les dépenses (voir RapportGenerator).
+ *
+ * INDEX (tous commencent par userId, comme les requêtes de RapportDao) :
+ * - (userId, dateCreation)              -> liste de tous les rapports
+ * - (userId, typeRapport, dateCreation) -> rapports d'un type / dernier rapport
+ * - (userId, annee, mois)               -> rapports d'un mois
+ * - (userId, debutPeriode)              -> synthèses d'une période, triggers
+ * - (userId, typeRapport, debutPeriode, finPeriode) UNIQUE -> rapport d'une période
  */
-@Entity(tableName = "rapports")
+@Entity(
+        tableName = "rapports",
+        indices = {
+                @Index(value = {"userId", "dateCreation"}),
+                @Index(value = {"userId", "typeRapport", "dateCreation"}),
+                @Index(value = {"userId", "annee", "mois"}),
+                @Index(value = {"userId", "debutPeriode"}),
+                @Index(value = {"userId", "typeRapport", "debutPeriode", "finPeriode"}, unique = true)
+        }
+)
 public class RapportEntity {
 
     @PrimaryKey(autoGenerate = true)
     private int id;
 
+    @ColumnInfo(defaultValue = "0")
+    private int userId;          // ID de l'utilisateur concerné
+
     private String typeRapport;  // "JOURNALIER", "HEBDOMADAIRE", "MENSUEL"
     private long dateCreation;   // Timestamp de création du rapport
     private String dateFormatee; // Date lisible
@@ -24,23 +61,51 @@ public class RapportEntity {
     private int mois;
     private int annee;
 
-    // Données du rapport
-    private double budgetTotal;
-    private double depensesTotales;
-    private double surplus;  // Positif si surplus, négatif si déficit
+    // Données du rapport (montants en centimes, voir Montant)
+    @ColumnInfo(name = "budgetTotalCentimes", defaultValue = "0")
+    private long budgetTotal;
+    @ColumnInfo(name = "depensesTotalesCentimes", defaultValue = "0")
+    private long depensesTotales;
+    @ColumnInfo(name = "surplusCentimes", defaultValue = "0")
+    private long surplus;  // Positif si surplus, négatif si déficit
     private int nombreDepenses;
-    private String contenuRapport;  // Le rapport complet en texte
+    private byte[] donnees;         // Détail structuré (DonneesRapport)
+    private String contenuRapport;  // Ancien texte complet (rapports d'avant v9)
+
+    // Période couverte [debutPeriode, finPeriode[ en epochDay
+    @ColumnInfo(defaultValue = "0")
+    private int debutPeriode;
+    @ColumnInfo(defaultValue = "0")
+    private int finPeriode;
+    @ColumnInfo(defaultValue = "0")
+    private boolean perime;  // Une dépense de la période a changé depuis
+
+    // Période précédente (évolution) : [debutComparaison, debutPeriode[
+    @ColumnInfo(defaultValue = "0")
+    private int debutComparaison;
+    @ColumnInfo(defaultValue = "0")
+    private boolean comparaisonPerimee;  // Une dépense de la période précédente a changé
 
     // Comparaison avec période précédente
     private double evolutionParRapportPeriodePrecedente;  // En pourcentage
 
+    // Montants en francs d'avant la version 8 (colonnes REAL gardées,
+    // voir DepenseEntity) : jamais lus par l'application
+    @ColumnInfo(name = "budgetTotal")
+    double ancienBudgetTotal;
+    @ColumnInfo(name = "depensesTotales")
+    double ancienDepensesTotales;
+    @ColumnInfo(name = "surplus")
+    double ancienSurplus;
+
 
     // ========== CONSTRUCTEUR ==========
-    public RapportEntity(String typeRapport, long dateCreation, String dateFormatee,
+    public RapportEntity(int userId, String typeRapport, long dateCreation, String dateFormatee,
                          int jour, int semaine, int mois, int annee,
-                         double budgetTotal, double depensesTotales, double surplus,
-                         int nombreDepenses, String contenuRapport,
+                         long budgetTotal, long depensesTotales, long surplus,
+                         int nombreDepenses, byte[] donnees,
                          double evolutionParRapportPeriodePrecedente) {
+        this.userId = userId;
         this.typeRapport = typeRapport;
         this.dateCreation = dateCreation;
         this.dateFormatee = dateFormatee;
@@ -52,7 +117,7 @@ public class RapportEntity {
         this.depensesTotales = depensesTotales;
         this.surplus = surplus;
         this.nombreDepenses = nombreDepenses;
-        this.contenuRapport = contenuRapport;
+        this.donnees = donnees;
         this.evolutionParRapportPeriodePrecedente = evolutionParRapportPeriodePrecedente;
     }
 
@@ -67,6 +132,14 @@ public class RapportEntity {
         this.id = id;
     }
 
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
     public String getTypeRapport() {
         return typeRapport;
     }
@@ -123,27 +196,27 @@ public class RapportEntity {
         this.annee = annee;
     }
 
-    public double getBudgetTotal() {
+    public long getBudgetTotal() {
         return budgetTotal;
     }
 
-    public void setBudgetTotal(double budgetTotal) {
+    public void setBudgetTotal(long budgetTotal) {
         this.budgetTotal = budgetTotal;
     }
 
-    public double getDepensesTotales() {
+    public long getDepensesTotales() {
         return depensesTotales;
     }
 
-    public void setDepensesTotales(double depensesTotales) {
+    public void setDepensesTotales(long depensesTotales) {
         this.depensesTotales = depensesTotales;
     }
 
-    public double getSurplus() {
+    public long getSurplus() {
         return surplus;
     }
 
-    public void setSurplus(double surplus) {
+    public void setSurplus(long surplus) {
         this.surplus = surplus;
     }
 
@@ -155,6 +228,14 @@ public class RapportEntity {
         this.nombreDepenses = nombreDepenses;
     }
 
+    public byte[] getDonnees() {
+        return donnees;
+    }
+
+    public void setDonnees(byte[] donnees) {
+        this.donnees = donnees;
+    }
+
     public String getContenuRapport() {
         return contenuRapport;
     }
@@ -163,6 +244,46 @@ public class RapportEntity {
         this.contenuRapport = contenuRapport;
     }
 
+    public int getDebutPeriode() {
+        return debutPeriode;
+    }
+
+    public void setDebutPeriode(int debutPeriode) {
+        this.debutPeriode = debutPeriode;
+    }
+
+    public int getFinPeriode() {
+        return finPeriode;
+    }
+
+    public void setFinPeriode(int finPeriode) {
+        this.finPeriode = finPeriode;
+    }
+
+    public boolean isPerime() {
+        return perime;
+    }
+
+    public void setPerime(boolean perime) {
+        this.perime = perime;
+    }
+
+    public int getDebutComparaison() {
+        return debutComparaison;
+    }
+
+    public void setDebutComparaison(int debutComparaison) {
+        this.debutComparaison = debutComparaison;
+    }
+
+    public boolean isComparaisonPerimee() {
+        return comparaisonPerimee;
+    }
+
+    public void setComparaisonPerimee(boolean comparaisonPerimee) {
+        this.comparaisonPerimee = comparaisonPerimee;
+    }
+
     public double getEvolutionParRapportPeriodePrecedente() {
         return evolutionParRapportPeriodePrecedente;
     }
@@ -0,0 +1,72 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * EXÉCUTION DES RATTRAPAGES DE MIGRATION
+ *
+ * Chaque appel à traiterLotSuivant() traite une tranche d'id de la
+ * première tâche en attente et enregistre l'avancement dans la MÊME
+ * transaction. Les transactions restent courtes : les écritures de
+ * l'interface passent entre deux lots.
+ */
+public class RattrapageMigrations {
+
+    public static final int TAILLE_LOT_DEFAUT = 2000;
+
+    private final AppDatabase database;
+    private final int tailleLot;
+
+    public RattrapageMigrations(AppDatabase database, int tailleLot) {
+        this.database = database;
+        this.tailleLot = tailleLot;
+    }
+
+    /**
+     * Traiter un lot
+     *
+     * @return false s'il ne reste plus rien à faire, ou si la tâche
+     * suivante attend une condition (TacheDifferee.estPrete) : elle et
+     * les suivantes restent en attente, dans l'ordre
+     */
+    public boolean traiterLotSuivant() {
+        TacheMigrationEntity tache = database.tacheMigrationDao().getTacheSuivante();
+        if (tache == null) {
+            return false;
+        }
+
+        TacheDifferee type;
+        try {
+            type = TacheDifferee.valueOf(tache.getNom());
+        } catch (IllegalArgumentException e) {
+            // Tâche d'une version plus récente de l'application : ignorée
+            database.tacheMigrationDao().supprimer(tache.getNom());
+            return true;
+        }
+
+        long debut = tache.getCurseur();
+        long fin = Math.min(debut + tailleLot, tache.getIdFin());
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+        return database.runInTransaction(() -> {
+            if (!type.estPrete(db)) {
+                return false;
+            }
+            type.traiterLot(db, debut, fin);
+            if (fin >= tache.getIdFin()) {
+                database.tacheMigrationDao().supprimer(tache.getNom());
+            } else {
+                database.tacheMigrationDao().avancer(tache.getNom(), fin);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Des rattrapages sont-ils en cours ?
+     * (les totaux du résumé sont alors incomplets)
+     */
+    public boolean estEnCours() {
+        return database.tacheMigrationDao().getNombreEnAttente() > 0;
+    }
+}
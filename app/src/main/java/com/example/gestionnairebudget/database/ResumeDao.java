@@ -0,0 +1,103 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import java.util.List;
+
+/**
+ * DAO pour le résumé journalier par catégorie
+ *
+ * Les périodes sont des intervalles de jours [debut, fin[
+ * (voir utils.Periodes pour le calcul des bornes), toujours
+ * pour un seul utilisateur.
+ */
+@Dao
+public interface ResumeDao {
+
+    // ========== LECTURE ==========
+
+    /**
+     * Total des dépenses sur une période, en centimes (0 si aucune)
+     */
+    @Query("SELECT IFNULL(SUM(total), 0) FROM resume_depenses_jour "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin")
+    long getTotalPeriode(int userId, int debut, int fin);
+
+    /**
+     * Nombre de dépenses sur une période
+     */
+    @Query("SELECT IFNULL(SUM(nombre), 0) FROM resume_depenses_jour "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin")
+    int getNombrePeriode(int userId, int debut, int fin);
+
+    /**
+     * Lignes brutes du résumé sur une période
+     * (lues une seule fois par le noyau d'agrégation des rapports)
+     */
+    @Query("SELECT * FROM resume_depenses_jour "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin")
+    List<ResumeJourEntity> getLignesPeriode(int userId, int debut, int fin);
+
+    /**
+     * Totaux par catégorie sur une période, triés par total
+     */
+    @Query("SELECT categorie, SUM(total) AS total, SUM(nombre) AS nombre "
+            + "FROM resume_depenses_jour "
+            + "WHERE userId = :userId AND epochDay >= :debut AND epochDay < :fin "
+            + "GROUP BY categorie ORDER BY total DESC")
+    List<TotalCategorie> getTotauxCategoriesPeriode(int userId, int debut, int fin);
+
+
+    // ========== RECONSTRUCTION ==========
+
+    @Query("DELETE FROM resume_depenses_jour")
+    void vider();
+
+    @Query("INSERT INTO resume_depenses_jour (userId, epochDay, categorie, total, nombre) "
+            + "SELECT userId, epochDay, IFNULL(categorie, ''), SUM(montantCentimes), COUNT(*) "
+            + "FROM depenses GROUP BY userId, epochDay, IFNULL(categorie, '')")
+    void remplirDepuisDepenses();
+
+    /**
+     * Lignes du résumé qui diffèrent du regroupement de "depenses"
+     * par (userId, epochDay, categorie), dans les deux sens : total,
+     * nombre, catégorie, jour ou utilisateur faux (0 si cohérent)
+     */
+    @Query("SELECT "
+            + "(SELECT COUNT(*) FROM ("
+            + "SELECT userId, epochDay, IFNULL(categorie, ''), SUM(montantCentimes), COUNT(*) "
+            + "FROM depenses GROUP BY userId, epochDay, IFNULL(categorie, '') "
+            + "EXCEPT SELECT userId, epochDay, categorie, total, nombre FROM resume_depenses_jour)) "
+            + "+ (SELECT COUNT(*) FROM ("
+            + "SELECT userId, epochDay, categorie, total, nombre FROM resume_depenses_jour "
+            + "EXCEPT SELECT userId, epochDay, IFNULL(categorie, ''), SUM(montantCentimes), COUNT(*) "
+            + "FROM depenses GROUP BY userId, epochDay, IFNULL(categorie, '')))")
+    int getNombreEcarts();
+
+    /**
+     * Reconstruire entièrement le résumé depuis "depenses"
+     * (bases existantes, ou après une incohérence)
+     */
+    @Transaction
+    default void reconstruire() {
+        vider();
+        remplirDepuisDepenses();
+    }
+
+    /**
+     * Vérifier le résumé ligne à ligne et le reconstruire s'il ne
+     * correspond plus à "depenses" (parcourt les deux tables : à
+     * réserver aux vérifications ponctuelles)
+     *
+     * @return true si une reconstruction a été nécessaire
+     */
+    @Transaction
+    default boolean reconcilier() {
+        if (getNombreEcarts() == 0) {
+            return false;
+        }
+        reconstruire();
+        return true;
+    }
+}
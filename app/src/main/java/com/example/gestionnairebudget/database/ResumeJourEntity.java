@@ -0,0 +1,86 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * ENTITÉ ROOM : Résumé journalier par catégorie
+ *
+ * Table "matérialisée" : une ligne par (utilisateur, jour, catégorie) avec la
+ * somme et le nombre de dépenses. Elle est tenue à jour par des
+ * triggers SQLite (voir DeclencheursResume) dans la même transaction
+ * que chaque insertion / suppression dans "depenses".
+ *
+ * Un total de mois se lit donc sur ~30 x 10 lignes au lieu de
+ * parcourir toutes les dépenses.
+ */
+@Entity(
+        tableName = "resume_depenses_jour",
+        primaryKeys = {"userId", "epochDay", "categorie"}
+)
+public class ResumeJourEntity {
+
+    private int userId;          // ID de l'utilisateur propriétaire
+    private int epochDay;        // Jour (nombre de jours depuis 1970)
+
+    @NonNull
+    private String categorie;
+
+    private long total;          // SUM(montant) du jour, en centimes
+    private int nombre;          // COUNT(*) du jour
+
+
+    // ========== CONSTRUCTEUR ==========
+    public ResumeJourEntity(int userId, int epochDay, @NonNull String categorie,
+                            long total, int nombre) {
+        this.userId = userId;
+        this.epochDay = epochDay;
+        this.categorie = categorie;
+        this.total = total;
+        this.nombre = nombre;
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public void setEpochDay(int epochDay) {
+        this.epochDay = epochDay;
+    }
+
+    @NonNull
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public void setCategorie(@NonNull String categorie) {
+        this.categorie = categorie;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(int nombre) {
+        this.nombre = nombre;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/**
+ * ENTITÉ ROOM : Dépenses d'une catégorie par jour du mois
+ *
+ * Une ligne par (utilisateur, catégorie, jour du mois 1-31), tenue à
+ * jour par les triggers de DeclencheursPrevisions : au plus 31 lignes
+ * par catégorie, quel que soit l'historique. Sert à répartir la
+ * prévision sur les jours restants du mois (loyer le 1er...).
+ */
+@Entity(
+        tableName = "saisonnalite_categorie",
+        primaryKeys = {"userId", "categorie", "jourMois"}
+)
+public class SaisonCategorieEntity {
+
+    private int userId;          // ID de l'utilisateur propriétaire
+
+    @NonNull
+    private String categorie;
+
+    private int jourMois;        // Jour du mois (1-31)
+    private long total;          // SUM(montant) de ce jour du mois, en centimes
+
+
+    // ========== CONSTRUCTEUR ==========
+    public SaisonCategorieEntity(int userId, @NonNull String categorie, int jourMois, long total) {
+        this.userId = userId;
+        this.categorie = categorie;
+        this.jourMois = jourMois;
+        this.total = total;
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    @NonNull
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public void setCategorie(@NonNull String categorie) {
+        this.categorie = categorie;
+    }
+
+    public int getJourMois() {
+        return jourMois;
+    }
+
+    public void setJourMois(int jourMois) {
+        this.jourMois = jourMois;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
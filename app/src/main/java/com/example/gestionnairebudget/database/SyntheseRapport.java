@@ -0,0 +1,50 @@
+package com.example.gestionnairebudget.database;
+
+/**
+ * SYNTHÈSE : totaux d'un rapport déjà stocké
+ *
+ * Ce n'est PAS une table : Room remplit cet objet avec les colonnes
+ * utiles à la fusion (FusionRapports), sans le reste du rapport.
+ */
+public class SyntheseRapport {
+
+    private int debutPeriode;
+    private int finPeriode;
+    private long depensesTotales;  // En centimes
+    private int nombreDepenses;
+    private byte[] donnees;        // Détail par catégorie (DonneesRapport)
+
+
+    // ========== CONSTRUCTEUR ==========
+    public SyntheseRapport(int debutPeriode, int finPeriode, long depensesTotales,
+                           int nombreDepenses, byte[] donnees) {
+        this.debutPeriode = debutPeriode;
+        this.finPeriode = finPeriode;
+        this.depensesTotales = depensesTotales;
+        this.nombreDepenses = nombreDepenses;
+        this.donnees = donnees;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public int getDebutPeriode() {
+        return debutPeriode;
+    }
+
+    public int getFinPeriode() {
+        return finPeriode;
+    }
+
+    public long getDepensesTotales() {
+        return depensesTotales;
+    }
+
+    public int getNombreDepenses() {
+        return nombreDepenses;
+    }
+
+    public byte[] getDonnees() {
+        return donnees;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.gestionnairebudget.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * RATTRAPAGES DE MIGRATION (remplissage par lots)
+ *
+ * Une migration Room tourne en une seule transaction, à l'ouverture
+ * de la base : un UPDATE sur des centaines de milliers de lignes y
+ * bloquerait l'application. Les migrations se limitent donc au DDL et
+ * appellent planifier() ; le MigrationWorker traite ensuite chaque
+ * tâche par tranches d'id, dans de petites transactions.
+ *
+ * L'ordre des constantes est l'ordre d'exécution : le résumé
+ * journalier et les prévisions lisent epochDay, userId et les
+ * centimes, ils passent en dernier.
+ *
+ * Chaque lot porte sur les lignes d'id ]debut, fin] et doit pouvoir
+ * être rejoué sans effet de bord (la transaction peut être annulée).
+ *
+ * Une tâche qui n'est pas prête (estPrete) reste en attente, et les
+ * suivantes avec elle : ex. les lignes sans propriétaire attendent la
+ * création du premier compte (InscriptionActivity relance le Worker).
+ */
+public enum TacheDifferee {
+
+    /** depenses.epochDay calculé à partir de (annee, mois, jour) */
+    EPOCH_DAY_DEPENSES("depenses") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE depenses SET epochDay = CAST("
+                            + "julianday(printf('%04d-%02d-%02d', annee, mois, jour)) - 2440587.5 AS INTEGER) "
+                            + "WHERE id > ? AND id <= ?",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    /** Dépenses sans propriétaire rattachées au premier compte */
+    PROPRIETAIRE_DEPENSES("depenses") {
+        @Override
+        boolean estPrete(SupportSQLiteDatabase db) {
+            return existeCompte(db);
+        }
+
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE depenses SET userId = (SELECT MIN(id) FROM users) "
+                            + "WHERE id > ? AND id <= ? AND userId = 0 "
+                            + "AND EXISTS (SELECT 1 FROM users)",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    /** Rapports sans propriétaire rattachés au premier compte */
+    PROPRIETAIRE_RAPPORTS("rapports") {
+        @Override
+        boolean estPrete(SupportSQLiteDatabase db) {
+            return existeCompte(db);
+        }
+
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE rapports SET userId = (SELECT MIN(id) FROM users) "
+                            + "WHERE id > ? AND id <= ? AND userId = 0 "
+                            + "AND EXISTS (SELECT 1 FROM users)",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    /**
+     * Montants en francs (REAL, avant la version 8) convertis en
+     * centimes. Les lignes déjà écrites en centimes par l'application
+     * pendant le rattrapage (colonne non nulle) sont laissées telles
+     * quelles. Les triggers ignorent les dépenses pas encore converties
+     * (voir horsRattrapage).
+     */
+    CENTIMES_UTILISATEURS("users") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE users SET budgetMensuelCentimes = " + centimes("budgetMensuel")
+                            + " WHERE id > ? AND id <= ? AND budgetMensuelCentimes = 0",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    CENTIMES_CATEGORIES("categories_personnalisees") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE categories_personnalisees SET "
+                            + "montantAlloueCentimes = " + centimes("montantAlloue") + ", "
+                            + "montantUtiliseCentimes = " + centimes("montantUtilise")
+                            + " WHERE id > ? AND id <= ? "
+                            + "AND montantAlloueCentimes = 0 AND montantUtiliseCentimes = 0",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    CENTIMES_RAPPORTS("rapports") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE rapports SET "
+                            + "budgetTotalCentimes = " + centimes("budgetTotal") + ", "
+                            + "depensesTotalesCentimes = " + centimes("depensesTotales") + ", "
+                            + "surplusCentimes = " + centimes("surplus")
+                            + " WHERE id > ? AND id <= ? AND budgetTotalCentimes = 0 "
+                            + "AND depensesTotalesCentimes = 0 AND surplusCentimes = 0",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    CENTIMES_DEPENSES("depenses") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            db.execSQL("UPDATE depenses SET montantCentimes = " + centimes("montant")
+                            + " WHERE id > ? AND id <= ? AND montantCentimes = 0",
+                    new Object[]{debut, fin});
+        }
+    },
+
+    /**
+     * Résumé journalier des dépenses déjà présentes.
+     * Les triggers ignorent les lignes de cette tranche tant qu'elles
+     * n'ont pas été traitées (voir DeclencheursResume).
+     */
+    RESUME_DEPENSES("depenses") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            // Pas d'UPSERT avant SQLite 3.24 (API 30) : on agrège le lot,
+            // puis INSERT OR IGNORE + UPDATE par clé, comme les triggers
+            try (Cursor c = db.query("SELECT userId, epochDay, IFNULL(categorie, ''), "
+                            + "SUM(montantCentimes), COUNT(*) FROM depenses "
+                            + "WHERE id > ? AND id <= ? "
+                            + "GROUP BY userId, epochDay, IFNULL(categorie, '')",
+                    new Object[]{debut, fin})) {
+                while (c.moveToNext()) {
+                    Object[] cle = {c.getInt(0), c.getLong(1), c.getString(2)};
+                    db.execSQL("INSERT OR IGNORE INTO resume_depenses_jour "
+                            + "(userId, epochDay, categorie, total, nombre) "
+                            + "VALUES (?, ?, ?, 0, 0)", cle);
+                    db.execSQL("UPDATE resume_depenses_jour "
+                                    + "SET total = total + ?, nombre = nombre + ? "
+                                    + "WHERE userId = ? AND epochDay = ? AND categorie = ?",
+                            new Object[]{c.getLong(3), c.getInt(4), cle[0], cle[1], cle[2]});
+                }
+            }
+        }
+    },
+
+    /**
+     * Rythme de dépense des catégories (DeclencheursPrevisions) pour
+     * les dépenses déjà présentes. L'état ne dépend pas de l'ordre des
+     * dépenses : chaque jour du lot est appliqué comme par un trigger.
+     */
+    PREVISIONS_DEPENSES("depenses") {
+        @Override
+        void traiterLot(SupportSQLiteDatabase db, long debut, long fin) {
+            try (Cursor c = db.query("SELECT userId, IFNULL(categorie, ''), epochDay, jour, "
+                            + "SUM(montantCentimes) FROM depenses "
+                            + "WHERE id > ? AND id <= ? "
+                            + "GROUP BY userId, IFNULL(categorie, ''), epochDay, jour",
+                    new Object[]{debut, fin})) {
+                while (c.moveToNext()) {
+                    String[] instructions = DeclencheursPrevisions.appliquer(
+                            String.valueOf(c.getInt(0)),
+                            DatabaseUtils.sqlEscapeString(c.getString(1)),
+                            String.valueOf(c.getInt(2)),
+                            String.valueOf(c.getInt(3)),
+                            String.valueOf(c.getLong(4)));
+                    for (String instruction : instructions) {
+                        db.execSQL(instruction);
+                    }
+                }
+            }
+        }
+    };
+
+    private final String table;
+
+    TacheDifferee(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Traiter les lignes d'id ]debut, fin] de la table
+     */
+    abstract void traiterLot(SupportSQLiteDatabase db, long debut, long fin);
+
+    /**
+     * La tâche peut-elle avancer ? Sinon elle reste en attente, sans
+     * être marquée terminée (vérifié dans la transaction du lot)
+     */
+    boolean estPrete(SupportSQLiteDatabase db) {
+        return true;
+    }
+
+    private static boolean existeCompte(SupportSQLiteDatabase db) {
+        try (Cursor c = db.query("SELECT EXISTS (SELECT 1 FROM users)")) {
+            return c.moveToFirst() && c.getInt(0) != 0;
+        }
+    }
+
+    /**
+     * Créer la table des tâches (appelé par les migrations antérieures
+     * à son entité : CREATE identique à celui généré par Room)
+     */
+    static void creerTable(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `taches_migration` ("
+                + "`nom` TEXT NOT NULL, `ordre` INTEGER NOT NULL, "
+                + "`curseur` INTEGER NOT NULL, `idFin` INTEGER NOT NULL, "
+                + "PRIMARY KEY(`nom`))");
+    }
+
+    /**
+     * Clause WHEN des triggers de "depenses" : ignorer une ligne (OLD)
+     * qu'un des rattrapages n'a pas encore traitée. Le lot la lira plus
+     * tard dans son état final.
+     */
+    static String horsRattrapage(TacheDifferee... taches) {
+        StringBuilder noms = new StringBuilder();
+        for (TacheDifferee tache : taches) {
+            noms.append(noms.length() == 0 ? "'" : ", '").append(tache.name()).append('\'');
+        }
+        return "WHEN NOT EXISTS (SELECT 1 FROM taches_migration "
+                + "WHERE nom IN (" + noms + ") "
+                + "AND OLD.id > curseur AND OLD.id <= idFin) ";
+    }
+
+    /**
+     * Expression SQL : ancien montant REAL (francs) -> centimes INTEGER
+     */
+    private static String centimes(String colonne) {
+        return "CAST(ROUND(" + colonne + " * 100) AS INTEGER)";
+    }
+
+    /**
+     * Planifier le rattrapage de toutes les lignes existantes.
+     * Les lignes insérées ensuite (id > idFin) sont déjà au bon format.
+     * Replanifier une tâche la reprend depuis le début.
+     */
+    void planifier(SupportSQLiteDatabase db) {
+        creerTable(db);
+        db.execSQL("INSERT OR REPLACE INTO taches_migration (nom, ordre, curseur, idFin) "
+                        + "SELECT ?, ?, 0, IFNULL(MAX(id), 0) FROM " + table,
+                new Object[]{name(), ordinal()});
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+/**
+ * DAO des rattrapages de migration en attente
+ */
+@Dao
+public interface TacheMigrationDao {
+
+    /**
+     * Prochaine tâche à traiter (null si tout est à jour)
+     */
+    @Query("SELECT * FROM taches_migration ORDER BY ordre LIMIT 1")
+    TacheMigrationEntity getTacheSuivante();
+
+    /**
+     * Nombre de rattrapages pas encore terminés
+     */
+    @Query("SELECT COUNT(*) FROM taches_migration")
+    int getNombreEnAttente();
+
+    /**
+     * Enregistrer l'avancement après un lot
+     */
+    @Query("UPDATE taches_migration SET curseur = :curseur WHERE nom = :nom")
+    void avancer(String nom, long curseur);
+
+    /**
+     * Rattrapage terminé
+     */
+    @Query("DELETE FROM taches_migration WHERE nom = :nom")
+    void supprimer(String nom);
+}
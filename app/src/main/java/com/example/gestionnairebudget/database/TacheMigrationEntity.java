@@ -0,0 +1,71 @@
+package com.example.gestionnairebudget.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * ENTITÉ ROOM : Rattrapage de migration en attente
+ *
+ * Une migration ne fait que le DDL rapide ; le remplissage des lignes
+ * existantes est planifié ici puis traité par lots d'id par le
+ * MigrationWorker. "curseur" avance dans la MÊME transaction que
+ * chaque lot : après une interruption, on reprend au lot suivant.
+ * La ligne est supprimée quand le rattrapage est terminé.
+ */
+@Entity(tableName = "taches_migration")
+public class TacheMigrationEntity {
+
+    @PrimaryKey
+    @NonNull
+    private String nom;        // Nom d'une constante de TacheDifferee
+
+    private int ordre;         // Ordre d'exécution (ordinal de TacheDifferee)
+    private long curseur;      // Dernier id traité
+    private long idFin;        // Plus grand id existant lors de la migration
+
+
+    // ========== CONSTRUCTEUR ==========
+    public TacheMigrationEntity(@NonNull String nom, int ordre, long curseur, long idFin) {
+        this.nom = nom;
+        this.ordre = ordre;
+        this.curseur = curseur;
+        this.idFin = idFin;
+    }
+
+
+    // ========== GETTERS ET SETTERS ==========
+
+    @NonNull
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(@NonNull String nom) {
+        this.nom = nom;
+    }
+
+    public int getOrdre() {
+        return ordre;
+    }
+
+    public void setOrdre(int ordre) {
+        this.ordre = ordre;
+    }
+
+    public long getCurseur() {
+        return curseur;
+    }
+
+    public void setCurseur(long curseur) {
+        this.curseur = curseur;
+    }
+
+    public long getIdFin() {
+        return idFin;
+    }
+
+    public void setIdFin(long idFin) {
+        this.idFin = idFin;
+    }
+}
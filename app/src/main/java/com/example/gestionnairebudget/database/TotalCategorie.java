@@ -0,0 +1,38 @@
+package com.example.gestionnairebudget.database;
+
+/**
+ * RESULTAT D'AGREGATION : total d'une catégorie
+ *
+ * Ce n'est PAS une table : Room remplit cet objet à partir
+ * d'une requête "GROUP BY categorie" de DepenseDao.
+ * Une ligne par catégorie au lieu d'une ligne par dépense.
+ */
+public class TotalCategorie {
+
+    private String categorie;
+    private long total;      // SUM(montant), en centimes
+    private int nombre;      // COUNT(*)
+
+
+    // ========== CONSTRUCTEUR ==========
+    public TotalCategorie(String categorie, long total, int nombre) {
+        this.categorie = categorie;
+        this.total = total;
+        this.nombre = nombre;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public String getCategorie() {
+        return categorie;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getNombre() {
+        return nombre;
+    }
+}
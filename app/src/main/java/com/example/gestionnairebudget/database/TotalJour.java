@@ -0,0 +1,37 @@
+package com.example.gestionnairebudget.database;
+
+/**
+ * RESULTAT D'AGREGATION : total d'un jour
+ *
+ * Ce n'est PAS une table : Room remplit cet objet à partir
+ * d'une requête "GROUP BY epochDay" de DepenseDao (série journalière).
+ */
+public class TotalJour {
+
+    private int epochDay;
+    private long total;      // SUM(montant), en centimes
+    private int nombre;      // COUNT(*)
+
+
+    // ========== CONSTRUCTEUR ==========
+    public TotalJour(int epochDay, long total, int nombre) {
+        this.epochDay = epochDay;
+        this.total = total;
+        this.nombre = nombre;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getNombre() {
+        return nombre;
+    }
+}
@@ -5,6 +5,8 @@ import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import java.util.List;
+
 /**
  * DAO pour les utilisateurs
  */
@@ -46,4 +48,24 @@ public interface UserDao {
      */
     @Query("SELECT * FROM users WHERE id = :userId")
     UserEntity getUserParId(int userId);
-}
\ No newline at end of file
+
+    /**
+     * Comptes actifs ayant défini un budget (rapports automatiques)
+     */
+    @Query("SELECT * FROM users WHERE estActif = 1 AND budgetMensuelCentimes > 0 ORDER BY id")
+    List<UserEntity> getComptesAvecBudget();
+
+    /**
+     * Enregistrer le budget mensuel (centimes) d'un utilisateur
+     */
+    @Query("UPDATE users SET budgetMensuelCentimes = :budget, dateModificationBudget = :date "
+            + "WHERE id = :userId")
+    void definirBudget(int userId, long budget, long date);
+
+    /**
+     * Budget défini avant les budgets par compte (SharedPreferences) :
+     * repris sur le compte s'il n'en a pas encore
+     */
+    @Query("UPDATE users SET budgetMensuelCentimes = :budget WHERE id = :userId AND budgetMensuelCentimes = 0")
+    void reprendreBudget(int userId, long budget);
+}
@@ -1,5 +1,6 @@
 package com.example.gestionnairebudget.database;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 
@@ -20,8 +21,9 @@ public class UserEntity {
     private String profession;
     private String ville;
 
-    // Budget mensuel de l'utilisateur
-    private double budgetMensuel;
+    // Budget mensuel de l'utilisateur (centimes, voir Montant)
+    @ColumnInfo(name = "budgetMensuelCentimes", defaultValue = "0")
+    private long budgetMensuel;
 
     // Date de dernière modification du budget
     private long dateModificationBudget;
@@ -32,6 +34,11 @@ public class UserEntity {
     // Statut du compte
     private boolean estActif;
 
+    // Budget en francs d'avant la version 8 (colonne REAL gardée,
+    // voir DepenseEntity) : jamais lu par l'application
+    @ColumnInfo(name = "budgetMensuel")
+    double ancienBudgetMensuel;
+
 
     // ========== CONSTRUCTEUR ==========
     public UserEntity(String nom, String email, String motDePasse,
@@ -41,7 +48,7 @@ public class UserEntity {
         this.motDePasse = motDePasse;
         this.profession = profession;
         this.ville = ville;
-        this.budgetMensuel = 0.0;
+        this.budgetMensuel = 0;
         this.dateModificationBudget = 0;
         this.dateCreation = System.currentTimeMillis();
         this.estActif = true;
@@ -98,11 +105,11 @@ public class UserEntity {
         this.ville = ville;
     }
 
-    public double getBudgetMensuel() {
+    public long getBudgetMensuel() {
         return budgetMensuel;
     }
 
-    public void setBudgetMensuel(double budgetMensuel) {
+    public void setBudgetMensuel(long budgetMensuel) {
         this.budgetMensuel = budgetMensuel;
     }
 
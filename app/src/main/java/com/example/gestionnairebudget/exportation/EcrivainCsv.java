@@ -0,0 +1,81 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.database.Cursor;
+import android.util.Base64;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * EXPORT CSV (separateur ";", lisible par Excel / LibreOffice en francais)
+ *
+ * Les textes contenant ";", des guillemets ou des retours a la ligne
+ * sont mis entre guillemets.
+ */
+public class EcrivainCsv implements EcrivainExport {
+
+    private static final char SEPARATEUR = ';';
+
+    private final Writer sortie;
+
+    public EcrivainCsv(Writer sortie) {
+        this.sortie = sortie;
+    }
+
+    @Override
+    public void ecrireEntete(String[] colonnes) throws IOException {
+        for (int i = 0; i < colonnes.length; i++) {
+            if (i > 0) sortie.write(SEPARATEUR);
+            ecrireTexte(colonnes[i]);
+        }
+        sortie.write('\n');
+    }
+
+    @Override
+    public void ecrireLigne(Cursor cursor) throws IOException {
+        int nbColonnes = cursor.getColumnCount();
+        for (int i = 0; i < nbColonnes; i++) {
+            if (i > 0) sortie.write(SEPARATEUR);
+
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_NULL:
+                    break;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    sortie.write(Long.toString(cursor.getLong(i)));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    sortie.write(Double.toString(cursor.getDouble(i)));
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    // Base64 : aucun caractere a proteger en CSV
+                    sortie.write(Base64.encodeToString(cursor.getBlob(i), Base64.NO_WRAP));
+                    break;
+                default:
+                    ecrireTexte(cursor.getString(i));
+                    break;
+            }
+        }
+        sortie.write('\n');
+    }
+
+    @Override
+    public void terminer() throws IOException {
+        sortie.flush();
+    }
+
+    private void ecrireTexte(String texte) throws IOException {
+        boolean aProteger = texte.indexOf(SEPARATEUR) >= 0 || texte.indexOf('"') >= 0
+                || texte.indexOf('\n') >= 0 || texte.indexOf('\r') >= 0;
+        if (!aProteger) {
+            sortie.write(texte);
+            return;
+        }
+
+        sortie.write('"');
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == '"') sortie.write('"');
+            sortie.write(c);
+        }
+        sortie.write('"');
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.database.Cursor;
+import java.io.IOException;
+
+/**
+ * ECRIVAIN D'EXPORT
+ *
+ * Ecrit les lignes d'un Cursor au fur et a mesure de leur lecture :
+ * aucune liste n'est construite, la memoire utilisee ne depend pas
+ * du nombre de lignes exportees.
+ */
+public interface EcrivainExport {
+
+    /**
+     * Debut du fichier (en-tete eventuel)
+     */
+    void ecrireEntete(String[] colonnes) throws IOException;
+
+    /**
+     * Ligne courante du Cursor
+     */
+    void ecrireLigne(Cursor cursor) throws IOException;
+
+    /**
+     * Fin du fichier (vide les tampons, ne ferme pas le flux)
+     */
+    void terminer() throws IOException;
+}
@@ -0,0 +1,96 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.database.Cursor;
+import android.util.Base64;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * EXPORT JSON LINES : un objet JSON par ligne
+ *
+ * Format pratique pour les outils comptables et les scripts :
+ * chaque ligne se lit independamment des autres.
+ */
+public class EcrivainJsonLines implements EcrivainExport {
+
+    private final Writer sortie;
+    private String[] colonnes;
+
+    public EcrivainJsonLines(Writer sortie) {
+        this.sortie = sortie;
+    }
+
+    @Override
+    public void ecrireEntete(String[] colonnes) {
+        this.colonnes = colonnes;  // Pas d'en-tete : les noms sont dans chaque objet
+    }
+
+    @Override
+    public void ecrireLigne(Cursor cursor) throws IOException {
+        sortie.write('{');
+        for (int i = 0; i < colonnes.length; i++) {
+            if (i > 0) sortie.write(',');
+            ecrireTexte(colonnes[i]);
+            sortie.write(':');
+
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_NULL:
+                    sortie.write("null");
+                    break;
+                case Cursor.FIELD_TYPE_INTEGER:
+                    sortie.write(Long.toString(cursor.getLong(i)));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    sortie.write(Double.toString(cursor.getDouble(i)));
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    ecrireTexte(Base64.encodeToString(cursor.getBlob(i), Base64.NO_WRAP));
+                    break;
+                default:
+                    ecrireTexte(cursor.getString(i));
+                    break;
+            }
+        }
+        sortie.write("}\n");
+    }
+
+    @Override
+    public void terminer() throws IOException {
+        sortie.flush();
+    }
+
+    /**
+     * Chaine JSON avec echappement des caracteres speciaux
+     */
+    private void ecrireTexte(String texte) throws IOException {
+        sortie.write('"');
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            switch (c) {
+                case '"':
+                    sortie.write("\\\"");
+                    break;
+                case '\\':
+                    sortie.write("\\\\");
+                    break;
+                case '\n':
+                    sortie.write("\\n");
+                    break;
+                case '\r':
+                    sortie.write("\\r");
+                    break;
+                case '\t':
+                    sortie.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sortie.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        sortie.write(c);
+                    }
+                    break;
+            }
+        }
+        sortie.write('"');
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.gestionnairebudget.exportation;
+
+import android.database.Cursor;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import com.example.gestionnairebudget.database.AppDatabase;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * EXPORT DES DONNEES (comptabilite, sauvegarde)
+ *
+ * Lit "depenses", "rapports" ou "worker_runs" avec un Cursor brut et ecrit chaque
+ * ligne directement dans le fichier de sortie (tampon + gzip optionnel).
+ * Rien n'est accumule en memoire : exporter 100 ou 1 000 000 de lignes
+ * utilise la meme quantite de memoire.
+ */
+public class ExportateurDonnees {
+
+    // Montants exportes tels quels, en centimes (entiers exacts).
+    // Rapports : donnees structurees en base64 (DonneesRapport),
+    // contenuRapport n'est rempli que pour les rapports d'avant la v9
+    // (une fois archives, leur texte compresse est dans donnees)
+    public enum Table {
+        DEPENSES("SELECT id, dateFormatee, timestamp, categorie, designation, "
+                + "montantCentimes, "
+                + "jour, semaine, mois, annee FROM depenses "
+                + "WHERE userId = ? ORDER BY timestamp, id"),
+
+        RAPPORTS("SELECT id, typeRapport, dateFormatee, dateCreation, jour, semaine, mois, annee, "
+                + "budgetTotalCentimes, depensesTotalesCentimes, surplusCentimes, "
+                + "nombreDepenses, "
+                + "evolutionParRapportPeriodePrecedente, donnees, contenuRapport FROM rapports "
+                + "WHERE userId = ? ORDER BY dateCreation, id"),
+
+        // Telemetrie des Workers : commune a tous les comptes
+        EXECUTIONS("SELECT id, travail, typeRapport, debut, fin, duree AS dureeMs, lignesLues, "
+                + "requetes, tentative, resultat, exception FROM worker_runs ORDER BY id", false);
+
+        private final String requete;
+        private final boolean parUtilisateur;  // Requete filtree par userId (?)
+
+        Table(String requete) {
+            this(requete, true);
+        }
+
+        Table(String requete, boolean parUtilisateur) {
+            this.requete = requete;
+            this.parUtilisateur = parUtilisateur;
+        }
+    }
+
+    public enum Format {
+        CSV(".csv"),
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final AppDatabase database;
+
+    public ExportateurDonnees(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Exporter une table d'un utilisateur dans un flux
+     * (EXECUTIONS : toute la table, userId ignore)
+     *
+     * @param sortie flux de destination (ferme a la fin)
+     * @param gzip   compresser la sortie
+     * @return nombre de lignes exportees
+     */
+    public long exporter(Table table, int userId, Format format,
+                         OutputStream sortie, boolean gzip) throws IOException {
+        long nombre = 0;
+        // sortie d'abord : fermee meme si GZIPOutputStream (en-tete) echoue
+        try (OutputStream fichier = sortie) {
+            OutputStream flux = new BufferedOutputStream(fichier, TAILLE_TAMPON);
+            if (gzip) {
+                flux = new GZIPOutputStream(flux, TAILLE_TAMPON);
+            }
+
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(flux, StandardCharsets.UTF_8), TAILLE_TAMPON);
+                 Cursor cursor = database.query(
+                         new SimpleSQLiteQuery(table.requete,
+                                 table.parUtilisateur ? new Object[]{userId} : new Object[0]))) {
+
+                EcrivainExport ecrivain = (format == Format.CSV)
+                        ? new EcrivainCsv(writer)
+                        : new EcrivainJsonLines(writer);
+
+                ecrivain.ecrireEntete(cursor.getColumnNames());
+                while (cursor.moveToNext()) {
+                    ecrivain.ecrireLigne(cursor);
+                    nombre++;
+                }
+                ecrivain.terminer();
+            }
+        }
+        return nombre;
+    }
+
+    /**
+     * Nom de fichier propose pour un export
+     */
+    public static String nomFichier(Table table, Format format, boolean gzip) {
+        return table.name().toLowerCase(Locale.ROOT) + format.getExtension() + (gzip ? ".gz" : "");
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.gestionnairebudget.importation;
+
+/**
+ * Analyse des dates trouvees dans les releves, sans SimpleDateFormat
+ * (un import peut compter des millions de lignes).
+ *
+ * Formats acceptes :
+ * - dd/MM/yyyy [HH:mm]  (aussi avec "-" ou ".")
+ * - yyyy-MM-dd [HH:mm]
+ * - yyyyMMdd[HHmm...]   (OFX)
+ *
+ * L'objet est reutilise ligne apres ligne : pas d'allocation.
+ */
+class DateReleve {
+
+    int annee;
+    int mois;
+    int jour;
+    int heure;
+    int minute;
+
+    /**
+     * @return true si la date est valide (champs remplis)
+     */
+    boolean analyser(CharSequence texte) {
+        int n = texte.length();
+        int debut = 0;
+        while (debut < n && texte.charAt(debut) == ' ') debut++;
+        if (n - debut < 8) {
+            return false;
+        }
+
+        heure = 0;
+        minute = 0;
+
+        if (estChiffres(texte, debut, 8)) {
+            // yyyyMMdd[HHmm]
+            annee = nombre(texte, debut, 4);
+            mois = nombre(texte, debut + 4, 2);
+            jour = nombre(texte, debut + 6, 2);
+            if (n - debut >= 12 && estChiffres(texte, debut + 8, 4)) {
+                heure = nombre(texte, debut + 8, 2);
+                minute = nombre(texte, debut + 10, 2);
+            }
+            return estValide();
+        }
+
+        int fin;
+        if (n - debut >= 10 && estChiffres(texte, debut, 4) && !estChiffre(texte.charAt(debut + 4))) {
+            // yyyy-MM-dd
+            annee = nombre(texte, debut, 4);
+            mois = nombre(texte, debut + 5, 2);
+            jour = nombre(texte, debut + 8, 2);
+            fin = debut + 10;
+        } else if (n - debut >= 10 && estChiffres(texte, debut, 2) && estChiffres(texte, debut + 3, 2)
+                && estChiffres(texte, debut + 6, 4)) {
+            // dd/MM/yyyy
+            jour = nombre(texte, debut, 2);
+            mois = nombre(texte, debut + 3, 2);
+            annee = nombre(texte, debut + 6, 4);
+            fin = debut + 10;
+        } else {
+            return false;
+        }
+
+        // Heure optionnelle : " HH:mm" ou "THH:mm"
+        if (n - fin >= 6 && estChiffres(texte, fin + 1, 2) && estChiffres(texte, fin + 4, 2)) {
+            heure = nombre(texte, fin + 1, 2);
+            minute = nombre(texte, fin + 4, 2);
+        }
+        return estValide();
+    }
+
+    private boolean estValide() {
+        return annee >= 1970 && mois >= 1 && mois <= 12 && jour >= 1 && jour <= 31
+                && heure < 24 && minute < 60;
+    }
+
+    private static boolean estChiffre(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean estChiffres(CharSequence texte, int debut, int longueur) {
+        if (debut + longueur > texte.length()) {
+            return false;
+        }
+        for (int i = debut; i < debut + longueur; i++) {
+            if (!estChiffre(texte.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nombre(CharSequence texte, int debut, int longueur) {
+        int valeur = 0;
+        for (int i = debut; i < debut + longueur; i++) {
+            valeur = valeur * 10 + (texte.charAt(i) - '0');
+        }
+        return valeur;
+    }
+
+    /** Valeur renvoyee par analyserMontant pour un texte illisible */
+    static final long MONTANT_INVALIDE = Long.MIN_VALUE;
+
+    /**
+     * Montant ecrit a la francaise ou a l'anglaise :
+     * "1 234,56", "-12.50", "1,234.56", "15000 FCFA"...
+     *
+     * Lu directement en centimes (entier), sans passer par un double.
+     * Seul le DERNIER separateur est decimal, les autres sont des milliers.
+     *
+     * @return le montant en centimes, ou MONTANT_INVALIDE s'il est illisible
+     */
+    static long analyserMontant(CharSequence texte) {
+        int dernierSeparateur = -1;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == ',' || c == '.') {
+                dernierSeparateur = i;
+            }
+        }
+
+        long valeur = 0;
+        int nbChiffres = 0;
+        int decimales = 0;
+        boolean negatif = false;
+        boolean signeLu = false;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (estChiffre(c)) {
+                if (++nbChiffres > 17) {
+                    return MONTANT_INVALIDE;  // Hors limites d'un long en centimes
+                }
+                valeur = valeur * 10 + (c - '0');
+                if (dernierSeparateur >= 0 && i > dernierSeparateur) {
+                    decimales++;
+                }
+            } else if (c == '-' || c == '+') {
+                if (signeLu || nbChiffres > 0) {
+                    return MONTANT_INVALIDE;
+                }
+                signeLu = true;
+                negatif = (c == '-');
+            }
+        }
+
+        if (nbChiffres == 0) {
+            return MONTANT_INVALIDE;
+        }
+
+        long centimes;
+        if (decimales <= 2) {
+            centimes = valeur * (decimales == 0 ? 100 : decimales == 1 ? 10 : 1);
+        } else {
+            // Plus de 2 decimales : arrondi au centime le plus proche
+            long diviseur = 1;
+            for (int k = 2; k < decimales; k++) {
+                diviseur *= 10;
+            }
+            centimes = (valeur + diviseur / 2) / diviseur;
+        }
+        return negatif ? -centimes : centimes;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.gestionnairebudget.importation;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.ImportEntity;
+import com.example.gestionnairebudget.utils.Periodes;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * IMPORT EN MASSE D'UN RELEVE
+ *
+ * Lit le releve en flux (LecteurReleve), transforme chaque operation en
+ * DepenseEntity et insere par LOTS dans une transaction :
+ * au plus un lot en memoire, quelle que soit la taille du fichier.
+ *
+ *  REPRISE APRES ECHEC :
+ * Le point de reprise (ImportEntity) est enregistre dans la meme
+ * transaction que le lot. Un import interrompu reprend apres le
+ * dernier lot valide : les operations deja importees sont relues
+ * dans le fichier mais pas reinserees.
+ *
+ * Le point de reprise appartient a l'utilisateur ET a une version du
+ * fichier (URI, taille, date de modification) : un autre compte, ou le
+ * meme fichier modifie, repart de zero au lieu de reprendre (ou de
+ * trouver termine) l'import d'un autre.
+ */
+public class ImportateurDepenses {
+
+    public static final int TAILLE_LOT_DEFAUT = 1000;
+    public static final String CATEGORIE_PAR_DEFAUT = "Autres";
+
+    /**
+     * Avancement, appele apres chaque lot valide
+     */
+    public interface Progression {
+        void surLot(long lignesTraitees, long depensesImportees);
+    }
+
+    /**
+     * Demande d'arret (ex: Worker.isStopped()), verifiee entre deux lots
+     */
+    public interface Arret {
+        boolean estDemande();
+    }
+
+    private final AppDatabase database;
+    private final int userId;
+    private final int tailleLot;
+
+    // Reutilises pour chaque operation
+    private final Calendar cal = Calendar.getInstance();
+    private final StringBuilder dateFormatee = new StringBuilder(16);
+
+    public ImportateurDepenses(AppDatabase database, int userId, int tailleLot) {
+        this.database = database;
+        this.userId = userId;
+        this.tailleLot = tailleLot;
+    }
+
+    /**
+     * Cle du point de reprise : utilisateur + fichier + version du fichier
+     *
+     * @param taille           taille en octets (-1 si inconnue)
+     * @param dateModification date de derniere modification (-1 si inconnue)
+     */
+    public static String cle(int userId, String uri, long taille, long dateModification) {
+        return userId + "|" + taille + "|" + dateModification + "|" + uri;
+    }
+
+    /**
+     * Importer (ou reprendre) un releve
+     *
+     * @param uri              identifiant stable du fichier
+     * @param taille           taille en octets (-1 si inconnue)
+     * @param dateModification date de derniere modification (-1 si inconnue)
+     * @param lecteur          releve a lire, ouvert depuis le debut
+     * @param progression      avancement (peut etre null)
+     * @param arret            demande d'arret (peut etre null)
+     * @return l'etat de l'import ; isTermine() = false s'il a ete arrete
+     */
+    public ImportEntity importer(String uri, long taille, long dateModification,
+                                 LecteurReleve lecteur, Progression progression,
+                                 Arret arret) throws IOException {
+        String cle = cle(userId, uri, taille, dateModification);
+        ImportEntity etat = database.importDao().getImport(cle);
+        if (etat == null) {
+            etat = new ImportEntity(cle, userId);
+            database.importDao().enregistrer(etat);
+        }
+        if (etat.isTermine()) {
+            return etat;
+        }
+
+        long dejaTraitees = etat.getLignesTraitees();
+        long position = 0;
+        List<DepenseEntity> lot = new ArrayList<>(tailleLot);
+
+        LigneReleve ligne;
+        while ((ligne = lecteur.lireSuivante()) != null) {
+            position++;
+            if (position <= dejaTraitees) {
+                continue;  // Deja importee lors d'une tentative precedente
+            }
+
+            lot.add(convertir(ligne));
+
+            if (lot.size() >= tailleLot) {
+                validerLot(etat, lot, position, false);
+                if (progression != null) {
+                    progression.surLot(etat.getLignesTraitees(), etat.getDepensesImportees());
+                }
+                if (arret != null && arret.estDemande()) {
+                    return etat;
+                }
+            }
+        }
+
+        validerLot(etat, lot, Math.max(position, dejaTraitees), true);
+        if (progression != null) {
+            progression.surLot(etat.getLignesTraitees(), etat.getDepensesImportees());
+        }
+        return etat;
+    }
+
+    /**
+     * Inserer le lot ET avancer le point de reprise, atomiquement
+     */
+    private void validerLot(ImportEntity etat, List<DepenseEntity> lot,
+                            long position, boolean termine) {
+        etat.setLignesTraitees(position);
+        etat.setDepensesImportees(etat.getDepensesImportees() + lot.size());
+        etat.setTermine(termine);
+        etat.setDateMiseAJour(System.currentTimeMillis());
+
+        database.runInTransaction(() -> {
+            if (!lot.isEmpty()) {
+                database.depenseDao().insererTout(lot);
+            }
+            database.importDao().enregistrer(etat);
+        });
+        lot.clear();
+    }
+
+    /**
+     * Operation du releve -> depense, avec ses champs de periode
+     */
+    private DepenseEntity convertir(LigneReleve ligne) {
+        cal.clear();
+        cal.set(ligne.getAnnee(), ligne.getMois() - 1, ligne.getJour(),
+                ligne.getHeure(), ligne.getMinute());
+
+        dateFormatee.setLength(0);
+        deuxChiffres(ligne.getJour()).append('/');
+        deuxChiffres(ligne.getMois()).append('/');
+        dateFormatee.append(ligne.getAnnee()).append(' ');
+        deuxChiffres(ligne.getHeure()).append(':');
+        deuxChiffres(ligne.getMinute());
+
+        String categorie = ligne.getCategorie() != null
+                ? ligne.getCategorie() : CATEGORIE_PAR_DEFAUT;
+
+        return new DepenseEntity(
+                userId,
+                categorie,
+                ligne.getDesignation(),
+                ligne.getMontant(),
+                cal.getTimeInMillis(),
+                dateFormatee.toString(),
+                ligne.getJour(),
+                Periodes.numeroSemaine(cal),
+                ligne.getMois(),
+                ligne.getAnnee()
+        );
+    }
+
+    private StringBuilder deuxChiffres(int valeur) {
+        if (valeur < 10) {
+            dateFormatee.append('0');
+        }
+        return dateFormatee.append(valeur);
+    }
+}
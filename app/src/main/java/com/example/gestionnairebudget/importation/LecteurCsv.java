@@ -0,0 +1,138 @@
+package com.example.gestionnairebudget.importation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LECTEUR CSV (export bancaire ou tableur)
+ *
+ * Colonnes attendues : date ; libelle ; montant [; categorie]
+ * - Separateur ";" ou "," detecte sur la premiere ligne
+ * - Champs entre guillemets acceptes ("" = guillemet)
+ * - Ligne d'en-tete sautee automatiquement (date illisible)
+ *
+ * Releve bancaire (debitsNegatifs = true) : seules les sorties
+ * d'argent (montants negatifs) deviennent des depenses.
+ * Sinon : tous les montants positifs sont des depenses.
+ *
+ * Une seule ligne en memoire a la fois.
+ */
+public class LecteurCsv implements LecteurReleve {
+
+    private final BufferedReader lecteur;
+    private final boolean debitsNegatifs;
+
+    private char separateur = 0;
+    private int lignesIgnorees = 0;
+
+    // Reutilises d'une ligne a l'autre
+    private final List<String> champs = new ArrayList<>(8);
+    private final StringBuilder champ = new StringBuilder(64);
+    private final DateReleve date = new DateReleve();
+
+    public LecteurCsv(BufferedReader lecteur, boolean debitsNegatifs) {
+        this.lecteur = lecteur;
+        this.debitsNegatifs = debitsNegatifs;
+    }
+
+    @Override
+    public LigneReleve lireSuivante() throws IOException {
+        String ligne;
+        while ((ligne = lecteur.readLine()) != null) {
+            if (ligne.trim().isEmpty()) {
+                continue;
+            }
+            if (separateur == 0) {
+                separateur = detecterSeparateur(ligne);
+            }
+
+            LigneReleve operation = convertir(ligne);
+            if (operation != null) {
+                return operation;
+            }
+            lignesIgnorees++;
+        }
+        return null;
+    }
+
+    @Override
+    public int getLignesIgnorees() {
+        return lignesIgnorees;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lecteur.close();
+    }
+
+    /**
+     * Transformer une ligne en operation (null si elle est ignoree)
+     */
+    private LigneReleve convertir(String ligne) {
+        decouper(ligne);
+        if (champs.size() < 3 || !date.analyser(champs.get(0))) {
+            return null;
+        }
+
+        long montant = DateReleve.analyserMontant(champs.get(2));
+        if (montant == DateReleve.MONTANT_INVALIDE) {
+            return null;
+        }
+        if (debitsNegatifs) {
+            if (montant >= 0) return null;  // Credit : pas une depense
+            montant = -montant;
+        } else if (montant <= 0) {
+            return null;
+        }
+
+        String categorie = null;
+        if (champs.size() > 3 && !champs.get(3).isEmpty()) {
+            categorie = champs.get(3);
+        }
+
+        return new LigneReleve(date.annee, date.mois, date.jour, date.heure, date.minute,
+                champs.get(1), montant, categorie);
+    }
+
+    /**
+     * Decouper une ligne CSV en champs (guillemets geres)
+     */
+    private void decouper(String ligne) {
+        champs.clear();
+        champ.setLength(0);
+        boolean entreGuillemets = false;
+
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"') {
+                    if (i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        champ.append('"');
+                        i++;
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(champ.toString().trim());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        champs.add(champ.toString().trim());
+    }
+
+    /**
+     * ";" si la ligne en contient (exports francais), sinon ","
+     */
+    private static char detecterSeparateur(String ligne) {
+        return ligne.indexOf(';') >= 0 ? ';' : ',';
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.gestionnairebudget.importation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * LECTEUR OFX (Open Financial Exchange)
+ *
+ * Lit le fichier balise par balise, sans le charger en memoire.
+ * Fonctionne avec l'OFX 1.x (SGML, balises non fermees) comme avec
+ * l'OFX 2.x (XML). Chaque bloc <STMTTRN> ... </STMTTRN> est une
+ * operation ; seuls les debits (TRNAMT negatif) sont des depenses.
+ */
+public class LecteurOfx implements LecteurReleve {
+
+    private final Reader lecteur;
+    private int lignesIgnorees = 0;
+
+    // Reutilises d'une balise a l'autre
+    private final StringBuilder balise = new StringBuilder(16);
+    private final StringBuilder valeur = new StringBuilder(64);
+    private final DateReleve date = new DateReleve();
+    private int prochainCaractere = -2;  // -2 = rien en attente
+
+    // Operation en cours de lecture
+    private boolean dansOperation;
+    private boolean dateValide;
+    private long montant;        // En centimes
+    private String nom;
+    private String memo;
+
+    public LecteurOfx(Reader lecteur) {
+        // Lecture caractere par caractere : toujours passer par un tampon
+        this.lecteur = (lecteur instanceof BufferedReader) ? lecteur : new BufferedReader(lecteur);
+    }
+
+    @Override
+    public LigneReleve lireSuivante() throws IOException {
+        while (lireBalise()) {
+            String nomBalise = balise.toString();
+
+            if ("STMTTRN".equals(nomBalise)) {
+                dansOperation = true;
+                dateValide = false;
+                montant = DateReleve.MONTANT_INVALIDE;
+                nom = null;
+                memo = null;
+            } else if ("/STMTTRN".equals(nomBalise)) {
+                dansOperation = false;
+                LigneReleve operation = terminerOperation();
+                if (operation != null) {
+                    return operation;
+                }
+                lignesIgnorees++;
+            } else if (dansOperation) {
+                String texte = valeur.toString().trim();
+                if ("DTPOSTED".equals(nomBalise)) {
+                    dateValide = date.analyser(texte);
+                } else if ("TRNAMT".equals(nomBalise)) {
+                    montant = DateReleve.analyserMontant(texte);
+                } else if ("NAME".equals(nomBalise)) {
+                    nom = texte;
+                } else if ("MEMO".equals(nomBalise)) {
+                    memo = texte;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getLignesIgnorees() {
+        return lignesIgnorees;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lecteur.close();
+    }
+
+    private LigneReleve terminerOperation() {
+        if (!dateValide || montant == DateReleve.MONTANT_INVALIDE || montant >= 0) {
+            return null;  // Invalide, ou credit
+        }
+
+        String designation = (nom != null && !nom.isEmpty()) ? nom : memo;
+        return new LigneReleve(date.annee, date.mois, date.jour, date.heure, date.minute,
+                designation == null ? "" : designation, -montant, null);
+    }
+
+    /**
+     * Lire la balise suivante et le texte qui la suit
+     *
+     * @return false a la fin du fichier
+     */
+    private boolean lireBalise() throws IOException {
+        int c = lire();
+        while (c != -1 && c != '<') {
+            c = lire();
+        }
+        if (c == -1) {
+            return false;
+        }
+
+        balise.setLength(0);
+        while ((c = lire()) != -1 && c != '>') {
+            balise.append((char) c);
+        }
+
+        valeur.setLength(0);
+        while ((c = lire()) != -1 && c != '<') {
+            valeur.append((char) c);
+        }
+        if (c == '<') {
+            prochainCaractere = c;  // Debut de la balise suivante
+        }
+        return true;
+    }
+
+    private int lire() throws IOException {
+        if (prochainCaractere != -2) {
+            int c = prochainCaractere;
+            prochainCaractere = -2;
+            return c;
+        }
+        return lecteur.read();
+    }
+}
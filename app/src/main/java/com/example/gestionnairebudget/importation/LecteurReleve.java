@@ -0,0 +1,24 @@
+package com.example.gestionnairebudget.importation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * LECTEUR DE RELEVE EN FLUX
+ *
+ * Lit les operations une par une : le fichier n'est jamais charge
+ * entierement en memoire. Les lignes illisibles (en-tete, credits,
+ * montants invalides...) sont sautees et comptees.
+ */
+public interface LecteurReleve extends Closeable {
+
+    /**
+     * Operation suivante, ou null a la fin du fichier
+     */
+    LigneReleve lireSuivante() throws IOException;
+
+    /**
+     * Nombre de lignes sautees depuis le debut
+     */
+    int getLignesIgnorees();
+}
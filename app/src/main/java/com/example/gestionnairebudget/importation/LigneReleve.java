@@ -0,0 +1,69 @@
+package com.example.gestionnairebudget.importation;
+
+/**
+ * UNE OPERATION LUE DANS UN RELEVE (CSV ou OFX)
+ *
+ * Le montant est toujours positif : c'est le montant de la depense,
+ * en centimes (voir Montant).
+ * La date est la date locale de l'operation, deja decoupee.
+ */
+public class LigneReleve {
+
+    private final int annee;
+    private final int mois;      // 1-12
+    private final int jour;      // 1-31
+    private final int heure;
+    private final int minute;
+    private final String designation;
+    private final long montant;
+    private final String categorie;  // null si le releve n'en donne pas
+
+
+    // ========== CONSTRUCTEUR ==========
+    public LigneReleve(int annee, int mois, int jour, int heure, int minute,
+                       String designation, long montant, String categorie) {
+        this.annee = annee;
+        this.mois = mois;
+        this.jour = jour;
+        this.heure = heure;
+        this.minute = minute;
+        this.designation = designation;
+        this.montant = montant;
+        this.categorie = categorie;
+    }
+
+
+    // ========== GETTERS ==========
+
+    public int getAnnee() {
+        return annee;
+    }
+
+    public int getMois() {
+        return mois;
+    }
+
+    public int getJour() {
+        return jour;
+    }
+
+    public int getHeure() {
+        return heure;
+    }
+
+    public int getMinute() {
+        return minute;
+    }
+
+    public String getDesignation() {
+        return designation;
+    }
+
+    public long getMontant() {
+        return montant;
+    }
+
+    public String getCategorie() {
+        return categorie;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * AGREGATEUR PAR CATEGORIE (nombre de categories illimite)
+ *
+ * Chaque nom de categorie recoit un id (0, 1, 2, ...) dans un
+ * Dictionnaire, une seule fois. Les totaux sont ensuite cumules dans
+ * des tableaux long[] / int[] indexes par cet id, agrandis au besoin :
+ * pas de recherche lineaire ni de long[] boxe par categorie.
+ *
+ * Un meme Dictionnaire peut servir a plusieurs agregateurs (une
+ * periode chacun) : le nom n'est cherche qu'une fois par ligne.
+ *
+ * Ordre du rapport : total decroissant, puis nom. Les k plus grandes
+ * categories sont extraites avec un tas de taille k (O(n log k)).
+ */
+public final class AgregateurCategories {
+
+    /**
+     * Correspondance nom de categorie <-> id
+     */
+    public static final class Dictionnaire {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> noms = new ArrayList<>();
+
+        /** Id de la categorie, cree a la premiere rencontre */
+        public int id(String nom) {
+            Integer id = ids.get(nom);
+            if (id == null) {
+                id = noms.size();
+                ids.put(nom, id);
+                noms.add(nom);
+            }
+            return id;
+        }
+
+        public String nom(int id) {
+            return noms.get(id);
+        }
+
+        public int taille() {
+            return noms.size();
+        }
+    }
+
+    private static final int CAPACITE_INITIALE = 16;
+
+    private final Dictionnaire dictionnaire;
+    private long[] totaux = new long[CAPACITE_INITIALE];  // En centimes, par id
+    private int[] nombres = new int[CAPACITE_INITIALE];
+    private int idMax = -1;  // Plus grand id rencontre
+
+    public AgregateurCategories() {
+        this(new Dictionnaire());
+    }
+
+    public AgregateurCategories(Dictionnaire dictionnaire) {
+        this.dictionnaire = dictionnaire;
+    }
+
+    public Dictionnaire getDictionnaire() {
+        return dictionnaire;
+    }
+
+    // ========== CUMUL ==========
+
+    public void ajouter(String categorie, long montant, int nombre) {
+        ajouter(dictionnaire.id(categorie), montant, nombre);
+    }
+
+    /**
+     * Cumuler pour une categorie deja identifiee (id du Dictionnaire)
+     */
+    public void ajouter(int id, long montant, int nombre) {
+        if (id >= totaux.length) {
+            int capacite = Math.max(id + 1, totaux.length * 2);
+            totaux = Arrays.copyOf(totaux, capacite);
+            nombres = Arrays.copyOf(nombres, capacite);
+        }
+        totaux[id] += montant;
+        nombres[id] += nombre;
+        if (id > idMax) {
+            idMax = id;
+        }
+    }
+
+    // ========== RESULTATS ==========
+
+    /**
+     * Toutes les categories ayant des depenses, dans l'ordre du rapport
+     */
+    public List<TotalCategorie> getCategories() {
+        return getPlusGrandes(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Les k plus grandes categories, dans l'ordre du rapport
+     */
+    public List<TotalCategorie> getPlusGrandes(int k) {
+        if (k <= 0 || idMax < 0) {
+            return new ArrayList<>();
+        }
+
+        // Tas "du moins bon au meilleur" : la tete est la categorie
+        // a retirer quand le tas depasse k elements
+        Comparator<Integer> ordre = this::comparer;
+        PriorityQueue<Integer> tas = new PriorityQueue<>(
+                Math.min(k, idMax + 1) + 1, Collections.reverseOrder(ordre));
+        for (int id = 0; id <= idMax; id++) {
+            if (nombres[id] == 0 && totaux[id] == 0) {
+                continue;  // Categorie vue seulement par une autre periode
+            }
+            tas.add(id);
+            if (tas.size() > k) {
+                tas.poll();
+            }
+        }
+
+        TotalCategorie[] resultat = new TotalCategorie[tas.size()];
+        for (int i = resultat.length - 1; i >= 0; i--) {
+            int id = tas.poll();
+            resultat[i] = new TotalCategorie(dictionnaire.nom(id), totaux[id], nombres[id]);
+        }
+        return new ArrayList<>(Arrays.asList(resultat));
+    }
+
+    /** Negatif si la categorie a passe avant la categorie b dans le rapport */
+    private int comparer(int a, int b) {
+        int ordre = Long.compare(totaux[b], totaux[a]);
+        return ordre != 0 ? ordre : dictionnaire.nom(a).compareTo(dictionnaire.nom(b));
+    }
+}
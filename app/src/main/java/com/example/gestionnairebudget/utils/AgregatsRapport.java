@@ -0,0 +1,235 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.SyntheseRapport;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * NOYAU D'AGREGATION DES RAPPORTS
+ *
+ * Une seule fusion, du debut du mois precedent a la fin de la semaine
+ * en cours (FusionRapports.fusionnerAutour), remplit en meme temps :
+ * - le jour et la veille
+ * - la semaine et la semaine precedente
+ * - le mois et le mois precedent
+ *
+ * 1. une lecture des syntheses (rapports stockes non perimes) : chaque
+ *    periode prend celles qu'elle contient entierement
+ * 2. une lecture du resume journalier par plage de jours qu'au moins
+ *    une periode doit relire, puis un seul passage sur ces lignes
+ *
+ * Les rapports journalier, hebdomadaire et mensuel ne sont que des
+ * vues sur ce resultat : le dernier dimanche du mois, les trois
+ * rapports coutent une fusion au lieu de six.
+ */
+public class AgregatsRapport {
+
+    /**
+     * Totaux d'une periode [debut, fin[ (montants en centimes)
+     */
+    public static final class Periode {
+
+        private final int debut;
+        private final int fin;
+        private final AgregateurCategories categories;  // null : pas de detail
+        private long total;
+        private int nombre;
+
+        Periode(int debut, int fin, AgregateurCategories.Dictionnaire dictionnaire) {
+            this.debut = debut;
+            this.fin = fin;
+            this.categories = dictionnaire != null ? new AgregateurCategories(dictionnaire) : null;
+        }
+
+        boolean contient(int epochDay) {
+            return epochDay >= debut && epochDay < fin;
+        }
+
+        boolean parCategorie() {
+            return categories != null;
+        }
+
+        void ajouter(ResumeJourEntity ligne, int idCategorie) {
+            total += ligne.getTotal();
+            nombre += ligne.getNombre();
+            if (categories != null) {
+                categories.ajouter(idCategorie, ligne.getTotal(), ligne.getNombre());
+            }
+        }
+
+        void ajouter(ResumeJourEntity ligne) {
+            ajouter(ligne, categories != null
+                    ? categories.getDictionnaire().id(ligne.getCategorie()) : -1);
+        }
+
+        /**
+         * Ajouter les totaux d'un rapport deja stocke (FusionRapports)
+         */
+        void ajouterSynthese(long totalSynthese, int nombreSynthese, List<TotalCategorie> detail) {
+            total += totalSynthese;
+            nombre += nombreSynthese;
+            if (categories != null) {
+                for (TotalCategorie t : detail) {
+                    categories.ajouter(t.getCategorie(), t.getTotal(), t.getNombre());
+                }
+            }
+        }
+
+        public int getDebut() {
+            return debut;
+        }
+
+        public int getFin() {
+            return fin;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int getNombre() {
+            return nombre;
+        }
+
+        /**
+         * Totaux par categorie, du plus grand au plus petit
+         * (vide pour les periodes de comparaison)
+         */
+        public List<TotalCategorie> getCategories() {
+            return categories != null ? categories.getCategories() : new ArrayList<>();
+        }
+
+        /**
+         * Les k plus grandes categories de la periode
+         */
+        public List<TotalCategorie> getPlusGrandes(int k) {
+            return categories != null ? categories.getPlusGrandes(k) : new ArrayList<>();
+        }
+    }
+
+    private final Periode jour;
+    private final Periode hier;
+    private final Periode semaine;
+    private final Periode semainePrecedente;
+    private final Periode mois;
+    private final Periode moisPrecedent;
+
+    // Un seul id par nom de categorie pour toutes les periodes
+    private final AgregateurCategories.Dictionnaire dictionnaire =
+            new AgregateurCategories.Dictionnaire();
+
+    private AgregatsRapport(int aujourdhui, int debutSemaine, int annee, int numeroMois) {
+        int moisAvant = (numeroMois == 1) ? 12 : numeroMois - 1;
+        int anneeAvant = (numeroMois == 1) ? annee - 1 : annee;
+
+        jour = new Periode(aujourdhui, aujourdhui + 1, dictionnaire);
+        hier = new Periode(aujourdhui - 1, aujourdhui, null);
+        semaine = new Periode(debutSemaine, debutSemaine + 7, dictionnaire);
+        semainePrecedente = new Periode(debutSemaine - 7, debutSemaine, null);
+        mois = new Periode(Periodes.debutMois(annee, numeroMois),
+                Periodes.finMois(annee, numeroMois), dictionnaire);
+        moisPrecedent = new Periode(Periodes.debutMois(anneeAvant, moisAvant),
+                Periodes.finMois(anneeAvant, moisAvant), null);
+    }
+
+    /**
+     * Periodes vides autour de la date du Calendar
+     */
+    static AgregatsRapport autour(Calendar cal) {
+        return new AgregatsRapport(Periodes.epochDay(cal), Periodes.debutSemaine(cal),
+                cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1);
+    }
+
+    /**
+     * Fusion a partir de syntheses deja lues (utilise par les tests)
+     */
+    static AgregatsRapport depuisSyntheses(List<SyntheseRapport> syntheses,
+                                           FusionRapports.LecteurResume lecteur, int aujourdhui,
+                                           int debutSemaine, int annee, int numeroMois) {
+        AgregatsRapport agregats = new AgregatsRapport(aujourdhui, debutSemaine, annee, numeroMois);
+        agregats.fusionner(syntheses, lecteur);
+        return agregats;
+    }
+
+    /**
+     * Remplir les six periodes : syntheses d'abord, puis une lecture du
+     * resume par plage de jours qu'une periode au moins ne couvre pas.
+     * Chaque ligne lue est ajoutee aux periodes qui doivent la relire.
+     */
+    void fusionner(List<SyntheseRapport> syntheses, FusionRapports.LecteurResume lecteur) {
+        Periode[] periodes = {jour, hier, semaine, semainePrecedente, mois, moisPrecedent};
+        int debut = debutLecture();
+        boolean[][] couverts = new boolean[periodes.length][];
+        boolean[] aLire = new boolean[finLecture() - debut];
+        for (int i = 0; i < periodes.length; i++) {
+            Periode p = periodes[i];
+            couverts[i] = FusionRapports.ajouterSyntheses(p, syntheses);
+            for (int j = p.debut; j < p.fin; j++) {
+                aLire[j - debut] |= !couverts[i][j - p.debut];
+            }
+        }
+
+        int j = 0;
+        while (j < aLire.length) {
+            if (!aLire[j]) {
+                j++;
+                continue;
+            }
+            int finPlage = j;
+            while (finPlage < aLire.length && aLire[finPlage]) {
+                finPlage++;
+            }
+            for (ResumeJourEntity ligne : lecteur.lire(debut + j, debut + finPlage)) {
+                int epochDay = ligne.getEpochDay();
+                int idCategorie = dictionnaire.id(ligne.getCategorie());
+                for (int i = 0; i < periodes.length; i++) {
+                    Periode p = periodes[i];
+                    if (p.contient(epochDay) && !couverts[i][epochDay - p.debut]) {
+                        p.ajouter(ligne, idCategorie);
+                    }
+                }
+            }
+            j = finPlage;
+        }
+    }
+
+    /** Premier jour a lire : la plus ancienne periode de comparaison */
+    int debutLecture() {
+        return Math.min(moisPrecedent.debut, semainePrecedente.debut);
+    }
+
+    /** Dernier jour a lire (exclu) : la semaine peut deborder sur le mois suivant */
+    int finLecture() {
+        return Math.max(mois.fin, semaine.fin);
+    }
+
+    // ========== VUES ==========
+
+    public Periode getJour() {
+        return jour;
+    }
+
+    public Periode getHier() {
+        return hier;
+    }
+
+    public Periode getSemaine() {
+        return semaine;
+    }
+
+    public Periode getSemainePrecedente() {
+        return semainePrecedente;
+    }
+
+    public Periode getMois() {
+        return mois;
+    }
+
+    public Periode getMoisPrecedent() {
+        return moisPrecedent;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.gestionnairebudget.utils;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.CorpsRapport;
+import com.example.gestionnairebudget.database.RapportDao;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * COMPACTION DE LA TABLE "rapports"
+ *
+ * Trois étapes, lancées par le CompactionWorker (appareil inactif et
+ * en charge) :
+ * 1. Rétention : rapports journaliers gardés JOURS_JOURNALIERS jours,
+ *    hebdomadaires JOURS_HEBDOMADAIRES jours ; mensuels et plages
+ *    gardés sans limite
+ * 2. Archivage : au-delà de JOURS_AVANT_ARCHIVAGE, le blob "donnees"
+ *    est compressé (DonneesRapport.archiver), par lots ; le texte des
+ *    rapports d'avant la v9 (contenuRapport), gardé sans limite pour
+ *    les mensuels, l'est aussi (DonneesRapport.archiverTexte)
+ * 3. Récupération de l'espace : "incremental_vacuum" rend au système
+ *    les pages libérées, puis le WAL est tronqué
+ *
+ * Les rapports supprimés ne manquent pas aux synthèses : FusionRapports
+ * relit alors le résumé journalier.
+ */
+public class CompactionRapports {
+
+    public static final int JOURS_JOURNALIERS = 90;
+    public static final int JOURS_HEBDOMADAIRES = 2 * 365;
+    public static final int JOURS_AVANT_ARCHIVAGE = 90;
+
+    public static final int TAILLE_LOT_DEFAUT = 200;
+
+    // Pages rendues par passe d'incremental_vacuum (4 Ko chacune)
+    private static final int PAGES_PAR_PASSE = 1024;
+
+    // Valeur de "PRAGMA auto_vacuum" en mode incrémental
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final AppDatabase database;
+    private final int tailleLot;
+
+    public CompactionRapports(AppDatabase database, int tailleLot) {
+        this.database = database;
+        this.tailleLot = tailleLot;
+    }
+
+    /**
+     * Supprimer les rapports journaliers et hebdomadaires trop anciens
+     *
+     * @return nombre de rapports supprimés
+     */
+    public int appliquerRetention(long maintenant) {
+        RapportDao dao = database.rapportDao();
+        return dao.supprimerAvant("JOURNALIER", maintenant - TimeUnit.DAYS.toMillis(JOURS_JOURNALIERS))
+                + dao.supprimerAvant("HEBDOMADAIRE",
+                maintenant - TimeUnit.DAYS.toMillis(JOURS_HEBDOMADAIRES));
+    }
+
+    /**
+     * Archiver un lot de rapports anciens, dans une transaction
+     *
+     * @return false s'il ne reste plus rien à archiver
+     */
+    public boolean archiverLotSuivant(long maintenant) {
+        RapportDao dao = database.rapportDao();
+        long limite = maintenant - TimeUnit.DAYS.toMillis(JOURS_AVANT_ARCHIVAGE);
+        List<CorpsRapport> lot = dao.getCorpsAArchiver(limite, tailleLot);
+        if (lot.isEmpty()) {
+            return false;
+        }
+
+        database.runInTransaction(() -> {
+            for (CorpsRapport corps : lot) {
+                byte[] donnees = corps.getDonnees();
+                if (donnees != null) {
+                    dao.remplacerDonnees(corps.getId(), DonneesRapport.archiver(donnees));
+                } else {
+                    dao.remplacerTexte(corps.getId(),
+                            DonneesRapport.archiverTexte(corps.getContenuRapport()));
+                }
+            }
+        });
+        return lot.size() == tailleLot;
+    }
+
+    /**
+     * Rendre au système les pages libres du fichier.
+     *
+     * "auto_vacuum" ne peut passer à INCREMENTAL qu'avec un VACUUM
+     * complet : fait une seule fois, à la première compaction. Ensuite,
+     * chaque passe d'incremental_vacuum est courte.
+     * Hors transaction (VACUUM l'exige).
+     */
+    public void recupererEspace() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+
+        if (lireEntier(db, "PRAGMA auto_vacuum") != AUTO_VACUUM_INCREMENTAL) {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+        } else {
+            int libres = lireEntier(db, "PRAGMA freelist_count");
+            while (libres > 0) {
+                vider(db, "PRAGMA incremental_vacuum(" + PAGES_PAR_PASSE + ")");
+                int restantes = lireEntier(db, "PRAGMA freelist_count");
+                if (restantes >= libres) {
+                    break;  // Plus rien ne se libere
+                }
+                libres = restantes;
+            }
+        }
+
+        // Le WAL garde sa taille maximale tant qu'il n'est pas tronqué
+        vider(db, "PRAGMA wal_checkpoint(TRUNCATE)");
+    }
+
+    private static int lireEntier(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor c = db.query(pragma)) {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        }
+    }
+
+    /**
+     * Exécuter un PRAGMA qui renvoie des lignes : son travail se fait
+     * au fil de la lecture du curseur
+     */
+    private static void vider(SupportSQLiteDatabase db, String pragma) {
+        try (Cursor c = db.query(pragma)) {
+            while (c.moveToNext()) {
+                // Rien à lire
+            }
+        }
+    }
+}
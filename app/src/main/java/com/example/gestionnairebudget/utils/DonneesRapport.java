@@ -0,0 +1,329 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * DONNEES STRUCTUREES D'UN RAPPORT (colonne rapports.donnees)
+ *
+ * Les cles de periode et les totaux sont deja des colonnes de
+ * RapportEntity ; ce blob ne contient que le reste :
+ * - le total de la periode precedente (base de l'evolution)
+ * - le detail par categorie (nom, total, nombre)
+ *
+ * Format binaire, quelques dizaines d'octets au lieu d'un texte
+ * complet avec emojis :
+ *   version (1 octet)
+ *   totalPrecedent (varint zigzag)
+ *   nombre de categories (varint)
+ *   par categorie : nom (UTF), total (varint zigzag), nombre (varint)
+ *   si le rapport a une prevision (mois en cours, voir PrevisionDepenses) :
+ *     total prevu (varint zigzag), nombre de categories (varint),
+ *     par categorie : nom (UTF), total prevu (varint zigzag)
+ * Un blob sans prevision s'arrete apres les categories : les blobs
+ * ecrits avant les previsions se relisent tels quels.
+ *
+ * Rapports anciens (voir CompactionRapports) : blob archive
+ *   version 2 (1 octet)
+ *   mode (1 octet) : 1 = deflate, 0 = tel quel si deflate ne gagne rien
+ *   blob de version 1
+ * Le deflate part d'un dictionnaire des categories par defaut : sur
+ * quelques dizaines d'octets, c'est ce qui le rend rentable.
+ *
+ * Rapports d'avant la v9 (texte dans contenuRapport), une fois
+ * archives : meme format, version 3, avec le texte en UTF-8 a la
+ * place du blob de version 1 (ce ne sont pas des donnees : exclus
+ * des syntheses, rendus tels quels par RenduRapport)
+ */
+public final class DonneesRapport {
+
+    private static final int VERSION = 1;
+    private static final int VERSION_ARCHIVEE = 2;
+    private static final int VERSION_TEXTE = 3;
+    private static final int MODE_BRUT = 0;
+    private static final int MODE_DEFLATE = 1;
+
+    // Noms des categories par defaut, tels qu'ecrits par writeUTF
+    // (les plus frequents en dernier : distances les plus courtes)
+    private static final byte[] DICTIONNAIRE = dictionnaire(
+            "Autres", "Famille", "Sport", "Projets", "Internet",
+            "Sante", "Loisirs", "Transport", "Loyer", "Nutrition");
+
+    private final long totalPrecedent;  // En centimes
+    private final List<TotalCategorie> categories;
+    private final long totalPrevu;  // En centimes, fin de periode au rythme actuel
+    private final List<TotalCategorie> previsions;
+
+    public DonneesRapport(long totalPrecedent, List<TotalCategorie> categories) {
+        this(totalPrecedent, categories, 0, Collections.<TotalCategorie>emptyList());
+    }
+
+    /**
+     * @param previsions total prevu en fin de periode par categorie
+     *                   (nombre inutilise), vide si aucune prevision
+     */
+    public DonneesRapport(long totalPrecedent, List<TotalCategorie> categories,
+                          long totalPrevu, List<TotalCategorie> previsions) {
+        this.totalPrecedent = totalPrecedent;
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+        this.totalPrevu = totalPrevu;
+        this.previsions = Collections.unmodifiableList(new ArrayList<>(previsions));
+    }
+
+    public long getTotalPrecedent() {
+        return totalPrecedent;
+    }
+
+    /** La periode precedente a des depenses : l'evolution a un sens */
+    public boolean aComparaison() {
+        return totalPrecedent > 0;
+    }
+
+    /** Totaux par categorie, dans l'ordre du rapport */
+    public List<TotalCategorie> getCategories() {
+        return categories;
+    }
+
+    /** Le rapport contient une prevision de fin de periode */
+    public boolean aPrevision() {
+        return !previsions.isEmpty();
+    }
+
+    public long getTotalPrevu() {
+        return totalPrevu;
+    }
+
+    /** Totaux prevus par categorie, par prevision decroissante */
+    public List<TotalCategorie> getPrevisions() {
+        return previsions;
+    }
+
+    // ========== ENCODAGE ==========
+
+    public byte[] encoder() {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(
+                16 + (categories.size() + previsions.size()) * 16);
+        try (DataOutputStream sortie = new DataOutputStream(octets)) {
+            sortie.writeByte(VERSION);
+            ecrireVarLong(sortie, zigzag(totalPrecedent));
+            ecrireVarLong(sortie, categories.size());
+            for (TotalCategorie t : categories) {
+                sortie.writeUTF(t.getCategorie() != null ? t.getCategorie() : "");
+                ecrireVarLong(sortie, zigzag(t.getTotal()));
+                ecrireVarLong(sortie, t.getNombre());
+            }
+            if (aPrevision()) {
+                ecrireVarLong(sortie, zigzag(totalPrevu));
+                ecrireVarLong(sortie, previsions.size());
+                for (TotalCategorie t : previsions) {
+                    sortie.writeUTF(t.getCategorie() != null ? t.getCategorie() : "");
+                    ecrireVarLong(sortie, zigzag(t.getTotal()));
+                }
+            }
+        } catch (IOException e) {
+            // Impossible en memoire
+            throw new IllegalStateException(e);
+        }
+        return octets.toByteArray();
+    }
+
+    /**
+     * Relire un blob produit par encoder()
+     *
+     * @throws IllegalArgumentException si le blob est tronque ou d'une
+     *                                  version inconnue
+     */
+    public static DonneesRapport decoder(byte[] donnees) {
+        if (estArchive(donnees)) {
+            donnees = desarchiver(donnees);
+        }
+        try (DataInputStream entree = new DataInputStream(new ByteArrayInputStream(donnees))) {
+            int version = entree.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Version de rapport inconnue : " + version);
+            }
+            long totalPrecedent = dezigzag(lireVarLong(entree));
+            int nombreCategories = (int) lireVarLong(entree);
+
+            List<TotalCategorie> categories = new ArrayList<>(nombreCategories);
+            for (int i = 0; i < nombreCategories; i++) {
+                String nom = entree.readUTF();
+                long total = dezigzag(lireVarLong(entree));
+                int nombre = (int) lireVarLong(entree);
+                categories.add(new TotalCategorie(nom, total, nombre));
+            }
+            if (entree.available() == 0) {
+                return new DonneesRapport(totalPrecedent, categories);
+            }
+
+            long totalPrevu = dezigzag(lireVarLong(entree));
+            int nombrePrevisions = (int) lireVarLong(entree);
+            List<TotalCategorie> previsions = new ArrayList<>(nombrePrevisions);
+            for (int i = 0; i < nombrePrevisions; i++) {
+                String nom = entree.readUTF();
+                previsions.add(new TotalCategorie(nom, dezigzag(lireVarLong(entree)), 0));
+            }
+            return new DonneesRapport(totalPrecedent, categories, totalPrevu, previsions);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Donnees de rapport illisibles", e);
+        }
+    }
+
+    // ========== ARCHIVAGE ==========
+
+    /** Blob deja archive par archiver() */
+    public static boolean estArchive(byte[] donnees) {
+        return donnees.length > 0 && donnees[0] == VERSION_ARCHIVEE;
+    }
+
+    /**
+     * Archiver un blob produit par encoder() : compresse (deflate) si
+     * c'est plus petit. Sans effet sur un blob deja archive.
+     */
+    public static byte[] archiver(byte[] donnees) {
+        if (estArchive(donnees)) {
+            return donnees;
+        }
+        return compresser(VERSION_ARCHIVEE, donnees);
+    }
+
+    /** Texte d'un ancien rapport archive par archiverTexte() */
+    public static boolean estTexteArchive(byte[] donnees) {
+        return donnees.length > 0 && donnees[0] == VERSION_TEXTE;
+    }
+
+    /**
+     * Archiver le texte d'un rapport d'avant la v9 (contenuRapport)
+     */
+    public static byte[] archiverTexte(String texte) {
+        return compresser(VERSION_TEXTE, texte.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Relire un texte archive par archiverTexte()
+     */
+    public static String texteArchive(byte[] archive) {
+        return new String(desarchiver(archive), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * En-tete (version, mode) puis contenu compresse (deflate), ou tel
+     * quel si deflate ne gagne rien
+     */
+    private static byte[] compresser(int version, byte[] donnees) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONNAIRE);
+            deflater.setInput(donnees);
+            deflater.finish();
+            byte[] tampon = new byte[donnees.length + 16];
+            int taille = 0;
+            while (!deflater.finished()) {
+                if (taille == tampon.length) {
+                    tampon = Arrays.copyOf(tampon, tampon.length * 2);
+                }
+                taille += deflater.deflate(tampon, taille, tampon.length - taille);
+            }
+
+            boolean compresse = taille < donnees.length;
+            byte[] contenu = compresse ? tampon : donnees;
+            int longueur = compresse ? taille : donnees.length;
+            byte[] archive = new byte[2 + longueur];
+            archive[0] = (byte) version;
+            archive[1] = (byte) (compresse ? MODE_DEFLATE : MODE_BRUT);
+            System.arraycopy(contenu, 0, archive, 2, longueur);
+            return archive;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] desarchiver(byte[] archive) {
+        if (archive.length < 2) {
+            throw new IllegalArgumentException("Donnees de rapport illisibles");
+        }
+        if (archive[1] == MODE_BRUT) {
+            return Arrays.copyOfRange(archive, 2, archive.length);
+        }
+        if (archive[1] != MODE_DEFLATE) {
+            throw new IllegalArgumentException("Mode d'archive inconnu : " + archive[1]);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONNAIRE);
+            // Octet factice en fin d'entree, demande par zlib en mode "nowrap"
+            inflater.setInput(Arrays.copyOfRange(archive, 2, archive.length + 1));
+            ByteArrayOutputStream sortie = new ByteArrayOutputStream(archive.length * 2);
+            byte[] tampon = new byte[256];
+            while (!inflater.finished()) {
+                int lus = inflater.inflate(tampon);
+                if (lus == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Donnees de rapport tronquees");
+                }
+                sortie.write(tampon, 0, lus);
+            }
+            return sortie.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Donnees de rapport illisibles", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] dictionnaire(String... noms) {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        for (String nom : noms) {
+            byte[] utf = nom.getBytes(StandardCharsets.UTF_8);
+            octets.write(0);
+            octets.write(utf.length);
+            octets.write(utf, 0, utf.length);
+        }
+        return octets.toByteArray();
+    }
+
+    // ========== ENTIERS DE TAILLE VARIABLE ==========
+
+    // 7 bits par octet, bit de poids fort = "il reste des octets"
+    private static void ecrireVarLong(DataOutputStream sortie, long valeur) throws IOException {
+        while ((valeur & ~0x7FL) != 0) {
+            sortie.writeByte((int) ((valeur & 0x7F) | 0x80));
+            valeur >>>= 7;
+        }
+        sortie.writeByte((int) valeur);
+    }
+
+    private static long lireVarLong(DataInputStream entree) throws IOException {
+        long valeur = 0;
+        for (int decalage = 0; decalage < 64; decalage += 7) {
+            int octet = entree.readUnsignedByte();
+            valeur |= (long) (octet & 0x7F) << decalage;
+            if ((octet & 0x80) == 0) {
+                return valeur;
+            }
+        }
+        throw new IOException("Entier trop long");
+    }
+
+    // Les petits negatifs (deficit) restent sur peu d'octets
+    private static long zigzag(long valeur) {
+        return (valeur << 1) ^ (valeur >> 63);
+    }
+
+    private static long dezigzag(long valeur) {
+        return (valeur >>> 1) ^ -(valeur & 1);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportDao;
+import com.example.gestionnairebudget.database.ResumeDao;
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.SyntheseRapport;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * RAPPORTS INCREMENTAUX : fusion des rapports deja stockes
+ *
+ * Pour une periode [debut, fin[ (semaine, mois, ...) :
+ * 1. les rapports non perimes entierement inclus dans la periode
+ *    servent de syntheses, les plus longs d'abord (un rapport
+ *    hebdomadaire couvre 7 jours d'un coup), sans chevauchement
+ * 2. seuls les jours qu'aucune synthese ne couvre sont relus dans le
+ *    resume journalier, une requete par plage de jours consecutifs
+ *
+ * Le cout depend donc du nombre de periodes (syntheses + plages
+ * relues), et non plus du nombre de depenses. Un rapport perime (une depense de sa
+ * periode a change, voir DeclencheursRapports) ou sans donnees
+ * structurees n'est pas une synthese : ses jours sont relus.
+ *
+ * fusionnerAutour fait la meme chose pour le jour, la semaine et le
+ * mois d'une date en une seule fusion (voir AgregatsRapport).
+ */
+public final class FusionRapports {
+
+    /**
+     * Lecture du resume journalier sur [debut, fin[
+     * (interface locale : java.util.function demande l'API 24)
+     */
+    interface LecteurResume {
+        List<ResumeJourEntity> lire(int debut, int fin);
+    }
+
+    private final RapportDao rapportDao;
+    private final ResumeDao resumeDao;
+    private final int userId;
+
+    public FusionRapports(RapportDao rapportDao, ResumeDao resumeDao, int userId) {
+        this.rapportDao = rapportDao;
+        this.resumeDao = resumeDao;
+        this.userId = userId;
+    }
+
+    /**
+     * Totaux de [debut, fin[ (detail par categorie si demande)
+     */
+    public AgregatsRapport.Periode fusionner(int debut, int fin, boolean parCategorie) {
+        List<SyntheseRapport> syntheses = rapportDao.getSyntheses(userId, debut, fin);
+        MesureExecution.compterLignes(syntheses.size());
+        return fusionner(syntheses, debut, fin, parCategorie, this::lireResume);
+    }
+
+    /**
+     * Jour, semaine et mois du Calendar, et leurs periodes precedentes :
+     * une lecture des syntheses du mois precedent a la fin de la semaine,
+     * puis une lecture du resume par plage de jours non couverts
+     */
+    public AgregatsRapport fusionnerAutour(Calendar cal) {
+        AgregatsRapport agregats = AgregatsRapport.autour(cal);
+        List<SyntheseRapport> syntheses =
+                rapportDao.getSyntheses(userId, agregats.debutLecture(), agregats.finLecture());
+        MesureExecution.compterLignes(syntheses.size());
+        agregats.fusionner(syntheses, this::lireResume);
+        return agregats;
+    }
+
+    private List<ResumeJourEntity> lireResume(int debut, int fin) {
+        List<ResumeJourEntity> lignes = resumeDao.getLignesPeriode(userId, debut, fin);
+        MesureExecution.compterLignes(lignes.size());
+        return lignes;
+    }
+
+    /**
+     * Fusion a partir de syntheses deja lues (utilise par les tests)
+     */
+    static AgregatsRapport.Periode fusionner(List<SyntheseRapport> syntheses, int debut, int fin,
+                                             boolean parCategorie, LecteurResume lecteur) {
+        AgregatsRapport.Periode periode = new AgregatsRapport.Periode(debut, fin,
+                parCategorie ? new AgregateurCategories.Dictionnaire() : null);
+        boolean[] couvert = ajouterSyntheses(periode, syntheses);
+
+        // Jours non couverts : une lecture du resume par plage
+        int jour = 0;
+        while (jour < couvert.length) {
+            if (couvert[jour]) {
+                jour++;
+                continue;
+            }
+            int finPlage = jour;
+            while (finPlage < couvert.length && !couvert[finPlage]) {
+                finPlage++;
+            }
+            for (ResumeJourEntity ligne : lecteur.lire(debut + jour, debut + finPlage)) {
+                periode.ajouter(ligne);
+            }
+            jour = finPlage;
+        }
+        return periode;
+    }
+
+    /**
+     * Ajouter a la periode les syntheses qu'elle contient entierement,
+     * sans chevauchement, dans l'ordre de la liste
+     *
+     * @return jours couverts (indice 0 : premier jour de la periode)
+     */
+    static boolean[] ajouterSyntheses(AgregatsRapport.Periode periode,
+                                      List<SyntheseRapport> syntheses) {
+        int debut = periode.getDebut();
+        boolean[] couvert = new boolean[Math.max(0, periode.getFin() - debut)];
+
+        for (SyntheseRapport s : syntheses) {
+            int a = s.getDebutPeriode() - debut;
+            int b = s.getFinPeriode() - debut;
+            if (a < 0 || b > couvert.length || a >= b || chevauche(couvert, a, b)) {
+                continue;
+            }
+
+            List<TotalCategorie> detail = null;
+            if (periode.parCategorie()) {
+                try {
+                    detail = DonneesRapport.decoder(s.getDonnees()).getCategories();
+                } catch (IllegalArgumentException e) {
+                    continue;  // Donnees illisibles : jours relus dans le resume
+                }
+            }
+            Arrays.fill(couvert, a, b, true);
+            periode.ajouterSynthese(s.getDepensesTotales(), s.getNombreDepenses(), detail);
+        }
+        return couvert;
+    }
+
+    private static boolean chevauche(boolean[] couvert, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            if (couvert[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
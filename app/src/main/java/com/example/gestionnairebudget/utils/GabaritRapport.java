@@ -0,0 +1,328 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GABARIT DE RAPPORT (compile une seule fois)
+ *
+ * La mise en page est declaree en texte, ligne par ligne :
+ * - {champ}        -> valeur du rapport (voir Champ)
+ * - [condition]    -> en debut de ligne : ligne ecrite seulement si
+ *                     la condition est vraie (voir Condition)
+ * - [*]            -> en debut de ligne : ligne repetee pour chaque
+ *                     categorie ({categorie}, {totalCategorie})
+ * - [*prevision]   -> idem pour chaque categorie de la prevision
+ *                     ({totalCategorie} = total prevu)
+ *
+ * compiler() decoupe le texte en segments (texte fixe ou champ) ;
+ * rendre() ne fait ensuite qu'ecrire ces segments dans le
+ * StringBuilder fourni : pas de String.format, pas de String
+ * intermediaire pour les montants et pourcentages.
+ */
+public final class GabaritRapport {
+
+    /**
+     * Valeurs utilisables dans un gabarit
+     */
+    enum Champ {
+        DATE("date"),
+        SEMAINE("semaine"),
+        ANNEE("annee"),
+        NOM_MOIS("nomMois"),
+        BUDGET("budget"),
+        DEPENSES("depenses"),
+        ECART("ecart"),              // |surplus| (surplus ou deficit)
+        EVOLUTION("evolution"),      // % vs periode precedente, 1 decimale
+        BUDGET_UTILISE("budgetUtilise"),
+        NOMBRE("nombre"),
+        MOYENNE_SEMAINE("moyenneSemaine"),  // depenses / 7
+        MOYENNE_MOIS("moyenneMois"),        // depenses / 30
+        DEBUT_PERIODE("debutPeriode"),      // dd/MM/yyyy
+        DERNIER_JOUR("dernierJour"),        // dd/MM/yyyy (finPeriode - 1)
+        NOMBRE_JOURS("nombreJours"),
+        MOYENNE_PERIODE("moyennePeriode"),  // depenses / nombre de jours
+        DEPENSES_PREVUES("depensesPrevues"),  // fin de periode au rythme actuel
+        ECART_PREVU("ecartPrevu"),            // |budget - depenses prevues|
+        CATEGORIE("categorie"),
+        TOTAL_CATEGORIE("totalCategorie");
+
+        private final String nom;
+
+        Champ(String nom) {
+            this.nom = nom;
+        }
+    }
+
+    /**
+     * Conditions d'affichage d'une ligne
+     */
+    enum Condition {
+        SURPLUS("surplus"),
+        DEFICIT("deficit"),
+        HAUSSE("hausse"),    // Periode precedente non vide, evolution > 0
+        BAISSE("baisse"),    // Periode precedente non vide, evolution < 0
+        STABLE("stable"),    // Periode precedente non vide, evolution = 0
+        PREVISION("prevision"),                // Rapport avec prevision
+        DEPASSEMENT_PREVU("depassementPrevu"), // Prevision > budget
+        MARGE_PREVUE("margePrevue"),           // Prevision <= budget
+        CHAQUE_CATEGORIE("*"),
+        CHAQUE_PREVISION("*prevision");
+
+        private final String nom;
+
+        Condition(String nom) {
+            this.nom = nom;
+        }
+
+        boolean verifiee(RapportEntity r, DonneesRapport d) {
+            double evolution = r.getEvolutionParRapportPeriodePrecedente();
+            switch (this) {
+                case SURPLUS:
+                    return r.getSurplus() >= 0;
+                case DEFICIT:
+                    return r.getSurplus() < 0;
+                case HAUSSE:
+                    return d.aComparaison() && evolution > 0;
+                case BAISSE:
+                    return d.aComparaison() && evolution < 0;
+                case STABLE:
+                    return d.aComparaison() && evolution == 0;
+                case PREVISION:
+                    return d.aPrevision();
+                case DEPASSEMENT_PREVU:
+                    return d.aPrevision() && d.getTotalPrevu() > r.getBudgetTotal();
+                case MARGE_PREVUE:
+                    return d.aPrevision() && d.getTotalPrevu() <= r.getBudgetTotal();
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private static final String[] NOMS_MOIS = {
+            "Janvier", "Fevrier", "Mars", "Avril", "Mai", "Juin",
+            "Juillet", "Aout", "Septembre", "Octobre", "Novembre", "Decembre"
+    };
+
+    /**
+     * Une ligne compilee : condition eventuelle + segments
+     * (String = texte fixe, Champ = valeur)
+     */
+    private static final class Ligne {
+        final Condition condition;
+        final Object[] segments;
+
+        Ligne(Condition condition, Object[] segments) {
+            this.condition = condition;
+            this.segments = segments;
+        }
+    }
+
+    private final Ligne[] lignes;
+    private final char separateurDecimal;  // Comme String.format("%.1f")
+
+    private GabaritRapport(Ligne[] lignes, char separateurDecimal) {
+        this.lignes = lignes;
+        this.separateurDecimal = separateurDecimal;
+    }
+
+    // ========== COMPILATION ==========
+
+    /**
+     * Compiler un gabarit (chaque ligne se termine par "\n")
+     *
+     * @throws IllegalArgumentException si un champ ou une condition
+     *                                  est inconnu
+     */
+    public static GabaritRapport compiler(String source) {
+        List<Ligne> lignes = new ArrayList<>();
+        int debut = 0;
+        while (debut < source.length()) {
+            int fin = source.indexOf('\n', debut);
+            if (fin < 0) {
+                fin = source.length();
+            }
+            lignes.add(compilerLigne(source.substring(debut, fin)));
+            debut = fin + 1;
+        }
+        return new GabaritRapport(lignes.toArray(new Ligne[0]),
+                DecimalFormatSymbols.getInstance().getDecimalSeparator());
+    }
+
+    private static Ligne compilerLigne(String ligne) {
+        Condition condition = null;
+        if (ligne.startsWith("[")) {
+            int fin = ligne.indexOf(']');
+            if (fin < 0) {
+                throw new IllegalArgumentException("Condition non fermee : " + ligne);
+            }
+            condition = condition(ligne.substring(1, fin));
+            ligne = ligne.substring(fin + 1);
+        }
+
+        List<Object> segments = new ArrayList<>();
+        int position = 0;
+        while (position < ligne.length()) {
+            int ouverture = ligne.indexOf('{', position);
+            if (ouverture < 0) {
+                segments.add(ligne.substring(position));
+                break;
+            }
+            int fermeture = ligne.indexOf('}', ouverture);
+            if (fermeture < 0) {
+                throw new IllegalArgumentException("Champ non ferme : " + ligne);
+            }
+            if (ouverture > position) {
+                segments.add(ligne.substring(position, ouverture));
+            }
+            segments.add(champ(ligne.substring(ouverture + 1, fermeture)));
+            position = fermeture + 1;
+        }
+        segments.add("\n");
+
+        // Fusion des textes fixes consecutifs ("texte" + "\n")
+        List<Object> fusion = new ArrayList<>(segments.size());
+        for (Object s : segments) {
+            int dernier = fusion.size() - 1;
+            if (s instanceof String && dernier >= 0 && fusion.get(dernier) instanceof String) {
+                fusion.set(dernier, fusion.get(dernier) + (String) s);
+            } else {
+                fusion.add(s);
+            }
+        }
+        return new Ligne(condition, fusion.toArray());
+    }
+
+    private static Champ champ(String nom) {
+        for (Champ c : Champ.values()) {
+            if (c.nom.equals(nom)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Champ inconnu : {" + nom + "}");
+    }
+
+    private static Condition condition(String nom) {
+        for (Condition c : Condition.values()) {
+            if (c.nom.equals(nom)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Condition inconnue : [" + nom + "]");
+    }
+
+    // ========== RENDU ==========
+
+    /**
+     * Ecrire le rapport a la suite de "sortie"
+     */
+    public void rendre(RapportEntity r, DonneesRapport d, StringBuilder sortie) {
+        for (Ligne ligne : lignes) {
+            if (ligne.condition == Condition.CHAQUE_CATEGORIE
+                    || ligne.condition == Condition.CHAQUE_PREVISION) {
+                List<TotalCategorie> categories = ligne.condition == Condition.CHAQUE_CATEGORIE
+                        ? d.getCategories() : d.getPrevisions();
+                for (int i = 0; i < categories.size(); i++) {
+                    ecrire(ligne, r, d, categories.get(i), sortie);
+                }
+            } else if (ligne.condition == null || ligne.condition.verifiee(r, d)) {
+                ecrire(ligne, r, d, null, sortie);
+            }
+        }
+    }
+
+    private void ecrire(Ligne ligne, RapportEntity r, DonneesRapport d,
+                        TotalCategorie categorie, StringBuilder sortie) {
+        for (Object segment : ligne.segments) {
+            if (segment instanceof String) {
+                sortie.append((String) segment);
+            } else {
+                ecrireChamp((Champ) segment, r, d, categorie, sortie);
+            }
+        }
+    }
+
+    private void ecrireChamp(Champ champ, RapportEntity r, DonneesRapport d,
+                             TotalCategorie categorie, StringBuilder sortie) {
+        switch (champ) {
+            case DATE:
+                sortie.append(r.getDateFormatee());
+                break;
+            case SEMAINE:
+                sortie.append(r.getSemaine());
+                break;
+            case ANNEE:
+                sortie.append(r.getAnnee());
+                break;
+            case NOM_MOIS:
+                sortie.append(NOMS_MOIS[r.getMois() - 1]);
+                break;
+            case BUDGET:
+                Montant.ajouter(sortie, r.getBudgetTotal());
+                break;
+            case DEPENSES:
+                Montant.ajouter(sortie, r.getDepensesTotales());
+                break;
+            case ECART:
+                Montant.ajouter(sortie, Math.abs(r.getSurplus()));
+                break;
+            case EVOLUTION:
+                ajouterDecimale(sortie, r.getEvolutionParRapportPeriodePrecedente());
+                break;
+            case BUDGET_UTILISE:
+                ajouterDecimale(sortie,
+                        Montant.pourcentage(r.getDepensesTotales(), r.getBudgetTotal()));
+                break;
+            case NOMBRE:
+                sortie.append(r.getNombreDepenses());
+                break;
+            case MOYENNE_SEMAINE:
+                Montant.ajouter(sortie, Montant.diviser(r.getDepensesTotales(), 7));
+                break;
+            case MOYENNE_MOIS:
+                Montant.ajouter(sortie, Montant.diviser(r.getDepensesTotales(), 30));
+                break;
+            case DEBUT_PERIODE:
+                Periodes.ajouterDate(sortie, r.getDebutPeriode());
+                break;
+            case DERNIER_JOUR:
+                Periodes.ajouterDate(sortie, r.getFinPeriode() - 1);
+                break;
+            case NOMBRE_JOURS:
+                sortie.append(r.getFinPeriode() - r.getDebutPeriode());
+                break;
+            case MOYENNE_PERIODE:
+                Montant.ajouter(sortie, Montant.diviser(r.getDepensesTotales(),
+                        Math.max(1, r.getFinPeriode() - r.getDebutPeriode())));
+                break;
+            case DEPENSES_PREVUES:
+                Montant.ajouter(sortie, d.getTotalPrevu());
+                break;
+            case ECART_PREVU:
+                Montant.ajouter(sortie, Math.abs(r.getBudgetTotal() - d.getTotalPrevu()));
+                break;
+            case CATEGORIE:
+                sortie.append(categorie != null ? categorie.getCategorie() : "");
+                break;
+            case TOTAL_CATEGORIE:
+                Montant.ajouter(sortie, categorie != null ? categorie.getTotal() : 0L);
+                break;
+        }
+    }
+
+    /**
+     * Nombre a une decimale, arrondi au plus proche ("12,5" ou "-3,0")
+     */
+    private void ajouterDecimale(StringBuilder sortie, double valeur) {
+        long dixiemes = Math.round(Math.abs(valeur) * 10);
+        if (valeur < 0) {
+            sortie.append('-');
+        }
+        sortie.append(dixiemes / 10).append(separateurDecimal).append(dixiemes % 10);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.gestionnairebudget.utils;
+
+import android.os.SystemClock;
+
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MESURE D'UNE EXECUTION DE WORKER (table worker_runs)
+ *
+ * Deux compteurs propres a l'execution :
+ * - requetes : chaque requete SQL de la base (QueryCallback de Room,
+ *   installe seulement en debug : voir ConfigurationBase.compterRequetes ;
+ *   toujours 0 en release)
+ * - lignes lues : lignes du resume journalier et syntheses de rapports
+ *   lues pour construire les rapports (compterLignes)
+ *
+ * demarrer() attache la mesure au fil du Worker ; le travail confie a
+ * d'autres fils (lecteurs, ecrivain de Room) l'emporte avec propager().
+ * Seul ce qui tourne pour l'execution est compte : l'interface ou un
+ * autre Worker qui utilisent la base en meme temps ne le sont pas.
+ */
+public final class MesureExecution {
+
+    // Mesure du travail en cours sur chaque fil (null : rien a compter)
+    private static final ThreadLocal<MesureExecution> COURANTE = new ThreadLocal<>();
+
+    private final String travail;
+    private final int tentative;
+    private final long debut;          // Timestamp
+    private final long debutMonotone;  // Duree insensible aux changements d'heure
+    private final AtomicLong requetes = new AtomicLong();
+    private final AtomicLong lignes = new AtomicLong();
+
+    private MesureExecution(String travail, int tentative) {
+        this.travail = travail;
+        this.tentative = tentative;
+        this.debut = System.currentTimeMillis();
+        this.debutMonotone = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Commencer la mesure d'une execution, sur le fil courant
+     *
+     * @param tentative Worker.getRunAttemptCount()
+     */
+    public static MesureExecution demarrer(String travail, int tentative) {
+        MesureExecution mesure = new MesureExecution(travail, tentative);
+        COURANTE.set(mesure);
+        return mesure;
+    }
+
+    /**
+     * Tache a executer sur un autre fil, comptee dans la mesure du fil
+     * courant (inchangee s'il n'y en a pas)
+     */
+    public static <T> Callable<T> propager(Callable<T> tache) {
+        MesureExecution mesure = COURANTE.get();
+        if (mesure == null) {
+            return tache;
+        }
+        return () -> {
+            MesureExecution precedente = COURANTE.get();
+            COURANTE.set(mesure);
+            try {
+                return tache.call();
+            } finally {
+                if (precedente != null) {
+                    COURANTE.set(precedente);
+                } else {
+                    COURANTE.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Ligne de telemetrie de l'execution terminee
+     *
+     * @param resultat une constante de ExecutionWorkerEntity (SUCCES...)
+     * @param erreur   exception de l'execution (null si aucune)
+     */
+    public ExecutionWorkerEntity terminer(String typeRapport, String resultat, Throwable erreur) {
+        if (COURANTE.get() == this) {
+            COURANTE.remove();
+        }
+        return new ExecutionWorkerEntity(
+                travail,
+                typeRapport,
+                debut,
+                System.currentTimeMillis(),
+                SystemClock.elapsedRealtime() - debutMonotone,
+                lignes.get(),
+                requetes.get(),
+                tentative,
+                resultat,
+                erreur != null ? erreur.getClass().getName() : null
+        );
+    }
+
+    // ========== COMPTEURS ==========
+
+    /**
+     * Room.QueryCallback : une requete executee (sur le fil de la requete)
+     */
+    public static void compterRequete(String sql, List<?> arguments) {
+        MesureExecution mesure = COURANTE.get();
+        if (mesure != null) {
+            mesure.requetes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Lignes lues dans la base pour construire un rapport
+     */
+    public static void compterLignes(int nombre) {
+        MesureExecution mesure = COURANTE.get();
+        if (mesure != null) {
+            mesure.lignes.addAndGet(nombre);
+        }
+    }
+}
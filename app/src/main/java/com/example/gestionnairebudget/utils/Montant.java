@@ -0,0 +1,163 @@
+package com.example.gestionnairebudget.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * MONTANT EN CENTIMES (virgule fixe)
+ *
+ * Tous les montants sont stockés et additionnés en long (centimes) :
+ * - SUM(montant) sur une colonne INTEGER est exact, sans dérive
+ * - pas de double ni de Double boxé dans les totaux
+ *
+ * Les méthodes statiques travaillent directement sur les long, pour les
+ * boucles d'agrégation ; l'objet Montant sert aux valeurs isolées
+ * (saisie, affichage, comparaison).
+ */
+public final class Montant implements Comparable<Montant> {
+
+    public static final long CENTIMES_PAR_UNITE = 100;
+    public static final String DEVISE = "FCFA";
+
+    public static final Montant ZERO = new Montant(0);
+
+    private final long centimes;
+
+    private Montant(long centimes) {
+        this.centimes = centimes;
+    }
+
+    public static Montant centimes(long centimes) {
+        return centimes == 0 ? ZERO : new Montant(centimes);
+    }
+
+    public static Montant unites(long unites) {
+        return centimes(Math.multiplyExact(unites, CENTIMES_PAR_UNITE));
+    }
+
+    /**
+     * Lire une saisie utilisateur ("12500", "12500,5", "12500.50")
+     *
+     * @throws NumberFormatException si le texte n'est pas un nombre
+     */
+    public static Montant analyser(String saisie) {
+        // Séparateurs de milliers (espace, espace insécable) ignorés
+        String texte = saisie.trim().replace(" ", "").replace("\u00A0", "")
+                .replace("\u202F", "").replace(',', '.');
+        try {
+            return centimes(new BigDecimal(texte)
+                    .movePointRight(2)
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Montant hors limites : " + saisie);
+        }
+    }
+
+    /**
+     * Conversion d'un ancien montant en double (arrondi au centime)
+     */
+    public static long versCentimes(double unites) {
+        return Math.round(unites * CENTIMES_PAR_UNITE);
+    }
+
+    // ========== ARITHMÉTIQUE ==========
+
+    public long getCentimes() {
+        return centimes;
+    }
+
+    public Montant plus(Montant autre) {
+        return centimes(Math.addExact(centimes, autre.centimes));
+    }
+
+    public Montant moins(Montant autre) {
+        return centimes(Math.subtractExact(centimes, autre.centimes));
+    }
+
+    public boolean estPositif() {
+        return centimes > 0;
+    }
+
+    public boolean estNegatif() {
+        return centimes < 0;
+    }
+
+    /**
+     * Part d'un montant (ex : 15 % du budget), arrondie au centime
+     */
+    public static long part(long centimes, double pourcentage) {
+        return Math.round(centimes * pourcentage / 100.0);
+    }
+
+    /**
+     * Division arrondie au centime le plus proche (budget / 30, ...)
+     */
+    public static long diviser(long centimes, long diviseur) {
+        long quotient = centimes / diviseur;
+        long reste = centimes % diviseur;
+        if (Math.abs(reste) * 2 >= Math.abs(diviseur)) {
+            quotient += ((centimes < 0) ^ (diviseur < 0)) ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Pourcentage de "partie" dans "total" (0 si total nul)
+     */
+    public static double pourcentage(long partie, long total) {
+        return total == 0 ? 0.0 : (partie * 100.0) / total;
+    }
+
+    // ========== AFFICHAGE ==========
+
+    /**
+     * "12500" ou "12500,50" (les centimes ne s'affichent que s'il y en a)
+     */
+    public static String formater(long centimes) {
+        StringBuilder sb = new StringBuilder(16);
+        ajouter(sb, centimes);
+        return sb.toString();
+    }
+
+    /**
+     * Écrire le montant dans un StringBuilder existant, sans String
+     * intermédiaire (utilisé par les rapports)
+     */
+    public static StringBuilder ajouter(StringBuilder sb, long centimes) {
+        if (centimes < 0) {
+            sb.append('-');
+        }
+        long absolu = Math.abs(centimes);
+        sb.append(absolu / CENTIMES_PAR_UNITE);
+        long reste = absolu % CENTIMES_PAR_UNITE;
+        if (reste != 0) {
+            sb.append(',');
+            if (reste < 10) {
+                sb.append('0');
+            }
+            sb.append(reste);
+        }
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return formater(centimes) + " " + DEVISE;
+    }
+
+    @Override
+    public int compareTo(Montant autre) {
+        return Long.compare(centimes, autre.centimes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Montant && ((Montant) o).centimes == centimes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimes);
+    }
+}
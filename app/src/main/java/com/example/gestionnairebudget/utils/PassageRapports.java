@@ -0,0 +1,178 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.UserEntity;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * PASSAGE QUOTIDIEN DES RAPPORTS, POUR TOUS LES COMPTES
+ *
+ * Chaque compte actif ayant un budget (UserEntity.budgetMensuel) a
+ * ses propres rapports, avec son budget :
+ * 1. rattrapage des periodes manquees, par lots (RattrapageRapports)
+ * 2. a 23h59, rapports des periodes qui se terminent aujourd'hui
+ *
+ * Les comptes sont traites en parallele sur le pool de lecture de Room
+ * (4 fils) : lectures du resume, agregation et encodage des rapports
+ * d'un compte avancent pendant les ecritures des autres. Seules les
+ * transactions courtes d'ecriture (RattrapageRapports.enregistrer,
+ * RapportGenerator.enregistrer) passent par l'ecrivain unique, une a
+ * la fois : SQLite n'a qu'un ecrivain. Le fil du Worker attend la fin
+ * de tous les comptes ; il ne doit etre ni un lecteur ni l'ecrivain.
+ * Un compte en echec n'empeche pas le passage des autres.
+ *
+ * Si les depenses d'une periode changent pendant le calcul a chaque
+ * essai, le lot (ou les rapports du soir) est laisse au passage
+ * suivant, qui le rattrapera.
+ *
+ * L'arret (Worker.isStopped) est teste entre deux transactions : les
+ * comptes pas encore a jour le seront au passage relance, qui reprend
+ * apres les rapports deja stockes.
+ */
+public class PassageRapports {
+
+    /**
+     * Demande d'arret du passage (Worker.isStopped)
+     */
+    public interface Arret {
+        boolean estDemande();
+    }
+
+    private final AppDatabase database;
+    private final Arret arret;
+    private final Executor lecture;
+    private final Executor ecriture;
+
+    public PassageRapports(AppDatabase database, Arret arret) {
+        this.database = database;
+        this.arret = arret;
+        this.lecture = database.getQueryExecutor();
+        this.ecriture = database.getTransactionExecutor();
+    }
+
+    /**
+     * Passage de tous les comptes a la date du Calendar
+     *
+     * @return false si le passage a ete interrompu avant la fin
+     * @throws IllegalStateException si un compte a echoue (les autres
+     *                               comptes sont traites quand meme)
+     */
+    public boolean executer(Calendar maintenant) {
+        List<FutureTask<Boolean>> passages = new ArrayList<>();
+        for (UserEntity compte : database.userDao().getComptesAvecBudget()) {
+            FutureTask<Boolean> passage = new FutureTask<>(
+                    MesureExecution.propager(() -> passage(compte, maintenant)));
+            passages.add(passage);
+            lecture.execute(passage);
+        }
+
+        boolean complet = true;
+        Throwable erreur = null;
+        for (FutureTask<Boolean> passage : passages) {
+            try {
+                complet &= passage.get();
+            } catch (ExecutionException e) {
+                if (erreur == null) {
+                    erreur = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (erreur != null) {
+            throw new IllegalStateException("Passage des rapports incomplet", erreur);
+        }
+        return complet;
+    }
+
+    /**
+     * Rapports produits par un passage a cette heure, pour la
+     * telemetrie ("JOURNALIER,MENSUEL"), ou "RATTRAPAGE" apres minuit
+     */
+    public static String typesPassage(Calendar maintenant) {
+        if (maintenant.get(Calendar.HOUR_OF_DAY) != RapportScheduler.HEURE_PASSAGE) {
+            return "RATTRAPAGE";
+        }
+        StringBuilder types = new StringBuilder();
+        for (String type : RapportScheduler.periodesTerminees(maintenant)) {
+            if (types.length() > 0) {
+                types.append(',');
+            }
+            types.append(type);
+        }
+        return types.toString();
+    }
+
+    /**
+     * Rapports d'un compte, sur un fil du pool de lecture
+     *
+     * @return false si l'arret a ete demande avant la fin
+     */
+    private boolean passage(UserEntity compte, Calendar date) {
+        Calendar maintenant = (Calendar) date.clone();  // Calendar pas thread-safe
+        int userId = compte.getId();
+        long budgetMensuel = compte.getBudgetMensuel();
+
+        RattrapageRapports rattrapage = new RattrapageRapports(database, userId, budgetMensuel);
+        int echecs = 0;
+        while (echecs < RattrapageRapports.ESSAIS_LOT) {
+            if (arret.estDemande()) {
+                return false;
+            }
+            RattrapageRapports.Lot lot = rattrapage.preparer(maintenant, RattrapageRapports.TAILLE_LOT);
+            if (lot == null) {
+                break;
+            }
+            echecs = ecrire(() -> rattrapage.enregistrer(lot)) ? 0 : echecs + 1;
+        }
+
+        // Passage en retard (apres minuit) : la journee d'hier est
+        // deja rattrapee ci-dessus, celle d'aujourd'hui n'est pas finie
+        if (maintenant.get(Calendar.HOUR_OF_DAY) == RapportScheduler.HEURE_PASSAGE) {
+            // Une seule fusion pour le jour, la semaine et le mois
+            RapportGenerator generator = new RapportGenerator(database, userId, budgetMensuel);
+            List<String> types = RapportScheduler.periodesTerminees(maintenant);
+            for (int essai = 0; essai < RapportGenerator.ESSAIS; essai++) {
+                if (arret.estDemande()) {
+                    return false;
+                }
+                RapportGenerator.Preparation preparation = generator.preparer(types, maintenant);
+                if (ecrire(() -> generator.enregistrer(preparation))) {
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executer une transaction sur l'ecrivain et attendre sa fin
+     */
+    private <T> T ecrire(Callable<T> transaction) {
+        FutureTask<T> tache = new FutureTask<>(MesureExecution.propager(transaction));
+        ecriture.execute(tache);
+        try {
+            return tache.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Passage interrompu", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
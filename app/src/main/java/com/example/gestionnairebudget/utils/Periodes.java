@@ -0,0 +1,143 @@
+package com.example.gestionnairebudget.utils;
+
+import java.util.Calendar;
+
+/**
+ * CALCULS DE PERIODES
+ *
+ * Convertit les dates en "epochDay" : nombre de jours depuis le
+ * 01/01/1970. Un jour = un entier, donc une periode (jour, semaine,
+ * mois) = un intervalle [debut, fin[ facile a indexer et a comparer.
+ *
+ * Calcul purement arithmetique : aucun fuseau horaire n'intervient,
+ * le jour/mois/annee fourni est deja la date locale de la depense.
+ */
+public final class Periodes {
+
+    private Periodes() {
+    }
+
+    /**
+     * Jour (epochDay) d'une date du calendrier
+     *
+     * @param annee Annee (ex: 2026)
+     * @param mois  Mois (1-12)
+     * @param jour  Jour du mois (1-31)
+     */
+    public static int epochDay(int annee, int mois, int jour) {
+        int y = (mois <= 2) ? annee - 1 : annee;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (mois + (mois > 2 ? -3 : 9)) + 2) / 5 + jour - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Jour (epochDay) de la date d'un Calendar
+     */
+    public static int epochDay(Calendar cal) {
+        return epochDay(
+                cal.get(Calendar.YEAR),
+                cal.get(Calendar.MONTH) + 1,
+                cal.get(Calendar.DAY_OF_MONTH)
+        );
+    }
+
+    /**
+     * Premier jour du mois
+     */
+    public static int debutMois(int annee, int mois) {
+        return epochDay(annee, mois, 1);
+    }
+
+    /**
+     * Premier jour du mois SUIVANT (borne exclue)
+     */
+    public static int finMois(int annee, int mois) {
+        return (mois == 12) ? epochDay(annee + 1, 1, 1) : epochDay(annee, mois + 1, 1);
+    }
+
+    /**
+     * Premier jour du trimestre contenant le mois (janvier, avril,
+     * juillet ou octobre)
+     */
+    public static int debutTrimestre(int annee, int mois) {
+        return debutMois(annee, premierMoisTrimestre(mois));
+    }
+
+    /**
+     * Premier jour du trimestre SUIVANT (borne exclue)
+     */
+    public static int finTrimestre(int annee, int mois) {
+        return finMois(annee, premierMoisTrimestre(mois) + 2);
+    }
+
+    private static int premierMoisTrimestre(int mois) {
+        return (mois - 1) / 3 * 3 + 1;
+    }
+
+    /**
+     * Date du calendrier d'un epochDay (inverse de epochDay())
+     *
+     * @return {annee, mois (1-12), jour (1-31)}
+     */
+    public static int[] date(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int jour = doy - (153 * mp + 2) / 5 + 1;
+        int mois = mp < 10 ? mp + 3 : mp - 9;
+        int annee = yoe + era * 400 + (mois <= 2 ? 1 : 0);
+        return new int[]{annee, mois, jour};
+    }
+
+    /**
+     * Ecrire la date d'un epochDay au format "dd/MM/yyyy"
+     * (sans SimpleDateFormat ni String intermediaire)
+     */
+    public static StringBuilder ajouterDate(StringBuilder sb, int epochDay) {
+        int[] date = date(epochDay);
+        if (date[2] < 10) {
+            sb.append('0');
+        }
+        sb.append(date[2]).append('/');
+        if (date[1] < 10) {
+            sb.append('0');
+        }
+        return sb.append(date[1]).append('/').append(date[0]);
+    }
+
+    /**
+     * Premier jour (lundi) de la semaine contenant la date
+     *
+     * Toujours le lundi, quelle que soit la locale (getFirstDayOfWeek
+     * vaut dimanche en Locale.US) : memes semaines que la migration
+     * 11 -> 12 et que numeroSemaine.
+     */
+    public static int debutSemaine(Calendar cal) {
+        int decalage = (cal.get(Calendar.DAY_OF_WEEK) - Calendar.MONDAY + 7) % 7;
+        return epochDay(cal) - decalage;
+    }
+
+    /**
+     * Numero de semaine ISO 8601 : du lundi au dimanche, la semaine 1
+     * est celle du premier jeudi de l'annee (comme WEEK_OF_YEAR avec
+     * Calendar.MONDAY et minimalDaysInFirstWeek = 4, sans la locale)
+     */
+    public static int numeroSemaine(int epochDay) {
+        int lundi = epochDay - ((epochDay + 3) % 7 + 7) % 7;  // 01/01/1970 : un jeudi
+        int jeudi = lundi + 3;
+        return (jeudi - epochDay(date(jeudi)[0], 1, 1)) / 7 + 1;
+    }
+
+    /**
+     * Numero de semaine ISO 8601 de la date d'un Calendar
+     */
+    public static int numeroSemaine(Calendar cal) {
+        return numeroSemaine(epochDay(cal));
+    }
+}
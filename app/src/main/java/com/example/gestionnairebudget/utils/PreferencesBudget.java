@@ -0,0 +1,45 @@
+package com.example.gestionnairebudget.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * BUDGET MENSUEL DANS LES SharedPreferences
+ *
+ * Le budget est enregistré en centimes (long) sous une nouvelle clé.
+ * L'ancienne clé (double encodé en bits) est convertie à la première
+ * lecture, puis supprimée.
+ */
+public final class PreferencesBudget {
+
+    private static final String FICHIER = "BudgetPrefs";
+    private static final String CLE_CENTIMES = "budgetMensuelCentimes";
+    private static final String CLE_ANCIENNE = "budgetMensuel";
+
+    private PreferencesBudget() {
+    }
+
+    /**
+     * Budget mensuel en centimes (0 si non défini)
+     */
+    public static long lireBudget(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(FICHIER, Context.MODE_PRIVATE);
+        if (prefs.contains(CLE_CENTIMES)) {
+            return prefs.getLong(CLE_CENTIMES, 0);
+        }
+        if (prefs.contains(CLE_ANCIENNE)) {
+            long centimes = Montant.versCentimes(
+                    Double.longBitsToDouble(prefs.getLong(CLE_ANCIENNE, 0)));
+            prefs.edit().putLong(CLE_CENTIMES, centimes).remove(CLE_ANCIENNE).apply();
+            return centimes;
+        }
+        return 0;
+    }
+
+    public static void enregistrerBudget(Context context, long centimes) {
+        context.getSharedPreferences(FICHIER, Context.MODE_PRIVATE)
+                .edit()
+                .putLong(CLE_CENTIMES, centimes)
+                .apply();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.DeclencheursPrevisions;
+import com.example.gestionnairebudget.database.PrevisionCategorieEntity;
+import com.example.gestionnairebudget.database.PrevisionDao;
+import com.example.gestionnairebudget.database.SaisonCategorieEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PREVISION DE FIN DE MOIS ("au rythme actuel, Nutrition depassera...")
+ *
+ * Le rythme de chaque categorie est tenu a jour par les triggers de
+ * DeclencheursPrevisions a chaque depense (O(1), rien n'est relu dans
+ * l'historique). Ici, a la lecture :
+ * 1. rythme du jour : la moyenne stockee est avancee jusqu'a hier,
+ *    puis corrigee du demarrage a zero (division par 1 - r^n, n jours
+ *    d'historique) ; moins de JOURS_MINIMUM jours : pas de rythme
+ * 2. saisonnalite : poids de chaque jour du mois (depense moyenne de
+ *    ce jour / depense moyenne d'un jour), melange avec 1 tant que
+ *    l'historique est court (JOURS_SAISON_COMPLETE)
+ * 3. prevision = depenses du mois + rythme x poids des jours restants
+ *    (aujourd'hui compte pour ce qui n'a pas encore ete depense)
+ *
+ * Tous les montants sont en centimes. La lecture porte sur une ligne
+ * par categorie et au plus 31 lignes de saisonnalite par categorie.
+ */
+public final class PrevisionDepenses {
+
+    /** Historique minimal pour estimer un rythme, en jours */
+    static final int JOURS_MINIMUM = 7;
+
+    /** Historique a partir duquel la saisonnalite est prise telle quelle */
+    static final int JOURS_SAISON_COMPLETE = 180;
+
+    /**
+     * Prevision d'une categorie pour la fin du mois
+     */
+    public static final class Prevision {
+
+        private final String categorie;
+        private final long depense;   // Depuis le debut du mois
+        private final long prevue;    // En fin de mois, au rythme actuel
+        private final double vitesse; // Centimes par jour (0 si historique trop court)
+
+        Prevision(String categorie, long depense, long prevue, double vitesse) {
+            this.categorie = categorie;
+            this.depense = depense;
+            this.prevue = prevue;
+            this.vitesse = vitesse;
+        }
+
+        public String getCategorie() {
+            return categorie;
+        }
+
+        public long getDepense() {
+            return depense;
+        }
+
+        public long getPrevue() {
+            return prevue;
+        }
+
+        public double getVitesse() {
+            return vitesse;
+        }
+
+        /** Depassement prevu d'un montant alloue (0 si aucun) */
+        public long getDepassement(long alloue) {
+            return Math.max(0, prevue - alloue);
+        }
+    }
+
+    private final PrevisionDao dao;
+    private final int userId;
+
+    public PrevisionDepenses(PrevisionDao dao, int userId) {
+        this.dao = dao;
+        this.userId = userId;
+    }
+
+    /**
+     * Previsions du mois du Calendar, a partir des totaux du mois deja
+     * lus par l'appelant (resume journalier ou rapport)
+     */
+    public List<Prevision> prevoir(List<TotalCategorie> moisADate, Calendar cal) {
+        int annee = cal.get(Calendar.YEAR);
+        int mois = cal.get(Calendar.MONTH) + 1;
+        List<PrevisionCategorieEntity> etats = dao.getPrevisions(userId);
+        List<SaisonCategorieEntity> saisons = dao.getSaisonnalite(userId);
+        MesureExecution.compterLignes(etats.size() + saisons.size());
+        return prevoir(etats, saisons, moisADate,
+                Periodes.epochDay(cal), Periodes.finMois(annee, mois));
+    }
+
+    /**
+     * Previsions a partir d'etats deja lus (utilise par les tests)
+     *
+     * @param aujourdhui Jour courant (epochDay), dans le mois
+     * @param finMois    Premier jour du mois suivant (epochDay)
+     * @return une prevision par categorie ayant un rythme ou des
+     * depenses ce mois, par prevision decroissante puis par nom
+     */
+    static List<Prevision> prevoir(List<PrevisionCategorieEntity> etats,
+                                   List<SaisonCategorieEntity> saisons,
+                                   List<TotalCategorie> moisADate,
+                                   int aujourdhui, int finMois) {
+        Map<String, long[]> totauxSaison = new HashMap<>();
+        for (SaisonCategorieEntity s : saisons) {
+            long[] totaux = totauxSaison.get(s.getCategorie());
+            if (totaux == null) {
+                totaux = new long[32];
+                totauxSaison.put(s.getCategorie(), totaux);
+            }
+            if (s.getJourMois() >= 1 && s.getJourMois() <= 31) {
+                totaux[s.getJourMois()] += s.getTotal();
+            }
+        }
+
+        Map<String, Long> depenses = new HashMap<>();
+        for (TotalCategorie t : moisADate) {
+            depenses.put(t.getCategorie() != null ? t.getCategorie() : "", t.getTotal());
+        }
+
+        int jourMois = Periodes.date(aujourdhui)[2];
+        List<Prevision> previsions = new ArrayList<>();
+        for (PrevisionCategorieEntity etat : etats) {
+            Long depense = depenses.remove(etat.getCategorie());
+            long depenseMois = depense != null ? depense : 0L;
+            double vitesse = vitesse(etat, aujourdhui);
+            if (vitesse <= 0) {
+                if (depense != null) {
+                    previsions.add(new Prevision(etat.getCategorie(), depenseMois, depenseMois, 0));
+                }
+                continue;
+            }
+
+            long[] totaux = totauxSaison.get(etat.getCategorie());
+            double[] poids = poidsJours(totaux != null ? totaux : new long[32],
+                    etat.getPremierJour(), aujourdhui);
+            long depenseDuJour = etat.getJourCourant() == aujourdhui ? etat.getTotalJour() : 0L;
+
+            double reste = Math.max(0, vitesse * poids[jourMois] - depenseDuJour);
+            for (int i = 1; i < finMois - aujourdhui && jourMois + i <= 31; i++) {
+                reste += vitesse * poids[jourMois + i];
+            }
+            previsions.add(new Prevision(etat.getCategorie(), depenseMois,
+                    depenseMois + Math.round(reste), vitesse));
+        }
+        // Depenses du mois sans rythme (rattrapage pas encore fait)
+        for (Map.Entry<String, Long> e : depenses.entrySet()) {
+            previsions.add(new Prevision(e.getKey(), e.getValue(), e.getValue(), 0));
+        }
+
+        Collections.sort(previsions, (a, b) -> {
+            int ordre = Long.compare(b.prevue, a.prevue);
+            return ordre != 0 ? ordre : a.categorie.compareTo(b.categorie);
+        });
+        return previsions;
+    }
+
+    /**
+     * Total du mois prevu : depenses du mois + reste prevu de chaque categorie
+     */
+    public static long totalPrevu(long depensesMois, List<Prevision> previsions) {
+        long total = depensesMois;
+        for (Prevision p : previsions) {
+            total += p.prevue - p.depense;
+        }
+        return total;
+    }
+
+    /**
+     * Previsions sous forme de totaux par categorie (DonneesRapport)
+     */
+    public static List<TotalCategorie> totaux(List<Prevision> previsions) {
+        List<TotalCategorie> totaux = new ArrayList<>(previsions.size());
+        for (Prevision p : previsions) {
+            totaux.add(new TotalCategorie(p.categorie, p.prevue, 0));
+        }
+        return totaux;
+    }
+
+    // ========== CALCULS ==========
+
+    /**
+     * Rythme journalier (centimes / jour) des jours avant "aujourdhui",
+     * 0 si l'historique a moins de JOURS_MINIMUM jours
+     */
+    static double vitesse(PrevisionCategorieEntity etat, int aujourdhui) {
+        double r = DeclencheursPrevisions.RETENTION;
+        double moyenne = etat.getVitesse();
+        int fin = etat.getJourCourant();
+        if (aujourdhui > fin) {
+            // Jour courant integre, puis jours sans depense jusqu'a hier
+            moyenne = (DeclencheursPrevisions.ALPHA * etat.getTotalJour() + r * moyenne)
+                    * Math.pow(r, aujourdhui - 1 - fin);
+            fin = aujourdhui;
+        }
+        int jours = fin - etat.getPremierJour();
+        if (jours < JOURS_MINIMUM) {
+            return 0;
+        }
+        return Math.max(0, moyenne / (1 - Math.pow(r, jours)));
+    }
+
+    /**
+     * Poids de chaque jour du mois (index 1 a 31, moyenne 1 pour un
+     * historique regulier)
+     *
+     * @param totaux Depenses cumulees par jour du mois (index 1 a 31)
+     */
+    static double[] poidsJours(long[] totaux, int premierJour, int aujourdhui) {
+        double[] poids = new double[32];
+        int[] occurrences = occurrences(premierJour, aujourdhui + 1);
+
+        long total = 0;
+        long jours = 0;
+        for (int j = 1; j <= 31; j++) {
+            total += totaux[j];
+            jours += occurrences[j];
+        }
+        double melange = Math.max(0.0, Math.min(1.0,
+                (aujourdhui - premierJour) / (double) JOURS_SAISON_COMPLETE));
+        for (int j = 1; j <= 31; j++) {
+            double brut = 1.0;
+            if (total > 0 && occurrences[j] > 0) {
+                brut = (totaux[j] / (double) occurrences[j]) / (total / (double) jours);
+            }
+            poids[j] = 1.0 + melange * (Math.max(0, brut) - 1.0);
+        }
+        return poids;
+    }
+
+    /**
+     * Nombre de fois que chaque jour du mois (index 1 a 31) apparait
+     * dans [debut, fin[
+     */
+    static int[] occurrences(int debut, int fin) {
+        int[] occurrences = new int[32];
+        if (fin <= debut) {
+            return occurrences;
+        }
+        int[] date = Periodes.date(debut);
+        int annee = date[0];
+        int mois = date[1];
+        int jour = debut;
+        while (jour < fin) {
+            int premier = Periodes.debutMois(annee, mois);
+            int dernier = Math.min(Periodes.finMois(annee, mois), fin);
+            for (int j = jour - premier + 1; j <= dernier - premier; j++) {
+                occurrences[j]++;
+            }
+            jour = dernier;
+            if (++mois > 12) {
+                mois = 1;
+                annee++;
+            }
+        }
+        return occurrences;
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.gestionnairebudget.utils;
 
 import com.example.gestionnairebudget.database.AppDatabase;
-import com.example.gestionnairebudget.database.DepenseEntity;
+import com.example.gestionnairebudget.database.DeclencheursRapports;
+import com.example.gestionnairebudget.database.RapportDao;
 import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.ResumeDao;
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -16,109 +22,295 @@ import java.util.Locale;
  * - Journaliers (chaque jour)
  * - Hebdomadaires (chaque dimanche soir a 23h59)
  * - Mensuels (dernier jour du mois)
+ * - Sur une plage quelconque [debut, fin[ ("PLAGE" : 30 derniers
+ *   jours, d'une paie a l'autre, trimestre...), a la demande
+ * - Pour les periodes passees manquees (voir RattrapageRapports)
+ *
+ * Calcul incremental des totaux : fusion des rapports deja stockes et
+ * non perimes (la semaine reprend les jours, le mois les semaines et
+ * les jours), le resume journalier n'est relu que pour les jours
+ * manquants (voir FusionRapports).
+ * Le jour, la semaine et le mois sont agreges ensemble en une seule
+ * fusion (AgregatsRapport) : les trois rapports en sont des vues, et
+ * preparer(types) la partage entre les rapports d'un passage.
+ * Le calcul se fait hors transaction (preparer), l'ecriture dans une
+ * transaction courte (enregistrer) : le passage du soir calcule les
+ * comptes en parallele et n'occupe l'ecrivain que pour les ecritures.
+ * Tous les montants sont en centimes (long, voir Montant).
+ *
+ * Le rapport est stocke sous forme structuree (colonnes + DonneesRapport) ;
+ * le texte est produit a l'ouverture par RenduRapport. Le rapport
+ * mensuel y ajoute la prevision de fin de mois (PrevisionDepenses).
+ *
+ * Enregistrement idempotent : un seul rapport par type et par periode.
+ * Si le rapport stocke est encore a jour (triggers "perime" et
+ * "comparaisonPerimee", meme budget), il est rendu sans rien recalculer ;
+ * sinon il est recalcule et sa ligne remplacee.
  */
 public class RapportGenerator {
 
     private AppDatabase database;
-    private double budgetMensuel;
+    private int userId;
+    private long budgetMensuel;  // En centimes
+    private FusionRapports fusion;
+
+    // Un seul format de date par generateur (SimpleDateFormat n'est
+    // pas thread-safe : un generateur sert a un seul thread)
+    private final SimpleDateFormat formatDate =
+            new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+
+    /** Essais en transaction courte avant de tout faire dans une seule */
+    static final int ESSAIS = 3;
 
-    public RapportGenerator(AppDatabase database, double budgetMensuel) {
+    /**
+     * Rapports calcules hors transaction (preparer), a ecrire dans une
+     * transaction courte (enregistrer). Les totaux du resume sur la
+     * plage lue par la fusion sont reverifies avant l'ecriture.
+     */
+    public static final class Preparation {
+        private final List<RapportEntity> rapports = new ArrayList<>();
+        private final List<RapportEntity> aEcrire = new ArrayList<>();
+        private int debutLecture;
+        private int finLecture;
+        private long total;
+        private int nombre;
+
+        /** Rapports dans l'ordre des types (null pour un type inconnu) */
+        public List<RapportEntity> getRapports() {
+            return rapports;
+        }
+    }
+
+    public RapportGenerator(AppDatabase database, int userId, long budgetMensuel) {
         this.database = database;
+        this.userId = userId;
         this.budgetMensuel = budgetMensuel;
     }
 
     /**
-     * RAPPORT JOURNALIER
-     * Genere le rapport des depenses d'aujourd'hui
+     * Generer et stocker un rapport ("JOURNALIER", "HEBDOMADAIRE" ou
+     * "MENSUEL") : voir genererEtEnregistrer(types)
+     *
+     * @return le rapport enregistre (ou deja stocke et a jour),
+     * null si le type est inconnu
      */
-    public RapportEntity genererRapportJournalier() {
-        Calendar cal = Calendar.getInstance();
-        int jour = cal.get(Calendar.DAY_OF_MONTH);
-        int mois = cal.get(Calendar.MONTH) + 1;
-        int annee = cal.get(Calendar.YEAR);
-        int semaine = cal.get(Calendar.WEEK_OF_YEAR);
-
-        List<DepenseEntity> depensesJour =
-                database.depenseDao().getDepensesParJour(jour, mois, annee);
+    public RapportEntity genererEtEnregistrer(String typeRapport) {
+        return genererEtEnregistrer(Collections.singletonList(typeRapport)).get(0);
+    }
 
-        double totalJour = 0.0;
-        for (DepenseEntity d : depensesJour) {
-            totalJour += d.getMontant();
+    /**
+     * Generer et stocker plusieurs rapports (passage du soir : jour,
+     * semaine et mois) en une seule fusion. Calcul hors transaction,
+     * ecriture dans une transaction courte ; si une depense change a
+     * chaque essai, le dernier lit et ecrit dans la meme transaction
+     * (sinon le rapport serait une synthese fausse mais non perimee).
+     *
+     * @return les rapports, dans l'ordre des types (null pour un type inconnu)
+     */
+    public List<RapportEntity> genererEtEnregistrer(List<String> typesRapport) {
+        Calendar cal = Calendar.getInstance();
+        for (int essai = 1; essai < ESSAIS; essai++) {
+            Preparation preparation = preparer(typesRapport, cal);
+            if (enregistrer(preparation)) {
+                return preparation.getRapports();
+            }
         }
+        return database.runInTransaction(() -> {
+            Preparation preparation = preparer(typesRapport, cal);
+            enregistrer(preparation);
+            return preparation.getRapports();
+        });
+    }
 
-        double budgetJournalier = budgetMensuel / 30.0;
-        double surplus = budgetJournalier - totalJour;
-
-        double evolutionPourcentage = 0.0;
-        cal.add(Calendar.DAY_OF_MONTH, -1);
+    /**
+     * Calculer les rapports des types a la date du Calendar, sans rien
+     * ecrire : un rapport stocke encore a jour est repris tel quel
+     */
+    public Preparation preparer(List<String> typesRapport, Calendar cal) {
+        Preparation preparation = new Preparation();
+        AgregatsRapport agregats = null;
+        for (String typeRapport : typesRapport) {
+            int[] periode = periodeCourante(typeRapport, cal);
+            RapportEntity rapport = null;
+            if (periode != null) {
+                rapport = rapportAJour(typeRapport, periode[0], periode[1]);
+                if (rapport == null) {
+                    if (agregats == null) {
+                        agregats = fusionner(cal, preparation);
+                    }
+                    rapport = rapport(typeRapport, cal, agregats);
+                    preparation.aEcrire.add(rapport);
+                }
+            }
+            preparation.rapports.add(rapport);
+        }
+        return preparation;
+    }
 
-        int jourHier = cal.get(Calendar.DAY_OF_MONTH);
-        int moisHier = cal.get(Calendar.MONTH) + 1;
-        int anneeHier = cal.get(Calendar.YEAR);
+    /**
+     * Ecrire les rapports prepares, dans une transaction courte
+     *
+     * @return false si une depense de la plage lue a change depuis
+     * (rien n'est ecrit, les rapports sont a preparer de nouveau)
+     */
+    public boolean enregistrer(Preparation preparation) {
+        if (preparation.aEcrire.isEmpty()) {
+            return true;
+        }
+        return database.runInTransaction(() -> {
+            ResumeDao resume = database.resumeDao();
+            int debut = preparation.debutLecture;
+            int fin = preparation.finLecture;
+            if (resume.getTotalPeriode(userId, debut, fin) != preparation.total
+                    || resume.getNombrePeriode(userId, debut, fin) != preparation.nombre) {
+                return false;
+            }
+            for (RapportEntity rapport : preparation.aEcrire) {
+                enregistrer(rapport);
+            }
+            return true;
+        });
+    }
 
-        Double totalHier =
-                database.depenseDao().getTotalJour(jourHier, moisHier, anneeHier);
+    /**
+     * Fusion du jour, de la semaine et du mois, apres avoir note les
+     * totaux du resume sur la plage lue (une depense changee pendant la
+     * fusion fait echouer la verification de enregistrer)
+     */
+    private AgregatsRapport fusionner(Calendar cal, Preparation preparation) {
+        AgregatsRapport plage = AgregatsRapport.autour(cal);
+        int debut = plage.debutLecture();
+        int fin = plage.finLecture();
+        preparation.debutLecture = debut;
+        preparation.finLecture = fin;
+        preparation.total = database.resumeDao().getTotalPeriode(userId, debut, fin);
+        preparation.nombre = database.resumeDao().getNombrePeriode(userId, debut, fin);
+        return getFusion().fusionnerAutour(cal);
+    }
 
-        if (totalHier != null && totalHier > 0) {
-            evolutionPourcentage =
-                    ((totalJour - totalHier) / totalHier) * 100.0;
+    private RapportEntity rapport(String typeRapport, Calendar cal, AgregatsRapport agregats) {
+        if ("JOURNALIER".equals(typeRapport)) {
+            return rapportJournalier(cal, agregats);
         }
-
-        StringBuilder rapport = new StringBuilder();
-        rapport.append("\uD83D\uDCCA RAPPORT JOURNALIER\n");
-        rapport.append("================================\n");
-        rapport.append("\uD83D\uDCC5 Date : ")
-                .append(getCurrentDate()).append("\n\n");
-
-        rapport.append("\uD83D\uDCB0 RESUME FINANCIER\n");
-        rapport.append("Budget journalier : ")
-                .append(String.format("%.0f", budgetJournalier))
-                .append(" FCFA\n");
-        rapport.append("Depenses du jour : ")
-                .append(String.format("%.0f", totalJour))
-                .append(" FCFA\n");
-
-        if (surplus >= 0) {
-            rapport.append("\u2705 Surplus : ")
-                    .append(String.format("%.0f", surplus))
-                    .append(" FCFA\n");
-        } else {
-            rapport.append("\u274C Deficit : ")
-                    .append(String.format("%.0f", Math.abs(surplus)))
-                    .append(" FCFA\n");
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            return rapportHebdomadaire(cal, agregats);
         }
+        return rapportMensuel(cal, agregats);
+    }
+
+    /**
+     * Generer et stocker un rapport "PLAGE", dans une seule transaction
+     * (a la demande : ni fusion partagee ni essais)
+     */
+    public RapportEntity genererEtEnregistrerPlage(int debut, int fin) {
+        return database.runInTransaction(() -> {
+            RapportEntity existant = rapportAJour("PLAGE", debut, fin);
+            return existant != null ? existant : enregistrer(genererRapportPlage(debut, fin));
+        });
+    }
 
-        rapport.append("\n\uD83D\uDCCA EVOLUTION\n");
-        if (totalHier != null) {
-            if (evolutionPourcentage > 0) {
-                rapport.append("\uD83D\uDCC8 +")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% par rapport a hier\n");
-            } else if (evolutionPourcentage < 0) {
-                rapport.append("\uD83D\uDCC9 ")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% par rapport a hier\n");
+    /**
+     * RAPPORT SUR UNE PLAGE DE JOURS [debut, fin[ (epochDay)
+     *
+     * Une seule lecture du resume journalier, par sa cle primaire
+     * (userId, epochDay, categorie), de [debut - duree, fin[ : la plage
+     * et la plage precedente de meme duree (evolution) en un passage.
+     * Budget au prorata : budget mensuel * duree / 30.
+     *
+     * @throws IllegalArgumentException si la plage est vide
+     */
+    public RapportEntity genererRapportPlage(int debut, int fin) {
+        if (fin <= debut) {
+            throw new IllegalArgumentException("Plage vide : [" + debut + ", " + fin + "[");
+        }
+        int duree = fin - debut;
+
+        AgregatsRapport.Periode plage = new AgregatsRapport.Periode(
+                debut, fin, new AgregateurCategories.Dictionnaire());
+        AgregatsRapport.Periode precedente = new AgregatsRapport.Periode(debut - duree, debut, null);
+        List<ResumeJourEntity> lignes = database.resumeDao().getLignesPeriode(userId, debut - duree, fin);
+        MesureExecution.compterLignes(lignes.size());
+        for (ResumeJourEntity ligne : lignes) {
+            if (plage.contient(ligne.getEpochDay())) {
+                plage.ajouter(ligne);
             } else {
-                rapport.append("\u27A1 Meme niveau qu'hier\n");
+                precedente.ajouter(ligne);
             }
         }
 
-        rapport.append("\n\uD83D\uDCDD DETAILS\n");
-        rapport.append("Nombre de transactions : ")
-                .append(depensesJour.size()).append("\n");
+        long totalPlage = plage.getTotal();
+        long totalPrecedent = precedente.getTotal();
+        long budgetPlage = budget("PLAGE", duree);
+
+        double evolutionPourcentage = 0.0;
+        if (totalPrecedent > 0) {
+            evolutionPourcentage = Montant.pourcentage(
+                    totalPlage - totalPrecedent, totalPrecedent);
+        }
+
+        // Jour, semaine, mois et annee : ceux du premier jour de la plage
+        int[] date = Periodes.date(debut);
+        Calendar cal = Calendar.getInstance();
+        long maintenant = cal.getTimeInMillis();
+        cal.clear();
+        cal.set(date[0], date[1] - 1, date[2]);
+
+        return avecPeriode(new RapportEntity(
+                userId,
+                "PLAGE",
+                maintenant,
+                formatDate.format(new Date(maintenant)),
+                date[2],
+                Periodes.numeroSemaine(cal),
+                date[1],
+                date[0],
+                budgetPlage,
+                totalPlage,
+                budgetPlage - totalPlage,
+                plage.getNombre(),
+                new DonneesRapport(totalPrecedent, plage.getCategories()).encoder(),
+                evolutionPourcentage
+        ), plage, precedente);
+    }
+
+    /**
+     * RAPPORT JOURNALIER
+     * Genere le rapport des depenses d'aujourd'hui
+     */
+    public RapportEntity genererRapportJournalier() {
+        Calendar cal = Calendar.getInstance();
+        return rapportJournalier(cal, getFusion().fusionnerAutour(cal));
+    }
+
+    private RapportEntity rapportJournalier(Calendar cal, AgregatsRapport agregats) {
+        long maintenant = cal.getTimeInMillis();
+        int jour = cal.get(Calendar.DAY_OF_MONTH);
+        int mois = cal.get(Calendar.MONTH) + 1;
+        int annee = cal.get(Calendar.YEAR);
+        int semaine = Periodes.numeroSemaine(cal);
 
-        rapport.append("\n\uD83D\uDCB3 PAR CATEGORIE\n");
-        rapport.append(analyserParCategorie(depensesJour));
+        AgregatsRapport.Periode periodeJour = agregats.getJour();
+        List<TotalCategorie> categoriesJour = periodeJour.getCategories();
 
-        SimpleDateFormat sdf =
-                new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+        long totalJour = periodeJour.getTotal();
+        int nombreJour = periodeJour.getNombre();
 
-        cal = Calendar.getInstance();
+        long budgetJournalier = budget("JOURNALIER", 1);
+        long surplus = budgetJournalier - totalJour;
 
-        return new RapportEntity(
+        double evolutionPourcentage = 0.0;
+        AgregatsRapport.Periode hier = agregats.getHier();
+        long totalHier = hier.getTotal();
+
+        if (totalHier > 0) {
+            evolutionPourcentage = Montant.pourcentage(totalJour - totalHier, totalHier);
+        }
+
+        return avecPeriode(new RapportEntity(
+                userId,
                 "JOURNALIER",
-                System.currentTimeMillis(),
-                sdf.format(new Date()),
+                maintenant,
+                formatDate.format(new Date(maintenant)),
                 jour,
                 semaine,
                 mois,
@@ -126,10 +318,10 @@ public class RapportGenerator {
                 budgetJournalier,
                 totalJour,
                 surplus,
-                depensesJour.size(),
-                rapport.toString(),
+                nombreJour,
+                new DonneesRapport(totalHier, categoriesJour).encoder(),
                 evolutionPourcentage
-        );
+        ), periodeJour, hier);
     }
 
     /**
@@ -137,88 +329,39 @@ public class RapportGenerator {
      */
     public RapportEntity genererRapportHebdomadaire() {
         Calendar cal = Calendar.getInstance();
-        int semaine = cal.get(Calendar.WEEK_OF_YEAR);
+        return rapportHebdomadaire(cal, getFusion().fusionnerAutour(cal));
+    }
+
+    private RapportEntity rapportHebdomadaire(Calendar cal, AgregatsRapport agregats) {
+        long maintenant = cal.getTimeInMillis();
+        int semaine = Periodes.numeroSemaine(cal);
         int annee = cal.get(Calendar.YEAR);
         int mois = cal.get(Calendar.MONTH) + 1;
         int jour = cal.get(Calendar.DAY_OF_MONTH);
 
-        List<DepenseEntity> depensesSemaine =
-                database.depenseDao().getDepensesParSemaine(semaine, annee);
+        AgregatsRapport.Periode periodeSemaine = agregats.getSemaine();
+        List<TotalCategorie> categoriesSemaine = periodeSemaine.getCategories();
 
-        double totalSemaine = 0.0;
-        for (DepenseEntity d : depensesSemaine) {
-            totalSemaine += d.getMontant();
-        }
+        long totalSemaine = periodeSemaine.getTotal();
+        int nombreSemaine = periodeSemaine.getNombre();
 
-        double budgetHebdo = budgetMensuel / 4.0;
-        double surplus = budgetHebdo - totalSemaine;
+        long budgetHebdo = budget("HEBDOMADAIRE", 7);
+        long surplus = budgetHebdo - totalSemaine;
 
         double evolutionPourcentage = 0.0;
-        Double totalSemainePrecedente =
-                database.depenseDao().getTotalSemaine(semaine - 1, annee);
-
-        if (totalSemainePrecedente != null && totalSemainePrecedente > 0) {
-            evolutionPourcentage =
-                    ((totalSemaine - totalSemainePrecedente)
-                            / totalSemainePrecedente) * 100.0;
-        }
+        AgregatsRapport.Periode semainePrecedente = agregats.getSemainePrecedente();
+        long totalSemainePrecedente = semainePrecedente.getTotal();
 
-        StringBuilder rapport = new StringBuilder();
-        rapport.append("\uD83D\uDCCA RAPPORT HEBDOMADAIRE\n");
-        rapport.append("================================\n");
-        rapport.append("\uD83D\uDCC5 Semaine ")
-                .append(semaine).append(" - ").append(annee).append("\n");
-        rapport.append("\uD83D\uDCC5 Genere le : ")
-                .append(getCurrentDate()).append("\n\n");
-
-        rapport.append("\uD83D\uDCB0 RESUME FINANCIER\n");
-        rapport.append("Budget hebdomadaire : ")
-                .append(String.format("%.0f", budgetHebdo))
-                .append(" FCFA\n");
-        rapport.append("Depenses semaine : ")
-                .append(String.format("%.0f", totalSemaine))
-                .append(" FCFA\n");
-
-        if (surplus >= 0) {
-            rapport.append("\u2705 Surplus : ")
-                    .append(String.format("%.0f", surplus))
-                    .append(" FCFA\n");
-        } else {
-            rapport.append("\u274C Deficit : ")
-                    .append(String.format("%.0f", Math.abs(surplus)))
-                    .append(" FCFA\n");
-        }
-
-        rapport.append("\n\uD83D\uDCCA EVOLUTION\n");
-        if (totalSemainePrecedente != null) {
-            if (evolutionPourcentage > 0) {
-                rapport.append("\uD83D\uDCC8 +")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% vs semaine precedente\n");
-            } else if (evolutionPourcentage < 0) {
-                rapport.append("\uD83D\uDCC9 ")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% vs semaine precedente\n");
-            }
+        if (totalSemainePrecedente > 0) {
+            evolutionPourcentage = Montant.pourcentage(
+                    totalSemaine - totalSemainePrecedente, totalSemainePrecedente);
         }
 
-        rapport.append("\n\uD83D\uDCDD DETAILS\n");
-        rapport.append("Transactions : ")
-                .append(depensesSemaine.size()).append("\n");
-        rapport.append("Moyenne journaliere : ")
-                .append(String.format("%.0f", totalSemaine / 7.0))
-                .append(" FCFA\n");
-
-        rapport.append("\n\uD83D\uDCB3 PAR CATEGORIE\n");
-        rapport.append(analyserParCategorie(depensesSemaine));
-
-        SimpleDateFormat sdf =
-                new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-
-        return new RapportEntity(
+        return avecPeriode(new RapportEntity(
+                userId,
                 "HEBDOMADAIRE",
-                System.currentTimeMillis(),
-                sdf.format(new Date()),
+                maintenant,
+                formatDate.format(new Date(maintenant)),
                 jour,
                 semaine,
                 mois,
@@ -226,10 +369,10 @@ public class RapportGenerator {
                 budgetHebdo,
                 totalSemaine,
                 surplus,
-                depensesSemaine.size(),
-                rapport.toString(),
+                nombreSemaine,
+                new DonneesRapport(totalSemainePrecedente, categoriesSemaine).encoder(),
                 evolutionPourcentage
-        );
+        ), periodeSemaine, semainePrecedente);
     }
 
     /**
@@ -237,95 +380,41 @@ public class RapportGenerator {
      */
     public RapportEntity genererRapportMensuel() {
         Calendar cal = Calendar.getInstance();
+        return rapportMensuel(cal, getFusion().fusionnerAutour(cal));
+    }
+
+    private RapportEntity rapportMensuel(Calendar cal, AgregatsRapport agregats) {
+        long maintenant = cal.getTimeInMillis();
         int mois = cal.get(Calendar.MONTH) + 1;
         int annee = cal.get(Calendar.YEAR);
         int jour = cal.get(Calendar.DAY_OF_MONTH);
-        int semaine = cal.get(Calendar.WEEK_OF_YEAR);
-
-        List<DepenseEntity> depensesMois =
-                database.depenseDao().getDepensesParMois(mois, annee);
-
-        double totalMois = 0.0;
-        for (DepenseEntity d : depensesMois) {
-            totalMois += d.getMontant();
-        }
+        int semaine = Periodes.numeroSemaine(cal);
 
-        double surplus = budgetMensuel - totalMois;
+        AgregatsRapport.Periode periodeMois = agregats.getMois();
+        List<TotalCategorie> categoriesMois = periodeMois.getCategories();
 
-        double evolutionPourcentage = 0.0;
-        int moisPrecedent = (mois == 1) ? 12 : mois - 1;
-        int anneePrecedente = (mois == 1) ? annee - 1 : annee;
+        long totalMois = periodeMois.getTotal();
+        int nombreMois = periodeMois.getNombre();
 
-        Double totalMoisPrecedent =
-                database.depenseDao().getTotalMois(moisPrecedent, anneePrecedente);
+        long surplus = budgetMensuel - totalMois;
 
-        if (totalMoisPrecedent != null && totalMoisPrecedent > 0) {
-            evolutionPourcentage =
-                    ((totalMois - totalMoisPrecedent)
-                            / totalMoisPrecedent) * 100.0;
-        }
+        List<PrevisionDepenses.Prevision> previsions =
+                new PrevisionDepenses(database.previsionDao(), userId).prevoir(categoriesMois, cal);
 
-        StringBuilder rapport = new StringBuilder();
-        rapport.append("\uD83D\uDCCA RAPPORT MENSUEL\n");
-        rapport.append("================================\n");
-        rapport.append("\uD83D\uDCC5 Mois : ")
-                .append(getNomMois(mois)).append(" ").append(annee).append("\n");
-        rapport.append("\uD83D\uDCC5 Genere le : ")
-                .append(getCurrentDate()).append("\n\n");
-
-        rapport.append("\uD83D\uDCB0 RESUME FINANCIER\n");
-        rapport.append("Budget mensuel : ")
-                .append(String.format("%.0f", budgetMensuel))
-                .append(" FCFA\n");
-        rapport.append("Depenses du mois : ")
-                .append(String.format("%.0f", totalMois))
-                .append(" FCFA\n");
-
-        if (surplus >= 0) {
-            rapport.append("\u2705 Surplus : ")
-                    .append(String.format("%.0f", surplus))
-                    .append(" FCFA\n");
-        } else {
-            rapport.append("\u274C Deficit : ")
-                    .append(String.format("%.0f", Math.abs(surplus)))
-                    .append(" FCFA\n");
-        }
+        double evolutionPourcentage = 0.0;
+        AgregatsRapport.Periode moisPrecedent = agregats.getMoisPrecedent();
+        long totalMoisPrecedent = moisPrecedent.getTotal();
 
-        rapport.append("Budget utilise : ")
-                .append(String.format("%.1f",
-                        (totalMois / budgetMensuel) * 100.0))
-                .append("%\n");
-
-        rapport.append("\n\uD83D\uDCCA EVOLUTION\n");
-        if (totalMoisPrecedent != null) {
-            if (evolutionPourcentage > 0) {
-                rapport.append("\uD83D\uDCC8 +")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% vs mois precedent\n");
-            } else if (evolutionPourcentage < 0) {
-                rapport.append("\uD83D\uDCC9 ")
-                        .append(String.format("%.1f", evolutionPourcentage))
-                        .append("% vs mois precedent\n");
-            }
+        if (totalMoisPrecedent > 0) {
+            evolutionPourcentage = Montant.pourcentage(
+                    totalMois - totalMoisPrecedent, totalMoisPrecedent);
         }
 
-        rapport.append("\n\uD83D\uDCDD DETAILS\n");
-        rapport.append("Transactions : ")
-                .append(depensesMois.size()).append("\n");
-        rapport.append("Moyenne journaliere : ")
-                .append(String.format("%.0f", totalMois / 30.0))
-                .append(" FCFA\n");
-
-        rapport.append("\n\uD83D\uDCB3 PAR CATEGORIE\n");
-        rapport.append(analyserParCategorie(depensesMois));
-
-        SimpleDateFormat sdf =
-                new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-
-        return new RapportEntity(
+        return avecPeriode(new RapportEntity(
+                userId,
                 "MENSUEL",
-                System.currentTimeMillis(),
-                sdf.format(new Date()),
+                maintenant,
+                formatDate.format(new Date(maintenant)),
                 jour,
                 semaine,
                 mois,
@@ -333,78 +422,150 @@ public class RapportGenerator {
                 budgetMensuel,
                 totalMois,
                 surplus,
-                depensesMois.size(),
-                rapport.toString(),
+                nombreMois,
+                new DonneesRapport(totalMoisPrecedent, categoriesMois,
+                        PrevisionDepenses.totalPrevu(totalMois, previsions),
+                        PrevisionDepenses.totaux(previsions)).encoder(),
                 evolutionPourcentage
-        );
+        ), periodeMois, moisPrecedent);
     }
 
     /**
-     * Analyse des depenses par categorie
+     * Rapport d'une periode deja agregee, date du Calendar (rattrapage :
+     * dernier jour de la periode a 23h59)
      */
-    private String analyserParCategorie(List<DepenseEntity> depenses) {
-        String[] categories = new String[10];
-        double[] totaux = new double[10];
-        int nbCategories = 0;
-
-        for (DepenseEntity d : depenses) {
-            String cat = d.getCategorie();
-            double montant = d.getMontant();
-
-            int index = -1;
-            for (int i = 0; i < nbCategories; i++) {
-                if (categories[i].equals(cat)) {
-                    index = i;
-                    break;
-                }
-            }
+    RapportEntity construire(String typeRapport, AgregatsRapport.Periode periode,
+                             AgregatsRapport.Periode precedente, Calendar date) {
+        long maintenant = date.getTimeInMillis();
+        long total = periode.getTotal();
+        long totalPrecedent = precedente.getTotal();
+        long budgetRapport = budget(typeRapport, periode.getFin() - periode.getDebut());
 
-            if (index >= 0) {
-                totaux[index] += montant;
-            } else if (nbCategories < 10) {
-                categories[nbCategories] = cat;
-                totaux[nbCategories] = montant;
-                nbCategories++;
-            }
+        double evolutionPourcentage = 0.0;
+        if (totalPrecedent > 0) {
+            evolutionPourcentage = Montant.pourcentage(total - totalPrecedent, totalPrecedent);
         }
 
-        for (int i = 0; i < nbCategories - 1; i++) {
-            for (int j = i + 1; j < nbCategories; j++) {
-                if (totaux[j] > totaux[i]) {
-                    double t = totaux[i];
-                    totaux[i] = totaux[j];
-                    totaux[j] = t;
+        return avecPeriode(new RapportEntity(
+                userId,
+                typeRapport,
+                maintenant,
+                formatDate.format(new Date(maintenant)),
+                date.get(Calendar.DAY_OF_MONTH),
+                Periodes.numeroSemaine(date),
+                date.get(Calendar.MONTH) + 1,
+                date.get(Calendar.YEAR),
+                budgetRapport,
+                total,
+                budgetRapport - total,
+                periode.getNombre(),
+                new DonneesRapport(totalPrecedent, periode.getCategories()).encoder(),
+                evolutionPourcentage
+        ), periode, precedente);
+    }
 
-                    String c = categories[i];
-                    categories[i] = categories[j];
-                    categories[j] = c;
-                }
-            }
+    /**
+     * Periode couverte par le rapport : il pourra servir de synthese
+     * aux rapports plus longs tant qu'il n'est pas perime. La periode
+     * precedente commence a debutComparaison (suivi de l'evolution).
+     */
+    private static RapportEntity avecPeriode(RapportEntity rapport, AgregatsRapport.Periode periode,
+                                             AgregatsRapport.Periode precedente) {
+        rapport.setDebutPeriode(periode.getDebut());
+        rapport.setFinPeriode(periode.getFin());
+        rapport.setDebutComparaison(precedente.getDebut());
+        return rapport;
+    }
+
+    /**
+     * Periode [debut, fin[ du rapport de ce type a la date du Calendar,
+     * null si le type est inconnu (ou "PLAGE", sans periode implicite)
+     */
+    private static int[] periodeCourante(String typeRapport, Calendar cal) {
+        if ("JOURNALIER".equals(typeRapport)) {
+            int aujourdhui = Periodes.epochDay(cal);
+            return new int[]{aujourdhui, aujourdhui + 1};
+        }
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            int debutSemaine = Periodes.debutSemaine(cal);
+            return new int[]{debutSemaine, debutSemaine + 7};
+        }
+        if ("MENSUEL".equals(typeRapport)) {
+            int annee = cal.get(Calendar.YEAR);
+            int mois = cal.get(Calendar.MONTH) + 1;
+            return new int[]{Periodes.debutMois(annee, mois), Periodes.finMois(annee, mois)};
         }
+        return null;
+    }
 
-        StringBuilder resultat = new StringBuilder();
-        for (int i = 0; i < nbCategories; i++) {
-            resultat.append("- ")
-                    .append(categories[i])
-                    .append(" : ")
-                    .append(String.format("%.0f", totaux[i]))
-                    .append(" FCFA\n");
+    /**
+     * Budget d'un rapport, en centimes (duree en jours pour "PLAGE")
+     */
+    private long budget(String typeRapport, int duree) {
+        if ("MENSUEL".equals(typeRapport)) {
+            return budgetMensuel;
+        }
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            return Montant.diviser(budgetMensuel, 4);
         }
+        if ("JOURNALIER".equals(typeRapport)) {
+            return Montant.diviser(budgetMensuel, 30);
+        }
+        return Montant.diviser(budgetMensuel * duree, 30);
+    }
 
-        return resultat.toString();
+    /**
+     * Rapport deja stocke pour cette periode s'il est encore a jour :
+     * aucune depense de la periode ni de la periode precedente n'a
+     * change depuis (triggers) et le budget est le meme. Seule la ligne
+     * du rapport est lue, pas les depenses ni le resume.
+     *
+     * Les periodes plus longues que DUREE_MAX_SYNTHESE ne sont pas
+     * suivies par les triggers : toujours recalculees. Le rapport du
+     * mois en cours est aussi recalcule s'il date d'un autre jour : sa
+     * prevision depend du nombre de jours restants.
+     */
+    private RapportEntity rapportAJour(String typeRapport, int debut, int fin) {
+        if (fin - debut > DeclencheursRapports.DUREE_MAX_SYNTHESE) {
+            return null;
+        }
+        RapportEntity rapport = database.rapportDao()
+                .getRapportPeriode(userId, typeRapport, debut, fin);
+        if (rapport == null || rapport.isPerime() || rapport.isComparaisonPerimee()
+                || rapport.getDonnees() == null
+                || DonneesRapport.estTexteArchive(rapport.getDonnees())
+                || rapport.getBudgetTotal() != budget(typeRapport, fin - debut)) {
+            return null;
+        }
+        int aujourdhui = Periodes.epochDay(Calendar.getInstance());
+        if ("MENSUEL".equals(typeRapport) && fin > aujourdhui && aujourdhui != Periodes.epochDay(
+                rapport.getAnnee(), rapport.getMois(), rapport.getJour())) {
+            return null;
+        }
+        return rapport;
     }
 
-    private String getCurrentDate() {
-        SimpleDateFormat sdf =
-                new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
-        return sdf.format(new Date());
+    /**
+     * Inserer le rapport, ou remplacer celui de la meme periode
+     * (cle unique userId, typeRapport, debutPeriode, finPeriode)
+     */
+    RapportEntity enregistrer(RapportEntity rapport) {
+        RapportDao dao = database.rapportDao();
+        RapportEntity existant = dao.getRapportPeriode(userId, rapport.getTypeRapport(),
+                rapport.getDebutPeriode(), rapport.getFinPeriode());
+        if (existant == null) {
+            rapport.setId((int) dao.inserer(rapport));
+        } else {
+            rapport.setId(existant.getId());
+            dao.mettreAJour(rapport);
+        }
+        return rapport;
     }
 
-    private String getNomMois(int mois) {
-        String[] noms = {
-                "Janvier", "Fevrier", "Mars", "Avril", "Mai", "Juin",
-                "Juillet", "Aout", "Septembre", "Octobre", "Novembre", "Decembre"
-        };
-        return noms[mois - 1];
+    private FusionRapports getFusion() {
+        if (fusion == null) {
+            fusion = new FusionRapports(database.rapportDao(), database.resumeDao(), userId);
+        }
+        return fusion;
     }
 }
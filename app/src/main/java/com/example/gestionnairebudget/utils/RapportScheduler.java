@@ -1,24 +1,44 @@
 package com.example.gestionnairebudget.utils;
 
 import android.content.Context;
-import androidx.work.Data;
-import androidx.work.ExistingPeriodicWorkPolicy;
-import androidx.work.PeriodicWorkRequest;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
 import androidx.work.WorkManager;
 import com.example.gestionnairebudget.workers.RapportWorker;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * PLANIFICATEUR DE RAPPORTS
  *
- * Configure l'exécution automatique des rapports :
- * - Journalier : chaque jour à 23h59
- * - Hebdomadaire : chaque dimanche à 23h59
- * - Mensuel : dernier jour du mois à 23h59
+ * Un seul travail, le RapportWorker, chaque jour à 23h59 :
+ * - Journalier : chaque jour
+ * - Hebdomadaire : dernier jour de la semaine
+ * - Mensuel : dernier jour du mois
+ * Les périodes qui se terminent sont calculées au passage
+ * (periodesTerminees) ; le Worker replanifie lui-même le passage
+ * suivant à 23h59 exactement (pas de dérive d'une période de
+ * 30 jours, un seul réveil par nuit).
+ *
+ * Un passage manqué (téléphone éteint) est rattrapé au passage
+ * suivant (voir RattrapageRapports).
  */
 public class RapportScheduler {
 
+    /** Nom unique du travail de rapports */
+    public static final String NOM_TRAVAIL = "RapportsPeriodiques";
+
+    /** Heure du passage quotidien */
+    public static final int HEURE_PASSAGE = 23;
+    public static final int MINUTE_PASSAGE = 59;
+
+    // Anciens travaux périodiques (un par type), remplacés par NOM_TRAVAIL
+    private static final String[] ANCIENS_TRAVAUX = {
+            "RapportJournalier", "RapportHebdomadaire", "RapportMensuel"
+    };
+
     private Context context;
 
     public RapportScheduler(Context context) {
@@ -28,103 +48,34 @@ public class RapportScheduler {
 
     /**
      * Planifier TOUS les rapports automatiques
+     * (sans effet si le passage quotidien est déjà planifié)
      */
     public void planifierTousLesRapports() {
-        planifierRapportJournalier();
-        planifierRapportHebdomadaire();
-        planifierRapportMensuel();
-    }
-
-
-    /**
-     * RAPPORT JOURNALIER : Chaque jour à 23h59
-     */
-    public void planifierRapportJournalier() {
-        // Calculer le délai jusqu'à 23h59 aujourd'hui
-        long delai = calculerDelaiJusquaHeure(23, 59);
-
-        // Créer les données pour le Worker
-        Data inputData = new Data.Builder()
-                .putString("TYPE_RAPPORT", "JOURNALIER")
-                .build();
-
-        // Créer la requête périodique (toutes les 24 heures)
-        PeriodicWorkRequest rapportJournalierRequest =
-                new PeriodicWorkRequest.Builder(
-                        RapportWorker.class,
-                        24,  // Répéter toutes les 24 heures
-                        TimeUnit.HOURS
-                )
-                        .setInitialDelay(delai, TimeUnit.MILLISECONDS)
-                        .setInputData(inputData)
-                        .build();
-
-        // Enregistrer dans WorkManager
-        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
-                "RapportJournalier",
-                ExistingPeriodicWorkPolicy.KEEP,  // Garder si existe déjà
-                rapportJournalierRequest
-        );
+        WorkManager workManager = WorkManager.getInstance(context);
+        for (String ancien : ANCIENS_TRAVAUX) {
+            workManager.cancelUniqueWork(ancien);
+        }
+        planifier(context, ExistingWorkPolicy.KEEP);
     }
 
 
     /**
-     * RAPPORT HEBDOMADAIRE : Chaque dimanche à 23h59
+     * Planifier le passage suivant, appelé par le RapportWorker en fin
+     * de passage : ajouté après le passage en cours (qui est encore
+     * "en cours" pour WorkManager), ou à sa place s'il a échoué
      */
-    public void planifierRapportHebdomadaire() {
-        // Calculer le délai jusqu'au prochain dimanche à 23h59
-        long delai = calculerDelaiJusquaDimanche();
-
-        Data inputData = new Data.Builder()
-                .putString("TYPE_RAPPORT", "HEBDOMADAIRE")
-                .build();
-
-        // Répéter toutes les 7 jours (1 semaine)
-        PeriodicWorkRequest rapportHebdoRequest =
-                new PeriodicWorkRequest.Builder(
-                        RapportWorker.class,
-                        7,  // Toutes les 7 jours
-                        TimeUnit.DAYS
-                )
-                        .setInitialDelay(delai, TimeUnit.MILLISECONDS)
-                        .setInputData(inputData)
-                        .build();
-
-        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
-                "RapportHebdomadaire",
-                ExistingPeriodicWorkPolicy.KEEP,
-                rapportHebdoRequest
-        );
+    public static void planifierPassageSuivant(Context context) {
+        planifier(context, ExistingWorkPolicy.APPEND_OR_REPLACE);
     }
 
 
     /**
-     * RAPPORT MENSUEL : Dernier jour du mois à 23h59
+     * Planifier le passage suivant après un passage abandonné : ajouté
+     * à la suite, il échouerait avec lui, il le remplace donc (le
+     * résultat du passage en cours est alors ignoré par WorkManager)
      */
-    public void planifierRapportMensuel() {
-        // Calculer le délai jusqu'au dernier jour du mois
-        long delai = calculerDelaiJusquaDernierJourMois();
-
-        Data inputData = new Data.Builder()
-                .putString("TYPE_RAPPORT", "MENSUEL")
-                .build();
-
-        // Répéter toutes les 30 jours (approximatif)
-        PeriodicWorkRequest rapportMensuelRequest =
-                new PeriodicWorkRequest.Builder(
-                        RapportWorker.class,
-                        30,  // Toutes les 30 jours
-                        TimeUnit.DAYS
-                )
-                        .setInitialDelay(delai, TimeUnit.MILLISECONDS)
-                        .setInputData(inputData)
-                        .build();
-
-        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
-                "RapportMensuel",
-                ExistingPeriodicWorkPolicy.KEEP,
-                rapportMensuelRequest
-        );
+    public static void planifierApresEchec(Context context) {
+        planifier(context, ExistingWorkPolicy.REPLACE);
     }
 
 
@@ -133,28 +84,39 @@ public class RapportScheduler {
      */
     public void annulerTousLesRapports() {
         WorkManager workManager = WorkManager.getInstance(context);
-        workManager.cancelUniqueWork("RapportJournalier");
-        workManager.cancelUniqueWork("RapportHebdomadaire");
-        workManager.cancelUniqueWork("RapportMensuel");
+        workManager.cancelUniqueWork(NOM_TRAVAIL);
+        for (String ancien : ANCIENS_TRAVAUX) {
+            workManager.cancelUniqueWork(ancien);
+        }
+    }
+
+    private static void planifier(Context context, ExistingWorkPolicy politique) {
+        long delai = delaiJusquauPassage(Calendar.getInstance());
+
+        OneTimeWorkRequest passage = new OneTimeWorkRequest.Builder(RapportWorker.class)
+                .setInitialDelay(delai, TimeUnit.MILLISECONDS)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(NOM_TRAVAIL, politique, passage);
     }
 
 
     // ========== MÉTHODES UTILITAIRES DE CALCUL ==========
 
     /**
-     * Calculer le délai jusqu'à une heure précise aujourd'hui
+     * Délai jusqu'au prochain passage : aujourd'hui à 23h59 s'il n'est
+     * pas encore passé, sinon demain à 23h59 (changements d'heure
+     * compris : le calcul se fait sur le calendrier, pas en 24 h fixes)
      */
-    private long calculerDelaiJusquaHeure(int heure, int minute) {
-        Calendar maintenant = Calendar.getInstance();
-        Calendar cible = Calendar.getInstance();
-
-        cible.set(Calendar.HOUR_OF_DAY, heure);
-        cible.set(Calendar.MINUTE, minute);
+    static long delaiJusquauPassage(Calendar maintenant) {
+        Calendar cible = (Calendar) maintenant.clone();
+        cible.set(Calendar.HOUR_OF_DAY, HEURE_PASSAGE);
+        cible.set(Calendar.MINUTE, MINUTE_PASSAGE);
         cible.set(Calendar.SECOND, 0);
         cible.set(Calendar.MILLISECOND, 0);
 
-        // Si l'heure est déjà passée aujourd'hui, passer à demain
-        if (cible.before(maintenant)) {
+        // Passage en cours ou déjà passé : demain
+        if (!cible.after(maintenant)) {
             cible.add(Calendar.DAY_OF_MONTH, 1);
         }
 
@@ -163,77 +125,19 @@ public class RapportScheduler {
 
 
     /**
-     * Calculer le délai jusqu'au prochain dimanche à 23h59
+     * Types des rapports dont la période se termine le jour du Calendar
+     * (la semaine selon le premier jour de semaine du Calendar, comme
+     * Periodes.debutSemaine)
      */
-    private long calculerDelaiJusquaDimanche() {
-        Calendar maintenant = Calendar.getInstance();
-        Calendar prochainDimanche = Calendar.getInstance();
-
-        // Jour de la semaine actuel (1 = Dimanche, 2 = Lundi, ..., 7 = Samedi)
-        int jourActuel = maintenant.get(Calendar.DAY_OF_WEEK);
-
-        // CONDITION : Calculer les jours jusqu'à dimanche
-        int joursJusquaDimanche;
-        if (jourActuel == Calendar.SUNDAY) {
-            // Si c'est dimanche, vérifier l'heure
-            if (maintenant.get(Calendar.HOUR_OF_DAY) < 23 ||
-                    (maintenant.get(Calendar.HOUR_OF_DAY) == 23 && maintenant.get(Calendar.MINUTE) < 59)) {
-                joursJusquaDimanche = 0;  // Aujourd'hui
-            } else {
-                joursJusquaDimanche = 7;  // Dimanche prochain
-            }
-        } else {
-            // Calculer les jours restants jusqu'à dimanche
-            joursJusquaDimanche = (Calendar.SUNDAY + 7 - jourActuel) % 7;
-            if (joursJusquaDimanche == 0) joursJusquaDimanche = 7;
+    public static List<String> periodesTerminees(Calendar jour) {
+        List<String> types = new ArrayList<>(3);
+        types.add("JOURNALIER");
+        if (Periodes.epochDay(jour) == Periodes.debutSemaine(jour) + 6) {
+            types.add("HEBDOMADAIRE");
         }
-
-        prochainDimanche.add(Calendar.DAY_OF_MONTH, joursJusquaDimanche);
-        prochainDimanche.set(Calendar.HOUR_OF_DAY, 23);
-        prochainDimanche.set(Calendar.MINUTE, 59);
-        prochainDimanche.set(Calendar.SECOND, 0);
-        prochainDimanche.set(Calendar.MILLISECOND, 0);
-
-        return prochainDimanche.getTimeInMillis() - maintenant.getTimeInMillis();
-    }
-
-
-    /**
-     * Calculer le délai jusqu'au dernier jour du mois à 23h59
-     */
-    private long calculerDelaiJusquaDernierJourMois() {
-        Calendar maintenant = Calendar.getInstance();
-        Calendar dernierJour = Calendar.getInstance();
-
-        // Obtenir le dernier jour du mois actuel
-        int dernierJourMois = maintenant.getActualMaximum(Calendar.DAY_OF_MONTH);
-        int jourActuel = maintenant.get(Calendar.DAY_OF_MONTH);
-
-        // CONDITION : Si on est déjà au dernier jour
-        if (jourActuel == dernierJourMois) {
-            // Vérifier l'heure
-            if (maintenant.get(Calendar.HOUR_OF_DAY) < 23 ||
-                    (maintenant.get(Calendar.HOUR_OF_DAY) == 23 && maintenant.get(Calendar.MINUTE) < 59)) {
-                // C'est aujourd'hui
-                dernierJour.set(Calendar.HOUR_OF_DAY, 23);
-                dernierJour.set(Calendar.MINUTE, 59);
-            } else {
-                // Passer au dernier jour du mois prochain
-                dernierJour.add(Calendar.MONTH, 1);
-                dernierJour.set(Calendar.DAY_OF_MONTH, dernierJour.getActualMaximum(Calendar.DAY_OF_MONTH));
-                dernierJour.set(Calendar.HOUR_OF_DAY, 23);
-                dernierJour.set(Calendar.MINUTE, 59);
-            }
-        } else {
-            // Aller au dernier jour du mois actuel
-            dernierJour.set(Calendar.DAY_OF_MONTH, dernierJourMois);
-            dernierJour.set(Calendar.HOUR_OF_DAY, 23);
-            dernierJour.set(Calendar.MINUTE, 59);
+        if (jour.get(Calendar.DAY_OF_MONTH) == jour.getActualMaximum(Calendar.DAY_OF_MONTH)) {
+            types.add("MENSUEL");
         }
-
-        dernierJour.set(Calendar.SECOND, 0);
-        dernierJour.set(Calendar.MILLISECOND, 0);
-
-        return dernierJour.getTimeInMillis() - maintenant.getTimeInMillis();
+        return types;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,388 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.RapportDao;
+import com.example.gestionnairebudget.database.ResumeDao;
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RATTRAPAGE DES RAPPORTS MANQUES
+ *
+ * Telephone eteint, Doze : le RapportWorker peut sauter des jours.
+ * Pour chaque type (journalier, hebdomadaire, mensuel), toutes les
+ * periodes TERMINEES depuis la fin du dernier rapport stocke sont
+ * generees, dans la limite de l'horizon du type (inutile de recreer ce
+ * que la retention supprimerait, voir CompactionRapports).
+ *
+ * Par lots de TAILLE_LOT periodes au plus, les plus anciennes d'abord
+ * (rattraperLot), chaque lot en une passe :
+ * 1. preparer, HORS transaction : une lecture du resume journalier, de
+ *    la plus ancienne periode de comparaison a la fin de la derniere
+ *    periode du lot
+ * 2. les lignes rangees par jour, puis les periodes agregees en
+ *    parallele sur un pool borne partage par tous les rattrapages
+ *    (calcul en memoire, sans acces a la base)
+ * 3. enregistrer, dans une transaction courte : le total et le nombre
+ *    de depenses de la plage lue sont reverifies (une depense changee
+ *    entre-temps : le lot est refait), puis seules les periodes apres
+ *    la fin du dernier rapport stocke de leur type sont ecrites (un
+ *    autre passage a pu les ecrire : rien n'est ecrit deux fois)
+ * Les rapports stockes servent de point de reprise : apres une
+ * interruption entre deux lots, le lot suivant repart de la fin du
+ * dernier rapport de chaque type, rien n'est recalcule.
+ *
+ * Un rapport rattrape est date du dernier jour de sa periode a 23h59,
+ * comme s'il avait ete genere a l'heure ; le budget est le budget actuel.
+ */
+public class RattrapageRapports {
+
+    private static final String[] TYPES = {"JOURNALIER", "HEBDOMADAIRE", "MENSUEL"};
+
+    private static final int HORIZON_JOURNALIER = CompactionRapports.JOURS_JOURNALIERS;
+    private static final int HORIZON_HEBDOMADAIRE = CompactionRapports.JOURS_HEBDOMADAIRES;
+    private static final int HORIZON_MENSUEL = 366;
+
+    /** Periodes rattrapees par transaction (un mois de jours) */
+    public static final int TAILLE_LOT = 31;
+
+    /** Threads d'agregation, pour tous les rattrapages du processus */
+    static final int TAILLE_POOL =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Lot refait au plus ESSAIS_LOT fois si les depenses changent pendant le calcul */
+    static final int ESSAIS_LOT = 3;
+
+    /**
+     * Pool d'agregation partage, cree au premier rattrapage. Ses taches
+     * ne font que du calcul : elles n'attendent ni la base ni une autre
+     * tache (un lecteur de la base peut donc l'attendre sans risque).
+     */
+    private static final class PoolAgregation {
+        static final ExecutorService POOL;
+
+        static {
+            AtomicInteger compteur = new AtomicInteger();
+            POOL = Executors.newFixedThreadPool(TAILLE_POOL, r -> {
+                Thread t = new Thread(r, "rattrapage-agregation-" + compteur.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Periode a rattraper : [debut, fin[ et sa periode de comparaison
+     * [debutComparaison, debut[, totaux remplis par agreger()
+     */
+    static final class PeriodeManquante {
+        final String typeRapport;
+        final int debut;
+        final int fin;
+        final int debutComparaison;
+        AgregatsRapport.Periode periode;
+        AgregatsRapport.Periode precedente;
+
+        PeriodeManquante(String typeRapport, int debut, int fin, int debutComparaison) {
+            this.typeRapport = typeRapport;
+            this.debut = debut;
+            this.fin = fin;
+            this.debutComparaison = debutComparaison;
+        }
+
+        /**
+         * Agreger les jours de la periode et de sa comparaison
+         * (dictionnaire propre : appele depuis plusieurs threads)
+         */
+        void calculer(List<List<ResumeJourEntity>> parJour, int debutLecture) {
+            periode = new AgregatsRapport.Periode(debut, fin, new AgregateurCategories.Dictionnaire());
+            precedente = new AgregatsRapport.Periode(debutComparaison, debut, null);
+            for (int jour = debutComparaison; jour < fin; jour++) {
+                AgregatsRapport.Periode cible = jour < debut ? precedente : periode;
+                for (ResumeJourEntity ligne : parJour.get(jour - debutLecture)) {
+                    cible.ajouter(ligne);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lot prepare hors transaction : periodes agregees, et totaux de la
+     * plage lue pour la verification a l'enregistrement
+     */
+    static final class Lot {
+        final List<PeriodeManquante> periodes;
+        final int debutLecture;
+        final int finLecture;
+        final long total;
+        final int nombre;
+
+        Lot(List<PeriodeManquante> periodes, int debutLecture, int finLecture,
+            long total, int nombre) {
+            this.periodes = periodes;
+            this.debutLecture = debutLecture;
+            this.finLecture = finLecture;
+            this.total = total;
+            this.nombre = nombre;
+        }
+    }
+
+    private final AppDatabase database;
+    private final int userId;
+    private final long budgetMensuel;  // En centimes
+
+    public RattrapageRapports(AppDatabase database, int userId, long budgetMensuel) {
+        this.database = database;
+        this.userId = userId;
+        this.budgetMensuel = budgetMensuel;
+    }
+
+    /**
+     * Generer tous les rapports manques jusqu'a la date du Calendar
+     * (periodes terminees la veille au plus tard), lot apres lot
+     *
+     * @return nombre de rapports generes
+     */
+    public int rattraper(Calendar maintenant) {
+        int total = 0;
+        int generes;
+        while ((generes = rattraperLot(maintenant, TAILLE_LOT)) > 0) {
+            total += generes;
+        }
+        return total;
+    }
+
+    /**
+     * Generer au plus "tailleLot" rapports manques, les plus anciens
+     * d'abord : lecture et agregation hors transaction, puis une
+     * transaction courte pour les ecrire
+     *
+     * @return nombre de periodes du lot (0 : tout est a jour)
+     */
+    public int rattraperLot(Calendar maintenant, int tailleLot) {
+        for (int essai = 0; essai < ESSAIS_LOT; essai++) {
+            Lot lot = preparer(maintenant, tailleLot);
+            if (lot == null) {
+                return 0;
+            }
+            if (enregistrer(lot)) {
+                return lot.periodes.size();
+            }
+        }
+        return 0;  // Depenses modifiees sans arret : repris au prochain passage
+    }
+
+    /**
+     * Lire et agreger le prochain lot, hors transaction (sur le thread
+     * appelant pour les lectures, sur le pool partage pour l'agregation)
+     *
+     * @return le lot, null si tout est a jour
+     */
+    Lot preparer(Calendar maintenant, int tailleLot) {
+        int aujourdhui = Periodes.epochDay(maintenant);
+        List<PeriodeManquante> manquantes = new ArrayList<>();
+        for (String type : TYPES) {
+            Integer derniereFin = database.rapportDao().getDerniereFinPeriode(userId, type);
+            if (derniereFin != null && derniereFin > 0) {
+                manquantes.addAll(periodesManquantes(type,
+                        Math.max(derniereFin, aujourdhui - horizon(type)), aujourdhui));
+            }
+        }
+        if (manquantes.isEmpty()) {
+            return null;
+        }
+        List<PeriodeManquante> periodes = premieres(manquantes, tailleLot);
+
+        int debutLecture = Integer.MAX_VALUE;
+        int finLecture = Integer.MIN_VALUE;
+        for (PeriodeManquante m : periodes) {
+            debutLecture = Math.min(debutLecture, m.debutComparaison);
+            finLecture = Math.max(finLecture, m.fin);
+        }
+        List<ResumeJourEntity> lignes =
+                database.resumeDao().getLignesPeriode(userId, debutLecture, finLecture);
+        MesureExecution.compterLignes(lignes.size());
+
+        long total = 0;
+        int nombre = 0;
+        for (ResumeJourEntity ligne : lignes) {
+            total += ligne.getTotal();
+            nombre += ligne.getNombre();
+        }
+        agreger(lignes, debutLecture, finLecture, periodes, PoolAgregation.POOL);
+        return new Lot(periodes, debutLecture, finLecture, total, nombre);
+    }
+
+    /**
+     * Ecrire un lot prepare, dans une transaction courte
+     *
+     * @return false si une depense de la plage lue a change depuis
+     * (rien n'est ecrit, le lot est a preparer de nouveau)
+     */
+    boolean enregistrer(Lot lot) {
+        return database.runInTransaction(() -> {
+            ResumeDao resume = database.resumeDao();
+            int debut = lot.debutLecture;
+            int fin = lot.finLecture;
+            if (resume.getTotalPeriode(userId, debut, fin) != lot.total
+                    || resume.getNombrePeriode(userId, debut, fin) != lot.nombre) {
+                return false;
+            }
+
+            RapportDao rapports = database.rapportDao();
+            RapportGenerator generateur = new RapportGenerator(database, userId, budgetMensuel);
+            Map<String, Integer> dernieresFins = new HashMap<>();
+            for (PeriodeManquante m : lot.periodes) {
+                Integer derniereFin = dernieresFins.get(m.typeRapport);
+                if (derniereFin == null) {
+                    Integer stockee = rapports.getDerniereFinPeriode(userId, m.typeRapport);
+                    derniereFin = stockee != null ? stockee : 0;
+                    dernieresFins.put(m.typeRapport, derniereFin);
+                }
+                if (m.fin <= derniereFin) {
+                    continue;  // Deja ecrit par un autre passage
+                }
+                generateur.enregistrer(generateur.construire(
+                        m.typeRapport, m.periode, m.precedente, finDePeriode(m.fin)));
+            }
+            return true;
+        });
+    }
+
+    // ========== PERIODES ==========
+
+    /**
+     * Periodes completes d'un type commencant a "depuis" ou apres, et
+     * terminees au plus tard le jour "aujourdhui" (borne exclue)
+     */
+    static List<PeriodeManquante> periodesManquantes(String typeRapport, int depuis, int aujourdhui) {
+        List<PeriodeManquante> periodes = new ArrayList<>();
+        PeriodeManquante p = periodeContenant(typeRapport, depuis);
+        if (p.debut < depuis) {
+            p = periodeContenant(typeRapport, p.fin);
+        }
+        while (p.fin <= aujourdhui) {
+            periodes.add(p);
+            p = periodeContenant(typeRapport, p.fin);
+        }
+        return periodes;
+    }
+
+    /**
+     * Periode du type contenant le jour, avec sa comparaison
+     * (veille, semaine precedente ou mois precedent)
+     */
+    static PeriodeManquante periodeContenant(String typeRapport, int jour) {
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            int debutSemaine = Periodes.debutSemaine(calendrier(jour, 12, 0));
+            return new PeriodeManquante(typeRapport, debutSemaine, debutSemaine + 7, debutSemaine - 7);
+        }
+        if ("MENSUEL".equals(typeRapport)) {
+            int[] date = Periodes.date(jour);
+            int debutMois = Periodes.debutMois(date[0], date[1]);
+            int[] veille = Periodes.date(debutMois - 1);
+            return new PeriodeManquante(typeRapport, debutMois, Periodes.finMois(date[0], date[1]),
+                    Periodes.debutMois(veille[0], veille[1]));
+        }
+        return new PeriodeManquante(typeRapport, jour, jour + 1, jour - 1);
+    }
+
+    /**
+     * Les "taille" periodes qui se terminent le plus tot (a fin egale,
+     * la plus courte d'abord). Pour chaque type, c'est le debut de sa
+     * suite de periodes : la fin du dernier rapport stocke reste le
+     * point de reprise exact.
+     */
+    static List<PeriodeManquante> premieres(List<PeriodeManquante> periodes, int taille) {
+        List<PeriodeManquante> triees = new ArrayList<>(periodes);
+        Collections.sort(triees, (a, b) -> {
+            int ordre = Integer.compare(a.fin, b.fin);
+            return ordre != 0 ? ordre : Integer.compare(b.debut, a.debut);
+        });
+        return triees.subList(0, Math.min(Math.max(1, taille), triees.size()));
+    }
+
+    private static int horizon(String typeRapport) {
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            return HORIZON_HEBDOMADAIRE;
+        }
+        if ("MENSUEL".equals(typeRapport)) {
+            return HORIZON_MENSUEL;
+        }
+        return HORIZON_JOURNALIER;
+    }
+
+    /** Dernier jour de la periode [.., fin[ a 23h59 */
+    private static Calendar finDePeriode(int fin) {
+        return calendrier(fin - 1, 23, 59);
+    }
+
+    private static Calendar calendrier(int jour, int heure, int minute) {
+        int[] date = Periodes.date(jour);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(date[0], date[1] - 1, date[2], heure, minute, 0);
+        return cal;
+    }
+
+    // ========== AGREGATION ==========
+
+    /**
+     * Remplir les totaux de chaque periode a partir des lignes de
+     * [debutLecture, finLecture[, reparties entre les threads du pool
+     */
+    static void agreger(List<ResumeJourEntity> lignes, int debutLecture, int finLecture,
+                        List<PeriodeManquante> periodes, ExecutorService pool) {
+        // Lignes rangees par jour : chaque periode ne parcourt que ses jours
+        List<List<ResumeJourEntity>> parJour = new ArrayList<>(finLecture - debutLecture);
+        for (int jour = debutLecture; jour < finLecture; jour++) {
+            parJour.add(new ArrayList<>());
+        }
+        for (ResumeJourEntity ligne : lignes) {
+            parJour.get(ligne.getEpochDay() - debutLecture).add(ligne);
+        }
+
+        int taille = Math.min(TAILLE_POOL, periodes.size());
+        if (taille <= 1) {
+            for (PeriodeManquante p : periodes) {
+                p.calculer(parJour, debutLecture);
+            }
+            return;
+        }
+
+        List<Callable<Void>> taches = new ArrayList<>(taille);
+        int parTache = (periodes.size() + taille - 1) / taille;
+        for (int debut = 0; debut < periodes.size(); debut += parTache) {
+            List<PeriodeManquante> part =
+                    periodes.subList(debut, Math.min(debut + parTache, periodes.size()));
+            taches.add(() -> {
+                for (PeriodeManquante p : part) {
+                    p.calculer(parJour, debutLecture);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> resultat : pool.invokeAll(taches)) {
+                resultat.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rattrapage interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rattrapage impossible", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportEntity;
+
+/**
+ * RENDU TEXTE D'UN RAPPORT
+ *
+ * Le texte n'est produit qu'a l'ouverture du rapport, a partir des
+ * colonnes de RapportEntity et de ses donnees structurees
+ * (DonneesRapport). Les rapports d'avant la version 9 de la base
+ * n'ont pas de donnees : leur ancien texte est rendu tel quel.
+ *
+ * Les quatre mises en page sont declarees ici et compilees une seule
+ * fois (GabaritRapport). Chaque thread reutilise son propre tampon.
+ */
+public final class RenduRapport {
+
+    private static final GabaritRapport JOURNALIER = GabaritRapport.compiler(
+            "\uD83D\uDCCA RAPPORT JOURNALIER\n"
+                    + "================================\n"
+                    + "\uD83D\uDCC5 Date : {date}\n"
+                    + "\n"
+                    + "\uD83D\uDCB0 RESUME FINANCIER\n"
+                    + "Budget journalier : {budget} FCFA\n"
+                    + "Depenses du jour : {depenses} FCFA\n"
+                    + "[surplus]\u2705 Surplus : {ecart} FCFA\n"
+                    + "[deficit]\u274C Deficit : {ecart} FCFA\n"
+                    + "\n"
+                    + "\uD83D\uDCCA EVOLUTION\n"
+                    + "[hausse]\uD83D\uDCC8 +{evolution}% par rapport a hier\n"
+                    + "[baisse]\uD83D\uDCC9 {evolution}% par rapport a hier\n"
+                    + "[stable]\u27A1 Meme niveau qu'hier\n"
+                    + "\n"
+                    + "\uD83D\uDCDD DETAILS\n"
+                    + "Nombre de transactions : {nombre}\n"
+                    + "\n"
+                    + "\uD83D\uDCB3 PAR CATEGORIE\n"
+                    + "[*]- {categorie} : {totalCategorie} FCFA\n");
+
+    private static final GabaritRapport HEBDOMADAIRE = GabaritRapport.compiler(
+            "\uD83D\uDCCA RAPPORT HEBDOMADAIRE\n"
+                    + "================================\n"
+                    + "\uD83D\uDCC5 Semaine {semaine} - {annee}\n"
+                    + "\uD83D\uDCC5 Genere le : {date}\n"
+                    + "\n"
+                    + "\uD83D\uDCB0 RESUME FINANCIER\n"
+                    + "Budget hebdomadaire : {budget} FCFA\n"
+                    + "Depenses semaine : {depenses} FCFA\n"
+                    + "[surplus]\u2705 Surplus : {ecart} FCFA\n"
+                    + "[deficit]\u274C Deficit : {ecart} FCFA\n"
+                    + "\n"
+                    + "\uD83D\uDCCA EVOLUTION\n"
+                    + "[hausse]\uD83D\uDCC8 +{evolution}% vs semaine precedente\n"
+                    + "[baisse]\uD83D\uDCC9 {evolution}% vs semaine precedente\n"
+                    + "\n"
+                    + "\uD83D\uDCDD DETAILS\n"
+                    + "Transactions : {nombre}\n"
+                    + "Moyenne journaliere : {moyenneSemaine} FCFA\n"
+                    + "\n"
+                    + "\uD83D\uDCB3 PAR CATEGORIE\n"
+                    + "[*]- {categorie} : {totalCategorie} FCFA\n");
+
+    private static final GabaritRapport MENSUEL = GabaritRapport.compiler(
+            "\uD83D\uDCCA RAPPORT MENSUEL\n"
+                    + "================================\n"
+                    + "\uD83D\uDCC5 Mois : {nomMois} {annee}\n"
+                    + "\uD83D\uDCC5 Genere le : {date}\n"
+                    + "\n"
+                    + "\uD83D\uDCB0 RESUME FINANCIER\n"
+                    + "Budget mensuel : {budget} FCFA\n"
+                    + "Depenses du mois : {depenses} FCFA\n"
+                    + "[surplus]\u2705 Surplus : {ecart} FCFA\n"
+                    + "[deficit]\u274C Deficit : {ecart} FCFA\n"
+                    + "Budget utilise : {budgetUtilise}%\n"
+                    + "\n"
+                    + "\uD83D\uDCCA EVOLUTION\n"
+                    + "[hausse]\uD83D\uDCC8 +{evolution}% vs mois precedent\n"
+                    + "[baisse]\uD83D\uDCC9 {evolution}% vs mois precedent\n"
+                    + "\n"
+                    + "\uD83D\uDCDD DETAILS\n"
+                    + "Transactions : {nombre}\n"
+                    + "Moyenne journaliere : {moyenneMois} FCFA\n"
+                    + "\n"
+                    + "\uD83D\uDCB3 PAR CATEGORIE\n"
+                    + "[*]- {categorie} : {totalCategorie} FCFA\n"
+                    + "[prevision]\n"
+                    + "[prevision]\uD83D\uDD2E PREVISION FIN DE MOIS\n"
+                    + "[prevision]Au rythme actuel : {depensesPrevues} FCFA\n"
+                    + "[depassementPrevu]\uD83D\uDEA8 Depassement prevu : {ecartPrevu} FCFA\n"
+                    + "[margePrevue]\u2705 Marge prevue : {ecartPrevu} FCFA\n"
+                    + "[*prevision]- {categorie} : {totalCategorie} FCFA\n");
+
+    private static final GabaritRapport PLAGE = GabaritRapport.compiler(
+            "\uD83D\uDCCA RAPPORT PERSONNALISE\n"
+                    + "================================\n"
+                    + "\uD83D\uDCC5 Du {debutPeriode} au {dernierJour} ({nombreJours} jours)\n"
+                    + "\uD83D\uDCC5 Genere le : {date}\n"
+                    + "\n"
+                    + "\uD83D\uDCB0 RESUME FINANCIER\n"
+                    + "Budget de la periode : {budget} FCFA\n"
+                    + "Depenses de la periode : {depenses} FCFA\n"
+                    + "[surplus]\u2705 Surplus : {ecart} FCFA\n"
+                    + "[deficit]\u274C Deficit : {ecart} FCFA\n"
+                    + "Budget utilise : {budgetUtilise}%\n"
+                    + "\n"
+                    + "\uD83D\uDCCA EVOLUTION\n"
+                    + "[hausse]\uD83D\uDCC8 +{evolution}% vs periode precedente\n"
+                    + "[baisse]\uD83D\uDCC9 {evolution}% vs periode precedente\n"
+                    + "[stable]\u27A1 Meme niveau que la periode precedente\n"
+                    + "\n"
+                    + "\uD83D\uDCDD DETAILS\n"
+                    + "Transactions : {nombre}\n"
+                    + "Moyenne journaliere : {moyennePeriode} FCFA\n"
+                    + "\n"
+                    + "\uD83D\uDCB3 PAR CATEGORIE\n"
+                    + "[*]- {categorie} : {totalCategorie} FCFA\n");
+
+    // Pas de ThreadLocal.withInitial avant l'API 26
+    private static final ThreadLocal<StringBuilder> TAMPON = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(1024);
+        }
+    };
+
+    private RenduRapport() {
+    }
+
+    public static String rendre(RapportEntity rapport) {
+        if (estAncien(rapport)) {
+            return texteAncien(rapport);
+        }
+
+        StringBuilder tampon = TAMPON.get();
+        tampon.setLength(0);
+        rendre(rapport, tampon);
+        return tampon.toString();
+    }
+
+    /**
+     * Ecrire le texte du rapport dans un tampon fourni par l'appelant
+     * (seul le decodage des donnees alloue si le tampon est reutilise)
+     */
+    public static void rendre(RapportEntity rapport, StringBuilder sortie) {
+        if (estAncien(rapport)) {
+            sortie.append(texteAncien(rapport));
+            return;
+        }
+        gabarit(rapport.getTypeRapport()).rendre(
+                rapport, DonneesRapport.decoder(rapport.getDonnees()), sortie);
+    }
+
+    /**
+     * Rapport d'avant la v9 : texte complet, en clair ou archive
+     */
+    private static boolean estAncien(RapportEntity rapport) {
+        return rapport.getDonnees() == null
+                || DonneesRapport.estTexteArchive(rapport.getDonnees());
+    }
+
+    private static String texteAncien(RapportEntity rapport) {
+        if (rapport.getDonnees() != null) {
+            return DonneesRapport.texteArchive(rapport.getDonnees());
+        }
+        return rapport.getContenuRapport() != null ? rapport.getContenuRapport() : "";
+    }
+
+    private static GabaritRapport gabarit(String typeRapport) {
+        if ("HEBDOMADAIRE".equals(typeRapport)) {
+            return HEBDOMADAIRE;
+        }
+        if ("MENSUEL".equals(typeRapport)) {
+            return MENSUEL;
+        }
+        if ("PLAGE".equals(typeRapport)) {
+            return PLAGE;
+        }
+        return JOURNALIER;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * STATISTIQUES DE LA TELEMETRIE DES WORKERS (ecran de diagnostic)
+ *
+ * p50, p95 et max des durees, lignes lues et requetes des executions
+ * reussies : d'abord toutes ensemble, puis par type de passage (un
+ * passage de fin de mois lit plus qu'un passage ordinaire). Percentile
+ * "au rang le plus proche" : toujours une valeur reellement mesuree.
+ */
+public final class StatistiquesExecutions {
+
+    /** Libelle du resume de toutes les executions */
+    public static final String TOUS = "TOUS";
+
+    private StatistiquesExecutions() {
+    }
+
+    /**
+     * p50, p95 et max d'une serie de mesures
+     */
+    public static final class Distribution {
+
+        private final long p50;
+        private final long p95;
+        private final long max;
+
+        Distribution(long[] valeurs) {
+            long[] triees = valeurs.clone();
+            Arrays.sort(triees);
+            this.p50 = percentile(triees, 50);
+            this.p95 = percentile(triees, 95);
+            this.max = triees.length > 0 ? triees[triees.length - 1] : 0;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+
+    /**
+     * Resume d'un type de passage
+     */
+    public static final class Resume {
+
+        private final String typeRapport;
+        private final int nombre;
+        private final Distribution duree;    // Millisecondes
+        private final Distribution lignes;
+        private final Distribution requetes;
+
+        Resume(String typeRapport, List<ExecutionWorkerEntity> executions) {
+            int n = executions.size();
+            long[] durees = new long[n];
+            long[] lues = new long[n];
+            long[] sql = new long[n];
+            for (int i = 0; i < n; i++) {
+                durees[i] = executions.get(i).getDuree();
+                lues[i] = executions.get(i).getLignesLues();
+                sql[i] = executions.get(i).getRequetes();
+            }
+            this.typeRapport = typeRapport;
+            this.nombre = n;
+            this.duree = new Distribution(durees);
+            this.lignes = new Distribution(lues);
+            this.requetes = new Distribution(sql);
+        }
+
+        public String getTypeRapport() {
+            return typeRapport;
+        }
+
+        public int getNombre() {
+            return nombre;
+        }
+
+        public Distribution getDuree() {
+            return duree;
+        }
+
+        public Distribution getLignes() {
+            return lignes;
+        }
+
+        public Distribution getRequetes() {
+            return requetes;
+        }
+    }
+
+    /**
+     * Resumes des executions reussies : TOUS, puis un par type de
+     * passage (ordre alphabetique). Liste vide sans execution reussie.
+     */
+    public static List<Resume> resumer(List<ExecutionWorkerEntity> executions) {
+        List<ExecutionWorkerEntity> reussies = new ArrayList<>();
+        Map<String, List<ExecutionWorkerEntity>> parType = new TreeMap<>();
+        for (ExecutionWorkerEntity e : executions) {
+            if (!ExecutionWorkerEntity.SUCCES.equals(e.getResultat())) {
+                continue;
+            }
+            reussies.add(e);
+            String type = e.getTypeRapport() != null ? e.getTypeRapport() : "-";
+            List<ExecutionWorkerEntity> liste = parType.get(type);
+            if (liste == null) {
+                liste = new ArrayList<>();
+                parType.put(type, liste);
+            }
+            liste.add(e);
+        }
+
+        List<Resume> resumes = new ArrayList<>();
+        if (reussies.isEmpty()) {
+            return resumes;
+        }
+        resumes.add(new Resume(TOUS, reussies));
+        for (Map.Entry<String, List<ExecutionWorkerEntity>> e : parType.entrySet()) {
+            resumes.add(new Resume(e.getKey(), e.getValue()));
+        }
+        return resumes;
+    }
+
+    /**
+     * Percentile au rang le plus proche d'une serie triee (0 si vide)
+     */
+    static long percentile(long[] triees, int pourcentage) {
+        if (triees.length == 0) {
+            return 0;
+        }
+        int rang = (int) Math.ceil(pourcentage / 100.0 * triees.length);
+        return triees[Math.max(0, Math.min(triees.length, rang) - 1)];
+    }
+}
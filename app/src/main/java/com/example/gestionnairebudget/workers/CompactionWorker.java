@@ -0,0 +1,75 @@
+package com.example.gestionnairebudget.workers;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.utils.CompactionRapports;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WORKER DE COMPACTION DES RAPPORTS
+ *
+ * Une fois par jour, appareil inactif et en charge : rétention,
+ * archivage des anciens rapports puis récupération de l'espace
+ * (voir CompactionRapports). Chaque lot est validé à part : si le
+ * Worker est arrêté, Result.retry() reprend au lot suivant.
+ */
+public class CompactionWorker extends Worker {
+
+    private static final String NOM_TRAVAIL = "CompactionRapports";
+
+    public CompactionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Planifier la compaction quotidienne (sans effet si deja planifiee)
+     */
+    public static void planifier(Context context) {
+        Constraints contraintes = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                NOM_TRAVAIL,
+                ExistingPeriodicWorkPolicy.KEEP,
+                new PeriodicWorkRequest.Builder(CompactionWorker.class, 1, TimeUnit.DAYS)
+                        .setConstraints(contraintes)
+                        .build()
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+            CompactionRapports compaction = new CompactionRapports(
+                    database, CompactionRapports.TAILLE_LOT_DEFAUT);
+            long maintenant = System.currentTimeMillis();
+
+            compaction.appliquerRetention(maintenant);
+            while (compaction.archiverLotSuivant(maintenant)) {
+                if (isStopped()) {
+                    return Result.retry();  // Reprise au prochain lot
+                }
+            }
+            if (isStopped()) {
+                return Result.retry();
+            }
+            compaction.recupererEspace();
+            return Result.success();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Result.retry();
+        }
+    }
+}
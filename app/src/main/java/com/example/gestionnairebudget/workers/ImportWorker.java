@@ -0,0 +1,151 @@
+package com.example.gestionnairebudget.workers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.ImportEntity;
+import com.example.gestionnairebudget.importation.ImportateurDepenses;
+import com.example.gestionnairebudget.importation.LecteurCsv;
+import com.example.gestionnairebudget.importation.LecteurOfx;
+import com.example.gestionnairebudget.importation.LecteurReleve;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WORKER D'IMPORT D'UN RELEVE (CSV ou OFX)
+ *
+ * L'import tourne en arriere-plan, par lots. S'il est interrompu
+ * (arret du Worker, erreur de lecture), il renvoie Result.retry() :
+ * la tentative suivante reprend au dernier lot valide.
+ * La reprise est liee a l'utilisateur et a la version du fichier
+ * (taille, date de modification) lue au demarrage de chaque tentative.
+ */
+public class ImportWorker extends Worker {
+
+    public static final String CLE_URI = "URI";
+    public static final String CLE_USER_ID = "USER_ID";
+    public static final String CLE_LIGNES = "LIGNES";
+    public static final String CLE_DEPENSES = "DEPENSES";
+    public static final String CLE_IGNOREES = "IGNOREES";
+
+    public ImportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String uri = getInputData().getString(CLE_URI);
+        int userId = getInputData().getInt(CLE_USER_ID, 0);
+        if (uri == null) {
+            return Result.failure();
+        }
+
+        AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+        ImportateurDepenses importateur = new ImportateurDepenses(
+                database, userId, ImportateurDepenses.TAILLE_LOT_DEFAUT);
+
+        Uri fichier = Uri.parse(uri);
+        long[] version = version(fichier);
+
+        try (LecteurReleve lecteur = ouvrir(fichier)) {
+            ImportEntity etat = importateur.importer(
+                    uri,
+                    version[0],
+                    version[1],
+                    lecteur,
+                    (lignes, depenses) -> setProgressAsync(new Data.Builder()
+                            .putLong(CLE_LIGNES, lignes)
+                            .putLong(CLE_DEPENSES, depenses)
+                            .build()),
+                    this::isStopped
+            );
+
+            if (!etat.isTermine()) {
+                return Result.retry();  // Arrete : reprise au prochain essai
+            }
+
+            return Result.success(new Data.Builder()
+                    .putLong(CLE_DEPENSES, etat.getDepensesImportees())
+                    .putInt(CLE_IGNOREES, lecteur.getLignesIgnorees())
+                    .build());
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Result.retry();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Result.failure();
+        }
+    }
+
+    /**
+     * Version du fichier : { taille, date de modification }, -1 si inconnue
+     * (tous les fournisseurs ne donnent pas la date de modification)
+     */
+    private long[] version(Uri uri) {
+        long[] version = { -1, -1 };
+
+        if ("file".equals(uri.getScheme()) && uri.getPath() != null) {
+            File fichier = new File(uri.getPath());
+            version[0] = fichier.length();
+            version[1] = fichier.lastModified();
+            return version;
+        }
+
+        try (Cursor c = getApplicationContext().getContentResolver()
+                .query(uri, null, null, null, null)) {
+            if (c != null && c.moveToFirst()) {
+                int taille = c.getColumnIndex(OpenableColumns.SIZE);
+                int modification = c.getColumnIndex(
+                        DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+                if (taille >= 0 && !c.isNull(taille)) {
+                    version[0] = c.getLong(taille);
+                }
+                if (modification >= 0 && !c.isNull(modification)) {
+                    version[1] = c.getLong(modification);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Fournisseur sans metadonnees : reprise sur l'URI seule
+            e.printStackTrace();
+        }
+        return version;
+    }
+
+    /**
+     * Ouvrir le fichier avec le bon lecteur :
+     * OFX s'il commence par "OFXHEADER" ou "<", CSV sinon
+     */
+    private LecteurReleve ouvrir(Uri uri) throws IOException {
+        InputStream flux = getApplicationContext().getContentResolver().openInputStream(uri);
+        if (flux == null) {
+            throw new IOException("Fichier introuvable : " + uri);
+        }
+
+        BufferedReader lecteur = new BufferedReader(
+                new InputStreamReader(flux, StandardCharsets.UTF_8), 64 * 1024);
+
+        lecteur.mark(256);
+        char[] debut = new char[256];
+        int lus = lecteur.read(debut);
+        lecteur.reset();
+
+        String entete = (lus > 0) ? new String(debut, 0, lus).trim() : "";
+        if (entete.startsWith("OFXHEADER") || entete.startsWith("<")) {
+            return new LecteurOfx(lecteur);
+        }
+        return new LecteurCsv(lecteur, true);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.gestionnairebudget.workers;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.gestionnairebudget.database.AppDatabase;
+import com.example.gestionnairebudget.database.RattrapageMigrations;
+
+/**
+ * WORKER DES RATTRAPAGES DE MIGRATION
+ *
+ * Remplit par petits lots les colonnes et tables ajoutees par une
+ * migration (voir TacheDifferee). Chaque lot est valide avec son
+ * avancement : si le Worker est arrete, Result.retry() relance la
+ * tache qui reprend au lot suivant.
+ */
+public class MigrationWorker extends Worker {
+
+    private static final String NOM_TRAVAIL = "RattrapageMigrations";
+
+    public MigrationWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Lancer les rattrapages (sans effet si deja en cours).
+     * Sans tache en attente, le Worker se termine aussitot.
+     */
+    public static void planifier(Context context) {
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                NOM_TRAVAIL,
+                ExistingWorkPolicy.KEEP,
+                new OneTimeWorkRequest.Builder(MigrationWorker.class).build()
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+            RattrapageMigrations rattrapage = new RattrapageMigrations(
+                    database, RattrapageMigrations.TAILLE_LOT_DEFAUT);
+
+            while (rattrapage.traiterLotSuivant()) {
+                if (isStopped()) {
+                    return Result.retry();  // Reprise au prochain lot
+                }
+            }
+            return Result.success();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Result.retry();
+        }
+    }
+}
@@ -1,23 +1,46 @@
 package com.example.gestionnairebudget.workers;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import androidx.annotation.NonNull;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 import com.example.gestionnairebudget.database.AppDatabase;
-import com.example.gestionnairebudget.database.RapportEntity;
-import com.example.gestionnairebudget.utils.RapportGenerator;
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+import com.example.gestionnairebudget.database.RattrapageMigrations;
+import com.example.gestionnairebudget.utils.MesureExecution;
+import com.example.gestionnairebudget.utils.PassageRapports;
+import com.example.gestionnairebudget.utils.RapportScheduler;
 import java.util.Calendar;
 
 /**
  * WORKER POUR GÉNÉRATION AUTOMATIQUE DES RAPPORTS
  *
- * Ce Worker est exécuté automatiquement par Android
- * pour générer les rapports périodiques
+ * Passage unique, chaque jour vers 23h59 (voir RapportScheduler), pour
+ * chaque compte actif ayant un budget (voir PassageRapports) :
+ * 1. rapports des périodes manquées (téléphone éteint, Doze...), par
+ *    lots de RattrapageRapports.TAILLE_LOT périodes
+ * 2. rapports des périodes qui se terminent aujourd'hui (jour, et
+ *    semaine ou mois si c'est leur dernier jour)
+ * puis planification du passage suivant.
+ *
+ * Chaque lot et chaque rapport est validé dans sa propre transaction :
+ * le rapport stocké est le point de reprise. Si WorkManager arrête le
+ * Worker (isStopped) ou si une erreur survient, Result.retry() relance
+ * le passage, qui reprend après le dernier rapport enregistré. Après
+ * MAX_TENTATIVES erreurs, le passage est abandonné mais le suivant est
+ * planifié quand même.
+ *
+ * Chaque exécution laisse une ligne dans "worker_runs" (durée, lignes
+ * lues, requêtes, résultat, exception) : voir DiagnosticsActivity.
  */
 public class RapportWorker extends Worker {
 
+    /** Nom du travail dans la télémétrie (worker_runs) */
+    public static final String NOM_TRAVAIL = "RapportWorker";
+
+    // Au-delà, le passage est abandonné jusqu'au prochain 23h59
+    private static final int MAX_TENTATIVES = 5;
+
     public RapportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
@@ -25,47 +48,66 @@ public class RapportWorker extends Worker {
     @NonNull
     @Override
     public Result doWork() {
-        try {
-            // Récupérer le budget depuis SharedPreferences
-            SharedPreferences prefs = getApplicationContext()
-                    .getSharedPreferences("BudgetPrefs", Context.MODE_PRIVATE);
-            double budgetMensuel = Double.longBitsToDouble(prefs.getLong("budgetMensuel", 0));
-
-            // CONDITION : Vérifier que le budget est défini
-            if (budgetMensuel <= 0) {
-                return Result.success();  // Pas de budget, on ne fait rien
-            }
+        Calendar maintenant = Calendar.getInstance();
+        MesureExecution mesure = MesureExecution.demarrer(NOM_TRAVAIL, getRunAttemptCount());
+        AppDatabase database = AppDatabase.getInstance(getApplicationContext());
 
-            // Obtenir la base de données
-            AppDatabase database = AppDatabase.getInstance(getApplicationContext());
-
-            // Créer le générateur de rapports
-            RapportGenerator generator = new RapportGenerator(database, budgetMensuel);
-
-            // Obtenir le type de rapport à générer
-            String typeRapport = getInputData().getString("TYPE_RAPPORT");
+        String resultat;
+        Throwable erreur = null;
+        try {
+            resultat = passage(database, maintenant);
+        } catch (Exception e) {
+            e.printStackTrace();
+            erreur = e;
+            resultat = getRunAttemptCount() < MAX_TENTATIVES
+                    ? ExecutionWorkerEntity.ERREUR
+                    : ExecutionWorkerEntity.ECHEC;
+        }
 
-            RapportEntity rapport = null;
+        enregistrer(database, mesure.terminer(
+                PassageRapports.typesPassage(maintenant), resultat, erreur));
 
-            // CONDITION : Selon le type de rapport demandé
-            if ("JOURNALIER".equals(typeRapport)) {
-                rapport = generator.genererRapportJournalier();
-            } else if ("HEBDOMADAIRE".equals(typeRapport)) {
-                rapport = generator.genererRapportHebdomadaire();
-            } else if ("MENSUEL".equals(typeRapport)) {
-                rapport = generator.genererRapportMensuel();
-            }
+        if (ExecutionWorkerEntity.SUCCES.equals(resultat)) {
+            RapportScheduler.planifierPassageSuivant(getApplicationContext());
+            return Result.success();
+        }
+        if (ExecutionWorkerEntity.ECHEC.equals(resultat)) {
+            // Abandonné, mais le passage de 23h59 reste planifié
+            RapportScheduler.planifierApresEchec(getApplicationContext());
+            return Result.failure();
+        }
+        return Result.retry();
+    }
 
-            // Sauvegarder le rapport dans la base de données
-            if (rapport != null) {
-                database.rapportDao().inserer(rapport);
-            }
+    /**
+     * Passage de tous les comptes
+     *
+     * @return résultat pour la télémétrie (SUCCES, ATTENTE ou ARRETE ;
+     * les deux derniers relancent le passage)
+     */
+    private String passage(AppDatabase database, Calendar maintenant) {
+        // Résumé journalier en cours de rattrapage : totaux incomplets
+        // (le passage relancé planifiera le suivant)
+        if (new RattrapageMigrations(database, RattrapageMigrations.TAILLE_LOT_DEFAUT)
+                .estEnCours()) {
+            return ExecutionWorkerEntity.ATTENTE;
+        }
 
-            return Result.success();
+        // Tous les comptes ayant un budget, chacun avec le sien ; arrêt :
+        // reprise après les derniers rapports stockés
+        return new PassageRapports(database, this::isStopped).executer(maintenant)
+                ? ExecutionWorkerEntity.SUCCES
+                : ExecutionWorkerEntity.ARRETE;
+    }
 
+    /**
+     * Enregistrer la télémétrie sans jamais faire échouer le passage
+     */
+    private static void enregistrer(AppDatabase database, ExecutionWorkerEntity execution) {
+        try {
+            database.executionWorkerDao().enregistrer(execution);
         } catch (Exception e) {
             e.printStackTrace();
-            return Result.failure();
         }
     }
-}
\ No newline at end of file
+}
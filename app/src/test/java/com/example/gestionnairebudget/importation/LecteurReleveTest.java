@@ -0,0 +1,136 @@
+package com.example.gestionnairebudget.importation;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests des lecteurs de releves (CSV et OFX), sans Android
+ */
+public class LecteurReleveTest {
+
+    @Test
+    public void csv_releveBancaire_neGardeQueLesDebits() throws IOException {
+        String csv = "Date;Libelle;Montant;Categorie\n"
+                + "15/01/2026;\"Marche \"\"central\"\"\";-1 250,50;Nutrition\n"
+                + "16/01/2026 14:30;Salaire;250000,00;\n"
+                + "2026-01-17 08:05;Taxi;-2000;\n";
+
+        LecteurCsv lecteur = new LecteurCsv(new BufferedReader(new StringReader(csv)), true);
+
+        LigneReleve marche = lecteur.lireSuivante();
+        assertEquals("Marche \"central\"", marche.getDesignation());
+        assertEquals(125050L, marche.getMontant());
+        assertEquals("Nutrition", marche.getCategorie());
+        assertEquals(15, marche.getJour());
+        assertEquals(1, marche.getMois());
+        assertEquals(2026, marche.getAnnee());
+
+        LigneReleve taxi = lecteur.lireSuivante();
+        assertEquals("Taxi", taxi.getDesignation());
+        assertEquals(200000L, taxi.getMontant());
+        assertNull(taxi.getCategorie());
+        assertEquals(8, taxi.getHeure());
+        assertEquals(5, taxi.getMinute());
+
+        assertNull(lecteur.lireSuivante());
+        assertEquals(2, lecteur.getLignesIgnorees());  // En-tete + salaire
+    }
+
+    @Test
+    public void csv_montantsPositifs() throws IOException {
+        String csv = "01/02/2026,Pain,1500\n02/02/2026,Remboursement,-300\n";
+
+        LecteurCsv lecteur = new LecteurCsv(new BufferedReader(new StringReader(csv)), false);
+
+        assertEquals(150000L, lecteur.lireSuivante().getMontant());
+        assertNull(lecteur.lireSuivante());
+        assertEquals(1, lecteur.getLignesIgnorees());
+    }
+
+    @Test
+    public void ofx_sgmlEtXml() throws IOException {
+        String ofx = "OFXHEADER:100\n<OFX><BANKTRANLIST>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20260115120000\n"
+                + "<TRNAMT>-12.50\n<NAME>Boulangerie\n</STMTTRN>"
+                + "<STMTTRN><DTPOSTED>20260116</DTPOSTED><TRNAMT>100.00</TRNAMT>"
+                + "<NAME>Virement</NAME></STMTTRN>\n"
+                + "</BANKTRANLIST></OFX>";
+
+        LecteurOfx lecteur = new LecteurOfx(new StringReader(ofx));
+
+        LigneReleve boulangerie = lecteur.lireSuivante();
+        assertEquals("Boulangerie", boulangerie.getDesignation());
+        assertEquals(1250L, boulangerie.getMontant());
+        assertEquals(12, boulangerie.getHeure());
+
+        assertNull(lecteur.lireSuivante());
+        assertEquals(1, lecteur.getLignesIgnorees());  // Credit
+    }
+
+    @Test
+    public void montant_luEnCentimes() {
+        assertEquals(123456L, DateReleve.analyserMontant("1 234,56"));
+        assertEquals(123456L, DateReleve.analyserMontant("1,234.56"));
+        assertEquals(-1250L, DateReleve.analyserMontant("-12.50"));
+        assertEquals(1500000L, DateReleve.analyserMontant("15000 FCFA"));
+        assertEquals(1235L, DateReleve.analyserMontant("12,345"));  // Arrondi au centime
+        assertEquals(DateReleve.MONTANT_INVALIDE, DateReleve.analyserMontant("abc"));
+        assertEquals(DateReleve.MONTANT_INVALIDE, DateReleve.analyserMontant("12-5"));
+    }
+
+    /**
+     * Un million de lignes generees a la volee : le lecteur ne garde
+     * qu'une ligne en memoire et doit rester largement sous la minute.
+     */
+    @Test
+    public void csv_unMillionDeLignes() throws IOException {
+        final int total = 1_000_000;
+
+        Reader generateur = new Reader() {
+            private int n = 0;
+            private String ligne = "";
+            private int position = 0;
+
+            @Override
+            public int read(char[] tampon, int debut, int longueur) {
+                int ecrits = 0;
+                while (ecrits < longueur) {
+                    if (position >= ligne.length()) {
+                        if (n >= total) {
+                            return ecrits == 0 ? -1 : ecrits;
+                        }
+                        ligne = String.format("%02d/%02d/2025;Achat %d;-%d,25;Nutrition\n",
+                                1 + n % 28, 1 + n % 12, n, n % 5000);
+                        n++;
+                        position = 0;
+                    }
+                    tampon[debut + ecrits++] = ligne.charAt(position++);
+                }
+                return ecrits;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        long debut = System.nanoTime();
+        LecteurCsv lecteur = new LecteurCsv(new BufferedReader(generateur, 64 * 1024), true);
+        int lues = 0;
+        while (lecteur.lireSuivante() != null) {
+            lues++;
+        }
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        assertEquals(total, lues);
+        assertTrue("Lecture trop lente : " + dureeMs + " ms", dureeMs < 60_000);
+    }
+}
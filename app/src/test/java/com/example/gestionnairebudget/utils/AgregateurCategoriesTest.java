@@ -0,0 +1,90 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Agregation par categorie : aucune categorie perdue, quel que soit
+ * leur nombre, et top-k identique au debut du tri complet
+ */
+public class AgregateurCategoriesTest {
+
+    @Test
+    public void centainesDeCategories_aucunePerdue() {
+        AgregateurCategories agregateur = new AgregateurCategories();
+        long attendu = 0;
+        for (int i = 0; i < 50_000; i++) {
+            agregateur.ajouter("Categorie " + (i % 700), 100 + i, 1);
+            attendu += 100 + i;
+        }
+
+        List<TotalCategorie> categories = agregateur.getCategories();
+        assertEquals(700, categories.size());
+
+        long total = 0;
+        int nombre = 0;
+        for (TotalCategorie t : categories) {
+            total += t.getTotal();
+            nombre += t.getNombre();
+        }
+        assertEquals(attendu, total);
+        assertEquals(50_000, nombre);
+    }
+
+    @Test
+    public void plusGrandes_egalesAuDebutDuTriComplet() {
+        AgregateurCategories agregateur = new AgregateurCategories();
+        Random aleatoire = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            agregateur.ajouter("C" + aleatoire.nextInt(300), aleatoire.nextInt(10_000), 1);
+        }
+
+        List<TotalCategorie> tri = new ArrayList<>(agregateur.getCategories());
+        for (int i = 1; i < tri.size(); i++) {
+            assertTrue(tri.get(i - 1).getTotal() >= tri.get(i).getTotal());
+        }
+
+        List<TotalCategorie> top = agregateur.getPlusGrandes(10);
+        assertEquals(10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(tri.get(i).getCategorie(), top.get(i).getCategorie());
+            assertEquals(tri.get(i).getTotal(), top.get(i).getTotal());
+        }
+    }
+
+    @Test
+    public void egalite_departageeParNom() {
+        AgregateurCategories agregateur = new AgregateurCategories();
+        agregateur.ajouter("Transport", 500, 1);
+        agregateur.ajouter("Loyer", 500, 1);
+        agregateur.ajouter("Sante", 900, 1);
+
+        List<TotalCategorie> top = agregateur.getPlusGrandes(2);
+        assertEquals("Sante", top.get(0).getCategorie());
+        assertEquals("Loyer", top.get(1).getCategorie());
+    }
+
+    @Test
+    public void dictionnairePartage_categoriesDesAutresPeriodesIgnorees() {
+        AgregateurCategories.Dictionnaire dictionnaire = new AgregateurCategories.Dictionnaire();
+        AgregateurCategories jour = new AgregateurCategories(dictionnaire);
+        AgregateurCategories mois = new AgregateurCategories(dictionnaire);
+
+        mois.ajouter("Loyer", 15000000, 1);
+        jour.ajouter("Nutrition", 2500, 2);
+        mois.ajouter("Nutrition", 2500, 2);
+
+        assertEquals(1, jour.getCategories().size());
+        assertEquals(2, mois.getCategories().size());
+        assertEquals(Collections.emptyList(), new AgregateurCategories().getPlusGrandes(3));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.SyntheseRapport;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * La fusion unique doit donner les memes totaux qu'un calcul separe
+ * de chaque periode, en lisant moins de lignes du resume.
+ */
+public class AgregatsRapportTest {
+
+    private static final String[] CATEGORIES = {"Nutrition", "Loyer", "Transport", "Loisirs"};
+
+    // Mercredi 4 mars 2026, semaine commencant le lundi 2 mars
+    private static final int AUJOURDHUI = Periodes.epochDay(2026, 3, 4);
+    private static final int DEBUT_SEMAINE = Periodes.epochDay(2026, 3, 2);
+
+    private final List<ResumeJourEntity> lignes = new ArrayList<>();
+    private int lectures;
+    private int lignesLues;
+
+    public AgregatsRapportTest() {
+        Random aleatoire = new Random(42);
+        for (int jour = Periodes.debutMois(2026, 2); jour < Periodes.finMois(2026, 3) + 7; jour++) {
+            for (String categorie : CATEGORIES) {
+                if (aleatoire.nextInt(3) > 0) {
+                    lignes.add(new ResumeJourEntity(1, jour, categorie,
+                            100 + aleatoire.nextInt(100_000), 1 + aleatoire.nextInt(4)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void passageUniqueEgalCalculParPeriode() {
+        AgregatsRapport agregats = AgregatsRapport.depuisSyntheses(
+                new ArrayList<>(), this::lire, AUJOURDHUI, DEBUT_SEMAINE, 2026, 3);
+
+        verifierSixPeriodes(agregats);
+        // Une seule plage contigue, du 1er fevrier a la fin de mars
+        assertEquals(1, lectures);
+    }
+
+    @Test
+    public void avecSyntheses_egalCalculParPeriode() {
+        // Semaines de fevrier et jours stockes du debut de mars
+        List<SyntheseRapport> syntheses = new ArrayList<>();
+        for (int lundi = Periodes.epochDay(2026, 2, 2); lundi + 7 <= Periodes.finMois(2026, 2);
+             lundi += 7) {
+            syntheses.add(synthese(lundi, lundi + 7));
+        }
+        syntheses.add(synthese(Periodes.debutMois(2026, 2), Periodes.debutMois(2026, 2) + 1));
+        syntheses.add(synthese(DEBUT_SEMAINE, DEBUT_SEMAINE + 1));
+        syntheses.add(synthese(DEBUT_SEMAINE + 1, DEBUT_SEMAINE + 2));
+
+        AgregatsRapport agregats = AgregatsRapport.depuisSyntheses(
+                syntheses, this::lire, AUJOURDHUI, DEBUT_SEMAINE, 2026, 3);
+
+        verifierSixPeriodes(agregats);
+    }
+
+    @Test
+    public void fusionUnique_litMoinsQueSixFusions() {
+        List<SyntheseRapport> syntheses = new ArrayList<>();
+        syntheses.add(synthese(DEBUT_SEMAINE, DEBUT_SEMAINE + 1));
+
+        AgregatsRapport.depuisSyntheses(syntheses, this::lire, AUJOURDHUI, DEBUT_SEMAINE, 2026, 3);
+        int lecturesUnique = lectures;
+        int lignesUnique = lignesLues;
+
+        lectures = 0;
+        lignesLues = 0;
+        int[][] periodes = {
+                {AUJOURDHUI, AUJOURDHUI + 1}, {AUJOURDHUI - 1, AUJOURDHUI},
+                {DEBUT_SEMAINE, DEBUT_SEMAINE + 7}, {DEBUT_SEMAINE - 7, DEBUT_SEMAINE},
+                {Periodes.debutMois(2026, 3), Periodes.finMois(2026, 3)},
+                {Periodes.debutMois(2026, 2), Periodes.finMois(2026, 2)}
+        };
+        for (int[] p : periodes) {
+            FusionRapports.fusionner(syntheses, p[0], p[1], true, this::lire);
+        }
+
+        assertTrue(lecturesUnique + " lectures contre " + lectures, lecturesUnique < lectures);
+        assertTrue(lignesUnique + " lignes contre " + lignesLues, lignesUnique < lignesLues);
+    }
+
+    @Test
+    public void categoriesTrieesParTotalDecroissant() {
+        lignes.clear();
+        lignes.add(new ResumeJourEntity(1, AUJOURDHUI, "Loyer", 5000, 1));
+        lignes.add(new ResumeJourEntity(1, AUJOURDHUI, "Nutrition", 9000, 2));
+        lignes.add(new ResumeJourEntity(1, AUJOURDHUI, "Transport", 100, 1));
+
+        List<TotalCategorie> categories = AgregatsRapport.depuisSyntheses(
+                new ArrayList<>(), this::lire, AUJOURDHUI, DEBUT_SEMAINE, 2026, 3)
+                .getJour().getCategories();
+
+        assertEquals("Nutrition", categories.get(0).getCategorie());
+        assertEquals("Loyer", categories.get(1).getCategorie());
+        assertEquals("Transport", categories.get(2).getCategorie());
+    }
+
+    @Test
+    public void lectureCouvreToutesLesPeriodes() {
+        // Janvier : le mois precedent est decembre de l'annee d'avant
+        int aujourdhui = Periodes.epochDay(2026, 1, 1);
+        int debutSemaine = Periodes.epochDay(2025, 12, 29);
+        AgregatsRapport agregats = AgregatsRapport.depuisSyntheses(
+                new ArrayList<>(), this::lire, aujourdhui, debutSemaine, 2026, 1);
+
+        assertEquals(Periodes.debutMois(2025, 12), agregats.debutLecture());
+        assertTrue(agregats.finLecture() >= debutSemaine + 7);
+    }
+
+    // ========== OUTILS ==========
+
+    private List<ResumeJourEntity> lire(int debut, int fin) {
+        lectures++;
+        List<ResumeJourEntity> resultat = new ArrayList<>();
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                resultat.add(l);
+            }
+        }
+        lignesLues += resultat.size();
+        return resultat;
+    }
+
+    /**
+     * Rapport stocke sur [debut, fin[, calcule directement sur les lignes
+     */
+    private SyntheseRapport synthese(int debut, int fin) {
+        AgregateurCategories categories = new AgregateurCategories();
+        long total = 0;
+        int nombre = 0;
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                categories.ajouter(l.getCategorie(), l.getTotal(), l.getNombre());
+                total += l.getTotal();
+                nombre += l.getNombre();
+            }
+        }
+        return new SyntheseRapport(debut, fin, total, nombre,
+                new DonneesRapport(0, categories.getCategories()).encoder());
+    }
+
+    private void verifierSixPeriodes(AgregatsRapport agregats) {
+        verifier(agregats.getJour(), AUJOURDHUI, AUJOURDHUI + 1);
+        verifier(agregats.getHier(), AUJOURDHUI - 1, AUJOURDHUI);
+        verifier(agregats.getSemaine(), DEBUT_SEMAINE, DEBUT_SEMAINE + 7);
+        // Semaine precedente : a cheval sur fevrier et mars
+        verifier(agregats.getSemainePrecedente(), DEBUT_SEMAINE - 7, DEBUT_SEMAINE);
+        verifier(agregats.getMois(), Periodes.debutMois(2026, 3), Periodes.finMois(2026, 3));
+        verifier(agregats.getMoisPrecedent(),
+                Periodes.debutMois(2026, 2), Periodes.finMois(2026, 2));
+    }
+
+    private void verifier(AgregatsRapport.Periode periode, int debut, int fin) {
+        AgregateurCategories attendu = new AgregateurCategories();
+        long total = 0;
+        int nombre = 0;
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                attendu.ajouter(l.getCategorie(), l.getTotal(), l.getNombre());
+                total += l.getTotal();
+                nombre += l.getNombre();
+            }
+        }
+        assertEquals(total, periode.getTotal());
+        assertEquals(nombre, periode.getNombre());
+
+        if (periode.parCategorie()) {
+            List<TotalCategorie> categories = periode.getCategories();
+            List<TotalCategorie> categoriesAttendues = attendu.getCategories();
+            assertEquals(categoriesAttendues.size(), categories.size());
+            for (int i = 0; i < categories.size(); i++) {
+                assertEquals(categoriesAttendues.get(i).getCategorie(),
+                        categories.get(i).getCategorie());
+                assertEquals(categoriesAttendues.get(i).getTotal(), categories.get(i).getTotal());
+            }
+        }
+    }
+}
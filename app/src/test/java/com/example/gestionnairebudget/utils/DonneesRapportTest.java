@@ -0,0 +1,172 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rapports stockes en donnees structurees : encodage, relecture
+ * et rendu du texte a l'ouverture
+ */
+public class DonneesRapportTest {
+
+    private static final List<TotalCategorie> CATEGORIES = Arrays.asList(
+            new TotalCategorie("Loyer", 15000000L, 1),
+            new TotalCategorie("Nutrition", 4250050L, 37),
+            new TotalCategorie("Transport", 1200000L, 22),
+            new TotalCategorie("Sante", 0L, 0));
+
+    @Test
+    public void encoder_puisDecoder_memesValeurs() {
+        DonneesRapport relu = DonneesRapport.decoder(
+                new DonneesRapport(-123456L, CATEGORIES).encoder());
+
+        assertEquals(-123456L, relu.getTotalPrecedent());
+        assertEquals(CATEGORIES.size(), relu.getCategories().size());
+        for (int i = 0; i < CATEGORIES.size(); i++) {
+            assertEquals(CATEGORIES.get(i).getCategorie(), relu.getCategories().get(i).getCategorie());
+            assertEquals(CATEGORIES.get(i).getTotal(), relu.getCategories().get(i).getTotal());
+            assertEquals(CATEGORIES.get(i).getNombre(), relu.getCategories().get(i).getNombre());
+        }
+    }
+
+    @Test
+    public void encoder_sansCategorie() {
+        DonneesRapport relu = DonneesRapport.decoder(
+                new DonneesRapport(0L, new ArrayList<>()).encoder());
+        assertEquals(0, relu.getCategories().size());
+        assertFalse(relu.aComparaison());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decoder_versionInconnue() {
+        DonneesRapport.decoder(new byte[]{42, 0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decoder_blobTronque() {
+        byte[] complet = new DonneesRapport(1000L, CATEGORIES).encoder();
+        DonneesRapport.decoder(Arrays.copyOf(complet, complet.length - 3));
+    }
+
+    @Test
+    public void archiver_puisDecoder_memesValeursEtPlusPetit() {
+        byte[] brut = new DonneesRapport(18000000L, CATEGORIES).encoder();
+        byte[] archive = DonneesRapport.archiver(brut);
+
+        assertTrue(DonneesRapport.estArchive(archive));
+        assertTrue(archive.length + " octets contre " + brut.length, archive.length < brut.length);
+        assertArrayEquals(archive, DonneesRapport.archiver(archive));
+
+        DonneesRapport relu = DonneesRapport.decoder(archive);
+        assertEquals(18000000L, relu.getTotalPrecedent());
+        assertEquals(CATEGORIES.size(), relu.getCategories().size());
+        assertEquals("Nutrition", relu.getCategories().get(1).getCategorie());
+        assertEquals(4250050L, relu.getCategories().get(1).getTotal());
+    }
+
+    @Test
+    public void archiver_sansGain_blobGardeTelQuel() {
+        byte[] brut = new DonneesRapport(0L, new ArrayList<>()).encoder();
+        byte[] archive = DonneesRapport.archiver(brut);
+
+        assertEquals(brut.length + 2, archive.length);
+        assertEquals(0, DonneesRapport.decoder(archive).getCategories().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decoder_archiveTronquee() {
+        byte[] archive = DonneesRapport.archiver(new DonneesRapport(1000L, CATEGORIES).encoder());
+        DonneesRapport.decoder(Arrays.copyOf(archive, archive.length - 4));
+    }
+
+    @Test
+    public void archiverTexte_ancienRapportRenduTelQuel() {
+        String texte = RenduRapport.rendre(mensuel(new DonneesRapport(18000000L, CATEGORIES).encoder()));
+        byte[] archive = DonneesRapport.archiverTexte(texte);
+
+        assertTrue(DonneesRapport.estTexteArchive(archive));
+        assertFalse(DonneesRapport.estArchive(archive));
+        assertEquals(texte, DonneesRapport.texteArchive(archive));
+        int octetsTexte = texte.getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(archive.length + " octets contre " + octetsTexte, archive.length < octetsTexte);
+
+        // Ancien rapport : donnees = texte archive, rendu a l'identique
+        RapportEntity ancien = mensuel(archive);
+        assertEquals(texte, RenduRapport.rendre(ancien));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decoder_texteArchive_pasDesDonnees() {
+        DonneesRapport.decoder(DonneesRapport.archiverTexte("Ancien rapport"));
+    }
+
+    @Test
+    public void blob_bienPlusPetitQueLeTexte() {
+        RapportEntity rapport = mensuel(new DonneesRapport(18000000L, CATEGORIES).encoder());
+        int octetsTexte = RenduRapport.rendre(rapport).getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue(rapport.getDonnees().length + " octets contre " + octetsTexte,
+                rapport.getDonnees().length * 4 < octetsTexte);
+    }
+
+    @Test
+    public void rendre_mensuel() {
+        String texte = RenduRapport.rendre(mensuel(new DonneesRapport(18000000L, CATEGORIES).encoder()));
+
+        assertTrue(texte.startsWith("\uD83D\uDCCA RAPPORT MENSUEL\n"));
+        assertTrue(texte.contains("\uD83D\uDCC5 Mois : Mars 2025\n"));
+        assertTrue(texte.contains("Budget mensuel : 250000 FCFA\n"));
+        assertTrue(texte.contains("Depenses du mois : 204500,50 FCFA\n"));
+        assertTrue(texte.contains("\u2705 Surplus : 45499,50 FCFA\n"));
+        assertTrue(texte.contains("- Nutrition : 42500,50 FCFA\n"));
+        assertTrue(texte.contains("% vs mois precedent\n"));
+    }
+
+    @Test
+    public void encoder_avecPrevision_relueEtRendue() {
+        List<TotalCategorie> previsions = Arrays.asList(
+                new TotalCategorie("Loyer", 15000000L, 0),
+                new TotalCategorie("Nutrition", 9100000L, 0));
+        byte[] blob = new DonneesRapport(18000000L, CATEGORIES, 26500000L, previsions).encoder();
+        DonneesRapport relu = DonneesRapport.decoder(DonneesRapport.archiver(blob));
+
+        assertTrue(relu.aPrevision());
+        assertEquals(26500000L, relu.getTotalPrevu());
+        assertEquals(CATEGORIES.size(), relu.getCategories().size());
+        assertEquals("Nutrition", relu.getPrevisions().get(1).getCategorie());
+        assertEquals(9100000L, relu.getPrevisions().get(1).getTotal());
+        assertFalse(DonneesRapport.decoder(
+                new DonneesRapport(18000000L, CATEGORIES).encoder()).aPrevision());
+
+        String texte = RenduRapport.rendre(mensuel(blob));
+        assertTrue(texte.contains("Au rythme actuel : 265000 FCFA\n"));
+        assertTrue(texte.contains("\uD83D\uDEA8 Depassement prevu : 15000 FCFA\n"));
+        assertTrue(texte.endsWith("- Nutrition : 91000 FCFA\n"));
+    }
+
+    @Test
+    public void rendre_ancienRapport_texteTelQuel() {
+        RapportEntity ancien = mensuel(null);
+        ancien.setContenuRapport("Ancien texte");
+        assertEquals("Ancien texte", RenduRapport.rendre(ancien));
+    }
+
+    private static RapportEntity mensuel(byte[] donnees) {
+        long total = 20450050L;
+        return new RapportEntity(1, "MENSUEL", 0L, "31/03/2025 23:59",
+                31, 13, 3, 2025, 25000000L, total, 25000000L - total, 60,
+                donnees, Montant.pourcentage(total - 18000000L, 18000000L));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.SyntheseRapport;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * La fusion des rapports stockes doit donner les memes totaux qu'une
+ * lecture complete du resume, en ne relisant que les jours manquants.
+ */
+public class FusionRapportsTest {
+
+    private static final String[] CATEGORIES = {"Nutrition", "Loyer", "Transport", "Loisirs", "Sante"};
+
+    // Mars 2026 : lundi 2, 9, 16, 23 et 30
+    private static final int DEBUT_MOIS = Periodes.debutMois(2026, 3);
+    private static final int FIN_MOIS = Periodes.finMois(2026, 3);
+
+    private final List<ResumeJourEntity> lignes = new ArrayList<>();
+    private int lectures;
+    private int joursLus;
+
+    public FusionRapportsTest() {
+        Random aleatoire = new Random(11);
+        for (int jour = DEBUT_MOIS - 7; jour < FIN_MOIS + 7; jour++) {
+            for (String categorie : CATEGORIES) {
+                if (aleatoire.nextInt(3) > 0) {
+                    lignes.add(new ResumeJourEntity(1, jour, categorie,
+                            100 + aleatoire.nextInt(500_000), 1 + aleatoire.nextInt(5)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void moisAvecSemainesEtJours_egalLectureComplete() {
+        List<SyntheseRapport> syntheses = new ArrayList<>();
+        // Semaines entierement dans le mois
+        for (int lundi = Periodes.epochDay(2026, 3, 2); lundi + 7 <= FIN_MOIS; lundi += 7) {
+            syntheses.add(synthese(lundi, lundi + 7));
+        }
+        // Jours du debut et de la fin du mois (hors semaines completes)
+        syntheses.add(synthese(DEBUT_MOIS, DEBUT_MOIS + 1));
+        syntheses.add(synthese(FIN_MOIS - 2, FIN_MOIS - 1));
+
+        AgregatsRapport.Periode mois = FusionRapports.fusionner(
+                syntheses, DEBUT_MOIS, FIN_MOIS, true, this::lire);
+
+        verifier(mois, DEBUT_MOIS, FIN_MOIS);
+        // Seul le dernier jour n'est couvert par aucune synthese
+        assertEquals(1, lectures);
+        assertEquals(1, joursLus);
+    }
+
+    @Test
+    public void synthesesQuiSeChevauchent_uneSeuleRetenue() {
+        int lundi = Periodes.epochDay(2026, 3, 9);
+        List<SyntheseRapport> syntheses = new ArrayList<>();
+        syntheses.add(synthese(lundi, lundi + 7));
+        // Rapport journalier d'un jour deja couvert par la semaine
+        syntheses.add(synthese(lundi + 2, lundi + 3));
+
+        AgregatsRapport.Periode semaine = FusionRapports.fusionner(
+                syntheses, lundi, lundi + 7, true, this::lire);
+
+        verifier(semaine, lundi, lundi + 7);
+        assertEquals(0, lectures);
+    }
+
+    @Test
+    public void sansSynthese_lectureCompleteUneFois() {
+        AgregatsRapport.Periode mois = FusionRapports.fusionner(
+                new ArrayList<>(), DEBUT_MOIS, FIN_MOIS, true, this::lire);
+
+        verifier(mois, DEBUT_MOIS, FIN_MOIS);
+        assertEquals(1, lectures);
+        assertEquals(FIN_MOIS - DEBUT_MOIS, joursLus);
+    }
+
+    @Test
+    public void syntheseHorsPeriodeOuIllisible_ignoree() {
+        int lundi = Periodes.epochDay(2026, 3, 30);  // Semaine a cheval sur avril
+        List<SyntheseRapport> syntheses = new ArrayList<>();
+        syntheses.add(synthese(lundi, lundi + 7));
+        syntheses.add(new SyntheseRapport(DEBUT_MOIS, DEBUT_MOIS + 1, 999, 1, new byte[]{42}));
+
+        AgregatsRapport.Periode mois = FusionRapports.fusionner(
+                syntheses, DEBUT_MOIS, FIN_MOIS, true, this::lire);
+
+        verifier(mois, DEBUT_MOIS, FIN_MOIS);
+    }
+
+    // ========== OUTILS ==========
+
+    private List<ResumeJourEntity> lire(int debut, int fin) {
+        lectures++;
+        joursLus += fin - debut;
+        List<ResumeJourEntity> resultat = new ArrayList<>();
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                resultat.add(l);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Rapport stocke sur [debut, fin[, calcule directement sur les lignes
+     */
+    private SyntheseRapport synthese(int debut, int fin) {
+        AgregateurCategories categories = new AgregateurCategories();
+        long total = 0;
+        int nombre = 0;
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                categories.ajouter(l.getCategorie(), l.getTotal(), l.getNombre());
+                total += l.getTotal();
+                nombre += l.getNombre();
+            }
+        }
+        return new SyntheseRapport(debut, fin, total, nombre,
+                new DonneesRapport(0, categories.getCategories()).encoder());
+    }
+
+    private void verifier(AgregatsRapport.Periode periode, int debut, int fin) {
+        AgregateurCategories attendu = new AgregateurCategories();
+        long total = 0;
+        int nombre = 0;
+        for (ResumeJourEntity l : lignes) {
+            if (l.getEpochDay() >= debut && l.getEpochDay() < fin) {
+                attendu.ajouter(l.getCategorie(), l.getTotal(), l.getNombre());
+                total += l.getTotal();
+                nombre += l.getNombre();
+            }
+        }
+        assertEquals(total, periode.getTotal());
+        assertEquals(nombre, periode.getNombre());
+
+        List<TotalCategorie> categories = periode.getCategories();
+        List<TotalCategorie> categoriesAttendues = attendu.getCategories();
+        assertEquals(categoriesAttendues.size(), categories.size());
+        for (int i = 0; i < categories.size(); i++) {
+            assertEquals(categoriesAttendues.get(i).getCategorie(), categories.get(i).getCategorie());
+            assertEquals(categoriesAttendues.get(i).getTotal(), categories.get(i).getTotal());
+            assertEquals(categoriesAttendues.get(i).getNombre(), categories.get(i).getNombre());
+        }
+    }
+}
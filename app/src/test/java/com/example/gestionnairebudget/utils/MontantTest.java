@@ -0,0 +1,56 @@
+package com.example.gestionnairebudget.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Montants en centimes : saisie, arithmetique et affichage
+ */
+public class MontantTest {
+
+    @Test
+    public void analyser_saisiesUsuelles() {
+        assertEquals(1250000L, Montant.analyser("12500").getCentimes());
+        assertEquals(1250050L, Montant.analyser("12500,5").getCentimes());
+        assertEquals(1250050L, Montant.analyser("12 500.50").getCentimes());
+        assertEquals(1L, Montant.analyser("0,005").getCentimes());  // Arrondi
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void analyser_texteInvalide() {
+        Montant.analyser("douze");
+    }
+
+    @Test
+    public void sommes_exactes() {
+        // 0,10 ajoute 10 fois : exactement 1,00 (en double : 0.9999999999999999)
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            total += Montant.analyser("0,10").getCentimes();
+        }
+        assertEquals(100L, total);
+    }
+
+    @Test
+    public void diviser_arrondiAuPlusProche() {
+        assertEquals(3333L, Montant.diviser(10000, 3));
+        assertEquals(6667L, Montant.diviser(20000, 3));
+        assertEquals(-6667L, Montant.diviser(-20000, 3));
+    }
+
+    @Test
+    public void part_etPourcentage() {
+        assertEquals(1500000L, Montant.part(10000000, 15.0));
+        assertEquals(25.0, Montant.pourcentage(250, 1000), 1e-9);
+        assertEquals(0.0, Montant.pourcentage(250, 0), 1e-9);
+    }
+
+    @Test
+    public void formater_centimesSeulementSiPresents() {
+        assertEquals("12500", Montant.formater(1250000));
+        assertEquals("12500,50", Montant.formater(1250050));
+        assertEquals("-0,05", Montant.formater(-5));
+        assertEquals("12500,50 FCFA", Montant.centimes(1250050).toString());
+    }
+}
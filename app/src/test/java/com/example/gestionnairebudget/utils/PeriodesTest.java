@@ -0,0 +1,125 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plages de jours : conversion epochDay <-> date, bornes des
+ * trimestres et rendu d'un rapport "PLAGE"
+ */
+public class PeriodesTest {
+
+    @Test
+    public void date_inverseDeEpochDay() {
+        GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        cal.clear();
+        cal.set(1900, Calendar.JANUARY, 1);
+        int precedent = Periodes.epochDay(cal) - 1;
+
+        // Tous les jours de 1900 a 2100 (annees bissextiles comprises)
+        while (cal.get(Calendar.YEAR) < 2100) {
+            int jour = Periodes.epochDay(cal);
+            assertEquals(precedent + 1, jour);
+            assertArrayEquals(new int[]{cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1,
+                    cal.get(Calendar.DAY_OF_MONTH)}, Periodes.date(jour));
+            precedent = jour;
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        assertArrayEquals(new int[]{1970, 1, 1}, Periodes.date(0));
+    }
+
+    @Test
+    public void semaine_duLundi_memeEnLocaleUS() {
+        Locale avant = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+        try {
+            Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.US);
+            assertEquals(Calendar.SUNDAY, cal.getFirstDayOfWeek());
+
+            // Dimanche 08/03/2026 : semaine du lundi 02/03, ISO 10
+            cal.clear();
+            cal.set(2026, Calendar.MARCH, 8);
+            assertEquals(Periodes.epochDay(2026, 3, 2), Periodes.debutSemaine(cal));
+            assertEquals(10, Periodes.numeroSemaine(cal));
+
+            // Lundi 09/03/2026 : nouvelle semaine
+            cal.set(2026, Calendar.MARCH, 9);
+            assertEquals(Periodes.epochDay(2026, 3, 9), Periodes.debutSemaine(cal));
+            assertEquals(11, Periodes.numeroSemaine(cal));
+
+            // Semaines a cheval sur deux annees
+            assertEquals(1, Periodes.numeroSemaine(Periodes.epochDay(2024, 12, 30)));
+            assertEquals(53, Periodes.numeroSemaine(Periodes.epochDay(2027, 1, 1)));
+            assertEquals(52, Periodes.numeroSemaine(Periodes.epochDay(2023, 1, 1)));
+        } finally {
+            Locale.setDefault(avant);
+        }
+    }
+
+    @Test
+    public void numeroSemaine_commeCalendarIso() {
+        GregorianCalendar iso = new GregorianCalendar(TimeZone.getTimeZone("UTC"), Locale.US);
+        iso.setFirstDayOfWeek(Calendar.MONDAY);
+        iso.setMinimalDaysInFirstWeek(4);
+        iso.clear();
+        iso.set(1990, Calendar.JANUARY, 1);
+
+        while (iso.get(Calendar.YEAR) < 2060) {
+            int jour = Periodes.epochDay(iso);
+            assertEquals(iso.getTime().toString(), iso.get(Calendar.WEEK_OF_YEAR),
+                    Periodes.numeroSemaine(jour));
+            assertEquals(jour - (iso.get(Calendar.DAY_OF_WEEK) + 5) % 7,
+                    Periodes.debutSemaine(iso));
+            iso.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    @Test
+    public void ajouterDate_formatJourMoisAnnee() {
+        StringBuilder sb = new StringBuilder();
+        Periodes.ajouterDate(sb, Periodes.epochDay(2026, 3, 5)).append(' ');
+        Periodes.ajouterDate(sb, Periodes.epochDay(2024, 12, 31));
+        assertEquals("05/03/2026 31/12/2024", sb.toString());
+    }
+
+    @Test
+    public void trimestre_bornes() {
+        assertEquals(Periodes.epochDay(2026, 4, 1), Periodes.debutTrimestre(2026, 5));
+        assertEquals(Periodes.epochDay(2026, 7, 1), Periodes.finTrimestre(2026, 5));
+        assertEquals(Periodes.epochDay(2026, 10, 1), Periodes.debutTrimestre(2026, 12));
+        assertEquals(Periodes.epochDay(2027, 1, 1), Periodes.finTrimestre(2026, 12));
+        assertEquals(90, Periodes.finTrimestre(2026, 1) - Periodes.debutTrimestre(2026, 1));
+    }
+
+    @Test
+    public void rapportPlage_rendDatesEtMoyenne() {
+        int debut = Periodes.epochDay(2026, 2, 15);
+        int fin = Periodes.epochDay(2026, 3, 17);  // 30 jours
+        RapportEntity r = new RapportEntity(1, "PLAGE", 0L, "17/03/2026 09:00",
+                15, 7, 2, 2026, 25000000L, 3000000L, 22000000L, 4,
+                new DonneesRapport(0, Arrays.asList(
+                        new TotalCategorie("Nutrition", 3000000L, 4))).encoder(),
+                0.0);
+        r.setDebutPeriode(debut);
+        r.setFinPeriode(fin);
+
+        String texte = RenduRapport.rendre(r);
+        assertTrue(texte, texte.startsWith("\uD83D\uDCCA RAPPORT PERSONNALISE\n"));
+        assertTrue(texte, texte.contains("Du 15/02/2026 au 16/03/2026 (30 jours)\n"));
+        assertTrue(texte, texte.contains("Moyenne journaliere : "
+                + Montant.formater(100000L) + " FCFA\n"));
+        assertTrue(texte, texte.contains("- Nutrition : "));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.DeclencheursPrevisions;
+import com.example.gestionnairebudget.database.PrevisionCategorieEntity;
+import com.example.gestionnairebudget.database.SaisonCategorieEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Prevision de fin de mois a partir de l'etat tenu par les triggers
+ * (reproduit ici avec la meme regle que DeclencheursPrevisions)
+ */
+public class PrevisionDepensesTest {
+
+    // Mardi 10 mars 2026 : 21 jours restent apres aujourd'hui
+    private static final int AUJOURDHUI = Periodes.epochDay(2026, 3, 10);
+    private static final int FIN_MOIS = Periodes.finMois(2026, 3);
+
+    private final List<PrevisionCategorieEntity> etats = new ArrayList<>();
+    private final List<SaisonCategorieEntity> saisons = new ArrayList<>();
+
+    @Test
+    public void rythmeConstant_previsionLineaire() {
+        for (int jour = AUJOURDHUI - 60; jour < AUJOURDHUI; jour++) {
+            depenser("Nutrition", jour, 1000);
+        }
+        depenser("Nutrition", AUJOURDHUI, 400);
+
+        assertEquals(1000.0, PrevisionDepenses.vitesse(etats.get(0), AUJOURDHUI), 1e-6);
+
+        // 9 jours a 1000 + 400 aujourd'hui, puis 600 d'ici ce soir et 21 jours a 1000
+        PrevisionDepenses.Prevision p = prevoir(9400).get(0);
+        assertEquals(9400, p.getDepense());
+        assertEquals(31000, p.getPrevue(), 31000 * 0.01);
+        assertEquals(1000, p.getDepassement(30000), 31000 * 0.01);
+        assertEquals(0, p.getDepassement(40000));
+    }
+
+    @Test
+    public void loyerLePremier_pasDeNouveauLoyerAvantLeMoisSuivant() {
+        for (int mois = 3; mois <= 15; mois++) {
+            int annee = mois > 12 ? 2026 : 2025;
+            depenser("Loyer", Periodes.debutMois(annee, (mois - 1) % 12 + 1), 15000000);
+        }
+
+        PrevisionDepenses.Prevision p = prevoir(15000000).get(0);
+        assertEquals(15000000, p.getPrevue());
+        assertEquals(15000000, PrevisionDepenses.totalPrevu(15000000,
+                Collections.singletonList(p)));
+    }
+
+    @Test
+    public void historiqueCourt_depensesDuMoisSeulement() {
+        for (int jour = AUJOURDHUI - 3; jour <= AUJOURDHUI; jour++) {
+            depenser("Loisirs", jour, 5000);
+        }
+
+        PrevisionDepenses.Prevision p = prevoir(20000).get(0);
+        assertEquals(0.0, p.getVitesse(), 0.0);
+        assertEquals(20000, p.getPrevue());
+    }
+
+    @Test
+    public void previsions_parTotalPrevuDecroissant() {
+        for (int jour = AUJOURDHUI - 30; jour < AUJOURDHUI; jour++) {
+            depenser("Transport", jour, 200);
+            depenser("Nutrition", jour, 3000);
+        }
+
+        List<PrevisionDepenses.Prevision> previsions = prevoir(0);
+        assertEquals("Nutrition", previsions.get(0).getCategorie());
+        assertEquals("Transport", previsions.get(1).getCategorie());
+        assertEquals(2, PrevisionDepenses.totaux(previsions).size());
+    }
+
+    @Test
+    public void occurrences_joursDuMoisSurUneAnnee() {
+        int[] occurrences = PrevisionDepenses.occurrences(
+                Periodes.epochDay(2024, 1, 1), Periodes.epochDay(2025, 1, 1));
+
+        assertEquals(12, occurrences[1]);
+        assertEquals(12, occurrences[29]);  // 2024 est bissextile
+        assertEquals(11, occurrences[30]);
+        assertEquals(7, occurrences[31]);
+    }
+
+    // ========== OUTILS ==========
+
+    private List<PrevisionDepenses.Prevision> prevoir(long depenseMois) {
+        List<TotalCategorie> mois = new ArrayList<>();
+        if (depenseMois > 0) {
+            mois.add(new TotalCategorie(etats.get(0).getCategorie(), depenseMois, 1));
+        }
+        return PrevisionDepenses.prevoir(etats, saisons, mois, AUJOURDHUI, FIN_MOIS);
+    }
+
+    /**
+     * Meme mise a jour que les triggers de DeclencheursPrevisions
+     */
+    private void depenser(String categorie, int jour, long montant) {
+        double r = DeclencheursPrevisions.RETENTION;
+        double alpha = DeclencheursPrevisions.ALPHA;
+        PrevisionCategorieEntity etat = null;
+        for (PrevisionCategorieEntity e : etats) {
+            if (e.getCategorie().equals(categorie)) {
+                etat = e;
+            }
+        }
+        if (etat == null) {
+            etat = new PrevisionCategorieEntity(1, categorie, jour, jour, 0, 0);
+            etats.add(etat);
+        }
+
+        if (jour > etat.getJourCourant()) {
+            etat.setVitesse((alpha * etat.getTotalJour() + r * etat.getVitesse())
+                    * Math.pow(r, jour - 1 - etat.getJourCourant()));
+            etat.setTotalJour(montant);
+            etat.setJourCourant(jour);
+        } else if (jour < etat.getJourCourant()) {
+            etat.setVitesse(etat.getVitesse()
+                    + alpha * montant * Math.pow(r, etat.getJourCourant() - 1 - jour));
+        } else {
+            etat.setTotalJour(etat.getTotalJour() + montant);
+        }
+        etat.setPremierJour(Math.min(etat.getPremierJour(), jour));
+
+        int jourMois = Periodes.date(jour)[2];
+        saisons.add(new SaisonCategorieEntity(1, categorie, jourMois, montant));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.gestionnairebudget.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Passage quotidien des rapports : delai jusqu'a 23h59 et periodes
+ * qui se terminent le jour du passage
+ */
+public class RapportSchedulerTest {
+
+    @Test
+    public void avant2359_passageLeSoirMeme() {
+        assertEquals((60 + 59) * 60_000L,
+                RapportScheduler.delaiJusquauPassage(calendrier(2026, 3, 10, 22, 0, 0)));
+    }
+
+    @Test
+    public void passageEnCours_passageLeLendemain() {
+        assertEquals(24 * 3_600_000L - 30_000L,
+                RapportScheduler.delaiJusquauPassage(calendrier(2026, 3, 10, 23, 59, 30)));
+        assertEquals(24 * 3_600_000L,
+                RapportScheduler.delaiJusquauPassage(calendrier(2026, 3, 10, 23, 59, 0)));
+    }
+
+    @Test
+    public void periodesTerminees_selonLeJour() {
+        // Mardi 10 mars 2026
+        assertEquals(Collections.singletonList("JOURNALIER"),
+                RapportScheduler.periodesTerminees(calendrier(2026, 3, 10, 23, 59, 0)));
+        // Dimanche 29 mars 2026 : fin de semaine
+        assertEquals(Arrays.asList("JOURNALIER", "HEBDOMADAIRE"),
+                RapportScheduler.periodesTerminees(calendrier(2026, 3, 29, 23, 59, 0)));
+        // Mardi 31 mars 2026 : fin de mois
+        assertEquals(Arrays.asList("JOURNALIER", "MENSUEL"),
+                RapportScheduler.periodesTerminees(calendrier(2026, 3, 31, 23, 59, 0)));
+        // Dimanche 31 janvier 2027 : les trois
+        assertEquals(Arrays.asList("JOURNALIER", "HEBDOMADAIRE", "MENSUEL"),
+                RapportScheduler.periodesTerminees(calendrier(2027, 1, 31, 23, 59, 0)));
+    }
+
+    /**
+     * Semaine du lundi au dimanche, quelle que soit la locale de la JVM
+     */
+    private static Calendar calendrier(int annee, int mois, int jour,
+                                       int heure, int minute, int seconde) {
+        Calendar cal = Calendar.getInstance();
+        cal.setFirstDayOfWeek(Calendar.MONDAY);
+        cal.clear();
+        cal.set(annee, mois - 1, jour, heure, minute, seconde);
+        return cal;
+    }
+}
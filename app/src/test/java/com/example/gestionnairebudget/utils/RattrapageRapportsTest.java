@@ -0,0 +1,168 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ResumeJourEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rattrapage : periodes manquantes contigues et completes, lots pris
+ * dans l'ordre des periodes, et agregation parallele identique a un
+ * calcul direct
+ */
+public class RattrapageRapportsTest {
+
+    private static final String[] CATEGORIES = {"Nutrition", "Loyer", "Transport", "Loisirs", "Sante"};
+
+    @Test
+    public void journalier_chaqueJourJusquaHier() {
+        int aujourdhui = Periodes.epochDay(2026, 3, 10);
+        List<RattrapageRapports.PeriodeManquante> jours =
+                RattrapageRapports.periodesManquantes("JOURNALIER", aujourdhui - 5, aujourdhui);
+
+        assertEquals(5, jours.size());
+        for (int i = 0; i < jours.size(); i++) {
+            assertEquals(aujourdhui - 5 + i, jours.get(i).debut);
+            assertEquals(jours.get(i).debut + 1, jours.get(i).fin);
+            assertEquals(jours.get(i).debut - 1, jours.get(i).debutComparaison);
+        }
+    }
+
+    @Test
+    public void hebdomadaire_semainesCompletesSeulement() {
+        int depuis = Periodes.epochDay(2026, 3, 4);
+        int aujourdhui = Periodes.epochDay(2026, 4, 15);
+        List<RattrapageRapports.PeriodeManquante> semaines =
+                RattrapageRapports.periodesManquantes("HEBDOMADAIRE", depuis, aujourdhui);
+
+        assertTrue(semaines.size() >= 4);
+        assertTrue(semaines.get(0).debut >= depuis);
+        assertTrue(semaines.get(0).debut < depuis + 7);
+        for (int i = 0; i < semaines.size(); i++) {
+            RattrapageRapports.PeriodeManquante s = semaines.get(i);
+            assertEquals(s.debut + 7, s.fin);
+            assertEquals(s.debut - 7, s.debutComparaison);
+            assertTrue(s.fin <= aujourdhui);
+            if (i > 0) {
+                assertEquals(semaines.get(i - 1).fin, s.debut);
+            }
+        }
+        assertTrue(semaines.get(semaines.size() - 1).fin + 7 > aujourdhui);
+    }
+
+    @Test
+    public void mensuel_aChevalSurLAnnee() {
+        List<RattrapageRapports.PeriodeManquante> mois = RattrapageRapports.periodesManquantes(
+                "MENSUEL", Periodes.debutMois(2025, 11), Periodes.epochDay(2026, 2, 20));
+
+        assertEquals(3, mois.size());
+        assertEquals(Periodes.debutMois(2025, 10), mois.get(0).debutComparaison);
+        assertEquals(Periodes.debutMois(2025, 12), mois.get(1).debut);
+        assertEquals(Periodes.debutMois(2025, 12), mois.get(2).debutComparaison);
+        assertEquals(Periodes.finMois(2026, 1), mois.get(2).fin);
+    }
+
+    @Test
+    public void lot_periodesLesPlusAnciennesDAbord() {
+        int depuis = Periodes.debutMois(2026, 1);
+        int aujourdhui = Periodes.epochDay(2026, 3, 10);
+
+        List<RattrapageRapports.PeriodeManquante> periodes = new ArrayList<>();
+        periodes.addAll(RattrapageRapports.periodesManquantes("MENSUEL", depuis, aujourdhui));
+        periodes.addAll(RattrapageRapports.periodesManquantes("HEBDOMADAIRE", depuis, aujourdhui));
+        periodes.addAll(RattrapageRapports.periodesManquantes("JOURNALIER", depuis, aujourdhui));
+
+        List<RattrapageRapports.PeriodeManquante> lot = RattrapageRapports.premieres(periodes, 31);
+        assertEquals(31, lot.size());
+        // Janvier est complet : ses jours, puis le mois lui-meme
+        assertEquals("JOURNALIER", lot.get(0).typeRapport);
+        assertEquals(depuis, lot.get(0).debut);
+        for (int i = 1; i < lot.size(); i++) {
+            assertTrue(lot.get(i - 1).fin <= lot.get(i).fin);
+        }
+
+        // Chaque type : le debut de sa suite de periodes, sans trou
+        for (String type : new String[]{"JOURNALIER", "HEBDOMADAIRE", "MENSUEL"}) {
+            int attendu = -1;
+            for (RattrapageRapports.PeriodeManquante p : lot) {
+                if (p.typeRapport.equals(type)) {
+                    if (attendu >= 0) {
+                        assertEquals(attendu, p.debut);
+                    }
+                    attendu = p.fin;
+                }
+            }
+        }
+
+        assertEquals(periodes.size(), RattrapageRapports.premieres(periodes, 1000).size());
+    }
+
+    @Test
+    public void agregationParallele_egaleCalculDirect() {
+        int debut = Periodes.epochDay(2025, 6, 1);
+        int aujourdhui = Periodes.epochDay(2026, 3, 10);
+
+        List<RattrapageRapports.PeriodeManquante> periodes = new ArrayList<>();
+        periodes.addAll(RattrapageRapports.periodesManquantes("JOURNALIER", aujourdhui - 90, aujourdhui));
+        periodes.addAll(RattrapageRapports.periodesManquantes("HEBDOMADAIRE", debut, aujourdhui));
+        periodes.addAll(RattrapageRapports.periodesManquantes("MENSUEL", debut, aujourdhui));
+
+        int debutLecture = Integer.MAX_VALUE;
+        int finLecture = Integer.MIN_VALUE;
+        for (RattrapageRapports.PeriodeManquante p : periodes) {
+            debutLecture = Math.min(debutLecture, p.debutComparaison);
+            finLecture = Math.max(finLecture, p.fin);
+        }
+
+        Random aleatoire = new Random(19);
+        List<ResumeJourEntity> lignes = new ArrayList<>();
+        for (int jour = debutLecture; jour < finLecture; jour++) {
+            for (String categorie : CATEGORIES) {
+                if (aleatoire.nextInt(3) > 0) {
+                    lignes.add(new ResumeJourEntity(1, jour, categorie,
+                            100 + aleatoire.nextInt(500_000), 1 + aleatoire.nextInt(5)));
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(RattrapageRapports.TAILLE_POOL);
+        try {
+            RattrapageRapports.agreger(lignes, debutLecture, finLecture, periodes, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (RattrapageRapports.PeriodeManquante p : periodes) {
+            AgregateurCategories attendu = new AgregateurCategories();
+            long total = 0;
+            long totalPrecedent = 0;
+            for (ResumeJourEntity l : lignes) {
+                if (l.getEpochDay() >= p.debut && l.getEpochDay() < p.fin) {
+                    attendu.ajouter(l.getCategorie(), l.getTotal(), l.getNombre());
+                    total += l.getTotal();
+                } else if (l.getEpochDay() >= p.debutComparaison && l.getEpochDay() < p.debut) {
+                    totalPrecedent += l.getTotal();
+                }
+            }
+            assertEquals(total, p.periode.getTotal());
+            assertEquals(totalPrecedent, p.precedente.getTotal());
+
+            List<TotalCategorie> categories = p.periode.getCategories();
+            List<TotalCategorie> categoriesAttendues = attendu.getCategories();
+            assertEquals(categoriesAttendues.size(), categories.size());
+            for (int i = 0; i < categories.size(); i++) {
+                assertEquals(categoriesAttendues.get(i).getCategorie(), categories.get(i).getCategorie());
+                assertEquals(categoriesAttendues.get(i).getTotal(), categories.get(i).getTotal());
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.RapportEntity;
+import com.example.gestionnairebudget.database.TotalCategorie;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Micro-benchmark d'allocation (a la maniere de JMH : echauffement,
+ * puis mesure sur N rendus) : octets alloues par rapport mensuel rendu
+ * - avant : StringBuilder neuf, String.format, SimpleDateFormat par appel
+ * - apres : gabarit compile + tampon reutilise (RenduRapport)
+ */
+public class RenduRapportAllocationTest {
+
+    private static final int ECHAUFFEMENT = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    private static final List<TotalCategorie> CATEGORIES = Arrays.asList(
+            new TotalCategorie("Loyer", 15000000L, 1),
+            new TotalCategorie("Nutrition", 4250050L, 37),
+            new TotalCategorie("Transport", 1200000L, 22),
+            new TotalCategorie("Internet", 1500000L, 1),
+            new TotalCategorie("Loisirs", 950000L, 9));
+
+    private static final long TOTAL_PRECEDENT = 18000000L;
+
+    @Test
+    public void gabaritIdentiqueAuRenduHistorique() {
+        RapportEntity r = rapport();
+        assertEquals(ancienRendu(r), RenduRapport.rendre(r));
+
+        r.setSurplus(-1234550L);
+        r.setEvolutionParRapportPeriodePrecedente(-12.34);
+        assertEquals(ancienRendu(r), RenduRapport.rendre(r));
+    }
+
+    @Test
+    public void gabaritAlloueBienMoins() {
+        Object bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("Mesure d'allocation indisponible sur cette JVM",
+                bean instanceof ThreadMXBean);
+        ThreadMXBean mesure = (ThreadMXBean) bean;
+        assumeTrue(mesure.isThreadAllocatedMemorySupported());
+        mesure.setThreadAllocatedMemoryEnabled(true);
+
+        RapportEntity r = rapport();
+        StringBuilder tampon = new StringBuilder(1024);
+        long puits = 0;  // Empeche l'elimination du code mort
+
+        for (int i = 0; i < ECHAUFFEMENT; i++) {
+            puits += ancienRendu(r).length();
+            tampon.setLength(0);
+            RenduRapport.rendre(r, tampon);
+            puits += tampon.length();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long debut = mesure.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            puits += ancienRendu(r).length();
+        }
+        long avant = (mesure.getThreadAllocatedBytes(thread) - debut) / ITERATIONS;
+
+        debut = mesure.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            tampon.setLength(0);
+            RenduRapport.rendre(r, tampon);
+            puits += tampon.length();
+        }
+        long apres = (mesure.getThreadAllocatedBytes(thread) - debut) / ITERATIONS;
+
+        assertTrue("Le gabarit devrait allouer au moins 4 fois moins ("
+                + apres + " octets contre " + avant + ", controle " + puits + ")",
+                apres * 4 < avant);
+    }
+
+    private static RapportEntity rapport() {
+        long maintenant = 1743461940000L;
+        long total = 22900050L;
+        long budget = 25000000L;
+        return new RapportEntity(1, "MENSUEL", maintenant,
+                new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault())
+                        .format(new Date(maintenant)),
+                31, 13, 3, 2025, budget, total, budget - total, 70,
+                new DonneesRapport(TOTAL_PRECEDENT, CATEGORIES).encoder(),
+                Montant.pourcentage(total - TOTAL_PRECEDENT, TOTAL_PRECEDENT));
+    }
+
+    /**
+     * Rendu mensuel tel que le faisait RapportGenerator
+     */
+    private static String ancienRendu(RapportEntity r) {
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+        String[] noms = {
+                "Janvier", "Fevrier", "Mars", "Avril", "Mai", "Juin",
+                "Juillet", "Aout", "Septembre", "Octobre", "Novembre", "Decembre"
+        };
+
+        StringBuilder rapport = new StringBuilder();
+        rapport.append("\uD83D\uDCCA RAPPORT MENSUEL\n");
+        rapport.append("================================\n");
+        rapport.append("\uD83D\uDCC5 Mois : ")
+                .append(noms[r.getMois() - 1]).append(" ").append(r.getAnnee()).append("\n");
+        rapport.append("\uD83D\uDCC5 Genere le : ")
+                .append(sdf.format(new Date(r.getDateCreation()))).append("\n\n");
+
+        rapport.append("\uD83D\uDCB0 RESUME FINANCIER\n");
+        rapport.append("Budget mensuel : ")
+                .append(Montant.formater(r.getBudgetTotal())).append(" FCFA\n");
+        rapport.append("Depenses du mois : ")
+                .append(Montant.formater(r.getDepensesTotales())).append(" FCFA\n");
+        if (r.getSurplus() >= 0) {
+            rapport.append("\u2705 Surplus : ")
+                    .append(Montant.formater(r.getSurplus())).append(" FCFA\n");
+        } else {
+            rapport.append("\u274C Deficit : ")
+                    .append(Montant.formater(Math.abs(r.getSurplus()))).append(" FCFA\n");
+        }
+        rapport.append("Budget utilise : ")
+                .append(String.format("%.1f",
+                        Montant.pourcentage(r.getDepensesTotales(), r.getBudgetTotal())))
+                .append("%\n");
+
+        double evolution = r.getEvolutionParRapportPeriodePrecedente();
+        rapport.append("\n\uD83D\uDCCA EVOLUTION\n");
+        if (evolution > 0) {
+            rapport.append("\uD83D\uDCC8 +").append(String.format("%.1f", evolution))
+                    .append("% vs mois precedent\n");
+        } else if (evolution < 0) {
+            rapport.append("\uD83D\uDCC9 ").append(String.format("%.1f", evolution))
+                    .append("% vs mois precedent\n");
+        }
+
+        rapport.append("\n\uD83D\uDCDD DETAILS\n");
+        rapport.append("Transactions : ").append(r.getNombreDepenses()).append("\n");
+        rapport.append("Moyenne journaliere : ")
+                .append(Montant.formater(Montant.diviser(r.getDepensesTotales(), 30)))
+                .append(" FCFA\n");
+
+        rapport.append("\n\uD83D\uDCB3 PAR CATEGORIE\n");
+        StringBuilder resultat = new StringBuilder();
+        for (TotalCategorie t : CATEGORIES) {
+            resultat.append("- ").append(t.getCategorie()).append(" : ")
+                    .append(Montant.formater(t.getTotal())).append(" FCFA\n");
+        }
+        rapport.append(resultat.toString());
+        return rapport.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.gestionnairebudget.utils;
+
+import com.example.gestionnairebudget.database.ExecutionWorkerEntity;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Telemetrie des Workers : percentiles au rang le plus proche, par
+ * type de passage, sur les executions reussies seulement
+ */
+public class StatistiquesExecutionsTest {
+
+    @Test
+    public void percentile_rangLePlusProche() {
+        long[] cent = new long[100];
+        for (int i = 0; i < cent.length; i++) {
+            cent[i] = i + 1;
+        }
+        assertEquals(50, StatistiquesExecutions.percentile(cent, 50));
+        assertEquals(95, StatistiquesExecutions.percentile(cent, 95));
+        assertEquals(100, StatistiquesExecutions.percentile(cent, 100));
+
+        assertEquals(7, StatistiquesExecutions.percentile(new long[]{7}, 95));
+        assertEquals(0, StatistiquesExecutions.percentile(new long[0], 50));
+    }
+
+    @Test
+    public void resumer_toutesPuisParType() {
+        List<ExecutionWorkerEntity> executions = new ArrayList<>();
+        // Ordre quelconque : les mesures sont triees
+        for (int i = 20; i >= 1; i--) {
+            executions.add(execution("JOURNALIER", i * 10, ExecutionWorkerEntity.SUCCES));
+        }
+        executions.add(execution("JOURNALIER,MENSUEL", 5000, ExecutionWorkerEntity.SUCCES));
+        // Echecs et arrets : durees partielles, ignorees
+        executions.add(execution("JOURNALIER", 90_000, ExecutionWorkerEntity.ERREUR));
+        executions.add(execution("JOURNALIER", 80_000, ExecutionWorkerEntity.ARRETE));
+
+        List<StatistiquesExecutions.Resume> resumes = StatistiquesExecutions.resumer(executions);
+        assertEquals(3, resumes.size());
+
+        StatistiquesExecutions.Resume tous = resumes.get(0);
+        assertEquals(StatistiquesExecutions.TOUS, tous.getTypeRapport());
+        assertEquals(21, tous.getNombre());
+        assertEquals(5000, tous.getDuree().getMax());
+
+        StatistiquesExecutions.Resume journalier = resumes.get(1);
+        assertEquals("JOURNALIER", journalier.getTypeRapport());
+        assertEquals(20, journalier.getNombre());
+        assertEquals(100, journalier.getDuree().getP50());
+        assertEquals(190, journalier.getDuree().getP95());
+        assertEquals(200, journalier.getDuree().getMax());
+        assertEquals(20, journalier.getLignes().getMax());
+
+        assertEquals("JOURNALIER,MENSUEL", resumes.get(2).getTypeRapport());
+        assertEquals(1, resumes.get(2).getNombre());
+    }
+
+    @Test
+    public void resumer_sansSucces_vide() {
+        List<ExecutionWorkerEntity> executions = new ArrayList<>();
+        executions.add(execution("JOURNALIER", 10, ExecutionWorkerEntity.ECHEC));
+        assertTrue(StatistiquesExecutions.resumer(executions).isEmpty());
+        assertTrue(executions.get(0).estEchec());
+    }
+
+    private static ExecutionWorkerEntity execution(String type, long duree, String resultat) {
+        return new ExecutionWorkerEntity("RapportWorker", type, 0, duree, duree,
+                duree / 10, 12, 0, resultat,
+                ExecutionWorkerEntity.SUCCES.equals(resultat) ? null : "java.lang.IllegalStateException");
+    }
+}